@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A {@link Reservoir} with a fixed capacity. When a value is {@linkplain #accept accepted} while
+ * the reservoir is full, the {@link OverflowPolicy} given at creation time decides what happens.
+ *
+ * <p>In addition to dequeuing one value per {@link #get}, a consumer can move all (or up to a
+ * given number of) currently available values into a {@link Receiver} with {@link #drainTo}, so a
+ * single update can be used to process a batch of values. The update contract is the same as
+ * {@link Reservoir}: the registered {@link Updatable}s are updated when a value becomes available
+ * while the reservoir was empty, or when a dequeuing call leaves values behind.
+ *
+ * <p>The occupancy methods ({@link #size}, {@link #highWaterMark}, {@link #droppedCount}) are
+ * snapshots meant for monitoring; they are not synchronized with concurrent producers.
+ *
+ * 有界水库
+ * 容量固定，满了以后按 OverflowPolicy 处理
+ * 支持 drainTo 批量取出数据，以及 占用率 统计
+ */
+public interface BoundedReservoir<T> extends Reservoir<T> {
+
+    /**
+     * What to do with a value accepted while the reservoir is full.
+     *
+     * 水库满了以后的处理策略
+     */
+    enum OverflowPolicy {
+        /**
+         * Blocks the producing thread until the consumer frees a slot. Never use this policy if
+         * values are accepted on the same thread that consumes them.
+         *
+         * 阻塞生产者线程，直到有空位
+         */
+        BLOCK,
+        /**
+         * Discards the oldest value in the reservoir to make room for the new one.
+         *
+         * 丢弃最旧的数据
+         */
+        DROP_OLDEST,
+        /**
+         * Discards the value being accepted.
+         *
+         * 丢弃新来的数据
+         */
+        DROP_NEWEST
+    }
+
+
+    /**
+     * Dequeues all currently available values, in order, into the given {@code receiver}.
+     *
+     * 取出当前所有数据
+     *
+     * @return the number of values dequeued
+     */
+    int drainTo(@NonNull Receiver<? super T> receiver);
+
+
+    /**
+     * Dequeues at most {@code maxValues} currently available values, in order, into the given
+     * {@code receiver}.
+     *
+     * 最多取出 maxValues 个数据
+     *
+     * @return the number of values dequeued
+     */
+    int drainTo(@NonNull Receiver<? super T> receiver, int maxValues);
+
+
+    /**
+     * Returns the maximum number of values this reservoir can hold.
+     *
+     * 容量
+     */
+    int capacity();
+
+
+    /**
+     * Returns the number of values currently held by this reservoir.
+     *
+     * 当前数据个数
+     */
+    int size();
+
+
+    /**
+     * Returns the largest {@link #size} observed since this reservoir was created.
+     *
+     * 历史最大数据个数
+     */
+    int highWaterMark();
+
+
+    /**
+     * Returns the number of values discarded by the {@link OverflowPolicy#DROP_OLDEST} or
+     * {@link OverflowPolicy#DROP_NEWEST} policies since this reservoir was created.
+     *
+     * 被丢弃的数据个数
+     */
+    long droppedCount();
+}
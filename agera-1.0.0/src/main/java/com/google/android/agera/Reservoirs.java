@@ -18,10 +18,14 @@ package com.google.android.agera;
 import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import com.google.android.agera.BoundedReservoir.OverflowPolicy;
 import java.util.ArrayDeque;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static com.google.android.agera.Preconditions.checkArgument;
 import static com.google.android.agera.Preconditions.checkNotNull;
 import static com.google.android.agera.Result.absentIfNull;
 
@@ -100,6 +104,23 @@ public final class Reservoirs {
     }
 
 
+    /**
+     * Returns a {@link BoundedReservoir} holding at most {@code capacity} values, backed by a
+     * lock-free ring buffer. Values are dequeued in FIFO order; when the reservoir is full, the
+     * given {@code overflowPolicy} decides whether the producer blocks, the oldest value is
+     * dropped, or the new value is dropped.
+     *
+     * 构造一个 有界水库
+     * 底层是无锁的环形队列，满了以后按 overflowPolicy 处理
+     */
+    @NonNull
+    public static <T> BoundedReservoir<T> boundedReservoir(final int capacity,
+                                                           @NonNull
+                                                           final OverflowPolicy overflowPolicy) {
+        return new RingBufferReservoir<>(capacity, checkNotNull(overflowPolicy));
+    }
+
+
     /**
      * 同步水库
      *
@@ -199,6 +220,212 @@ public final class Reservoirs {
     }
 
 
+    /**
+     * 有界水库
+     *
+     * @param <T> 水库数据类型
+     */
+    private static final class RingBufferReservoir<T> extends BaseObservable
+        implements BoundedReservoir<T> {
+
+        /*
+         * BLOCK 策略下，生产者单次等待的最长时间
+         */
+        private static final long BLOCK_WAIT_MILLIS = 10;
+
+        @NonNull
+        private final RingBuffer<T> buffer;
+        @NonNull
+        private final OverflowPolicy overflowPolicy;
+        /*
+         * BLOCK 策略下，生产者等待空位用的锁
+         */
+        @NonNull
+        private final Object notFull = new Object();
+        /*
+         * 正在等待空位的生产者个数
+         * 只在 notFull 锁内修改
+         */
+        private volatile int blockedProducers;
+        @NonNull
+        private final AtomicInteger highWaterMark = new AtomicInteger();
+        @NonNull
+        private final AtomicLong droppedCount = new AtomicLong();
+
+
+        private RingBufferReservoir(final int capacity,
+                                    @NonNull final OverflowPolicy overflowPolicy) {
+            this.buffer = new RingBuffer<>(capacity);
+            this.overflowPolicy = overflowPolicy;
+        }
+
+
+        /**
+         * Reservoir 作为一个 Receiver 的特性
+         * 队列满了的话，按 overflowPolicy 处理
+         *
+         * @param value 要接收的数据
+         */
+        @Override
+        public void accept(@NonNull final T value) {
+            checkNotNull(value);
+            long position = buffer.offer(value);
+            while (position < 0) {
+                switch (overflowPolicy) {
+                    case DROP_NEWEST:
+                        droppedCount.incrementAndGet();
+                        return;
+                    case DROP_OLDEST:
+                        if (buffer.poll() != null) {
+                            droppedCount.incrementAndGet();
+                        }
+                        position = buffer.offer(value);
+                        break;
+                    default:
+                        position = offerBlocking(value);
+                        if (position < 0) {
+                            return;
+                        }
+                        break;
+                }
+            }
+            updateHighWaterMark();
+            /*
+             * 放入的数据 正好是下一个要出队的数据
+             * 说明放入前 队列为空，通知观察者
+             */
+            if (position == buffer.dequeuePosition()) {
+                dispatchUpdate();
+            }
+        }
+
+
+        /**
+         * 阻塞等待空位
+         *
+         * @return 放入的位置，线程被中断的话（数据被丢弃）返回 -1
+         */
+        private long offerBlocking(@NonNull final T value) {
+            synchronized (notFull) {
+                blockedProducers++;
+                try {
+                    long position;
+                    while ((position = buffer.offer(value)) < 0) {
+                        notFull.wait(BLOCK_WAIT_MILLIS);
+                    }
+                    return position;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCount.incrementAndGet();
+                    return -1;
+                } finally {
+                    blockedProducers--;
+                }
+            }
+        }
+
+
+        /**
+         * Reservoir 作为一个 Repository 的特性
+         *
+         * @return 存储的数据
+         */
+        @NonNull
+        @Override
+        public Result<T> get() {
+            final T nullableValue = buffer.poll();
+            afterDequeue(nullableValue != null);
+            return absentIfNull(nullableValue);
+        }
+
+
+        @Override
+        public int drainTo(@NonNull final Receiver<? super T> receiver) {
+            return drainTo(receiver, Integer.MAX_VALUE);
+        }
+
+
+        @Override
+        public int drainTo(@NonNull final Receiver<? super T> receiver, final int maxValues) {
+            checkNotNull(receiver);
+            checkArgument(maxValues >= 0, "maxValues must not be negative");
+            int drained = 0;
+            T value;
+            while (drained < maxValues && (value = buffer.poll()) != null) {
+                receiver.accept(value);
+                drained++;
+            }
+            afterDequeue(drained > 0);
+            return drained;
+        }
+
+
+        /**
+         * 出队后
+         * 1. 唤醒等待中的生产者
+         * 2. 队列还有数据的话，通知观察者
+         */
+        private void afterDequeue(final boolean dequeued) {
+            if (dequeued && blockedProducers > 0) {
+                synchronized (notFull) {
+                    notFull.notifyAll();
+                }
+            }
+            if (!buffer.isEmpty()) {
+                dispatchUpdate();
+            }
+        }
+
+
+        private void updateHighWaterMark() {
+            final int size = buffer.size();
+            int mark;
+            while (size > (mark = highWaterMark.get())) {
+                if (highWaterMark.compareAndSet(mark, size)) {
+                    return;
+                }
+            }
+        }
+
+
+        @Override
+        public int capacity() {
+            return buffer.capacity();
+        }
+
+
+        @Override
+        public int size() {
+            return buffer.size();
+        }
+
+
+        @Override
+        public int highWaterMark() {
+            return highWaterMark.get();
+        }
+
+
+        @Override
+        public long droppedCount() {
+            return droppedCount.get();
+        }
+
+
+        /**
+         * 观察者被激活时
+         * 队列内如果还有数据
+         * 通知观察者
+         */
+        @Override
+        protected void observableActivated() {
+            if (!buffer.isEmpty()) {
+                dispatchUpdate();
+            }
+        }
+    }
+
+
     /**
      * 屏蔽默认的构造方法
      */
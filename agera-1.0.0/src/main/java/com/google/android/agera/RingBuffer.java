@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.android.agera.Preconditions.checkArgument;
+
+/**
+ * A lock-free bounded FIFO queue supporting multiple producers and multiple consumers, based on
+ * per-slot sequence numbers (Dmitry Vyukov's bounded queue). Consumers are usually a single looper
+ * thread, but producers may also dequeue when the reservoir drops its oldest value, so both ends
+ * are safe for concurrent use.
+ *
+ * 无锁的有界环形队列
+ * 每个槽位有一个序号，生产者和消费者通过 CAS 抢占位置
+ */
+final class RingBuffer<T> {
+
+    /*
+     * 容量
+     */
+    private final int capacity;
+    /*
+     * 存放数据的槽位
+     */
+    @NonNull
+    private final AtomicReferenceArray<T> slots;
+    /*
+     * 每个槽位的序号
+     * 序号 == 入队位置 * 2，表示槽位空闲，可以写入
+     * 序号 == 入队位置 * 2 + 1，表示槽位已写入，可以读取
+     * 乘 2 是为了容量为 1 时，已写入 和 下一圈空闲 的序号不会相同
+     */
+    @NonNull
+    private final AtomicLongArray sequences;
+    /*
+     * 下一个入队位置
+     */
+    @NonNull
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    /*
+     * 下一个出队位置
+     */
+    @NonNull
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+
+    RingBuffer(final int capacity) {
+        checkArgument(capacity > 0, "Capacity must be positive");
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int index = 0; index < capacity; index++) {
+            sequences.set(index, 2L * index);
+        }
+    }
+
+
+    /**
+     * Enqueues the value if there is a free slot.
+     *
+     * @return the position the value was enqueued at, or {@code -1} if the queue is full
+     */
+    long offer(@NonNull final T value) {
+        while (true) {
+            final long position = enqueuePosition.get();
+            final int index = (int) (position % capacity);
+            final long difference = sequences.get(index) - 2 * position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    slots.set(index, value);
+                    sequences.set(index, 2 * position + 1);
+                    return position;
+                }
+            } else if (difference < 0) {
+                return -1;
+            }
+        }
+    }
+
+
+    /**
+     * Dequeues the oldest published value.
+     *
+     * @return the value, or {@code null} if there is none
+     */
+    @Nullable
+    T poll() {
+        while (true) {
+            final long position = dequeuePosition.get();
+            final int index = (int) (position % capacity);
+            final long difference = sequences.get(index) - (2 * position + 1);
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    final T value = slots.get(index);
+                    slots.set(index, null);
+                    sequences.set(index, 2 * (position + capacity));
+                    return value;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the position the next value will be dequeued from.
+     */
+    long dequeuePosition() {
+        return dequeuePosition.get();
+    }
+
+
+    int capacity() {
+        return capacity;
+    }
+
+
+    /**
+     * 当前数据个数的快照
+     */
+    int size() {
+        while (true) {
+            final long dequeued = dequeuePosition.get();
+            final long enqueued = enqueuePosition.get();
+            // 两次读取之间 出队位置没变，结果才可信
+            if (dequeued == dequeuePosition.get()) {
+                return (int) Math.max(0, Math.min(capacity, enqueued - dequeued));
+            }
+        }
+    }
+
+
+    boolean isEmpty() {
+        return enqueuePosition.get() == dequeuePosition.get();
+    }
+}
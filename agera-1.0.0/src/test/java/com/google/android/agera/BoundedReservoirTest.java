@@ -0,0 +1,326 @@
+/*
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.google.android.agera.BoundedReservoir.OverflowPolicy.BLOCK;
+import static com.google.android.agera.BoundedReservoir.OverflowPolicy.DROP_NEWEST;
+import static com.google.android.agera.BoundedReservoir.OverflowPolicy.DROP_OLDEST;
+import static com.google.android.agera.Reservoirs.boundedReservoir;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 有界水库 需要在 Looper 线程上创建，所以用 Robolectric 跑
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class BoundedReservoirTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int VALUES_PER_PRODUCER = 10000;
+    private static final long TIMEOUT_MILLIS = 30000;
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveCapacity() {
+        boundedReservoir(0, BLOCK);
+    }
+
+
+    @Test
+    public void shouldDropNewestValueWhenFull() {
+        final BoundedReservoir<Integer> reservoir = boundedReservoir(2, DROP_NEWEST);
+
+        reservoir.accept(1);
+        reservoir.accept(2);
+        reservoir.accept(3);
+
+        assertEquals(1L, reservoir.droppedCount());
+        assertEquals(asList(1, 2), drain(reservoir));
+    }
+
+
+    @Test
+    public void shouldDropOldestValueWhenFull() {
+        final BoundedReservoir<Integer> reservoir = boundedReservoir(2, DROP_OLDEST);
+
+        reservoir.accept(1);
+        reservoir.accept(2);
+        reservoir.accept(3);
+        reservoir.accept(4);
+
+        assertEquals(2L, reservoir.droppedCount());
+        assertEquals(asList(3, 4), drain(reservoir));
+    }
+
+
+    @Test
+    public void shouldBlockProducerUntilValueIsDequeued() throws InterruptedException {
+        final BoundedReservoir<Integer> reservoir = boundedReservoir(1, BLOCK);
+        reservoir.accept(1);
+        final Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                reservoir.accept(2);
+            }
+        });
+
+        producer.start();
+        awaitBlocked(producer);
+        assertEquals(1, reservoir.size());
+
+        assertEquals(Integer.valueOf(1), reservoir.get().get());
+        producer.join(TIMEOUT_MILLIS);
+
+        assertFalse(producer.isAlive());
+        assertEquals(asList(2), drain(reservoir));
+        assertEquals(0L, reservoir.droppedCount());
+    }
+
+
+    @Test
+    public void shouldDropValueOfInterruptedBlockedProducer() throws InterruptedException {
+        final BoundedReservoir<Integer> reservoir = boundedReservoir(1, BLOCK);
+        reservoir.accept(1);
+        final Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                reservoir.accept(2);
+            }
+        });
+
+        producer.start();
+        awaitBlocked(producer);
+        producer.interrupt();
+        producer.join(TIMEOUT_MILLIS);
+
+        assertFalse(producer.isAlive());
+        assertEquals(1L, reservoir.droppedCount());
+        assertEquals(asList(1), drain(reservoir));
+    }
+
+
+    @Test
+    public void shouldKeepFifoOrderAcrossWrapAround() {
+        final BoundedReservoir<Integer> reservoir = boundedReservoir(3, BLOCK);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 10; round++) {
+            reservoir.accept(next++);
+            reservoir.accept(next++);
+            reservoir.accept(next++);
+            assertEquals(3, reservoir.size());
+            for (final int value : drain(reservoir)) {
+                assertEquals(expected++, value);
+            }
+        }
+        assertEquals(30, expected);
+        assertEquals(0L, reservoir.droppedCount());
+    }
+
+
+    @Test
+    public void shouldDrainAtMostMaxValues() {
+        final BoundedReservoir<Integer> reservoir = boundedReservoir(5, BLOCK);
+        for (int value = 1; value <= 5; value++) {
+            reservoir.accept(value);
+        }
+        final ListReceiver receiver = new ListReceiver();
+
+        assertEquals(0, reservoir.drainTo(receiver, 0));
+        assertEquals(2, reservoir.drainTo(receiver, 2));
+        assertEquals(asList(1, 2), receiver.values);
+        assertEquals(3, reservoir.size());
+
+        assertEquals(3, reservoir.drainTo(receiver, 10));
+        assertEquals(asList(1, 2, 3, 4, 5), receiver.values);
+        assertEquals(0, reservoir.drainTo(receiver));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeMaxValues() {
+        Reservoirs.<Integer>boundedReservoir(1, BLOCK).drainTo(new ListReceiver(), -1);
+    }
+
+
+    @Test
+    public void shouldReportMetrics() {
+        final BoundedReservoir<Integer> reservoir = boundedReservoir(3, DROP_NEWEST);
+        assertEquals(3, reservoir.capacity());
+        assertEquals(0, reservoir.size());
+        assertEquals(0, reservoir.highWaterMark());
+
+        reservoir.accept(1);
+        reservoir.accept(2);
+        assertEquals(2, reservoir.size());
+        assertEquals(2, reservoir.highWaterMark());
+
+        reservoir.get();
+        reservoir.accept(3);
+        reservoir.accept(4);
+        reservoir.accept(5);
+        assertEquals(3, reservoir.size());
+        assertEquals(3, reservoir.highWaterMark());
+        assertEquals(1L, reservoir.droppedCount());
+
+        drain(reservoir);
+        // 高水位只增不减
+        assertEquals(0, reservoir.size());
+        assertEquals(3, reservoir.highWaterMark());
+        assertEquals(3, reservoir.capacity());
+    }
+
+
+    @Test
+    public void shouldNotLoseOrDuplicateValuesWithBlockedProducers() throws InterruptedException {
+        final BoundedReservoir<Integer> reservoir = boundedReservoir(16, BLOCK);
+        final int total = PRODUCERS * VALUES_PER_PRODUCER;
+        final AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        final Thread[] producers = startProducers(reservoir);
+
+        final ListReceiver receiver = new ListReceiver();
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (receiver.values.size() < total && System.currentTimeMillis() < deadline) {
+            reservoir.drainTo(receiver, 8);
+        }
+        joinAll(producers);
+
+        for (final int value : receiver.values) {
+            seen.incrementAndGet(value);
+        }
+        for (int value = 0; value < total; value++) {
+            assertEquals("value " + value, 1, seen.get(value));
+        }
+        assertEquals(0L, reservoir.droppedCount());
+        assertTrue(reservoir.highWaterMark() <= reservoir.capacity());
+    }
+
+
+    @Test
+    public void shouldCountEveryDroppedValueWithConcurrentProducers()
+        throws InterruptedException {
+        final BoundedReservoir<Integer> reservoir = boundedReservoir(16, DROP_OLDEST);
+        final int total = PRODUCERS * VALUES_PER_PRODUCER;
+        final AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        final Thread[] producers = startProducers(reservoir);
+
+        final ListReceiver receiver = new ListReceiver();
+        while (anyAlive(producers)) {
+            reservoir.drainTo(receiver, 8);
+        }
+        joinAll(producers);
+        reservoir.drainTo(receiver);
+
+        for (final int value : receiver.values) {
+            seen.incrementAndGet(value);
+        }
+        for (int value = 0; value < total; value++) {
+            assertTrue("value " + value, seen.get(value) <= 1);
+        }
+        // 没收到的数据 都被计入了 droppedCount
+        assertEquals(total, receiver.values.size() + reservoir.droppedCount());
+    }
+
+
+    @NonNull
+    private static List<Integer> drain(@NonNull final BoundedReservoir<Integer> reservoir) {
+        final ListReceiver receiver = new ListReceiver();
+        reservoir.drainTo(receiver);
+        return receiver.values;
+    }
+
+
+    @NonNull
+    private static Thread[] startProducers(@NonNull final BoundedReservoir<Integer> reservoir) {
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] producers = new Thread[PRODUCERS];
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            final int first = producer * VALUES_PER_PRODUCER;
+            producers[producer] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int value = first; value < first + VALUES_PER_PRODUCER; value++) {
+                        reservoir.accept(value);
+                    }
+                }
+            });
+            producers[producer].start();
+        }
+        start.countDown();
+        return producers;
+    }
+
+
+    private static boolean anyAlive(@NonNull final Thread[] threads) {
+        for (final Thread thread : threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private static void joinAll(@NonNull final Thread[] threads) throws InterruptedException {
+        for (final Thread thread : threads) {
+            thread.join(TIMEOUT_MILLIS);
+            assertFalse(thread.isAlive());
+        }
+    }
+
+
+    /**
+     * 等生产者 在 notFull 上等待
+     */
+    private static void awaitBlocked(@NonNull final Thread thread) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (thread.getState() != Thread.State.TIMED_WAITING &&
+            System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.TIMED_WAITING, thread.getState());
+    }
+
+
+    private static final class ListReceiver implements Receiver<Integer> {
+
+        final List<Integer> values = new ArrayList<>();
+
+
+        @Override
+        public void accept(@NonNull final Integer value) {
+            values.add(value);
+        }
+    }
+}
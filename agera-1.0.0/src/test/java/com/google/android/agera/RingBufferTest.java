@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 2;
+    private static final int VALUES_PER_PRODUCER = 20000;
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveCapacity() {
+        new RingBuffer<Integer>(0);
+    }
+
+
+    @Test
+    public void shouldRejectOfferWhenFull() {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(3);
+
+        assertEquals(0, buffer.offer(1));
+        assertEquals(1, buffer.offer(2));
+        assertEquals(2, buffer.offer(3));
+        assertEquals(-1, buffer.offer(4));
+        assertEquals(3, buffer.size());
+    }
+
+
+    @Test
+    public void shouldHoldOneValueWithCapacityOne() {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(1);
+
+        assertEquals(0, buffer.offer(1));
+        assertEquals(-1, buffer.offer(2));
+        assertEquals(Integer.valueOf(1), buffer.poll());
+        assertNull(buffer.poll());
+        assertEquals(1, buffer.offer(3));
+        assertEquals(-1, buffer.offer(4));
+        assertEquals(Integer.valueOf(3), buffer.poll());
+    }
+
+
+    @Test
+    public void shouldPollInFifoOrder() {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        buffer.offer(1);
+        buffer.offer(2);
+        buffer.offer(3);
+
+        assertEquals(Integer.valueOf(1), buffer.poll());
+        assertEquals(Integer.valueOf(2), buffer.poll());
+        assertEquals(Integer.valueOf(3), buffer.poll());
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+
+    @Test
+    public void shouldWrapAroundCapacity() {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 10; round++) {
+            assertEquals(next, buffer.offer(next++));
+            assertEquals(next, buffer.offer(next++));
+            assertEquals(2, buffer.size());
+            assertEquals(Integer.valueOf(expected++), buffer.poll());
+            assertEquals(Integer.valueOf(expected++), buffer.poll());
+            assertEquals(expected, buffer.dequeuePosition());
+        }
+
+        // 转了好几圈，位置已经远超容量
+        assertEquals(20, buffer.dequeuePosition());
+        assertTrue(buffer.isEmpty());
+        while (buffer.offer(next) >= 0) {
+            next++;
+        }
+        assertEquals(3, buffer.size());
+        while (!buffer.isEmpty()) {
+            assertEquals(Integer.valueOf(expected++), buffer.poll());
+        }
+        assertEquals(next, expected);
+    }
+
+
+    @Test
+    public void shouldNotLoseOrDuplicateValuesWithConcurrentProducersAndConsumers()
+        throws InterruptedException {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(16);
+        final int total = PRODUCERS * VALUES_PER_PRODUCER;
+        final AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        final AtomicInteger consumed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[PRODUCERS + CONSUMERS];
+
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            final int first = producer * VALUES_PER_PRODUCER;
+            threads[producer] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    awaitQuietly(start);
+                    for (int value = first; value < first + VALUES_PER_PRODUCER; value++) {
+                        while (buffer.offer(value) < 0) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+        }
+        for (int consumer = 0; consumer < CONSUMERS; consumer++) {
+            threads[PRODUCERS + consumer] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    awaitQuietly(start);
+                    while (consumed.get() < total) {
+                        final Integer value = buffer.poll();
+                        if (value == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        seen.incrementAndGet(value);
+                        consumed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join(30000);
+            assertFalse(thread.isAlive());
+        }
+
+        for (int value = 0; value < total; value++) {
+            assertEquals("value " + value, 1, seen.get(value));
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
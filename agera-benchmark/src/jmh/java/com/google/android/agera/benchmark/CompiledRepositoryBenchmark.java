@@ -0,0 +1,115 @@
+package com.google.android.agera.benchmark;
+
+import com.google.android.agera.Function;
+import com.google.android.agera.MutableRepository;
+import com.google.android.agera.Repository;
+import com.google.android.agera.Updatable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.google.android.agera.Repositories.mutableRepository;
+import static com.google.android.agera.Repositories.repositoryWithInitialValue;
+
+/**
+ * Flow throughput of {@code CompiledRepository.runFlowFrom}: one source update, one full
+ * data processing flow, one {@link Repository#get()}.
+ *
+ * CompiledRepository 数据流 吞吐量
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledRepositoryBenchmark extends LooperBenchmark {
+
+    private static final Function<Integer, Integer> PLUS_ONE = new Function<Integer, Integer>() {
+        @Override
+        public Integer apply(Integer input) {
+            return input + 1;
+        }
+    };
+
+    /*
+     * 同步执行的 Executor，goTo(...) 不切线程，只走 解释器 的异步分支
+     */
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final Updatable NO_OP_UPDATABLE = new Updatable() {
+        @Override
+        public void update() {}
+    };
+
+    private MutableRepository<Integer> source;
+    private Repository<Integer> syncRepository;
+    private Repository<Integer> goToRepository;
+    private int counter;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        prepareLooper();
+        source = mutableRepository(0);
+        syncRepository = repositoryWithInitialValue(0)
+            .observe(source)
+            .onUpdatesPerLoop()
+            .getFrom(source)
+            .transform(PLUS_ONE)
+            .thenTransform(PLUS_ONE)
+            .compile();
+        goToRepository = repositoryWithInitialValue(0)
+            .observe(source)
+            .onUpdatesPerLoop()
+            .goTo(DIRECT_EXECUTOR)
+            .getFrom(source)
+            .transform(PLUS_ONE)
+            .thenTransform(PLUS_ONE)
+            .compile();
+        syncRepository.addUpdatable(NO_OP_UPDATABLE);
+        goToRepository.addUpdatable(NO_OP_UPDATABLE);
+        runUntilIdle();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        syncRepository.removeUpdatable(NO_OP_UPDATABLE);
+        goToRepository.removeUpdatable(NO_OP_UPDATABLE);
+        runUntilIdle();
+        releaseLooper();
+    }
+
+
+    @Benchmark
+    public int syncFlow() {
+        source.accept(++counter);
+        runUntilIdle();
+        return syncRepository.get();
+    }
+
+
+    @Benchmark
+    public int goToFlow() {
+        source.accept(++counter);
+        runUntilIdle();
+        return goToRepository.get();
+    }
+}
@@ -0,0 +1,95 @@
+package com.google.android.agera.benchmark;
+
+import com.google.android.agera.Function;
+import com.google.android.agera.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.google.android.agera.Functions.functionFrom;
+import static com.google.android.agera.Functions.functionFromListOf;
+
+/**
+ * Cost of functions compiled by {@code FunctionCompiler}: a single item chain and a
+ * filter / map / limit list pipeline.
+ *
+ * FunctionCompiler 编译出来的 Function 的执行开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FunctionCompilerBenchmark {
+
+    private static final Function<Integer, Integer> SQUARE = new Function<Integer, Integer>() {
+        @Override
+        public Integer apply(Integer input) {
+            return input * input;
+        }
+    };
+
+    private static final Function<Integer, String> TO_STRING = new Function<Integer, String>() {
+        @Override
+        public String apply(Integer input) {
+            return String.valueOf(input);
+        }
+    };
+
+    private static final Predicate<Integer> EVEN = new Predicate<Integer>() {
+        @Override
+        public boolean apply(Integer value) {
+            return (value & 1) == 0;
+        }
+    };
+
+    @Param({ "10", "1000" })
+    public int listSize;
+
+    private List<Integer> input;
+    private Function<Integer, String> itemFunction;
+    private Function<List<Integer>, List<Integer>> listFunction;
+    private int counter;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        input = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            input.add(i);
+        }
+        itemFunction = functionFrom(Integer.class)
+            .apply(SQUARE)
+            .apply(SQUARE)
+            .thenApply(TO_STRING);
+        listFunction = functionFromListOf(Integer.class)
+            .filter(EVEN)
+            .map(SQUARE)
+            .thenLimit(listSize / 4);
+    }
+
+
+    @Benchmark
+    public String itemChain() {
+        return itemFunction.apply(++counter & 0xff);
+    }
+
+
+    @Benchmark
+    public List<Integer> listPipeline() {
+        return listFunction.apply(input);
+    }
+}
@@ -0,0 +1,38 @@
+package com.google.android.agera.benchmark;
+
+import android.os.Looper;
+
+/**
+ * Base class of the benchmarks that need a {@link Looper} on the benchmark thread. Agera objects
+ * can only be created on a looper thread, and their messages are pumped synchronously with
+ * {@link #runUntilIdle()}.
+ *
+ * <p>Subclasses call {@link #prepareLooper()} and {@link #releaseLooper()} from their own trial
+ * level setup and tear down, so the looper lives on the same thread as the benchmark.
+ *
+ * 在 benchmark 线程上准备一个 假 Looper
+ */
+abstract class LooperBenchmark {
+
+    private Looper looper;
+
+
+    final void prepareLooper() {
+        Looper.prepare();
+        looper = Looper.myLooper();
+    }
+
+
+    final void releaseLooper() {
+        Looper.release();
+        looper = null;
+    }
+
+
+    /**
+     * 处理所有 已经到时间的 消息
+     */
+    final int runUntilIdle() {
+        return looper.runUntilIdle();
+    }
+}
@@ -0,0 +1,51 @@
+package com.google.android.agera.benchmark;
+
+import com.google.android.agera.Function;
+import com.google.android.agera.Result;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of wrapping values in {@link Result} and mapping over them, on the success and the absent
+ * paths.
+ *
+ * Result 包装 和 转换 的开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultBenchmark {
+
+    private static final Function<Integer, Integer> PLUS_ONE = new Function<Integer, Integer>() {
+        @Override
+        public Integer apply(Integer input) {
+            return input + 1;
+        }
+    };
+
+    private Integer value = 42;
+    private Integer nullValue = null;
+
+
+    @Benchmark
+    public Integer successMap() {
+        return Result.success(value).ifSucceededMap(PLUS_ONE).orElse(0);
+    }
+
+
+    @Benchmark
+    public Integer absentMap() {
+        return Result.absentIfNull(nullValue).ifSucceededMap(PLUS_ONE).orElse(0);
+    }
+}
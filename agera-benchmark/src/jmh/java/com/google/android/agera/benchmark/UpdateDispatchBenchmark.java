@@ -0,0 +1,84 @@
+package com.google.android.agera.benchmark;
+
+import com.google.android.agera.MutableRepository;
+import com.google.android.agera.Updatable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.google.android.agera.Repositories.mutableRepository;
+
+/**
+ * Fan-out latency of {@code BaseObservable.dispatchUpdate}: the time from a value change until
+ * every registered {@link Updatable} has been called.
+ *
+ * BaseObservable 通知 N 个观察者 的延迟
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateDispatchBenchmark extends LooperBenchmark {
+
+    @Param({ "1", "10", "100" })
+    public int updatableCount;
+
+    private MutableRepository<Integer> repository;
+    private CountingUpdatable[] updatables;
+    private int counter;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        prepareLooper();
+        repository = mutableRepository(0);
+        updatables = new CountingUpdatable[updatableCount];
+        for (int i = 0; i < updatableCount; i++) {
+            updatables[i] = new CountingUpdatable();
+            repository.addUpdatable(updatables[i]);
+        }
+        runUntilIdle();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (CountingUpdatable updatable : updatables) {
+            repository.removeUpdatable(updatable);
+        }
+        runUntilIdle();
+        releaseLooper();
+    }
+
+
+    @Benchmark
+    public int fanOut() {
+        repository.accept(++counter);
+        return runUntilIdle();
+    }
+
+
+    private static final class CountingUpdatable implements Updatable {
+
+        int updates;
+
+
+        @Override
+        public void update() {
+            updates++;
+        }
+    }
+}
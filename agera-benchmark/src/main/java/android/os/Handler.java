@@ -0,0 +1,64 @@
+package android.os;
+
+/**
+ * JVM stand-in for {@code android.os.Handler}, only what agera needs.
+ *
+ * 假 Handler
+ */
+public class Handler {
+
+    private final Looper looper;
+
+
+    public Handler() {
+        this(Looper.myLooper());
+    }
+
+
+    public Handler(final Looper looper) {
+        if (looper == null) {
+            throw new RuntimeException(
+                "Can't create handler inside thread that has not called Looper.prepare()");
+        }
+        this.looper = looper;
+    }
+
+
+    public void handleMessage(final Message message) {}
+
+
+    public final Message obtainMessage(final int what, final Object object) {
+        final Message message = Message.obtain();
+        message.target = this;
+        message.what = what;
+        message.obj = object;
+        return message;
+    }
+
+
+    public final boolean sendMessage(final Message message) {
+        return sendMessageDelayed(message, 0);
+    }
+
+
+    public final boolean sendMessageDelayed(final Message message, final long delayMillis) {
+        message.target = this;
+        looper.enqueue(message, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+        return true;
+    }
+
+
+    public final boolean hasMessages(final int what, final Object object) {
+        return looper.hasMessages(this, what, object);
+    }
+
+
+    public final void removeMessages(final int what, final Object object) {
+        looper.removeMessages(this, what, object);
+    }
+
+
+    public final Looper getLooper() {
+        return looper;
+    }
+}
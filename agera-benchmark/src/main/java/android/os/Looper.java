@@ -0,0 +1,194 @@
+package android.os;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * JVM stand-in for {@code android.os.Looper}.
+ *
+ * <p>Besides {@link #prepare()}, {@link #myLooper()}, {@link #loop()} and {@link #quit()}, it
+ * offers {@link #runUntilIdle()} so a benchmark thread can pump its own queue synchronously.
+ *
+ * 假 Looper
+ * 消息按 when 和 发送顺序 排列，benchmark 线程可以调用 runUntilIdle() 自己处理消息
+ */
+public final class Looper {
+
+    private static final ThreadLocal<Looper> looper = new ThreadLocal<>();
+
+    private final Thread thread;
+    private final PriorityQueue<Message> queue = new PriorityQueue<>(16,
+        new Comparator<Message>() {
+            @Override
+            public int compare(Message left, Message right) {
+                if (left.when != right.when) {
+                    return left.when < right.when ? -1 : 1;
+                }
+                return left.sequence < right.sequence ? -1 :
+                       (left.sequence == right.sequence ? 0 : 1);
+            }
+        });
+    private long nextSequence;
+    private boolean quitting;
+
+
+    private Looper() {
+        this.thread = Thread.currentThread();
+    }
+
+
+    public static void prepare() {
+        if (looper.get() != null) {
+            throw new RuntimeException("Only one Looper may be created per thread");
+        }
+        looper.set(new Looper());
+    }
+
+
+    public static Looper myLooper() {
+        return looper.get();
+    }
+
+
+    /**
+     * Removes the looper of the current thread, so the next {@link #prepare()} starts clean.
+     *
+     * 不是 framework 的 API，benchmark 收尾用
+     */
+    public static void release() {
+        final Looper current = looper.get();
+        if (current != null) {
+            synchronized (current.queue) {
+                current.queue.clear();
+            }
+            looper.remove();
+        }
+    }
+
+
+    public static void loop() {
+        final Looper current = myLooper();
+        if (current == null) {
+            throw new RuntimeException("No Looper; Looper.prepare() wasn't called on this thread.");
+        }
+        while (true) {
+            final Message message;
+            synchronized (current.queue) {
+                while (!current.quitting && !current.hasDueMessage()) {
+                    final Message head = current.queue.peek();
+                    try {
+                        if (head == null) {
+                            current.queue.wait();
+                        } else {
+                            current.queue.wait(
+                                Math.max(1, head.when - SystemClock.uptimeMillis()));
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (current.quitting) {
+                    return;
+                }
+                message = current.queue.poll();
+            }
+            dispatch(message);
+        }
+    }
+
+
+    /**
+     * Dispatches every message that is due now, including the ones posted while dispatching.
+     * Must be called on the looper thread.
+     *
+     * 处理所有 已经到时间的 消息
+     *
+     * @return the number of dispatched messages
+     */
+    public int runUntilIdle() {
+        if (Thread.currentThread() != thread) {
+            throw new IllegalStateException("runUntilIdle() must be called on the looper thread");
+        }
+        int dispatched = 0;
+        while (true) {
+            final Message message;
+            synchronized (queue) {
+                if (!hasDueMessage()) {
+                    return dispatched;
+                }
+                message = queue.poll();
+            }
+            dispatch(message);
+            dispatched++;
+        }
+    }
+
+
+    public void quit() {
+        synchronized (queue) {
+            quitting = true;
+            queue.notifyAll();
+        }
+    }
+
+
+    public Thread getThread() {
+        return thread;
+    }
+
+
+    private static void dispatch(final Message message) {
+        message.target.handleMessage(message);
+        message.recycle();
+    }
+
+
+    private boolean hasDueMessage() {
+        final Message head = queue.peek();
+        return head != null && head.when <= SystemClock.uptimeMillis();
+    }
+
+
+    void enqueue(final Message message, final long when) {
+        synchronized (queue) {
+            message.when = when;
+            message.sequence = nextSequence++;
+            queue.offer(message);
+            queue.notifyAll();
+        }
+    }
+
+
+    boolean hasMessages(final Handler handler, final int what, final Object object) {
+        synchronized (queue) {
+            for (final Message message : queue) {
+                if (matches(message, handler, what, object)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+
+    void removeMessages(final Handler handler, final int what, final Object object) {
+        synchronized (queue) {
+            final Iterator<Message> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                final Message message = iterator.next();
+                if (matches(message, handler, what, object)) {
+                    iterator.remove();
+                    message.recycle();
+                }
+            }
+        }
+    }
+
+
+    private static boolean matches(final Message message, final Handler handler, final int what,
+                                   final Object object) {
+        return message.target == handler && message.what == what &&
+            (object == null || message.obj == object);
+    }
+}
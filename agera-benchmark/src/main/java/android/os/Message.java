@@ -0,0 +1,68 @@
+package android.os;
+
+/**
+ * JVM stand-in for {@code android.os.Message}.
+ *
+ * <p>Messages are pooled like the framework does, so the allocation numbers reported by the
+ * benchmarks reflect agera rather than the fake looper.
+ *
+ * 假 Message，和 framework 一样带对象池
+ */
+public final class Message {
+
+    private static final int MAX_POOL_SIZE = 50;
+
+    private static final Object POOL_LOCK = new Object();
+    private static Message pool;
+    private static int poolSize = 0;
+
+    public int what;
+    public int arg1;
+    public int arg2;
+    public Object obj;
+
+    Handler target;
+    long when;
+    /*
+     * 同一时刻的消息，按发送顺序执行
+     */
+    long sequence;
+    Message next;
+
+
+    public static Message obtain() {
+        synchronized (POOL_LOCK) {
+            if (pool != null) {
+                final Message message = pool;
+                pool = message.next;
+                message.next = null;
+                poolSize--;
+                return message;
+            }
+        }
+        return new Message();
+    }
+
+
+    public void sendToTarget() {
+        target.sendMessage(this);
+    }
+
+
+    void recycle() {
+        what = 0;
+        arg1 = 0;
+        arg2 = 0;
+        obj = null;
+        target = null;
+        when = 0;
+        sequence = 0;
+        synchronized (POOL_LOCK) {
+            if (poolSize < MAX_POOL_SIZE) {
+                next = pool;
+                pool = this;
+                poolSize++;
+            }
+        }
+    }
+}
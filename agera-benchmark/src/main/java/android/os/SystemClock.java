@@ -0,0 +1,21 @@
+package android.os;
+
+/**
+ * JVM stand-in for {@code android.os.SystemClock}, only what agera needs.
+ *
+ * 基于 System.nanoTime() 的 假 SystemClock
+ */
+public final class SystemClock {
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1000000L;
+    }
+
+
+    public static long uptimeMillis() {
+        return System.nanoTime() / 1000000L;
+    }
+
+
+    private SystemClock() {}
+}
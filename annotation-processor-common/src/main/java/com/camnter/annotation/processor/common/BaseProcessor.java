@@ -1,14 +1,23 @@
-package com.camnter.smartsave.compiler.core;
+package com.camnter.annotation.processor.common;
 
+import com.camnter.annotation.processor.common.symbol.RSymbols;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
 import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
 
 /**
+ * 各个 compiler module 共用的 Processor 基类
+ *
+ * 1.初始化 Filer、Elements、Types、Messager
+ * 2.e, i, w 日志
+ * 3.getRSymbols() 拿到本次编译共用的 R symbol 表
+ *
  * @author CaMnter
  */
 
@@ -18,6 +27,7 @@ public abstract class BaseProcessor extends AbstractProcessor {
 
     protected Filer filer;
     protected Elements elements;
+    protected Types types;
     protected Messager messager;
 
 
@@ -27,6 +37,7 @@ public abstract class BaseProcessor extends AbstractProcessor {
         this.processingEnvironment = processingEnvironment;
         this.filer = processingEnvironment.getFiler();
         this.elements = processingEnvironment.getElementUtils();
+        this.types = processingEnvironment.getTypeUtils();
         this.messager = processingEnvironment.getMessager();
     }
 
@@ -37,6 +48,24 @@ public abstract class BaseProcessor extends AbstractProcessor {
     }
 
 
+    /**
+     * 同一次编译内，所有 Processor 的 RSymbols 共用同一份 R symbol 表
+     *
+     * @return RSymbols
+     */
+    protected RSymbols getRSymbols() {
+        return RSymbols.get(this.processingEnvironment);
+    }
+
+
+    protected String getPackageName(Element element) {
+        return this.elements
+            .getPackageOf(element)
+            .getQualifiedName()
+            .toString();
+    }
+
+
     public void e(String messageFormat, Object... args) {
         this.messager.printMessage(Diagnostic.Kind.ERROR, String.format(messageFormat, args));
     }
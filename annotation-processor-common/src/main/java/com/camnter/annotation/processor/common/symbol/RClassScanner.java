@@ -0,0 +1,40 @@
+package com.camnter.annotation.processor.common.symbol;
+
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeScanner;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 注解树里的 R class 扫描
+ *
+ * R.id.foo 或 R2.id.foo 这样的引用，记下外层 R class 的全名
+ * 只扫描注解树，不扫描 R class 本身
+ *
+ * @author CaMnter
+ */
+
+class RClassScanner extends TreeScanner {
+
+    private final Set<String> rClasses = new LinkedHashSet<>();
+
+
+    @Override
+    public void visitSelect(JCTree.JCFieldAccess jcFieldAccess) {
+        Symbol symbol = jcFieldAccess.sym;
+        if (symbol instanceof Symbol.VarSymbol
+            && symbol.getEnclosingElement() != null
+            && symbol.getEnclosingElement().getEnclosingElement() != null
+            && symbol.getEnclosingElement().getEnclosingElement().enclClass() != null) {
+            this.rClasses.add(
+                symbol.getEnclosingElement().getEnclosingElement().enclClass().className());
+        }
+    }
+
+
+    Set<String> getRClasses() {
+        return this.rClasses;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.camnter.annotation.processor.common.symbol;
+
+/**
+ * R class 内的一个资源 id
+ *
+ * 比如 com.camnter.app.R.id.title：
+ * packageName = com.camnter.app
+ * type = id
+ * name = title
+ *
+ * 引用的是 R2 时，packageName 依然是 R2 所在的 package，生成代码时统一用 R
+ * 不依赖 JavaPoet，各个 compiler 自己拼 CodeBlock
+ *
+ * @author CaMnter
+ */
+
+public final class RSymbol {
+
+    private static final String ANDROID_PACKAGE_NAME = "android";
+
+    private final String packageName;
+    private final String type;
+    private final String name;
+    private final int value;
+
+
+    RSymbol(String packageName, String type, String name, int value) {
+        this.packageName = packageName;
+        this.type = type;
+        this.name = name;
+        this.value = value;
+    }
+
+
+    public String getPackageName() {
+        return this.packageName;
+    }
+
+
+    public String getType() {
+        return this.type;
+    }
+
+
+    public String getName() {
+        return this.name;
+    }
+
+
+    public int getValue() {
+        return this.value;
+    }
+
+
+    /**
+     * android.R 不能 import，否则会遮住 module 自己的 R
+     * 生成代码时要写全名
+     *
+     * @return 是否 android.R
+     */
+    public boolean isFramework() {
+        return ANDROID_PACKAGE_NAME.equals(this.packageName);
+    }
+
+
+    @Override
+    public String toString() {
+        return this.packageName + ".R." + this.type + "." + this.name;
+    }
+
+}
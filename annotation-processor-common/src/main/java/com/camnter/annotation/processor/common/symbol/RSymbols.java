@@ -0,0 +1,172 @@
+package com.camnter.annotation.processor.common.symbol;
+
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.tree.JCTree;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Elements;
+
+/**
+ * 一次编译共用的 R symbol 表
+ *
+ * 1.同一次编译里，所有 Processor 的 Elements 是同一个，以它为 key 缓存 R symbol 表（ Cache ）
+ * 多个 Processor（ butterknife、smartsave ... ）共用一份，不用各自扫描
+ * Cache 只保存字符串，不引用 Elements 和 Trees，编译结束后 key 和 Cache 都可以被回收
+ * 2.每个 R class 只加载一次：value --> RSymbol，之后 O(1) 查找
+ * 加载直接读 VariableElement 的常量值，源码和已编译的 R 都一样，不需要扫描 R 的 JCTree
+ * 3.元素只扫描自己的注解树，找到它引用的 R class，结果也缓存下来
+ * 所以一个元素只会解析到它自己引用的 R，不会因为别的类引用了 R 而改变
+ *
+ * @author CaMnter
+ */
+
+public final class RSymbols {
+
+    static final List<String> SUPPORTED_TYPES = Arrays.asList(
+        "array", "attr", "bool", "color", "dimen", "drawable", "id", "integer", "string"
+    );
+
+    private static final Map<Elements, Cache> CACHES = new WeakHashMap<>();
+
+    private final Elements elements;
+    private Trees trees;
+    private final Cache cache;
+
+
+    private RSymbols(ProcessingEnvironment processingEnvironment, Cache cache) {
+        this.elements = processingEnvironment.getElementUtils();
+        try {
+            this.trees = Trees.instance(processingEnvironment);
+        } catch (IllegalArgumentException ignored) {
+        }
+        this.cache = cache;
+    }
+
+
+    public static RSymbols get(ProcessingEnvironment processingEnvironment) {
+        final Elements elements = processingEnvironment.getElementUtils();
+        Cache cache;
+        synchronized (CACHES) {
+            cache = CACHES.get(elements);
+            if (cache == null) {
+                cache = new Cache();
+                CACHES.put(elements, cache);
+            }
+        }
+        return new RSymbols(processingEnvironment, cache);
+    }
+
+
+    /**
+     * 根据元素注解里引用的 R class，查找 value 对应的 RSymbol
+     *
+     * @param element 被注解元素
+     * @param value 注解里的 id 值
+     * @return RSymbol，找不到（ 字面量、拿不到注解树 ）返回 null
+     */
+    public RSymbol resolve(Element element, int value) {
+        synchronized (this.cache) {
+            for (String rClass : this.getReferencedRClasses(element)) {
+                final RSymbol symbol = this.getTable(rClass).get(value);
+                if (symbol != null) {
+                    return symbol;
+                }
+            }
+            return null;
+        }
+    }
+
+
+    /**
+     * 扫描元素的注解树，拿到引用的 R class
+     *
+     * @param element 被注解元素
+     * @return R class 全名
+     */
+    private Set<String> getReferencedRClasses(Element element) {
+        Set<String> rClasses = this.cache.references.get(element);
+        if (rClasses != null) {
+            return rClasses;
+        }
+        if (this.trees == null) {
+            rClasses = Collections.emptySet();
+        } else {
+            final RClassScanner scanner = new RClassScanner();
+            for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+                // tree can be null if the references are compiled types and not source
+                final JCTree tree = (JCTree) this.trees.getTree(element, mirror);
+                if (tree != null) {
+                    tree.accept(scanner);
+                }
+            }
+            rClasses = scanner.getRClasses();
+        }
+        this.cache.references.put(element, rClasses);
+        return rClasses;
+    }
+
+
+    /**
+     * 加载 R class：value --> RSymbol
+     * 每个 R class 只加载一次
+     *
+     * @param rClass R class 全名
+     * @return value --> RSymbol
+     */
+    private Map<Integer, RSymbol> getTable(String rClass) {
+        Map<Integer, RSymbol> table = this.cache.tables.get(rClass);
+        if (table != null) {
+            return table;
+        }
+        table = new HashMap<>();
+        final TypeElement rElement = this.elements.getTypeElement(rClass);
+        if (rElement != null) {
+            final String rPackageName = this.elements.getPackageOf(rElement)
+                .getQualifiedName()
+                .toString();
+            for (Element typeElement : rElement.getEnclosedElements()) {
+                final String type = typeElement.getSimpleName().toString();
+                if (!SUPPORTED_TYPES.contains(type)) continue;
+                for (Element enclosedElement : typeElement.getEnclosedElements()) {
+                    if (!(enclosedElement instanceof VariableElement)) continue;
+                    final Object value = ((VariableElement) enclosedElement).getConstantValue();
+                    if (value instanceof Integer) {
+                        table.put((Integer) value, new RSymbol(rPackageName, type,
+                            enclosedElement.getSimpleName().toString(), (Integer) value));
+                    }
+                }
+            }
+        }
+        this.cache.tables.put(rClass, table);
+        return table;
+    }
+
+
+    /**
+     * 一次编译共用的结果，只有 字符串 和 RSymbol
+     */
+    private static final class Cache {
+
+        /**
+         * R class 全名 --> ( value --> RSymbol )
+         */
+        final Map<String, Map<Integer, RSymbol>> tables = new HashMap<>();
+
+        /**
+         * 被注解元素 --> 注解里引用的 R class
+         */
+        final Map<Element, Set<String>> references = new WeakHashMap<>();
+
+    }
+
+}
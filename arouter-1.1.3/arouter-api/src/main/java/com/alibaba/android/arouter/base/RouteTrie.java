@@ -0,0 +1,209 @@
+package com.alibaba.android.arouter.base;
+
+import java.util.Map;
+
+/**
+ * Segment trie of route patterns, such as "/user/:id" or "/web/*".
+ *
+ * 路由模板的 段 前缀树
+ * 路径按 / 分段，每一段是一个节点，有三种：
+ * 1. 普通段，完全匹配
+ * 2. :name 参数段，匹配任意一段，并以 name 为 key 提取参数
+ * 3. * 通配段，只能是最后一段，匹配剩下的所有段
+ *
+ * 匹配优先级：普通段 > 参数段 > 通配段，匹配失败会回溯
+ * 匹配的耗时只和路径的段数有关；只比较字符区间，不创建子串，传入 params 时才会创建参数值
+ *
+ * 写入加锁，子节点数组写时复制，所以读取（ 匹配 ）不需要加锁
+ */
+public class RouteTrie<V> {
+    private static final char SEPARATOR = '/';
+    private static final char PARAM = ':';
+    private static final String WILDCARD = "*";
+
+    private final Node<V> root = new Node<>("");
+    private volatile int size;
+
+
+    /**
+     * Whether the path contains any ":name" or "*" segment.
+     *
+     * 是否是路由模板
+     *
+     * @param path path
+     * @return true if it is a pattern
+     */
+    public static boolean isPattern(String path) {
+        return null != path && (path.contains("/:") || path.contains("/*"));
+    }
+
+
+    /**
+     * Add a pattern.
+     *
+     * @param pattern route pattern
+     * @param value value of the pattern
+     */
+    public synchronized void insert(String pattern, V value) {
+        Node<V> node = root;
+        int start = nextSegment(pattern, 0);
+        while (start < pattern.length()) {
+            int end = segmentEnd(pattern, start);
+            String segment = pattern.substring(start, end);
+            node = node.child(segment);
+            if (node.wildcard) {
+                break;  // Wildcard must be the last segment.
+            }
+            start = nextSegment(pattern, end);
+        }
+        if (null == node.value) {
+            size++;
+        }
+        node.value = value;
+    }
+
+
+    /**
+     * Match the path.
+     *
+     * @param path path, without query
+     * @param params receive the value of ":name" segments, nullable
+     * @return value of the matched pattern, or null
+     */
+    public V match(String path, Map<String, String> params) {
+        if (null == path || size == 0) {
+            return null;
+        }
+        return match(root, path, nextSegment(path, 0), params);
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    public synchronized void clear() {
+        root.clear();
+        size = 0;
+    }
+
+
+    private V match(Node<V> node, String path, int start, Map<String, String> params) {
+        if (start >= path.length()) {
+            return node.value;
+        }
+        int end = segmentEnd(path, start);
+        int length = end - start;
+        int next = nextSegment(path, end);
+
+        // 普通段
+        Node<V>[] literals = node.literals;
+        for (Node<V> literal : literals) {
+            if (literal.segment.length() == length &&
+                path.regionMatches(start, literal.segment, 0, length)) {
+                V value = match(literal, path, next, params);
+                if (null != value) {
+                    return value;
+                }
+                break;
+            }
+        }
+
+        // 参数段，子节点匹配成功后才提取参数，回溯时不需要清理
+        Node<V> param = node.param;
+        if (null != param) {
+            V value = match(param, path, next, params);
+            if (null != value) {
+                if (null != params) {
+                    params.put(param.segment.substring(1), path.substring(start, end));
+                }
+                return value;
+            }
+        }
+
+        // 通配段
+        Node<V> wildcard = node.wildcardChild;
+        return null == wildcard ? null : wildcard.value;
+    }
+
+
+    private static int nextSegment(String path, int index) {
+        while (index < path.length() && path.charAt(index) == SEPARATOR) {
+            index++;
+        }
+        return index;
+    }
+
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf(SEPARATOR, start);
+        return end < 0 ? path.length() : end;
+    }
+
+
+    private static final class Node<V> {
+        final String segment;
+        final boolean wildcard;
+        @SuppressWarnings("unchecked")
+        volatile Node<V>[] literals = new Node[0];
+        volatile Node<V> param;
+        volatile Node<V> wildcardChild;
+        volatile V value;
+
+
+        Node(String segment) {
+            this.segment = segment;
+            this.wildcard = WILDCARD.equals(segment);
+        }
+
+
+        /**
+         * 获取子节点，不存在就创建；只在写锁内调用
+         */
+        Node<V> child(String segment) {
+            if (WILDCARD.equals(segment)) {
+                if (null == wildcardChild) {
+                    wildcardChild = new Node<>(segment);
+                }
+                return wildcardChild;
+            }
+            if (segment.length() > 1 && segment.charAt(0) == PARAM) {
+                if (null == param) {
+                    param = new Node<>(segment);
+                } else if (!param.segment.equals(segment)) {
+                    throw new IllegalArgumentException(
+                        "Conflict route param [" + segment + "] and [" + param.segment + "]");
+                }
+                return param;
+            }
+            for (Node<V> literal : literals) {
+                if (literal.segment.equals(segment)) {
+                    return literal;
+                }
+            }
+            Node<V>[] old = literals;
+            @SuppressWarnings("unchecked")
+            Node<V>[] copy = new Node[old.length + 1];
+            System.arraycopy(old, 0, copy, 0, old.length);
+            Node<V> child = new Node<>(segment);
+            copy[old.length] = child;
+            literals = copy;
+            return child;
+        }
+
+
+        @SuppressWarnings("unchecked")
+        void clear() {
+            literals = new Node[0];
+            param = null;
+            wildcardChild = null;
+            value = null;
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.alibaba.android.arouter.core;
 
 import android.content.Context;
-import android.util.LruCache;
 import com.alibaba.android.arouter.facade.annotation.Route;
+import com.alibaba.android.arouter.facade.service.AutowiredPreloadService;
 import com.alibaba.android.arouter.facade.service.AutowiredService;
 import com.alibaba.android.arouter.facade.template.ISyringe;
-import java.util.ArrayList;
-import java.util.List;
+import com.alibaba.android.arouter.facade.template.ISyringeGroup;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static com.alibaba.android.arouter.launcher.ARouter.logger;
 import static com.alibaba.android.arouter.utils.Consts.SUFFIX_AUTOWIRED;
+import static com.alibaba.android.arouter.utils.Consts.TAG;
 
 /**
  * Autowired service impl.
@@ -17,83 +22,149 @@ import static com.alibaba.android.arouter.utils.Consts.SUFFIX_AUTOWIRED;
  * @version 1.0
  * @since 2017/2/28 下午6:08
  *
- * 拦截器服务，实现了 AutowiredService 接口
+ * 拦截器服务，实现了 AutowiredService 和 AutowiredPreloadService 接口
  * 作为一个固定的 拦截器服务，固定地址 /arouter/service/autowired
  *
  * {@link AutowiredServiceImpl#init(Context)}
  * 初始化方法
- * 初始化缓存数据结构，其中 LRU 缓存大小为 66
+ * 初始化缓存数据结构
  *
  * {@link AutowiredServiceImpl#autowire(Object)}
  * 自动注入
  *
- * 先从类名缓存查看是否有
- * 有的话，跳过
- * 无，缓存到类名缓存，和 LRU 类名 与 类 的关系缓存内
+ * 先从黑名单查看是否有，有的话，跳过
+ * 再从注入器缓存查看是否有，无，创建注入器，并缓存
+ * 创建不了的话，加入黑名单
+ *
+ * 创建注入器：
+ * 1. 优先从 Warehouse 的 注入器组 中 new 出注入器，不需要 Class.forName 和 反射
+ * 2. 注入器组中没有（ 旧版本 compiler 生成的模块 ），再 Class.forName 反射实例化
  *
  * 这里的类名是元素类名：比如 TestActivity，类名是 TestActvity
  * 但是类是改元素的注入生成类，实现了 ISyringe 接口
  * 即，TestActivity$$ARouter$$Autowired
+ *
+ * {@link AutowiredServiceImpl#preload(String...)}
+ * 在线程池中提前创建并缓存这些类的注入器，比如 接下来可能打开的页面
  */
 @Route(path = "/arouter/service/autowired")
-public class AutowiredServiceImpl implements AutowiredService {
+public class AutowiredServiceImpl implements AutowiredService, AutowiredPreloadService {
 
     /*
-     * LRU 缓存 实现 ISyringe 接口的 JavaPoet 生成类 和 类名
+     * 缓存 实现 ISyringe 接口的 JavaPoet 生成类 和 类名
+     * 注入器是无状态的，数量等于 @Autowired 的类的数量，所以不需要 LRU
      *
      * 这里的类名是元素类名：比如 TestActivity，类名是 TestActvity
      * 但是类是改元素的注入生成类，实现了 ISyringe 接口
      * 即，TestActivity$$ARouter$$Autowired
      */
-    private LruCache<String, ISyringe> classCache;
-    // 缓存 实现 ISyringe 接口的 JavaPoet 生成类名
-    private List<String> blackList;
+    private Map<String, ISyringe> classCache;
+    // 缓存 没有注入器的类名，O(1) 查找
+    private Set<String> blackList;
 
 
     /**
      * 初始化方法
      *
-     * 初始化缓存数据结构，其中 LRU 缓存大小为 66
+     * 初始化缓存数据结构
      *
      * @param context context
      */
     @Override
     public void init(Context context) {
-        classCache = new LruCache<>(66);
-        blackList = new ArrayList<>();
+        classCache = new ConcurrentHashMap<>();
+        blackList = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     }
 
 
     /**
      * 自动注入
      *
-     * 先从类名缓存查看是否有
-     * 有的话，跳过
-     * 无，缓存到类名缓存，和 LRU 类名 与 类 的关系缓存内
-     *
-     * 这里的类名是元素类名：比如 TestActivity，类名是 TestActvity
-     * 但是类是改元素的注入生成类，实现了 ISyringe 接口
-     * 即，TestActivity$$ARouter$$Autowired
+     * 先从黑名单查看是否有，有的话，跳过
+     * 再从注入器缓存查看是否有，无，创建注入器，并缓存
      *
      * @param instance the instance who need autowired.
      */
     @Override
     public void autowire(Object instance) {
         String className = instance.getClass().getName();
-        try {
-            if (!blackList.contains(className)) {
-                ISyringe autowiredHelper = classCache.get(className);
-                if (null == autowiredHelper) {  // No cache.
-                    autowiredHelper = (ISyringe) Class.forName(
-                        instance.getClass().getName() + SUFFIX_AUTOWIRED)
-                        .getConstructor()
-                        .newInstance();
-                }
+        ISyringe autowiredHelper = getSyringe(className);
+        if (null != autowiredHelper) {
+            try {
                 autowiredHelper.inject(instance);
-                classCache.put(className, autowiredHelper);
+            } catch (Exception ex) {
+                classCache.remove(className);
+                blackList.add(className);    // This instance need not autowired.
+            }
+        }
+    }
+
+
+    /**
+     * 在线程池中提前创建并缓存这些类的注入器
+     *
+     * @param classNames class names of the instances who need autowired.
+     */
+    @Override
+    public void preload(final String... classNames) {
+        if (null == classNames || classNames.length == 0) {
+            return;
+        }
+        LogisticsCenter.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (String className : classNames) {
+                    getSyringe(className);
+                }
             }
+        });
+    }
+
+
+    /**
+     * 获取注入器，没有的话返回 null
+     *
+     * @param className class name of the instance who need autowired.
+     * @return syringe
+     */
+    private ISyringe getSyringe(String className) {
+        if (blackList.contains(className)) {
+            return null;
+        }
+        ISyringe autowiredHelper = classCache.get(className);
+        if (null == autowiredHelper) {  // No cache.
+            autowiredHelper = createSyringe(className);
+            if (null == autowiredHelper) {
+                blackList.add(className);    // This instance need not autowired.
+                return null;
+            }
+            classCache.put(className, autowiredHelper);
+        }
+        return autowiredHelper;
+    }
+
+
+    /**
+     * 优先从 注入器组 中 new 出注入器，没有再反射实例化
+     */
+    private static ISyringe createSyringe(String className) {
+        ISyringeGroup group = Warehouse.syringesIndex.get(className);
+        if (null != group) {
+            ISyringe syringe = group.create(className);
+            if (null != syringe) {
+                return syringe;
+            }
+        }
+
+        try {
+            return (ISyringe) Class.forName(className + SUFFIX_AUTOWIRED)
+                .getConstructor()
+                .newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
         } catch (Exception ex) {
-            blackList.add(className);    // This instance need not autowired.
+            logger.warning(TAG, "Create syringe of [" + className + "] failed! " + ex.getMessage());
+            return null;
         }
     }
 }
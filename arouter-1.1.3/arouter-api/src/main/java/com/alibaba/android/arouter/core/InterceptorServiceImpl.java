@@ -1,16 +1,24 @@
 package com.alibaba.android.arouter.core;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
 import com.alibaba.android.arouter.exception.HandlerException;
 import com.alibaba.android.arouter.facade.Postcard;
 import com.alibaba.android.arouter.facade.annotation.Route;
 import com.alibaba.android.arouter.facade.callback.InterceptorCallback;
 import com.alibaba.android.arouter.facade.service.InterceptorService;
 import com.alibaba.android.arouter.facade.template.IInterceptor;
-import com.alibaba.android.arouter.thread.CancelableCountDownLatch;
+import com.alibaba.android.arouter.launcher.ARouter;
 import com.alibaba.android.arouter.utils.MapUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.alibaba.android.arouter.launcher.ARouter.logger;
 import static com.alibaba.android.arouter.utils.Consts.TAG;
@@ -26,21 +34,14 @@ import static com.alibaba.android.arouter.utils.Consts.TAG;
  * 作为一个固定的 拦截器服务，固定地址 /arouter/service/interceptor
  *
  * {@link InterceptorServiceImpl#doInterceptions(Postcard, InterceptorCallback)}
- * 检查是否有拦截器。有，继续下走。无，执行该 InterceptorService 的拦截器回调 onContinue
- * 检查拦截器初始化状态
+ * 没有拦截器的话，直接在当前线程执行回调 onContinue，不切换线程
+ * 有的话，为这次跳转创建一个 InterceptorChain
  *
- * 线程池启动异步线程任务（实质上不会并发，并且在 UI 线程开启的子线程）：
- * 1. 定义一个跟拦截器数量一样的 count 的 CountDownLatch
- * 2. 处理每一个拦截器，并执行拦截器回调
- * 3. 然后，CountDownLatch.await 在该子线程阻塞，等待所有拦截器回调执行完（ 防止拦截器的处理过程有子线程在跑 ）
- * 4. 处理 CountDownLatch 的状态，执行该 InterceptorService 的拦截器回调
- *
- * {@link InterceptorServiceImpl#_excute(int, CancelableCountDownLatch, Postcard)}
- * 逐个执行拦截器
- * 1. 处理每个拦截器的 process 方法，直到执行完为止
- * 2. 在执行每个拦截器执行 process 时。没有中断的话，都会通知 CountDownLatch 完成
- * 3. 只要有一个拦截器执行 process 时，中断了，CountDownLatch 就会执行 while --count，直到 0 为止
- * 4. 强行解除 CountDownLatch 对上面子线程的阻塞
+ * 拦截器链是异步的，不会阻塞任何线程：
+ * 1. 超时由 timer（ 一个 HandlerThread ）定时触发，不再用 CountDownLatch.await 占着线程池的线程
+ * 2. 第一个拦截器在线程池中执行，之后的拦截器在上一个拦截器回调 onContinue 的线程中继续执行
+ * 3. 最后一个拦截器 onContinue，或任一拦截器 onInterrupt，或超时，三者先到者结束这条链，之后的回调都被忽略
+ * 4. 拦截器还没初始化完的话，链先挂起，初始化完成后再开始；10 s 内没初始化完，中断跳转
  *
  * {@link InterceptorServiceImpl#init(Context)}
  * 线程池启动异步线程任务
@@ -48,118 +49,89 @@ import static com.alibaba.android.arouter.utils.Consts.TAG;
  * 反射实例化每个一个拦截器实例
  * 然后反射调用每个拦截器 init 方法初始化自身，然后将每个拦截器实例保存在 Warehouse 的 List 内
  *
- * 保存全部实例后，保存标记，用于标识所有拦截器的状态，然后开锁 interceptorInitLock
- * （ 如果在此之前执行了 checkInterceptorsInitStatus 的话，意味着之前执行过 doInterceptions，那个线程处于阻塞和等待，最大时间 10 s ）
+ * 保存全部实例后，保存标记，用于标识所有拦截器的状态，然后开始所有挂起的拦截器链
  *
- * {@link InterceptorServiceImpl#checkInterceptorsInitStatus()}
- * 检查是否初始化好了，然后会锁 10 s
+ * {@link InterceptorServiceImpl#getInterceptorStatistics()}
+ * 每个拦截器的耗时统计
  */
 @Route(path = "/arouter/service/interceptor")
 public class InterceptorServiceImpl implements InterceptorService {
-    private static boolean interceptorHasInit;
+    // 等待拦截器初始化的最长时间
+    private static final long INIT_TIMEOUT_MILLIS = 10 * 1000;
+    private static volatile boolean interceptorHasInit;
     private static final Object interceptorInitLock = new Object();
+    // 拦截器初始化完成前开始的拦截器链
+    private static final List<InterceptorChain> pendingChains = new ArrayList<>();
+    // key = 拦截器 class name
+    private static final ConcurrentHashMap<String, InterceptorStatistics> statistics =
+        new ConcurrentHashMap<>();
+    private static volatile Handler timer;
 
 
     /**
-     * 检查是否有拦截器。有，继续下走。无，执行该 InterceptorService 的拦截器回调 onContinue
-     * 检查拦截器初始化状态
-     *
-     * 线程池启动异步线程任务（实质上不会并发，并且在 UI 线程开启的子线程）：
-     * 1. 定义一个跟拦截器数量一样的 count 的 CountDownLatch
-     * 2. 处理每一个拦截器，并执行拦截器回调
-     * 3. 然后，CountDownLatch.await 在该子线程阻塞，等待所有拦截器回调执行完（ 防止拦截器的处理过程有子线程在跑 ）
-     * 4. 处理 CountDownLatch 的状态，执行该 InterceptorService 的拦截器回调
+     * 没有拦截器的话，直接执行回调 onContinue
+     * 有的话，创建拦截器链，拦截器已初始化就开始执行，否则挂起等待初始化
      *
      * @param postcard postcard
      * @param callback callback
      */
     @Override
     public void doInterceptions(final Postcard postcard, final InterceptorCallback callback) {
-        if (null != Warehouse.interceptors && Warehouse.interceptors.size() > 0) {
-
-            checkInterceptorsInitStatus();
-
-            if (!interceptorHasInit) {
-                callback.onInterrupt(
-                    new HandlerException("Interceptors initialization takes too much time."));
-                return;
-            }
+        if (MapUtils.isEmpty(Warehouse.interceptorsIndex)) {
+            callback.onContinue(postcard);  // No interceptors, no thread switching.
+            return;
+        }
 
-            LogisticsCenter.executor.execute(new Runnable() {
-                @Override
-                public void run() {
-                    CancelableCountDownLatch interceptorCounter = new CancelableCountDownLatch(
-                        Warehouse.interceptors.size());
-                    try {
-                        // 处理每一个拦截器，并执行拦截器回调
-                        _excute(0, interceptorCounter, postcard);
-                        // CountDownLatch.await 在该子线程阻塞，等待所有拦截器回调执行完（ 防止拦截器的处理过程有子线程在跑 ）
-                        interceptorCounter.await(postcard.getTimeout(), TimeUnit.SECONDS);
-                        if (interceptorCounter.getCount() >
-                            0) {    // Cancel the navigation this time, if it hasn't return anythings.
-                            callback.onInterrupt(
-                                new HandlerException("The interceptor processing timed out."));
-                        } else if (null !=
-                            postcard.getTag()) {    // Maybe some exception in the tag.
-                            callback.onInterrupt(
-                                new HandlerException(postcard.getTag().toString()));
-                        } else {
-                            callback.onContinue(postcard);
-                        }
-                    } catch (Exception e) {
-                        callback.onInterrupt(e);
-                    }
+        InterceptorChain chain = new InterceptorChain(postcard, callback);
+        if (!interceptorHasInit) {
+            synchronized (interceptorInitLock) {
+                if (!interceptorHasInit) {
+                    chain.await();
+                    pendingChains.add(chain);
+                    return;
                 }
-            });
-        } else {
-            callback.onContinue(postcard);
+            }
         }
+        chain.start();
     }
 
 
     /**
-     * Excute interceptor
-     *
-     * @param index current interceptor index
-     * @param counter interceptor counter
-     * @param postcard routeMeta
+     * Latency statistics of every interceptor, key is the class name of interceptor.
      *
-     * 逐个执行拦截器
-     * 1. 处理每个拦截器的 process 方法，直到执行完为止
-     * 2. 在执行每个拦截器执行 process 时。没有中断的话，都会通知 CountDownLatch 完成
-     * 3. 只要有一个拦截器执行 process 时，中断了，CountDownLatch 就会执行 while --count，直到 0 为止
-     * 4. 强行解除 CountDownLatch 对上面子线程的阻塞
+     * @return statistics
      */
-    private static void _excute(final int index, final CancelableCountDownLatch counter, final Postcard postcard) {
-        if (index < Warehouse.interceptors.size()) {
-            IInterceptor iInterceptor = Warehouse.interceptors.get(index);
-            iInterceptor.process(postcard, new InterceptorCallback() {
-                @Override
-                public void onContinue(Postcard postcard) {
-                    // Last interceptor excute over with no exception.
-                    counter.countDown();
-                    _excute(index + 1, counter,
-                        postcard);  // When counter is down, it will be execute continue ,but index bigger than interceptors size, then U know.
-                }
+    public static Map<String, InterceptorStatistics> getInterceptorStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
 
 
-                @Override
-                public void onInterrupt(Throwable exception) {
-                    // Last interceptor excute over with fatal exception.
-
-                    postcard.setTag(null == exception
-                                    ? new HandlerException("No message.")
-                                    : exception.getMessage());    // save the exception message for backup.
-                    counter.cancel();
-                    // Be attention, maybe the thread in callback has been changed,
-                    // then the catch block(L207) will be invalid.
-                    // The worst is the thread changed to main thread, then the app will be crash, if you throw this exception!
-                    //                    if (!Looper.getMainLooper().equals(Looper.myLooper())) {    // You shouldn't throw the exception if the thread is main thread.
-                    //                        throw new HandlerException(exception.getMessage());
-                    //                    }
+    private static InterceptorStatistics statisticsOf(IInterceptor interceptor) {
+        String name = interceptor.getClass().getName();
+        InterceptorStatistics stat = statistics.get(name);
+        if (null == stat) {
+            InterceptorStatistics newStat = new InterceptorStatistics(name);
+            stat = statistics.putIfAbsent(name, newStat);
+            stat = null == stat ? newStat : stat;
+        }
+        return stat;
+    }
+
+
+    /**
+     * 超时用的 timer，第一次用到时才启动
+     */
+    private static Handler timer() {
+        if (null == timer) {
+            synchronized (InterceptorServiceImpl.class) {
+                if (null == timer) {
+                    HandlerThread thread = new HandlerThread("ARouter interceptor timer");
+                    thread.start();
+                    timer = new Handler(thread.getLooper());
                 }
-            });
+            }
         }
+        return timer;
     }
 
 
@@ -171,8 +143,7 @@ public class InterceptorServiceImpl implements InterceptorService {
      * 反射实例化每个一个拦截器实例
      * 然后反射调用每个拦截器 init 方法初始化自身，然后将每个拦截器实例保存在 Warehouse 的 List 内
      *
-     * 保存全部实例后，保存标记，用于标识所有拦截器的状态，然后开锁 interceptorInitLock
-     * （ 如果在此之前执行了 checkInterceptorsInitStatus 的话，意味着之前执行过 doInterceptions，那个线程处于阻塞和等待，最大时间 10 s ）
+     * 保存全部实例后，保存标记，用于标识所有拦截器的状态，然后开始所有挂起的拦截器链
      *
      * @param context ctx
      */
@@ -198,12 +169,17 @@ public class InterceptorServiceImpl implements InterceptorService {
                         }
                     }
 
-                    interceptorHasInit = true;
+                    List<InterceptorChain> chains;
+                    synchronized (interceptorInitLock) {
+                        interceptorHasInit = true;
+                        chains = new ArrayList<>(pendingChains);
+                        pendingChains.clear();
+                    }
 
                     logger.info(TAG, "ARouter interceptors init over.");
 
-                    synchronized (interceptorInitLock) {
-                        interceptorInitLock.notifyAll();
+                    for (InterceptorChain chain : chains) {
+                        chain.start();
                     }
                 }
             }
@@ -212,19 +188,140 @@ public class InterceptorServiceImpl implements InterceptorService {
 
 
     /**
-     * 检查是否初始化好了，然后会锁 10 s
+     * One navigation through all of interceptors.
+     *
+     * 一次跳转的拦截器链，本身作为超时任务 post 到 timer 上
      */
-    private static void checkInterceptorsInitStatus() {
-        synchronized (interceptorInitLock) {
-            while (!interceptorHasInit) {
-                try {
-                    interceptorInitLock.wait(10 * 1000);
-                } catch (InterruptedException e) {
-                    throw new HandlerException(
-                        TAG + "Interceptor init cost too much time error! reason = [" +
-                            e.getMessage() + "]");
+    private static final class InterceptorChain implements Runnable {
+        private final Postcard postcard;
+        private final InterceptorCallback callback;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        // 当前执行的拦截器，用于超时时记录
+        private volatile IInterceptor current;
+        private volatile String timeoutMessage;
+
+
+        InterceptorChain(Postcard postcard, InterceptorCallback callback) {
+            this.postcard = postcard;
+            this.callback = callback;
+        }
+
+
+        /**
+         * 等待拦截器初始化
+         */
+        void await() {
+            timeoutMessage = "Interceptors initialization takes too much time.";
+            timer().postDelayed(this, INIT_TIMEOUT_MILLIS);
+        }
+
+
+        /**
+         * 开始计时，然后在线程池中执行第一个拦截器
+         */
+        void start() {
+            if (finished.get()) {
+                return;
+            }
+            timer().removeCallbacks(this);
+            timeoutMessage = "The interceptor processing timed out.";
+            timer().postDelayed(this, TimeUnit.SECONDS.toMillis(postcard.getTimeout()));
+
+            LogisticsCenter.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    proceed(0);
                 }
+            });
+        }
+
+
+        /**
+         * Excute interceptor
+         *
+         * 执行第 index 个拦截器，它回调 onContinue 后执行下一个，全部执行完则结束
+         */
+        private void proceed(final int index) {
+            if (finished.get()) {
+                return;
+            }
+            if (index >= Warehouse.interceptors.size()) {
+                finish(null);
+                return;
+            }
+
+            final IInterceptor iInterceptor = Warehouse.interceptors.get(index);
+            final long start = System.nanoTime();
+            current = iInterceptor;
+            try {
+                iInterceptor.process(postcard, new InterceptorCallback() {
+                    @Override
+                    public void onContinue(Postcard postcard) {
+                        // Last interceptor excute over with no exception.
+                        record(iInterceptor, start, false);
+                        proceed(index + 1);
+                    }
+
+
+                    @Override
+                    public void onInterrupt(Throwable exception) {
+                        // Last interceptor excute over with fatal exception.
+                        record(iInterceptor, start, true);
+                        postcard.setTag(null == exception
+                                        ? new HandlerException("No message.")
+                                        : exception.getMessage());    // save the exception message for backup.
+                        finish(new HandlerException(postcard.getTag().toString()));
+                    }
+                });
+            } catch (Exception e) {
+                record(iInterceptor, start, true);
+                finish(e);
+            }
+        }
+
+
+        private void record(IInterceptor interceptor, long start, boolean interrupted) {
+            if (finished.get()) {
+                return;     // Timed out, already counted.
+            }
+            long cost = System.nanoTime() - start;
+            statisticsOf(interceptor).record(cost, interrupted);
+            if (ARouter.debuggable()) {
+                logger.debug(TAG, String.format(Locale.getDefault(),
+                    "Interceptor [%s] cost %d ms, path [%s]", interceptor.getClass().getName(),
+                    TimeUnit.NANOSECONDS.toMillis(cost), postcard.getPath()));
+            }
+        }
+
+
+        /**
+         * 结束拦截器链，只有第一次调用有效
+         *
+         * @param exception null 表示所有拦截器都放行了
+         */
+        private void finish(Throwable exception) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            timer().removeCallbacks(this);
+            if (null == exception) {
+                callback.onContinue(postcard);
+            } else {
+                callback.onInterrupt(exception);
+            }
+        }
+
+
+        /**
+         * Timeout, cancel the navigation this time.
+         */
+        @Override
+        public void run() {
+            IInterceptor interceptor = current;
+            if (!finished.get() && null != interceptor) {
+                statisticsOf(interceptor).recordTimeout();
             }
+            finish(new HandlerException(timeoutMessage));
         }
     }
 }
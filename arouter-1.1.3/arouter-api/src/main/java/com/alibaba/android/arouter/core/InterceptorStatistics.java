@@ -0,0 +1,93 @@
+package com.alibaba.android.arouter.core;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency statistics of one interceptor.
+ *
+ * 单个拦截器的耗时统计
+ * 记录 process 开始到回调 onContinue / onInterrupt 之间的耗时
+ * 以及被中断、超时的次数
+ */
+public final class InterceptorStatistics {
+    private final String name;
+    private final AtomicLong invokeCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong interruptCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+
+    InterceptorStatistics(String name) {
+        this.name = name;
+    }
+
+
+    /**
+     * 记录一次完成的拦截，interrupted 表示该拦截器中断了跳转
+     */
+    void record(long costNanos, boolean interrupted) {
+        invokeCount.incrementAndGet();
+        totalNanos.addAndGet(costNanos);
+        long max;
+        do {
+            max = maxNanos.get();
+        } while (costNanos > max && !maxNanos.compareAndSet(max, costNanos));
+        if (interrupted) {
+            interruptCount.incrementAndGet();
+        }
+    }
+
+
+    /**
+     * 记录一次超时，超时的拦截器没有回调，不计入耗时
+     */
+    void recordTimeout() {
+        timeoutCount.incrementAndGet();
+    }
+
+
+    /**
+     * @return class name of the interceptor
+     */
+    public String getName() {
+        return name;
+    }
+
+
+    public long getInvokeCount() {
+        return invokeCount.get();
+    }
+
+
+    public long getInterruptCount() {
+        return interruptCount.get();
+    }
+
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+
+    public long getMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+
+
+    public long getAverageMillis() {
+        long count = invokeCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos.get() / count);
+    }
+
+
+    @Override
+    public String toString() {
+        return String.format(Locale.getDefault(),
+            "%s: invoke %d, avg %d ms, max %d ms, interrupt %d, timeout %d", name,
+            getInvokeCount(), getAverageMillis(), getMaxMillis(), getInterruptCount(),
+            getTimeoutCount());
+    }
+}
@@ -2,6 +2,7 @@ package com.alibaba.android.arouter.core;
 
 import android.content.Context;
 import android.net.Uri;
+import com.alibaba.android.arouter.base.RouteTrie;
 import com.alibaba.android.arouter.exception.HandlerException;
 import com.alibaba.android.arouter.exception.NoRouteFoundException;
 import com.alibaba.android.arouter.facade.Postcard;
@@ -11,12 +12,15 @@ import com.alibaba.android.arouter.facade.template.IInterceptorGroup;
 import com.alibaba.android.arouter.facade.template.IProvider;
 import com.alibaba.android.arouter.facade.template.IProviderGroup;
 import com.alibaba.android.arouter.facade.template.IRouteGroup;
+import com.alibaba.android.arouter.facade.template.IRouteIndex;
 import com.alibaba.android.arouter.facade.template.IRouteRoot;
+import com.alibaba.android.arouter.facade.template.ISyringeGroup;
 import com.alibaba.android.arouter.launcher.ARouter;
 import com.alibaba.android.arouter.utils.ClassUtils;
 import com.alibaba.android.arouter.utils.Consts;
 import com.alibaba.android.arouter.utils.MapUtils;
 import com.alibaba.android.arouter.utils.TextUtils;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -27,9 +31,11 @@ import static com.alibaba.android.arouter.utils.Consts.DOT;
 import static com.alibaba.android.arouter.utils.Consts.ROUTE_ROOT_PAKCAGE;
 import static com.alibaba.android.arouter.utils.Consts.SDK_NAME;
 import static com.alibaba.android.arouter.utils.Consts.SEPARATOR;
+import static com.alibaba.android.arouter.utils.Consts.SUFFIX_INDEX;
 import static com.alibaba.android.arouter.utils.Consts.SUFFIX_INTERCEPTORS;
 import static com.alibaba.android.arouter.utils.Consts.SUFFIX_PROVIDERS;
 import static com.alibaba.android.arouter.utils.Consts.SUFFIX_ROOT;
+import static com.alibaba.android.arouter.utils.Consts.SUFFIX_SYRINGES;
 import static com.alibaba.android.arouter.utils.Consts.TAG;
 
 /**
@@ -56,6 +62,9 @@ import static com.alibaba.android.arouter.utils.Consts.TAG;
  * 2.3 是否 name 以 com.alibaba.android.arouter.routes.ARouter$$Providers 开头
  * -   反射实例，强转为 IInterceptorGroup 后调用 loadInto，缓存 功能 service 的 RouteMeta
  *
+ * 2.4 是否 name 以 com.alibaba.android.arouter.routes.ARouter$$Syringes 开头
+ * -   反射实例，强转为 ISyringeGroup 后调用 loadInto，缓存 注入器组
+ *
  * {@link LogisticsCenter#buildProvider(String)}
  * 通过一个 服务 name 获取一个 关系类
  *
@@ -79,6 +88,11 @@ import static com.alibaba.android.arouter.utils.Consts.TAG;
  * 重新加载后，应该不会走该系列流程
  * 缓存中能查到对应的 路由信息类
  *
+ * 路由组加载后，精确匹配不到的 path，再按 路由模板（ /user/:id ）逐段匹配，提取的参数放入 关系类 的 bundle
+ *
+ * completion 不再持有类锁，命中缓存时是无锁读取
+ * 只有 路由组 和 service 第一次加载时，才会在该 路由组 / service 自己的锁上串行
+ *
  * ---
  *
  * 如果从缓存中 没有查到 路由信息类
@@ -118,6 +132,9 @@ import static com.alibaba.android.arouter.utils.Consts.TAG;
 public class LogisticsCenter {
     private static Context mContext;
     static ThreadPoolExecutor executor;
+    // 上一次 init 的耗时（ 毫秒 ），以及是否通过 ARouter$$Index 加载
+    private static long initCostMillis;
+    private static boolean loadedByIndex;
 
 
     /**
@@ -147,37 +164,22 @@ public class LogisticsCenter {
         mContext = context;
         executor = tpe;
 
+        long startTime = System.nanoTime();
         try {
-            // These class was generate by arouter-compiler.
-            List<String> classFileNames = ClassUtils.getFileNameByPackageName(mContext,
-                ROUTE_ROOT_PAKCAGE);
-
-            for (String className : classFileNames) {
-                if (className.startsWith(
-                    ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_ROOT)) {
-                    // This one of root elements, load root.
-                    ((IRouteRoot) (Class.forName(className)
-                        .getConstructor()
-                        .newInstance())).loadInto(Warehouse.groupsIndex);
-                } else if (className.startsWith(
-                    ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_INTERCEPTORS)) {
-                    // Load interceptorMeta
-                    ((IInterceptorGroup) (Class.forName(className)
-                        .getConstructor()
-                        .newInstance())).loadInto(Warehouse.interceptorsIndex);
-                } else if (className.startsWith(
-                    ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_PROVIDERS)) {
-                    // Load providerIndex
-                    ((IProviderGroup) (Class.forName(className)
-                        .getConstructor()
-                        .newInstance())).loadInto(Warehouse.providersIndex);
-                }
+            loadedByIndex = loadIndex();
+            if (!loadedByIndex) {
+                loadByScanning();
             }
 
             if (Warehouse.groupsIndex.size() == 0) {
                 logger.error(TAG, "No mapping files were found, check your configuration please!");
             }
 
+            initCostMillis = (System.nanoTime() - startTime) / 1000000;
+            logger.info(TAG, String.format(Locale.getDefault(),
+                "LogisticsCenter init cost %d ms, load by [%s]", initCostMillis,
+                loadedByIndex ? "index" : "scanning"));
+
             if (ARouter.debuggable()) {
                 logger.debug(TAG, String.format(Locale.getDefault(),
                     "LogisticsCenter has already been loaded, GroupIndex[%d], InterceptorIndex[%d], ProviderIndex[%d]",
@@ -191,6 +193,91 @@ public class LogisticsCenter {
     }
 
 
+    /**
+     * Load all metas from the index generated at build time, if any.
+     *
+     * 加载编译时生成的 ARouter$$Index
+     * 没有的话（ app 模块没有开启 generateRouteIndex ），返回 false
+     *
+     * @return true if the index exists
+     */
+    private static boolean loadIndex() throws Exception {
+        Class<?> indexClass;
+        try {
+            indexClass = Class.forName(
+                ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_INDEX);
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+        ((IRouteIndex) indexClass.getConstructor().newInstance())
+            .loadInto(Warehouse.groupsIndex, Warehouse.interceptorsIndex,
+                Warehouse.providersIndex, Warehouse.syringesIndex);
+        return true;
+    }
+
+
+    /**
+     * Load all metas by scanning the dex files for generated classes.
+     *
+     * 扫描 dex，反射实例化 com.alibaba.android.arouter.routes 包下的所有类
+     */
+    private static void loadByScanning() throws Exception {
+        // These class was generate by arouter-compiler.
+        List<String> classFileNames = ClassUtils.getFileNameByPackageName(mContext,
+            ROUTE_ROOT_PAKCAGE);
+
+        for (String className : classFileNames) {
+            if (className.startsWith(
+                ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_ROOT)) {
+                // This one of root elements, load root.
+                ((IRouteRoot) (Class.forName(className)
+                    .getConstructor()
+                    .newInstance())).loadInto(Warehouse.groupsIndex);
+            } else if (className.startsWith(
+                ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_INTERCEPTORS)) {
+                // Load interceptorMeta
+                ((IInterceptorGroup) (Class.forName(className)
+                    .getConstructor()
+                    .newInstance())).loadInto(Warehouse.interceptorsIndex);
+            } else if (className.startsWith(
+                ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_PROVIDERS)) {
+                // Load providerIndex
+                ((IProviderGroup) (Class.forName(className)
+                    .getConstructor()
+                    .newInstance())).loadInto(Warehouse.providersIndex);
+            } else if (className.startsWith(
+                ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_SYRINGES)) {
+                // Load syringesIndex
+                ((ISyringeGroup) (Class.forName(className)
+                    .getConstructor()
+                    .newInstance())).loadInto(Warehouse.syringesIndex);
+            }
+        }
+    }
+
+
+    /**
+     * Time the last init took, in milliseconds.
+     *
+     * 上一次 init 的耗时
+     *
+     * @return init cost
+     */
+    public static long getInitCostMillis() {
+        return initCostMillis;
+    }
+
+
+    /**
+     * Whether the last init loaded the generated index instead of scanning the dex files.
+     *
+     * @return true if loaded by index
+     */
+    public static boolean isLoadedByIndex() {
+        return loadedByIndex;
+    }
+
+
     /**
      * Build postcard by serviceName
      *
@@ -263,13 +350,30 @@ public class LogisticsCenter {
      *
      * @param postcard Incomplete postcard, should completion by this method.
      */
-    public synchronized static void completion(Postcard postcard) {
+    public static void completion(Postcard postcard) {
         if (null == postcard) {
             throw new NoRouteFoundException(TAG + "No postcard!");
         }
+        if (TextUtils.isEmpty(postcard.getPath())) {
+            throw new NoRouteFoundException(TAG + "There is no route match the path [" +
+                postcard.getPath() + "]");
+        }
 
         // 根据关系类，拿到 路径，根据 路径 从缓存中查找 关系类
         RouteMeta routeMeta = Warehouse.routes.get(postcard.getPath());
+        Map<String, String> pathParams = null;
+
+        // 精确匹配不到，并且路由组已经加载过了，再按 路由模板 匹配
+        if (null == routeMeta && !Warehouse.routeTrie.isEmpty() &&
+            !TextUtils.isEmpty(postcard.getGroup()) &&
+            !Warehouse.groupsIndex.containsKey(postcard.getGroup())) {
+            // 匹配一次，参数只在匹配成功时才会写入
+            Map<String, String> matchedParams = new HashMap<>();
+            routeMeta = Warehouse.routeTrie.match(postcard.getPath(), matchedParams);
+            if (null != routeMeta) {
+                pathParams = matchedParams;
+            }
+        }
 
         /*
          * 如果从缓存中 没有查到 关系类
@@ -287,37 +391,60 @@ public class LogisticsCenter {
          * 缓存中能查到对应的 路由信息类
          */
         if (null == routeMeta) {    // Maybe its does't exist, or didn't load.
-            Class<? extends IRouteGroup> groupMeta = Warehouse.groupsIndex.get(
-                postcard.getGroup());  // Load route meta.
-            if (null == groupMeta) {
+            String group = postcard.getGroup();
+            if (TextUtils.isEmpty(group)) {
                 throw new NoRouteFoundException(
                     TAG + "There is no route match the path [" + postcard.getPath() +
-                        "], in group [" + postcard.getGroup() + "]");
-            } else {
-                // Load route and cache it into memory, then delete from metas.
-                try {
-                    if (ARouter.debuggable()) {
-                        logger.debug(TAG, String.format(Locale.getDefault(),
-                            "The group [%s] starts loading, trigger by [%s]", postcard.getGroup(),
-                            postcard.getPath()));
+                        "], in group [" + group + "]");
+            }
+
+            // 只对当前路由组加锁，同一个组只会被加载一次，不同组的加载互不阻塞
+            synchronized (Warehouse.loadingLock(group)) {
+                Class<? extends IRouteGroup> groupMeta = Warehouse.groupsIndex.get(
+                    group);  // Load route meta.
+                if (null == groupMeta) {
+                    // 可能刚好被其他线程加载完，再查一次 路由信息类 和 路由模板
+                    if (!Warehouse.routes.containsKey(postcard.getPath()) &&
+                        null == Warehouse.routeTrie.match(postcard.getPath(), null)) {
+                        throw new NoRouteFoundException(
+                            TAG + "There is no route match the path [" + postcard.getPath() +
+                                "], in group [" + group + "]");
                     }
+                } else {
+                    // Load route and cache it into memory, then delete from metas.
+                    try {
+                        if (ARouter.debuggable()) {
+                            logger.debug(TAG, String.format(Locale.getDefault(),
+                                "The group [%s] starts loading, trigger by [%s]", group,
+                                postcard.getPath()));
+                        }
 
-                    IRouteGroup iGroupInstance = groupMeta.getConstructor().newInstance();
-                    iGroupInstance.loadInto(Warehouse.routes);
-                    Warehouse.groupsIndex.remove(postcard.getGroup());
+                        // 先加载到临时 map，一次性放入缓存后，再移除路由组
+                        Map<String, RouteMeta> groupRoutes = new HashMap<>();
+                        IRouteGroup iGroupInstance = groupMeta.getConstructor().newInstance();
+                        iGroupInstance.loadInto(groupRoutes);
+                        Warehouse.routes.putAll(groupRoutes);
+                        for (Map.Entry<String, RouteMeta> entry : groupRoutes.entrySet()) {
+                            if (RouteTrie.isPattern(entry.getKey())) {
+                                Warehouse.routeTrie.insert(entry.getKey(), entry.getValue());
+                            }
+                        }
+                        Warehouse.groupsIndex.remove(group);
 
-                    if (ARouter.debuggable()) {
-                        logger.debug(TAG, String.format(Locale.getDefault(),
-                            "The group [%s] has already been loaded, trigger by [%s]",
-                            postcard.getGroup(), postcard.getPath()));
+                        if (ARouter.debuggable()) {
+                            logger.debug(TAG, String.format(Locale.getDefault(),
+                                "The group [%s] has already been loaded, trigger by [%s]",
+                                group, postcard.getPath()));
+                        }
+                    } catch (Exception e) {
+                        throw new HandlerException(
+                            TAG + "Fatal exception when loading group meta. [" + e.getMessage() +
+                                "]");
                     }
-                } catch (Exception e) {
-                    throw new HandlerException(
-                        TAG + "Fatal exception when loading group meta. [" + e.getMessage() + "]");
                 }
-
-                completion(postcard);   // Reload
             }
+
+            completion(postcard);   // Reload
         } else {
 
             /*
@@ -379,6 +506,16 @@ public class LogisticsCenter {
                 postcard.withString(ARouter.RAW_URI, rawUri.toString());
             }
 
+            if (MapUtils.isNotEmpty(pathParams)) {  // Params in path, such as /user/:id
+                Map<String, Integer> paramsType = routeMeta.getParamsType();
+                for (Map.Entry<String, String> params : pathParams.entrySet()) {
+                    setValue(postcard,
+                        null == paramsType ? null : paramsType.get(params.getKey()),
+                        params.getKey(),
+                        params.getValue());
+                }
+            }
+
             switch (routeMeta.getType()) {
                 case PROVIDER:  // if the route is provider, should find its instance
                     // Its provider, so it must be implememt IProvider
@@ -386,14 +523,21 @@ public class LogisticsCenter {
                         .getDestination();
                     IProvider instance = Warehouse.providers.get(providerMeta);
                     if (null == instance) { // There's no instance of this provider
-                        IProvider provider;
-                        try {
-                            provider = providerMeta.getConstructor().newInstance();
-                            provider.init(mContext);
-                            Warehouse.providers.put(providerMeta, provider);
-                            instance = provider;
-                        } catch (Exception e) {
-                            throw new HandlerException("Init provider failed! " + e.getMessage());
+                        // 同一个 service 只会实例化并 init 一次
+                        synchronized (Warehouse.loadingLock(providerMeta)) {
+                            instance = Warehouse.providers.get(providerMeta);
+                            if (null == instance) {
+                                IProvider provider;
+                                try {
+                                    provider = providerMeta.getConstructor().newInstance();
+                                    provider.init(mContext);
+                                    Warehouse.providers.put(providerMeta, provider);
+                                    instance = provider;
+                                } catch (Exception e) {
+                                    throw new HandlerException(
+                                        "Init provider failed! " + e.getMessage());
+                                }
+                            }
                         }
                     }
                     postcard.setProvider(instance);
@@ -1,14 +1,16 @@
 package com.alibaba.android.arouter.core;
 
+import com.alibaba.android.arouter.base.RouteTrie;
 import com.alibaba.android.arouter.base.UniqueKeyTreeMap;
 import com.alibaba.android.arouter.facade.model.RouteMeta;
 import com.alibaba.android.arouter.facade.template.IInterceptor;
 import com.alibaba.android.arouter.facade.template.IProvider;
 import com.alibaba.android.arouter.facade.template.IRouteGroup;
+import com.alibaba.android.arouter.facade.template.ISyringeGroup;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Storage of route meta and other data.
@@ -27,6 +29,10 @@ import java.util.Map;
  * key   = 路由 path
  * value = 路由信息类
  *
+ * {@link Warehouse#routeTrie}
+ * 路由模板缓存，path 中含有 :name 或 * 段的路由，加载路由组时放入
+ * 精确匹配不到时，按段匹配
+ *
  * {@link Warehouse#providers}
  * service 缓存
  * key   = 路由信息类 class
@@ -45,30 +51,74 @@ import java.util.Map;
  * {@link Warehouse#interceptors}
  * 拦截器缓存
  * value = 拦截器
+ *
+ * {@link Warehouse#syringesIndex}
+ * 注入器组缓存
+ * key   = 需要注入的类的 class name
+ * value = 注入器组
+ *
+ * {@link Warehouse#loadingLocks}
+ * 路由组 和 service 懒加载时用的锁
+ * key   = 路由组 name 或 service class
+ * value = 锁对象
+ *
+ * 路由组 和 service 都是在导航时懒加载的，所以这几个缓存用 ConcurrentHashMap
+ * 命中缓存时直接无锁读取，只有第一次加载时才会对同一个 key 加锁
  */
 class Warehouse {
 
     // Cache route and metas
-    static Map<String, Class<? extends IRouteGroup>> groupsIndex = new HashMap<>();
-    static Map<String, RouteMeta> routes = new HashMap<>();
+    static Map<String, Class<? extends IRouteGroup>> groupsIndex = new ConcurrentHashMap<>();
+    static Map<String, RouteMeta> routes = new ConcurrentHashMap<>();
+    static RouteTrie<RouteMeta> routeTrie = new RouteTrie<>();
 
     // Cache provider
-    static Map<Class, IProvider> providers = new HashMap<>();
-    static Map<String, RouteMeta> providersIndex = new HashMap<>();
+    static Map<Class, IProvider> providers = new ConcurrentHashMap<>();
+    static Map<String, RouteMeta> providersIndex = new ConcurrentHashMap<>();
 
     // Cache interceptor
     static Map<Integer, Class<? extends IInterceptor>> interceptorsIndex = new UniqueKeyTreeMap<>(
         "More than one interceptors use same priority [%s]");
     static List<IInterceptor> interceptors = new ArrayList<>();
 
+    // Cache syringe
+    static Map<String, ISyringeGroup> syringesIndex = new ConcurrentHashMap<>();
+
+    // Locks of lazy loading, one per group or provider
+    private static final ConcurrentHashMap<Object, Object> loadingLocks = new ConcurrentHashMap<>();
+
+
+    /**
+     * Get the lock used to load the group or provider only once.
+     *
+     * 获取 路由组 或 service 对应的锁，不存在就创建一个
+     *
+     * @param key group name or provider class
+     * @return lock
+     */
+    static Object loadingLock(Object key) {
+        Object lock = loadingLocks.get(key);
+        if (null == lock) {
+            Object newLock = new Object();
+            lock = loadingLocks.putIfAbsent(key, newLock);
+            if (null == lock) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
 
     static void clear() {
         routes.clear();
+        routeTrie.clear();
         groupsIndex.clear();
         providers.clear();
         providersIndex.clear();
         interceptors.clear();
         interceptorsIndex.clear();
+        syringesIndex.clear();
+        loadingLocks.clear();
     }
 
 }
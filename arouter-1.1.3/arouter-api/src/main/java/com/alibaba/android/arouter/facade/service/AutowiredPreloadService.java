@@ -0,0 +1,24 @@
+package com.alibaba.android.arouter.facade.service;
+
+/**
+ * Optional ability of an {@link AutowiredService}, create the syringes ahead of time.
+ *
+ * 可选的 注入器预加载 接口，和 AutowiredService 分开，已有的 AutowiredService 实现不需要改动
+ * 内置的 AutowiredServiceImpl 实现了该接口
+ *
+ * AutowiredService service = (AutowiredService) ARouter.getInstance()
+ * -   .build("/arouter/service/autowired").navigation();
+ * if (service instanceof AutowiredPreloadService) {
+ * -   ((AutowiredPreloadService) service).preload(...);
+ * }
+ */
+public interface AutowiredPreloadService {
+
+    /**
+     * Create and cache the syringes of these classes in background, such as the likely next
+     * screens, so the first autowire of them is cheap.
+     *
+     * @param classNames class names of the instances who need autowired.
+     */
+    void preload(String... classNames);
+}
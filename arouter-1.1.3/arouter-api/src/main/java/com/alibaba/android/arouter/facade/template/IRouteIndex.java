@@ -0,0 +1,29 @@
+package com.alibaba.android.arouter.facade.template;
+
+import com.alibaba.android.arouter.facade.model.RouteMeta;
+import java.util.Map;
+
+/**
+ * Index of all the roots, interceptor groups, provider groups and syringe groups of an app.
+ *
+ * 路由索引 接口
+ * 由 JavaPoet 在 app 模块编译时生成（ ARouter$$Index ）
+ * 汇总了所有模块的 路由根，拦截器组，服务组 和 注入器组
+ *
+ * LogisticsCenter 初始化时直接加载该类，不用再扫描 dex
+ */
+public interface IRouteIndex {
+
+    /**
+     * Load all metas to input
+     *
+     * @param groups input of route groups
+     * @param interceptors input of interceptors
+     * @param providers input of providers
+     * @param syringes input of syringes
+     */
+    void loadInto(Map<String, Class<? extends IRouteGroup>> groups,
+                  Map<Integer, Class<? extends IInterceptor>> interceptors,
+                  Map<String, RouteMeta> providers,
+                  Map<String, ISyringeGroup> syringes);
+}
@@ -0,0 +1,28 @@
+package com.alibaba.android.arouter.facade.template;
+
+import java.util.Map;
+
+/**
+ * Group of syringes in a module.
+ *
+ * 注入器组 接口
+ * 由 JavaPoet 为每个模块生成（ ARouter$$Syringes$$??? ）
+ * 直接 new 出该模块内所有 ???$$ARouter$$Autowired，不需要 Class.forName 和 反射实例化
+ */
+public interface ISyringeGroup {
+
+    /**
+     * Register all the classes which have syringe in this group.
+     *
+     * @param syringes key = class name of the target, value = this group
+     */
+    void loadInto(Map<String, ISyringeGroup> syringes);
+
+    /**
+     * Create the syringe of the target class.
+     *
+     * @param className class name of the target
+     * @return syringe, or null if there is no syringe of the class in this group
+     */
+    ISyringe create(String className);
+}
@@ -11,6 +11,7 @@ import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import java.io.IOException;
@@ -19,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -40,10 +42,15 @@ import org.apache.commons.lang3.StringUtils;
 
 import static com.alibaba.android.arouter.compiler.utils.Consts.ANNOTATION_TYPE_AUTOWIRED;
 import static com.alibaba.android.arouter.compiler.utils.Consts.ISYRINGE;
+import static com.alibaba.android.arouter.compiler.utils.Consts.ISYRINGE_GROUP;
 import static com.alibaba.android.arouter.compiler.utils.Consts.JSON_SERVICE;
 import static com.alibaba.android.arouter.compiler.utils.Consts.KEY_MODULE_NAME;
 import static com.alibaba.android.arouter.compiler.utils.Consts.METHOD_INJECT;
+import static com.alibaba.android.arouter.compiler.utils.Consts.METHOD_LOAD_INTO;
 import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_AUTOWIRED;
+import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_SYRINGES;
+import static com.alibaba.android.arouter.compiler.utils.Consts.PACKAGE_OF_GENERATE_FILE;
+import static com.alibaba.android.arouter.compiler.utils.Consts.SEPARATOR;
 import static com.alibaba.android.arouter.compiler.utils.Consts.WARNING_TIPS;
 import static javax.lang.model.element.Modifier.PUBLIC;
 
@@ -67,6 +74,10 @@ import static javax.lang.model.element.Modifier.PUBLIC;
  * {@link AutowiredProcessor#generateHelper()}
  * 生成 ???$$ARouter$$Autowired 类
  *
+ * {@link AutowiredProcessor#generateSyringeGroup(Map)}
+ * 生成 ARouter$$Syringes$$??? 类，直接 new 出本模块所有的 ???$$ARouter$$Autowired
+ * 运行时 AutowiredServiceImpl 不再需要 Class.forName
+ *
  * {@link AutowiredProcessor#buildStatement(String, int, boolean)}
  * 根据不同的 TypeKind 类型，生成不同的 intent getter 语句
  *
@@ -134,6 +145,9 @@ public class AutowiredProcessor extends AbstractProcessor {
      * 以 类 Element 作为 key，value 为属于该 类 Element 的所有 @Autowired 元素
      */
     private Map<TypeElement, List<Element>> parentAndChild = new HashMap<>();
+    // Module name, the syringe group is generated only if it was set.
+    private String moduleName;
+    private boolean syringeGroupGenerated;
     // Contain field need autowired and his super class.
     // 定义 ARouter 的 ClassName 对象，以便 JavaPoet 使用
     private static final ClassName ARouterClass = ClassName.get(
@@ -161,6 +175,11 @@ public class AutowiredProcessor extends AbstractProcessor {
 
         logger = new Logger(processingEnv.getMessager());   // Package the log utils.
 
+        Map<String, String> options = processingEnv.getOptions();
+        if (MapUtils.isNotEmpty(options) && StringUtils.isNotEmpty(options.get(KEY_MODULE_NAME))) {
+            moduleName = options.get(KEY_MODULE_NAME).replaceAll("[^0-9a-zA-Z_]+", "");
+        }
+
         logger.info(">>> AutowiredProcessor init. <<<");
     }
 
@@ -219,6 +238,12 @@ public class AutowiredProcessor extends AbstractProcessor {
          */
         ParameterSpec objectParamSpec = ParameterSpec.builder(TypeName.OBJECT, "target").build();
 
+        /**
+         * 每个 @Autowired 的 类 Element 的 binary name（ 即运行时 Class.getName() ）
+         * 和 生成的 ???$$ARouter$$Autowired 类
+         */
+        Map<String, ClassName> syringes = new TreeMap<>();
+
         if (MapUtils.isNotEmpty(parentAndChild)) {
             for (Map.Entry<TypeElement, List<Element>> entry : parentAndChild.entrySet()) {
                 // Build method : 'inject'
@@ -419,16 +444,95 @@ public class AutowiredProcessor extends AbstractProcessor {
                  */
                 // Generate autowire helper
                 JavaFile.builder(packageName, helper.build()).build().writeTo(mFiler);
+                syringes.put(elements.getBinaryName(parent).toString(),
+                    ClassName.get(packageName, fileName));
 
                 logger.info(">>> " + parent.getSimpleName() + " has been processed, " + fileName +
                     " has been generated. <<<");
             }
 
+            generateSyringeGroup(syringes);
+
             logger.info(">>> Autowired processor stop. <<<");
         }
     }
 
 
+    /**
+     * 生成 ARouter$$Syringes$$??? 类
+     *
+     * public class ARouter$$Syringes$$app implements ISyringeGroup {
+     *   @Override
+     *   public void loadInto(Map<String, ISyringeGroup> syringes) {
+     *     syringes.put("com.xx.TestActivity", this);
+     *   }
+     *
+     *   @Override
+     *   public ISyringe create(String className) {
+     *     switch (className) {
+     *       case "com.xx.TestActivity":
+     *         return new TestActivity$$ARouter$$Autowired();
+     *       default:
+     *         return null;
+     *     }
+     *   }
+     * }
+     *
+     * @param syringes key = binary name of the target, value = syringe
+     * @throws IOException IOException
+     */
+    private void generateSyringeGroup(Map<String, ClassName> syringes) throws IOException {
+        if (syringeGroupGenerated || StringUtils.isEmpty(moduleName) || syringes.isEmpty()) {
+            return;
+        }
+        syringeGroupGenerated = true;
+
+        ClassName syringeGroupCn = ClassName.get(elements.getTypeElement(ISYRINGE_GROUP));
+        ParameterizedTypeName syringesType = ParameterizedTypeName.get(
+            ClassName.get(Map.class),
+            ClassName.get(String.class),
+            syringeGroupCn
+        );
+
+        MethodSpec.Builder loadIntoMethodBuilder = MethodSpec.methodBuilder(METHOD_LOAD_INTO)
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .addParameter(ParameterSpec.builder(syringesType, "syringes").build());
+
+        MethodSpec.Builder createMethodBuilder = MethodSpec.methodBuilder("create")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .returns(ClassName.get(elements.getTypeElement(ISYRINGE)))
+            .addParameter(ClassName.get(String.class), "className")
+            .beginControlFlow("switch (className)");
+
+        for (Map.Entry<String, ClassName> entry : syringes.entrySet()) {
+            loadIntoMethodBuilder.addStatement("syringes.put($S, this)", entry.getKey());
+            createMethodBuilder.addCode("case $S:\n$>", entry.getKey())
+                .addStatement("return new $T()", entry.getValue())
+                .addCode("$<");
+        }
+        createMethodBuilder.addCode("default:\n$>")
+            .addStatement("return null")
+            .addCode("$<")
+            .endControlFlow();
+
+        String fileName = NAME_OF_SYRINGES + SEPARATOR + moduleName;
+        JavaFile.builder(PACKAGE_OF_GENERATE_FILE,
+            TypeSpec.classBuilder(fileName)
+                .addJavadoc(WARNING_TIPS)
+                .addSuperinterface(syringeGroupCn)
+                .addModifiers(PUBLIC)
+                .addMethod(loadIntoMethodBuilder.build())
+                .addMethod(createMethodBuilder.build())
+                .build()
+        ).build().writeTo(mFiler);
+
+        logger.info(">>> Generated syringe group " + fileName + ", syringes = " +
+            syringes.size() + " <<<");
+    }
+
+
     /**
      * 根据不同的 TypeKind 类型，生成不同的 intent getter 语句
      *
@@ -0,0 +1,231 @@
+package com.alibaba.android.arouter.compiler.processor;
+
+import com.alibaba.android.arouter.compiler.utils.Logger;
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+
+import static com.alibaba.android.arouter.compiler.utils.Consts.ANNOTATION_TYPE_AUTOWIRED;
+import static com.alibaba.android.arouter.compiler.utils.Consts.ANNOTATION_TYPE_INTECEPTOR;
+import static com.alibaba.android.arouter.compiler.utils.Consts.ANNOTATION_TYPE_ROUTE;
+import static com.alibaba.android.arouter.compiler.utils.Consts.IINTERCEPTOR;
+import static com.alibaba.android.arouter.compiler.utils.Consts.IROUTE_GROUP;
+import static com.alibaba.android.arouter.compiler.utils.Consts.IROUTE_INDEX;
+import static com.alibaba.android.arouter.compiler.utils.Consts.ISYRINGE_GROUP;
+import static com.alibaba.android.arouter.compiler.utils.Consts.KEY_GENERATE_INDEX;
+import static com.alibaba.android.arouter.compiler.utils.Consts.METHOD_LOAD_INTO;
+import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_INDEX;
+import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_INTERCEPTOR;
+import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_PROVIDER;
+import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_ROOT;
+import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_SYRINGES;
+import static com.alibaba.android.arouter.compiler.utils.Consts.PACKAGE_OF_GENERATE_FILE;
+import static com.alibaba.android.arouter.compiler.utils.Consts.SEPARATOR;
+import static com.alibaba.android.arouter.compiler.utils.Consts.WARNING_TIPS;
+import static javax.lang.model.element.Modifier.PUBLIC;
+
+/**
+ * Generate the index of all the roots, interceptor groups, provider groups and syringe groups.
+ *
+ * {@link RouteIndexProcessor#process(Set, RoundEnvironment)}
+ * 只在 app 模块开启（ generateRouteIndex = true ）
+ *
+ * 在第一个没有 @Route、@Interceptor、@Autowired 的轮次（ 不会再生成新的路由组 ）
+ * 不等到最后一轮，否则 javac 会警告最后一轮生成的文件不会被注解处理
+ * 1. 遍历 com.alibaba.android.arouter.routes 包下的所有类
+ * -  包括 依赖模块（ classpath ）中已经编译好的，和本模块之前几轮生成的
+ * 2. 找到所有 ARouter$$Root$$*，ARouter$$Interceptors$$*，ARouter$$Providers$$* 和 ARouter$$Syringes$$*
+ * 3. JavaPoet 生成 ARouter$$Index，直接 new 这些类，然后调用 loadInto
+ *
+ * 运行时 LogisticsCenter 直接加载 ARouter$$Index，不再扫描 dex 和 反射实例化
+ *
+ * app build.gradle
+ *
+ * javaCompileOptions {
+ *     annotationProcessorOptions {
+ *         arguments = [ moduleName : project.getName(), generateRouteIndex : 'true' ]
+ *     }
+ * }
+ */
+@SuppressWarnings("DanglingJavadoc")
+@AutoService(Processor.class)
+@SupportedOptions(KEY_GENERATE_INDEX)
+@SupportedSourceVersion(SourceVersion.RELEASE_7)
+// 每一轮都需要被调用，哪怕 app 模块没有注解
+@SupportedAnnotationTypes("*")
+public class RouteIndexProcessor extends AbstractProcessor {
+
+    private Filer mFiler;
+    private Logger logger;
+    private Elements elements;
+    private boolean enabled;
+    private boolean generated;
+
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+
+        mFiler = processingEnv.getFiler();
+        elements = processingEnv.getElementUtils();
+        logger = new Logger(processingEnv.getMessager());
+
+        Map<String, String> options = processingEnv.getOptions();
+        enabled = options != null && Boolean.parseBoolean(options.get(KEY_GENERATE_INDEX));
+        if (enabled) {
+            logger.info(">>> RouteIndexProcessor init. <<<");
+        }
+    }
+
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // 不消费任何注解，让其他 processor 继续处理
+        if (!enabled || generated) {
+            return false;
+        }
+        // 这一轮还会生成路由组，等下一轮；兜底：最后一轮一定生成
+        if (generatesGroups(annotations) && !roundEnv.processingOver()) {
+            return false;
+        }
+        generated = true;
+        try {
+            generateIndex();
+        } catch (Exception e) {
+            logger.error(e);
+        }
+        return false;
+    }
+
+
+    /**
+     * 这一轮有没有会生成路由组的注解
+     *
+     * @param annotations annotations of this round
+     * @return true if RouteProcessor, InterceptorProcessor or AutowiredProcessor generate files
+     */
+    private static boolean generatesGroups(Set<? extends TypeElement> annotations) {
+        for (TypeElement annotation : annotations) {
+            String name = annotation.getQualifiedName().toString();
+            if (ANNOTATION_TYPE_ROUTE.equals(name) || ANNOTATION_TYPE_INTECEPTOR.equals(name) ||
+                ANNOTATION_TYPE_AUTOWIRED.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private void generateIndex() throws IOException {
+        Set<String> roots = new TreeSet<>();
+        Set<String> interceptors = new TreeSet<>();
+        Set<String> providers = new TreeSet<>();
+        Set<String> syringes = new TreeSet<>();
+
+        PackageElement routesPackage = elements.getPackageElement(PACKAGE_OF_GENERATE_FILE);
+        if (null != routesPackage) {
+            for (Element element : routesPackage.getEnclosedElements()) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    continue;
+                }
+                String name = element.getSimpleName().toString();
+                if (name.startsWith(NAME_OF_ROOT + SEPARATOR)) {
+                    roots.add(name);
+                } else if (name.startsWith(NAME_OF_INTERCEPTOR + SEPARATOR)) {
+                    interceptors.add(name);
+                } else if (name.startsWith(NAME_OF_PROVIDER + SEPARATOR)) {
+                    providers.add(name);
+                } else if (name.startsWith(NAME_OF_SYRINGES + SEPARATOR)) {
+                    syringes.add(name);
+                }
+            }
+        }
+
+        TypeName routeMetaTn = ClassName.get("com.alibaba.android.arouter.facade.model",
+            "RouteMeta");
+        ParameterizedTypeName groupsType = ParameterizedTypeName.get(
+            ClassName.get(Map.class),
+            ClassName.get(String.class),
+            ParameterizedTypeName.get(ClassName.get(Class.class),
+                WildcardTypeName.subtypeOf(ClassName.get(elements.getTypeElement(IROUTE_GROUP))))
+        );
+        ParameterizedTypeName interceptorsType = ParameterizedTypeName.get(
+            ClassName.get(Map.class),
+            ClassName.get(Integer.class),
+            ParameterizedTypeName.get(ClassName.get(Class.class),
+                WildcardTypeName.subtypeOf(ClassName.get(elements.getTypeElement(IINTERCEPTOR))))
+        );
+        ParameterizedTypeName providersType = ParameterizedTypeName.get(
+            ClassName.get(Map.class),
+            ClassName.get(String.class),
+            routeMetaTn
+        );
+        ParameterizedTypeName syringesType = ParameterizedTypeName.get(
+            ClassName.get(Map.class),
+            ClassName.get(String.class),
+            ClassName.get(elements.getTypeElement(ISYRINGE_GROUP))
+        );
+
+        MethodSpec.Builder loadIntoMethodBuilder = MethodSpec.methodBuilder(METHOD_LOAD_INTO)
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .addParameter(ParameterSpec.builder(groupsType, "groups").build())
+            .addParameter(ParameterSpec.builder(interceptorsType, "interceptors").build())
+            .addParameter(ParameterSpec.builder(providersType, "providers").build())
+            .addParameter(ParameterSpec.builder(syringesType, "syringes").build());
+
+        for (String root : roots) {
+            loadIntoMethodBuilder.addStatement("new $T().loadInto(groups)",
+                ClassName.get(PACKAGE_OF_GENERATE_FILE, root));
+        }
+        for (String interceptor : interceptors) {
+            loadIntoMethodBuilder.addStatement("new $T().loadInto(interceptors)",
+                ClassName.get(PACKAGE_OF_GENERATE_FILE, interceptor));
+        }
+        for (String provider : providers) {
+            loadIntoMethodBuilder.addStatement("new $T().loadInto(providers)",
+                ClassName.get(PACKAGE_OF_GENERATE_FILE, provider));
+        }
+        for (String syringe : syringes) {
+            loadIntoMethodBuilder.addStatement("new $T().loadInto(syringes)",
+                ClassName.get(PACKAGE_OF_GENERATE_FILE, syringe));
+        }
+
+        JavaFile.builder(PACKAGE_OF_GENERATE_FILE,
+            TypeSpec.classBuilder(NAME_OF_INDEX)
+                .addJavadoc(WARNING_TIPS)
+                .addSuperinterface(ClassName.get(elements.getTypeElement(IROUTE_INDEX)))
+                .addModifiers(PUBLIC)
+                .addMethod(loadIntoMethodBuilder.build())
+                .build()
+        ).build().writeTo(mFiler);
+
+        logger.info(">>> Generated route index, roots = " + roots.size() + ", interceptors = "
+            + interceptors.size() + ", providers = " + providers.size() + ", syringes = "
+            + syringes.size() + " <<<");
+    }
+}
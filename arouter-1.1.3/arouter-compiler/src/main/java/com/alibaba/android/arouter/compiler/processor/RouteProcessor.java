@@ -117,6 +117,13 @@ public class RouteProcessor extends AbstractProcessor {
      * value = JavaPoet 生成的 java file name（ ARouter$$Group$$??? ）
      */
     private Map<String, String> rootMap = new TreeMap<>();
+    /**
+     * RouteTrie 中，同一个父节点下只有一个参数段节点
+     *
+     * key   = 参数段之前的路径（ 参数段统一记为 : ）
+     * value = { 参数段, 声明它的 path }
+     */
+    private Map<String, String[]> paramSegmentMap = new HashMap<>();
     // 用于生产 .java 文件
     private Filer mFiler;       // File util, write class file into disk.
     // 用于在 annotationProcessor 过程中打 log
@@ -656,7 +663,8 @@ public class RouteProcessor extends AbstractProcessor {
      * 验证 RouteMeta 数据
      *
      * 1. 验证 RouteMeta path 是否以 / 开头
-     * 2. 验证 RouteMeta group 是否为 null or ""
+     * 2. 验证 RouteMeta path 中的 路由模板段（ :name 和 * ）
+     * 3. 验证 RouteMeta group 是否为 null or ""
      *
      * @param meta raw meta
      */
@@ -669,6 +677,11 @@ public class RouteProcessor extends AbstractProcessor {
             return false;
         }
 
+        // 验证 路由模板段
+        if (!patternVerify(path)) {
+            return false;
+        }
+
         // 验证 RouteMeta group 是否为 null or ""
         if (StringUtils.isEmpty(meta.getGroup())) { // Use default group(the first word in path)
             try {
@@ -688,4 +701,64 @@ public class RouteProcessor extends AbstractProcessor {
         return true;
     }
 
+
+    /**
+     * Verify the pattern segments in path, such as /user/:id or /web/*
+     *
+     * 验证 路由模板段
+     *
+     * 1. 第一段是 group，不能是 :name 或 *
+     * 2. :name 的 name 不能为空
+     * 3. * 只能是最后一段
+     * 4. 同一层的 :name，和已有路由的 name 必须一致，如 /user/:id 和 /user/:uid/detail 冲突
+     *
+     * @param path path
+     */
+    private boolean patternVerify(String path) {
+        String[] segments = path.substring(1).split("/");
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean param = segment.startsWith(":");
+            boolean wildcard = "*".equals(segment);
+            if (!param && !wildcard) {
+                continue;
+            }
+            if (i == 0) {
+                logger.error("The group of path [" + path + "] can't be a pattern segment!");
+                return false;
+            }
+            if (param && segment.length() == 1) {
+                logger.error("The param segment of path [" + path + "] has no name!");
+                return false;
+            }
+            if (wildcard && i != segments.length - 1) {
+                logger.error("The wildcard segment of path [" + path + "] must be the last one!");
+                return false;
+            }
+        }
+
+        // 和 RouteTrie 一样跳过空段
+        StringBuilder parent = new StringBuilder();
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith(":")) {
+                String key = parent.toString();
+                String[] declared = paramSegmentMap.get(key);
+                if (null == declared) {
+                    paramSegmentMap.put(key, new String[] { segment, path });
+                } else if (!declared[0].equals(segment)) {
+                    logger.error("The param segment [" + segment + "] of path [" + path +
+                        "] conflicts with [" + declared[0] + "] of path [" + declared[1] + "]!");
+                    return false;
+                }
+                parent.append("/:");
+            } else {
+                parent.append('/').append(segment);
+            }
+        }
+        return true;
+    }
+
 }
@@ -20,6 +20,8 @@ public class Consts {
     public static final String NAME_OF_PROVIDER = PROJECT + SEPARATOR + "Providers";
     public static final String NAME_OF_GROUP = PROJECT + SEPARATOR + "Group" + SEPARATOR;
     public static final String NAME_OF_INTERCEPTOR = PROJECT + SEPARATOR + "Interceptors";
+    public static final String NAME_OF_INDEX = PROJECT + SEPARATOR + "Index";
+    public static final String NAME_OF_SYRINGES = PROJECT + SEPARATOR + "Syringes";
     public static final String NAME_OF_AUTOWIRED = SEPARATOR + PROJECT + SEPARATOR + "Autowired";
     public static final String PACKAGE_OF_GENERATE_FILE = "com.alibaba.android.arouter.routes";
 
@@ -53,7 +55,10 @@ public class Consts {
         ".IInterceptorGroup";
     public static final String ITROUTE_ROOT = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".IRouteRoot";
     public static final String IROUTE_GROUP = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".IRouteGroup";
+    public static final String IROUTE_INDEX = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".IRouteIndex";
     public static final String ISYRINGE = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".ISyringe";
+    public static final String ISYRINGE_GROUP = FACADE_PACKAGE + TEMPLATE_PACKAGE +
+        ".ISyringeGroup";
     public static final String JSON_SERVICE = FACADE_PACKAGE + SERVICE_PACKAGE +
         ".SerializationService";
 
@@ -62,6 +67,7 @@ public class Consts {
 
     // Options of processor
     public static final String KEY_MODULE_NAME = "moduleName";
+    public static final String KEY_GENERATE_INDEX = "generateRouteIndex";
 
     // Annotation type
     public static final String ANNOTATION_TYPE_INTECEPTOR = FACADE_PACKAGE +
@@ -0,0 +1,125 @@
+package butterknife.compiler;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.List;
+import java.util.Map;
+
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+
+/**
+ * The index of all bindings of one module.
+ *
+ * - public final class XxxIndex implements ViewBindingIndex {
+ * -    @Override
+ * -    public void loadInto(Map<Class<?>, ViewBindingFactory> factories) {
+ * -        factories.put(MainActivity.class, new Factory(0));
+ * -    }
+ * -
+ * -    private static final class Factory implements ViewBindingFactory {
+ * -        ...
+ * -        @Override
+ * -        public Unbinder create(Object target, View source) {
+ * -            switch (id) {
+ * -                case 0:
+ * -                return new MainActivity_ViewBinding((MainActivity) target, source);
+ * -                ...
+ * -            }
+ * -        }
+ * -    }
+ * - }
+ *
+ * 一个 Factory 类 + switch，不用每个 target 生成一个匿名类
+ */
+final class BindingIndex {
+    private static final ClassName VIEW = ClassName.get("android.view", "View");
+    private static final ClassName UNBINDER = ClassName.get("butterknife", "Unbinder");
+    private static final ClassName VIEW_BINDING_INDEX =
+        ClassName.get("butterknife", "ViewBindingIndex");
+    private static final ClassName VIEW_BINDING_FACTORY =
+        ClassName.get("butterknife.internal", "ViewBindingFactory");
+    private static final String FACTORY = "Factory";
+
+
+    private BindingIndex() {
+    }
+
+
+    /**
+     * @param indexName 索引类全名，butterknife.index 选项
+     * @param bindings public 的 target 的 BindingSet
+     * @return JavaFile
+     */
+    static JavaFile brewJava(String indexName, List<BindingSet> bindings) {
+        ClassName indexClassName = ClassName.bestGuess(indexName);
+        ClassName factoryClassName = indexClassName.nestedClass(FACTORY);
+
+        TypeName factories = ParameterizedTypeName.get(ClassName.get(Map.class),
+            ParameterizedTypeName.get(ClassName.get(Class.class),
+                WildcardTypeName.subtypeOf(Object.class)), VIEW_BINDING_FACTORY);
+        MethodSpec.Builder loadInto = MethodSpec.methodBuilder("loadInto")
+            .addAnnotation(Override.class)
+            .addModifiers(PUBLIC)
+            .addParameter(factories, "factories");
+
+        CodeBlock.Builder create = CodeBlock.builder().beginControlFlow("switch (id)");
+        for (int i = 0; i < bindings.size(); i++) {
+            BindingSet binding = bindings.get(i);
+            loadInto.addStatement("factories.put($T.class, new $T($L))",
+                binding.getTargetTypeName(), factoryClassName, i);
+            create.add("case $L:\n", i).indent();
+            if (binding.constructorNeedsView()) {
+                create.addStatement("return new $T(($T) target, source)",
+                    binding.getBindingClassName(), binding.getTargetTypeName());
+            } else {
+                create.addStatement("return new $T(($T) target, source.getContext())",
+                    binding.getBindingClassName(), binding.getTargetTypeName());
+            }
+            create.unindent();
+        }
+        create.add("default:\n").indent()
+            .addStatement("throw new $T($S + id)", IllegalStateException.class,
+                "Unknown binding ")
+            .unindent()
+            .endControlFlow();
+
+        TypeSpec factory = TypeSpec.classBuilder(FACTORY)
+            .addModifiers(PRIVATE, STATIC, FINAL)
+            .addSuperinterface(VIEW_BINDING_FACTORY)
+            .addField(FieldSpec.builder(int.class, "id", PRIVATE, FINAL).build())
+            .addMethod(MethodSpec.constructorBuilder()
+                .addParameter(int.class, "id")
+                .addStatement("this.id = id")
+                .build())
+            .addMethod(MethodSpec.methodBuilder("create")
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .returns(UNBINDER)
+                .addParameter(Object.class, "target")
+                .addParameter(VIEW, "source")
+                .addCode(create.build())
+                .build())
+            .build();
+
+        TypeSpec index = TypeSpec.classBuilder(indexClassName.simpleName())
+            .addModifiers(PUBLIC, FINAL)
+            .addSuperinterface(VIEW_BINDING_INDEX)
+            .addMethod(loadInto.build())
+            .addType(factory)
+            .build();
+
+        return JavaFile.builder(indexClassName.packageName(), index)
+            .addFileComment("Generated code from Butter Knife. Do not modify!")
+            .build();
+    }
+}
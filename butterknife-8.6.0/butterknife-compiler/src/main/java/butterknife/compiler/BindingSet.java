@@ -234,11 +234,16 @@ final class BindingSet {
     /**
      * 根据 SDK 版本生成 JavaFile
      *
+     * originatingElement 是 target 类，Gradle isolating 增量编译据此知道
+     * 这个 _ViewBinding 只需要在 target 类改动时重新生成
+     *
      * @param sdk sdk 版本
+     * @param originatingElement target 类
      * @return JavaFile
      */
-    JavaFile brewJava(int sdk) {
-        return JavaFile.builder(bindingClassName.packageName(), createType(sdk))
+    JavaFile brewJava(int sdk, TypeElement originatingElement) {
+        return JavaFile.builder(bindingClassName.packageName(),
+            createType(sdk, originatingElement))
             .addFileComment("Generated code from Butter Knife. Do not modify!")
             .build();
     }
@@ -256,10 +261,12 @@ final class BindingSet {
      * 7.添加 unbind 方法
      *
      * @param sdk sdk 版本
+     * @param originatingElement target 类
      * @return TypeSpec
      */
-    private TypeSpec createType(int sdk) {
+    private TypeSpec createType(int sdk, TypeElement originatingElement) {
         TypeSpec.Builder result = TypeSpec.classBuilder(bindingClassName.simpleName())
+            .addOriginatingElement(originatingElement)
             .addModifiers(PUBLIC);
         if (isFinal) {
             result.addModifiers(FINAL);
@@ -938,12 +945,22 @@ final class BindingSet {
      *
      * @return 是否
      */
-    private boolean constructorNeedsView() {
+    boolean constructorNeedsView() {
         return hasViewBindings() //
             || parentBinding != null && parentBinding.constructorNeedsView();
     }
 
 
+    TypeName getTargetTypeName() {
+        return targetTypeName;
+    }
+
+
+    ClassName getBindingClassName() {
+        return bindingClassName;
+    }
+
+
     @Override
     public String toString() {
         return bindingClassName.toString();
@@ -25,16 +25,13 @@ import butterknife.OnTouch;
 import butterknife.Optional;
 import butterknife.internal.ListenerClass;
 import butterknife.internal.ListenerMethod;
+import com.camnter.annotation.processor.common.symbol.RSymbol;
+import com.camnter.annotation.processor.common.symbol.RSymbols;
 import com.google.auto.common.SuperficialValidation;
 import com.google.auto.service.AutoService;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.TypeName;
-import com.sun.source.tree.ClassTree;
-import com.sun.source.util.Trees;
-import com.sun.tools.javac.code.Symbol;
-import com.sun.tools.javac.tree.JCTree;
-import com.sun.tools.javac.tree.TreeScanner;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -46,8 +43,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -68,7 +65,6 @@ import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
-import javax.lang.model.type.MirroredTypeException;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.TypeVariable;
@@ -80,6 +76,7 @@ import static javax.lang.model.element.ElementKind.CLASS;
 import static javax.lang.model.element.ElementKind.INTERFACE;
 import static javax.lang.model.element.ElementKind.METHOD;
 import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 
 @AutoService(Processor.class)
@@ -90,6 +87,13 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
     static final String DIALOG_TYPE = "android.app.Dialog";
     // TODO remove when http://b.android.com/187527 is released.
     private static final String OPTION_SDK_INT = "butterknife.minSdk";
+    private static final String OPTION_INDEX = "butterknife.index";
+    private static final String OPTION_TIMING = "butterknife.timing";
+    private static final String OPTION_ISOLATING = "org.gradle.annotation.processing.isolating";
+    private static final String OPTION_AGGREGATING = "org.gradle.annotation.processing.aggregating";
+    private static final String TIMING_HIERARCHY = "(superclass hierarchy)";
+    private static final String TIMING_GENERATE = "(generate _ViewBinding)";
+    private static final String TIMING_INDEX = "(generate index)";
     private static final String COLOR_STATE_LIST_TYPE = "android.content.res.ColorStateList";
     private static final String BITMAP_TYPE = "android.graphics.Bitmap";
     private static final String DRAWABLE_TYPE = "android.graphics.drawable.Drawable";
@@ -111,13 +115,9 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
         OnTouch.class //
     );
 
-    private static final List<String> SUPPORTED_TYPES = Arrays.asList(
-        "array", "attr", "bool", "color", "dimen", "drawable", "id", "integer", "string"
-    );
-
     /**
-     * 1.预编译阶段扫描 butterknife 相关注解所在 packageName 所属的的 资源 id（ R class 内的 ），这里就是黑魔法代码运用了 JCTree +
-     * Scanner。
+     * 1.解析注解时查找当前元素注解里引用的资源 id（ R class 内的 ），由 annotation-processor-common 的
+     * RSymbols 扫描注解树、加载 R class。这里只缓存当前元素的结果，换元素就清空
      *
      * 2.缓存下来的 QualifiedId 和 Id 的 Map 缓存。QualifiedId 是一个拥有 packageName 的 id，Id 是一个拥有 Javapoet
      * CodeBlock 的 id。都是资源 id 的形象化封装产物
@@ -130,11 +130,19 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
      * CodeBlock，用于自动生成代码时，进行代码拼凑
      */
     private final Map<QualifiedId, Id> symbols = new LinkedHashMap<>();
+    private Element symbolsElement;
+    /**
+     * 注解类型 --> { 耗时 ns, 元素个数 }
+     * 只有 butterknife.timing=true 时才统计
+     */
+    private Map<String, long[]> timings;
     private Elements elementUtils;
     private Types typeUtils;
     private Filer filer;
-    private Trees trees;
+    private RSymbols rSymbols;
     private int sdk = 1;
+    private String indexName;
+    private boolean indexWritten;
 
 
     /**
@@ -306,27 +314,6 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
     }
 
 
-    /**
-     * 获取 注解 在元素上对应的 AnnotationMirror
-     * 目前仅为了生成 JCTree
-     *
-     * @param element 注解元素
-     * @param annotation 注解 class 类型
-     * @return AnnotationMirror
-     */
-    private static AnnotationMirror getMirror(Element element,
-                                              Class<? extends Annotation> annotation) {
-        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
-            if (annotationMirror.getAnnotationType()
-                .toString()
-                .equals(annotation.getCanonicalName())) {
-                return annotationMirror;
-            }
-        }
-        return null;
-    }
-
-
     /**
      * 初始化
      * 1.获取 sdk 版本
@@ -350,24 +337,34 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
             }
         }
 
+        indexName = env.getOptions().get(OPTION_INDEX);
+        if (Boolean.parseBoolean(env.getOptions().get(OPTION_TIMING))) {
+            timings = new LinkedHashMap<>();
+        }
+
         elementUtils = env.getElementUtils();
         typeUtils = env.getTypeUtils();
         filer = env.getFiler();
-        try {
-            trees = Trees.instance(processingEnv);
-        } catch (IllegalArgumentException ignored) {
-        }
+        rSymbols = RSymbols.get(env);
     }
 
 
     /**
-     * 设置 sdk 版本
+     * 设置 sdk 版本，索引类名，耗时统计
+     *
+     * Gradle 增量编译：
+     * 1.每个 _ViewBinding 只由一个 target 类（ 和它的父类 ）生成，属于 isolating
+     * 2.生成索引类时，索引依赖所有 target，只能是 aggregating
+     * META-INF/gradle/incremental.annotation.processors 里声明为 dynamic，Gradle 会在 init 之后读这里
      *
-     * @return 版本集合
+     * @return 选项集合
      */
     @Override
     public Set<String> getSupportedOptions() {
-        return Collections.singleton(OPTION_SDK_INT);
+        Set<String> options = new LinkedHashSet<>(
+            Arrays.asList(OPTION_SDK_INT, OPTION_INDEX, OPTION_TIMING));
+        options.add(indexName == null ? OPTION_ISOLATING : OPTION_AGGREGATING);
+        return options;
     }
 
 
@@ -424,11 +421,11 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
 
 
     /**
-     * 1.扫描 R class，并解析
-     * 2.处理注解，生成对应 BindingSet.Builder Map 缓存
-     * 3.处理 BindingSet.Builder Map 缓存，转化为 BindingSet Map 缓存
-     * 4.从 BindingSet Map 缓存中拿到每一个 BindingSet，生成 JavaFile
-     * 5.生成 class 文件
+     * 1.处理注解，解析注解引用的 R 字段，生成对应 BindingSet.Builder Map 缓存
+     * 2.处理 BindingSet.Builder Map 缓存，转化为 BindingSet Map 缓存
+     * 3.从 BindingSet Map 缓存中拿到每一个 BindingSet，生成 JavaFile（ originating element 是 target 类 ）
+     * 4.生成 class 文件
+     * 5.最后一轮输出耗时统计
      *
      * @param elements elements
      * @param env RoundEnvironment
@@ -438,11 +435,12 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
     public boolean process(Set<? extends TypeElement> elements, RoundEnvironment env) {
         Map<TypeElement, BindingSet> bindingMap = findAndParseTargets(env);
 
+        long start = System.nanoTime();
         for (Map.Entry<TypeElement, BindingSet> entry : bindingMap.entrySet()) {
             TypeElement typeElement = entry.getKey();
             BindingSet binding = entry.getValue();
 
-            JavaFile javaFile = binding.brewJava(sdk);
+            JavaFile javaFile = binding.brewJava(sdk, typeElement);
             try {
                 javaFile.writeTo(filer);
             } catch (IOException e) {
@@ -450,13 +448,121 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                     e.getMessage());
             }
         }
+        start = recordTiming(TIMING_GENERATE, null, null, start);
+
+        if (indexName != null && !bindingMap.isEmpty()) {
+            writeIndex(bindingMap);
+            recordTiming(TIMING_INDEX, null, null, start);
+        }
+
+        if (env.processingOver()) {
+            reportTimings();
+        }
 
         return false;
     }
 
 
     /**
-     * 1.扫描 R class，并解析
+     * 累计一段处理的耗时
+     *
+     * @param name 注解名，或者处理阶段
+     * @param env RoundEnvironment，为 null 时不统计元素个数
+     * @param annotation 注解 class 类型
+     * @param start 开始时间
+     * @return 结束时间，作为下一段的开始时间
+     */
+    private long recordTiming(String name, RoundEnvironment env,
+                              Class<? extends Annotation> annotation, long start) {
+        long now = System.nanoTime();
+        if (timings == null) return now;
+
+        long[] timing = timings.get(name);
+        if (timing == null) {
+            timing = new long[2];
+            timings.put(name, timing);
+        }
+        timing[0] += now - start;
+        if (env != null) {
+            timing[1] += env.getElementsAnnotatedWith(annotation).size();
+        }
+        return now;
+    }
+
+
+    /**
+     * 最后一轮输出每种注解的耗时，按耗时倒序
+     */
+    private void reportTimings() {
+        if (timings == null || timings.isEmpty()) return;
+
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(timings.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, long[]>>() {
+            @Override
+            public int compare(Map.Entry<String, long[]> o1, Map.Entry<String, long[]> o2) {
+                return Long.compare(o2.getValue()[0], o1.getValue()[0]);
+            }
+        });
+        long total = 0;
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : entries) {
+            long[] timing = entry.getValue();
+            total += timing[0];
+            String name = entry.getKey().startsWith("(") ? entry.getKey() : "@" + entry.getKey();
+            report.append(String.format("\n  %-26s %8.2f ms  %5d elements", name,
+                timing[0] / 1000000.0, timing[1]));
+        }
+        processingEnv.getMessager().printMessage(Kind.NOTE,
+            String.format("Butter Knife processing time %.2f ms:", total / 1000000.0) + report);
+        timings.clear();
+    }
+
+
+    /**
+     * 生成索引类，ButterKnife.bind() 直接创建 ViewBinding，不需要反射
+     *
+     * 1.索引类在别的包内，只有 public 的 target（ 包括外部类 ）才能放进索引，其余的依然走反射
+     * 2.索引只能写一次，之后轮次的 target 走反射
+     *
+     * @param bindingMap BindingSet Map 缓存
+     */
+    private void writeIndex(Map<TypeElement, BindingSet> bindingMap) {
+        if (indexWritten) {
+            processingEnv.getMessager().printMessage(Kind.NOTE,
+                "Bindings generated after " + indexName + " are not indexed: " + bindingMap.keySet());
+            return;
+        }
+        indexWritten = true;
+
+        List<BindingSet> bindings = new ArrayList<>();
+        for (Map.Entry<TypeElement, BindingSet> entry : bindingMap.entrySet()) {
+            if (isPublic(entry.getKey())) {
+                bindings.add(entry.getValue());
+            }
+        }
+        try {
+            BindingIndex.brewJava(indexName, bindings).writeTo(filer);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR,
+                String.format("Unable to write binding index %s: %s", indexName, e.getMessage()));
+        }
+    }
+
+
+    private static boolean isPublic(TypeElement typeElement) {
+        for (Element element = typeElement;
+             element.getKind().isClass() || element.getKind().isInterface();
+             element = element.getEnclosingElement()) {
+            if (!element.getModifiers().contains(PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * 1.每种注解处理完，累计耗时
      * 2.SuperficialValidation.validateElement(...) google auto 验证 javax Element
      * 3.处理 @BindArray
      * 4.处理 @BindBitmap
@@ -479,8 +585,8 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
         Map<TypeElement, BindingSet.Builder> builderMap = new LinkedHashMap<>();
         Set<TypeElement> erasedTargetNames = new LinkedHashSet<>();
 
-        // TODO Mark 1
-        scanForRClasses(env);
+        symbolsElement = null;
+        long start = System.nanoTime();
 
         // 处理 @BindArray
         // Process each @BindArray element.
@@ -492,6 +598,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindArray.class, e);
             }
         }
+        start = recordTiming(BindArray.class.getSimpleName(), env, BindArray.class, start);
 
         // 处理 @BindBitmap
         // Process each @BindBitmap element.
@@ -503,6 +610,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindBitmap.class, e);
             }
         }
+        start = recordTiming(BindBitmap.class.getSimpleName(), env, BindBitmap.class, start);
 
         // 处理 @BindBool
         // Process each @BindBool element.
@@ -514,6 +622,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindBool.class, e);
             }
         }
+        start = recordTiming(BindBool.class.getSimpleName(), env, BindBool.class, start);
 
         // 处理 @BindColor
         // Process each @BindColor element.
@@ -525,6 +634,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindColor.class, e);
             }
         }
+        start = recordTiming(BindColor.class.getSimpleName(), env, BindColor.class, start);
 
         // 处理 @BindDimen
         // Process each @BindDimen element.
@@ -536,6 +646,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindDimen.class, e);
             }
         }
+        start = recordTiming(BindDimen.class.getSimpleName(), env, BindDimen.class, start);
 
         // 处理 @BindDrawable
         // Process each @BindDrawable element.
@@ -547,6 +658,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindDrawable.class, e);
             }
         }
+        start = recordTiming(BindDrawable.class.getSimpleName(), env, BindDrawable.class, start);
 
         // 处理 @BindFloat
         // Process each @BindFloat element.
@@ -558,6 +670,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindFloat.class, e);
             }
         }
+        start = recordTiming(BindFloat.class.getSimpleName(), env, BindFloat.class, start);
 
         // 处理 @BindInt
         // Process each @BindInt element.
@@ -569,6 +682,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindInt.class, e);
             }
         }
+        start = recordTiming(BindInt.class.getSimpleName(), env, BindInt.class, start);
 
         // 处理 @BindString
         // Process each @BindString element.
@@ -580,6 +694,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindString.class, e);
             }
         }
+        start = recordTiming(BindString.class.getSimpleName(), env, BindString.class, start);
 
         // 处理 @BindView
         // Process each @BindView element.
@@ -592,6 +707,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindView.class, e);
             }
         }
+        start = recordTiming(BindView.class.getSimpleName(), env, BindView.class, start);
 
         // 处理 @BindViews
         // Process each @BindViews element.
@@ -604,6 +720,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
                 logParsingError(element, BindViews.class, e);
             }
         }
+        start = recordTiming(BindViews.class.getSimpleName(), env, BindViews.class, start);
 
         /*
          * 处理
@@ -622,6 +739,7 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
         // Process each annotation that corresponds to a listener.
         for (Class<? extends Annotation> listener : LISTENERS) {
             findAndParseListener(env, listener, builderMap, erasedTargetNames);
+            start = recordTiming(listener.getSimpleName(), env, listener, start);
         }
 
         /*
@@ -660,6 +778,8 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
             }
         }
 
+        recordTiming(TIMING_HIERARCHY, null, null, start);
+
         return bindingMap;
     }
 
@@ -841,8 +961,10 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
      * @return QualifiedId
      */
     private QualifiedId elementToQualifiedId(Element element, int id) {
-        return new QualifiedId(elementUtils.getPackageOf(element).getQualifiedName().toString(),
-            id);
+        String respectivePackageName =
+            elementUtils.getPackageOf(element).getQualifiedName().toString();
+        setSymbolsElement(element);
+        return new QualifiedId(respectivePackageName, id);
     }
 
 
@@ -1766,222 +1888,43 @@ public final class ButterKnifeProcessor extends AbstractProcessor {
     /**
      * 通过 QualifiedId，从缓存中获取 Id
      *
+     * 缓存里没有时，从共用的 RSymbols 里查当前元素注解引用的 R 字段（ 每个 R class 只加载一次 ）
+     * - 查到了，生成代码引用 R.type.name
+     * - 查不到（ 字面量、已编译的注解 ），生成代码用字面量
+     *
      * @param qualifiedId qualifiedId
      * @return Id
      */
     private Id getId(QualifiedId qualifiedId) {
-        if (symbols.get(qualifiedId) == null) {
-            symbols.put(qualifiedId, new Id(qualifiedId.id));
-        }
-        return symbols.get(qualifiedId);
-    }
-
-
-    /**
-     * 扫描 R class
-     * 解析 R class
-     *
-     * @param env RoundEnvironment
-     */
-    private void scanForRClasses(RoundEnvironment env) {
-        if (trees == null) return;
-
-        RClassScanner scanner = new RClassScanner();
-
-        /*
-         * 每个注解类型 与 被注解的元素，生成一棵树
-         * 然后设置 R class 扫描这个元素的 package name
-         * 最后让这棵树 会自动调用扫描类中的方法去，扫描 R class
-         */
-        for (Class<? extends Annotation> annotation : getSupportedAnnotations()) {
-            for (Element element : env.getElementsAnnotatedWith(annotation)) {
-                JCTree tree = (JCTree) trees.getTree(element, getMirror(element, annotation));
-                if (tree !=
-                    null) { // tree can be null if the references are compiled types and not source
-                    String respectivePackageName =
-                        elementUtils.getPackageOf(element).getQualifiedName().toString();
-                    scanner.setCurrentPackageName(respectivePackageName);
-                    tree.accept(scanner);
-                }
-            }
-        }
-
-        /*
-         * 拿到全部 R classes
-         * 然后 parseRClass(...) 解析 R class
-         */
-        for (Map.Entry<String, Set<String>> packageNameToRClassSet : scanner.getRClasses()
-            .entrySet()) {
-            String respectivePackageName = packageNameToRClassSet.getKey();
-            for (String rClass : packageNameToRClassSet.getValue()) {
-                parseRClass(respectivePackageName, rClass);
+        Id id = symbols.get(qualifiedId);
+        if (id == null) {
+            RSymbol symbol = rSymbols.resolve(symbolsElement, qualifiedId.id);
+            if (symbol == null) {
+                id = new Id(qualifiedId.id);
+            } else {
+                ClassName rClassName =
+                    ClassName.get(symbol.getPackageName(), "R", symbol.getType());
+                id = new Id(qualifiedId.id, rClassName, symbol.getName());
             }
+            symbols.put(qualifiedId, id);
         }
+        return id;
     }
 
 
     /**
-     * 1.获取 该 R class 在 scanForRClasses(...) 时，生辰生成的那棵树
-     * - 如果存在树，就解析编译好的 R class
-     * - 不存在的话，创建一个 Id 扫描类，扫描 R class 内的所有 Id
-     * 2.Id 扫描类，内还会让树调用 Var 扫描类，扫描全部 int 变量
+     * 切换当前解析的注解元素
      *
-     * @param respectivePackageName R class package name
-     * @param rClass R class
-     */
-    private void parseRClass(String respectivePackageName, String rClass) {
-        Element element;
-
-        try {
-            element = elementUtils.getTypeElement(rClass);
-        } catch (MirroredTypeException mte) {
-            element = typeUtils.asElement(mte.getTypeMirror());
-        }
-
-        JCTree tree = (JCTree) trees.getTree(element);
-        if (tree != null) { // tree can be null if the references are compiled types and not source
-            IdScanner idScanner = new IdScanner(symbols, elementUtils.getPackageOf(element)
-                .getQualifiedName().toString(), respectivePackageName);
-            tree.accept(idScanner);
-        } else {
-            parseCompiledR(respectivePackageName, (TypeElement) element);
-        }
-    }
-
-
-    /**
-     * 解析编译过的 R class
+     * 1.只解析当前元素注解引用的 R 字段，不再解析整个 R class。生成的 _ViewBinding 只依赖它自己的源文件，
+     * 满足 Gradle isolating 增量处理器的要求
+     * 2.同一元素（ 比如 @OnClick({R.id.a, R.id.b}) ）多次转换 QualifiedId 时，缓存不清空
      *
-     * @param respectivePackageName package name
-     * @param rClass R class
-     */
-    private void parseCompiledR(String respectivePackageName, TypeElement rClass) {
-        for (Element element : rClass.getEnclosedElements()) {
-            String innerClassName = element.getSimpleName().toString();
-            if (SUPPORTED_TYPES.contains(innerClassName)) {
-                for (Element enclosedElement : element.getEnclosedElements()) {
-                    if (enclosedElement instanceof VariableElement) {
-                        VariableElement variableElement = (VariableElement) enclosedElement;
-                        Object value = variableElement.getConstantValue();
-
-                        if (value instanceof Integer) {
-                            int id = (Integer) value;
-                            ClassName rClassName =
-                                ClassName.get(elementUtils.getPackageOf(variableElement).toString(),
-                                    "R",
-                                    innerClassName);
-                            String resourceName = variableElement.getSimpleName().toString();
-                            QualifiedId qualifiedId = new QualifiedId(respectivePackageName, id);
-                            symbols.put(qualifiedId, new Id(id, rClassName, resourceName));
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-
-    /**
-     * R class 扫描
-     *
-     * 因为每个 package name 都会有一个 R
-     */
-    private static class RClassScanner extends TreeScanner {
-        // Maps the currently evaulated rPackageName to R Classes
-        private final Map<String, Set<String>> rClasses = new LinkedHashMap<>();
-        private String currentPackageName;
-
-
-        @Override
-        public void visitSelect(JCTree.JCFieldAccess jcFieldAccess) {
-            Symbol symbol = jcFieldAccess.sym;
-            if (symbol != null
-                && symbol.getEnclosingElement() != null
-                && symbol.getEnclosingElement().getEnclosingElement() != null
-                && symbol.getEnclosingElement().getEnclosingElement().enclClass() != null) {
-                Set<String> rClassSet = rClasses.get(currentPackageName);
-                if (rClassSet == null) {
-                    rClassSet = new HashSet<>();
-                    rClasses.put(currentPackageName, rClassSet);
-                }
-                rClassSet.add(
-                    symbol.getEnclosingElement().getEnclosingElement().enclClass().className());
-            }
-        }
-
-
-        Map<String, Set<String>> getRClasses() {
-            return rClasses;
-        }
-
-
-        void setCurrentPackageName(String respectivePackageName) {
-            this.currentPackageName = respectivePackageName;
-        }
-    }
-
-
-    /**
-     * R class Id 扫描
-     * 会保存在一个 Map 内
-     */
-    private static class IdScanner extends TreeScanner {
-        private final Map<QualifiedId, Id> ids;
-        private final String rPackageName;
-        private final String respectivePackageName;
-
-
-        IdScanner(Map<QualifiedId, Id> ids, String rPackageName, String respectivePackageName) {
-            this.ids = ids;
-            this.rPackageName = rPackageName;
-            this.respectivePackageName = respectivePackageName;
-        }
-
-
-        @Override
-        public void visitClassDef(JCTree.JCClassDecl jcClassDecl) {
-            for (JCTree tree : jcClassDecl.defs) {
-                if (tree instanceof ClassTree) {
-                    ClassTree classTree = (ClassTree) tree;
-                    String className = classTree.getSimpleName().toString();
-                    if (SUPPORTED_TYPES.contains(className)) {
-                        ClassName rClassName = ClassName.get(rPackageName, "R", className);
-                        VarScanner scanner = new VarScanner(ids, rClassName, respectivePackageName);
-                        ((JCTree) classTree).accept(scanner);
-                    }
-                }
-            }
-        }
-    }
-
-
-    /**
-     * R class 变量 扫描
-     * 会保存在一个 Map 内
+     * @param element 被注解元素
      */
-    private static class VarScanner extends TreeScanner {
-        private final Map<QualifiedId, Id> ids;
-        private final ClassName className;
-        private final String respectivePackageName;
-
-
-        private VarScanner(Map<QualifiedId, Id> ids, ClassName className,
-                           String respectivePackageName) {
-            this.ids = ids;
-            this.className = className;
-            this.respectivePackageName = respectivePackageName;
-        }
-
-
-        @Override
-        public void visitVarDef(JCTree.JCVariableDecl jcVariableDecl) {
-            if ("int".equals(jcVariableDecl.getType().toString())) {
-                int id = Integer.valueOf(jcVariableDecl.getInitializer().toString());
-                String resourceName = jcVariableDecl.getName().toString();
-                QualifiedId qualifiedId = new QualifiedId(respectivePackageName, id);
-                ids.put(qualifiedId, new Id(id, className, resourceName));
-            }
-        }
+    private void setSymbolsElement(Element element) {
+        if (element == symbolsElement) return;
+        symbolsElement = element;
+        symbols.clear();
     }
 
 }
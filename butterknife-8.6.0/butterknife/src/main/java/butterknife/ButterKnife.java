@@ -7,18 +7,18 @@ import android.os.Build;
 import android.support.annotation.CheckResult;
 import android.support.annotation.IdRes;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
 import android.support.annotation.UiThread;
 import android.support.annotation.VisibleForTesting;
 import android.util.Log;
 import android.util.Property;
 import android.view.View;
+import butterknife.internal.ViewBindingFactory;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Field and method binding for Android views. Use this class to simplify finding views and
@@ -84,9 +84,20 @@ import java.util.Map;
  */
 public final class ButterKnife {
     @VisibleForTesting
-    static final Map<Class<?>, Constructor<? extends Unbinder>> BINDINGS = new LinkedHashMap<>();
+    static final Map<Class<?>, ViewBindingFactory> BINDINGS = new ConcurrentHashMap<>();
+    /** Factories of all registered {@link ViewBindingIndex}es. */
+    static final Map<Class<?>, ViewBindingFactory> INDEX = new ConcurrentHashMap<>();
+    /** Cached for classes without any binding, {@code ConcurrentHashMap} does not allow null. */
+    private static final ViewBindingFactory NO_BINDING = new ViewBindingFactory() {
+        @NonNull
+        @Override
+        public Unbinder create(@NonNull Object target, @NonNull View source) {
+            return Unbinder.EMPTY;
+        }
+    };
     private static final String TAG = "ButterKnife";
-    private static boolean debug = false;
+    private static volatile boolean debug = false;
+    private static volatile boolean reflectionFallback = true;
 
 
     private ButterKnife() {
@@ -189,63 +200,129 @@ public final class ButterKnife {
     }
 
 
-    private static Unbinder createBinding(@NonNull Object target, @NonNull View source) {
-        Class<?> targetClass = target.getClass();
-        if (debug) Log.d(TAG, "Looking up binding for " + targetClass.getName());
-        Constructor<? extends Unbinder> constructor = findBindingConstructorForClass(targetClass);
+    /**
+     * Register the generated {@link ViewBindingIndex} of a module. Bindings of the indexed classes
+     * are created directly, without reflection.
+     */
+    public static void addIndex(@NonNull ViewBindingIndex index) {
+        index.loadInto(INDEX);
+    }
 
-        if (constructor == null) {
-            return Unbinder.EMPTY;
-        }
 
-        //noinspection TryWithIdenticalCatches Resolves to API 19+ only type.
-        try {
-            return constructor.newInstance(target, source);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException("Unable to invoke " + constructor, e);
-        } catch (InstantiationException e) {
-            throw new RuntimeException("Unable to invoke " + constructor, e);
-        } catch (InvocationTargetException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            }
-            if (cause instanceof Error) {
-                throw (Error) cause;
+    /**
+     * Control whether binding classes which are not in any registered {@link ViewBindingIndex}
+     * are looked up through reflection. Disable it when every module registers an index, so that
+     * classes without bindings are resolved without a {@link ClassNotFoundException}.
+     */
+    public static void setReflectionFallback(boolean reflectionFallback) {
+        ButterKnife.reflectionFallback = reflectionFallback;
+    }
+
+
+    /**
+     * Look up the bindings of {@code classes} on a background thread, so that the first
+     * {@code bind()} of those classes does not pay for class loading and reflection.
+     */
+    public static void preload(@NonNull final Class<?>... classes) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (Class<?> cls : classes) {
+                    try {
+                        findBindingFactoryForClass(cls);
+                    } catch (RuntimeException e) {
+                        if (debug) Log.d(TAG, "Preload failed for " + cls.getName(), e);
+                    }
+                }
             }
-            throw new RuntimeException("Unable to create binding instance.", cause);
-        }
+        }, "ButterKnife-preload");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+
+    private static Unbinder createBinding(@NonNull Object target, @NonNull View source) {
+        Class<?> targetClass = target.getClass();
+        if (debug) Log.d(TAG, "Looking up binding for " + targetClass.getName());
+        ViewBindingFactory factory = findBindingFactoryForClass(targetClass);
+        return factory.create(target, source);
     }
 
 
-    @Nullable
+    /**
+     * Safe to call from any thread. A class is resolved at most a few times when raced, and the
+     * result is the same every time.
+     */
+    @NonNull
     @CheckResult
-    @UiThread
-    private static Constructor<? extends Unbinder> findBindingConstructorForClass(Class<?> cls) {
-        Constructor<? extends Unbinder> bindingCtor = BINDINGS.get(cls);
-        if (bindingCtor != null) {
+    private static ViewBindingFactory findBindingFactoryForClass(Class<?> cls) {
+        ViewBindingFactory factory = BINDINGS.get(cls);
+        if (factory != null) {
             if (debug) Log.d(TAG, "HIT: Cached in binding map.");
-            return bindingCtor;
+            return factory;
         }
         String clsName = cls.getName();
         if (clsName.startsWith("android.") || clsName.startsWith("java.")) {
             if (debug) Log.d(TAG, "MISS: Reached framework class. Abandoning search.");
-            return null;
+            return NO_BINDING;
+        }
+        factory = INDEX.get(cls);
+        if (factory != null) {
+            if (debug) Log.d(TAG, "HIT: Found in generated index.");
+        } else if (!reflectionFallback) {
+            if (debug) Log.d(TAG, "Not indexed. Trying superclass " + cls.getSuperclass().getName());
+            factory = findBindingFactoryForClass(cls.getSuperclass());
+        } else {
+            try {
+                Class<?> bindingClass = cls.getClassLoader().loadClass(clsName + "_ViewBinding");
+                //noinspection unchecked
+                factory = new ReflectiveFactory(
+                    (Constructor<? extends Unbinder>) bindingClass.getConstructor(cls, View.class));
+                if (debug) Log.d(TAG, "HIT: Loaded binding class and constructor.");
+            } catch (ClassNotFoundException e) {
+                if (debug) Log.d(TAG, "Not found. Trying superclass " + cls.getSuperclass().getName());
+                factory = findBindingFactoryForClass(cls.getSuperclass());
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException("Unable to find binding constructor for " + clsName, e);
+            }
+        }
+        BINDINGS.put(cls, factory);
+        return factory;
+    }
+
+
+    /** Binding of a class which is not indexed, created through its constructor. */
+    private static final class ReflectiveFactory implements ViewBindingFactory {
+        private final Constructor<? extends Unbinder> constructor;
+
+
+        ReflectiveFactory(Constructor<? extends Unbinder> constructor) {
+            this.constructor = constructor;
         }
-        try {
-            Class<?> bindingClass = cls.getClassLoader().loadClass(clsName + "_ViewBinding");
-            //noinspection unchecked
-            bindingCtor = (Constructor<? extends Unbinder>) bindingClass.getConstructor(cls,
-                View.class);
-            if (debug) Log.d(TAG, "HIT: Loaded binding class and constructor.");
-        } catch (ClassNotFoundException e) {
-            if (debug) Log.d(TAG, "Not found. Trying superclass " + cls.getSuperclass().getName());
-            bindingCtor = findBindingConstructorForClass(cls.getSuperclass());
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException("Unable to find binding constructor for " + clsName, e);
+
+
+        @NonNull
+        @Override
+        public Unbinder create(@NonNull Object target, @NonNull View source) {
+            //noinspection TryWithIdenticalCatches Resolves to API 19+ only type.
+            try {
+                return constructor.newInstance(target, source);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Unable to invoke " + constructor, e);
+            } catch (InstantiationException e) {
+                throw new RuntimeException("Unable to invoke " + constructor, e);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException("Unable to create binding instance.", cause);
+            }
         }
-        BINDINGS.put(cls, bindingCtor);
-        return bindingCtor;
     }
 
 
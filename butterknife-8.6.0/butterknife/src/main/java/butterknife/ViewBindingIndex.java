@@ -0,0 +1,22 @@
+package butterknife;
+
+import butterknife.internal.ViewBindingFactory;
+import java.util.Map;
+
+/**
+ * An index of the view bindings of one module, generated by the annotation processor when the
+ * {@code butterknife.index} option is set. Register it with
+ * {@link ButterKnife#addIndex(ViewBindingIndex)} so that {@code bind()} creates those bindings
+ * directly instead of looking up their constructors through reflection.
+ * <pre><code>
+ * javaCompileOptions {
+ *   annotationProcessorOptions {
+ *     arguments = [ 'butterknife.index': 'com.example.app.AppViewBindingIndex' ]
+ *   }
+ * }
+ * </code></pre>
+ */
+public interface ViewBindingIndex {
+    /** Put a factory for every indexed target class into {@code factories}. */
+    void loadInto(Map<Class<?>, ViewBindingFactory> factories);
+}
@@ -0,0 +1,14 @@
+package butterknife.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.UiThread;
+import android.view.View;
+import butterknife.Unbinder;
+
+/** Creates the view binding of one target class. */
+@SuppressWarnings("WeakerAccess") // Used by generated code.
+public interface ViewBindingFactory {
+    @NonNull
+    @UiThread
+    Unbinder create(@NonNull Object target, @NonNull View source);
+}
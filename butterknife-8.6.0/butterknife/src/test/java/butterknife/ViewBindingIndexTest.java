@@ -0,0 +1,129 @@
+package butterknife;
+
+import butterknife.compiler.ButterKnifeProcessor;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+import static java.util.Arrays.asList;
+
+public class ViewBindingIndexTest {
+    @Test
+    public void indexesPublicTargets() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+            + "package test;\n"
+            + "import android.view.View;\n"
+            + "import butterknife.BindView;\n"
+            + "public class Test {\n"
+            + "  @BindView(1) View thing;\n"
+            + "}"
+        );
+        JavaFileObject hidden = JavaFileObjects.forSourceString("test.Hidden", ""
+            + "package test;\n"
+            + "import android.view.View;\n"
+            + "import butterknife.BindView;\n"
+            + "class Hidden {\n"
+            + "  @BindView(1) View thing;\n"
+            + "}"
+        );
+
+        JavaFileObject indexSource = JavaFileObjects.forSourceString("test/TestIndex", ""
+            + "// Generated code from Butter Knife. Do not modify!\n"
+            + "package test;\n"
+            + "import android.view.View;\n"
+            + "import butterknife.Unbinder;\n"
+            + "import butterknife.ViewBindingIndex;\n"
+            + "import butterknife.internal.ViewBindingFactory;\n"
+            + "import java.lang.Class;\n"
+            + "import java.lang.IllegalStateException;\n"
+            + "import java.lang.Object;\n"
+            + "import java.lang.Override;\n"
+            + "import java.util.Map;\n"
+            + "public final class TestIndex implements ViewBindingIndex {\n"
+            + "  @Override\n"
+            + "  public void loadInto(Map<Class<?>, ViewBindingFactory> factories) {\n"
+            + "    factories.put(Test.class, new Factory(0));\n"
+            + "  }\n"
+            + "  private static final class Factory implements ViewBindingFactory {\n"
+            + "    private final int id;\n"
+            + "    Factory(int id) {\n"
+            + "      this.id = id;\n"
+            + "    }\n"
+            + "    @Override\n"
+            + "    public Unbinder create(Object target, View source) {\n"
+            + "      switch (id) {\n"
+            + "        case 0:\n"
+            + "          return new Test_ViewBinding((Test) target, source);\n"
+            + "        default:\n"
+            + "          throw new IllegalStateException(\"Unknown binding \" + id);\n"
+            + "      }\n"
+            + "    }\n"
+            + "  }\n"
+            + "}"
+        );
+
+        assertAbout(javaSources()).that(asList(source, hidden))
+            .withCompilerOptions("-Xlint:-processing", "-Abutterknife.index=test.TestIndex")
+            .processedWith(new ButterKnifeProcessor())
+            .compilesWithoutWarnings()
+            .and()
+            .generatesSources(indexSource);
+    }
+
+
+    @Test
+    public void resourceOnlyTargetUsesContext() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+            + "package test;\n"
+            + "import butterknife.BindInt;\n"
+            + "public class Test {\n"
+            + "  @BindInt(1) int one;\n"
+            + "}"
+        );
+
+        JavaFileObject indexSource = JavaFileObjects.forSourceString("test/TestIndex", ""
+            + "// Generated code from Butter Knife. Do not modify!\n"
+            + "package test;\n"
+            + "import android.view.View;\n"
+            + "import butterknife.Unbinder;\n"
+            + "import butterknife.ViewBindingIndex;\n"
+            + "import butterknife.internal.ViewBindingFactory;\n"
+            + "import java.lang.Class;\n"
+            + "import java.lang.IllegalStateException;\n"
+            + "import java.lang.Object;\n"
+            + "import java.lang.Override;\n"
+            + "import java.util.Map;\n"
+            + "public final class TestIndex implements ViewBindingIndex {\n"
+            + "  @Override\n"
+            + "  public void loadInto(Map<Class<?>, ViewBindingFactory> factories) {\n"
+            + "    factories.put(Test.class, new Factory(0));\n"
+            + "  }\n"
+            + "  private static final class Factory implements ViewBindingFactory {\n"
+            + "    private final int id;\n"
+            + "    Factory(int id) {\n"
+            + "      this.id = id;\n"
+            + "    }\n"
+            + "    @Override\n"
+            + "    public Unbinder create(Object target, View source) {\n"
+            + "      switch (id) {\n"
+            + "        case 0:\n"
+            + "          return new Test_ViewBinding((Test) target, source.getContext());\n"
+            + "        default:\n"
+            + "          throw new IllegalStateException(\"Unknown binding \" + id);\n"
+            + "      }\n"
+            + "    }\n"
+            + "  }\n"
+            + "}"
+        );
+
+        assertAbout(javaSource()).that(source)
+            .withCompilerOptions("-Xlint:-processing", "-Abutterknife.index=test.TestIndex")
+            .processedWith(new ButterKnifeProcessor())
+            .compilesWithoutWarnings()
+            .and()
+            .generatesSources(indexSource);
+    }
+}
@@ -1,8 +1,14 @@
 package com.camnter.gradle.plugin.method.trace.task
 
+import com.camnter.gradle.plugin.method.trace.analyzer.TraceAnalyzer
 import com.camnter.gradle.plugin.method.trace.utils.FileUtils
 import org.gradle.api.DefaultTask
+import org.gradle.api.tasks.Internal
 import org.gradle.api.tasks.TaskAction
+import org.gradle.workers.IsolationMode
+import org.gradle.workers.WorkerExecutor
+
+import javax.inject.Inject
 
 /**
  * @author CaMnter
@@ -10,9 +16,23 @@ import org.gradle.api.tasks.TaskAction
 
 class MethodExpectTraceTask extends DefaultTask {
 
+    private final WorkerExecutor workerExecutor
+
+    @Inject
+    MethodExpectTraceTask(WorkerExecutor workerExecutor) {
+        this.workerExecutor = workerExecutor
+    }
+
+    @Internal
+    WorkerExecutor getWorkerExecutor() {
+        return workerExecutor
+    }
+
     /**
      * ent: 进入函数
      * xit: 退出函数
+     *
+     * 由 {@link TraceAnalyzer} 流式解析，多个 capture 并行
      **/
     @TaskAction
     void main() {
@@ -28,95 +48,30 @@ class MethodExpectTraceTask extends DefaultTask {
             return
         }
 
-        def packageNameSignature = packageName.replaceAll('[.]', '/')
         def capturesDirFile = new File(
                 project.getRootProject().projectDir.path + FileUtils.FILE_SEPARATOR + 'captures')
+        def start = System.currentTimeMillis()
+        def count = 0
         capturesDirFile.traverse {
             def fileName = it.name
             /**
              * file
              * .txt 结尾
-             * 非 _enter.txt 结尾
-             * 非 _enterExit 结尾
+             * 非 _enter.txt、_enterExit.txt、_methods.txt、_flame.txt 结尾
              * */
-            if (it.isFile() && fileName.endsWith('.txt') &&
-                    !fileName.endsWith('_enter.txt') &&
-                    !fileName.endsWith('_enterExit.txt')) {
-                printf "%-56s : %s\n",
-                        ["[MethodExpectTraceTask]   [main]   [fileName]", fileName]
-
-                def expectEnterTxtName = fileName.replace('.txt', '_enter.txt')
-                def expectEnterExitTextName = fileName.replace('.txt', '_enterExit.txt')
-
-                def expectEnterFile = new File(capturesDirFile, expectEnterTxtName)
-                def expectEnterExitFile = new File(capturesDirFile, expectEnterExitTextName)
-                expectEnterFile.write('')
-                expectEnterExitFile.write('')
-
-                Stack<String> entTrace = new Stack<>()
-                it.eachLine { line ->
-                    /**
-                     * 输出 ent
-                     * 有的 traceview  包含 方法签名
-                     * 有的 traceview  包含 package name
-                     * */
-                    if (line.contains(' ent ') && (line.contains(packageName) || line.contains(
-                            packageNameSignature))) {
-                        entTrace.push(line)
-                        expectEnterFile.append("${line}\n")
-                        expectEnterExitFile.append("${line}\n")
-                    }
-                    /**
-                     * xit
-                     * 有的 traceview  包含 方法签名
-                     * 有的 traceview  包含 package name
-                     * */
-                    if (line.contains(' xit ') && (line.contains(packageName) || line.contains(
-                            packageNameSignature))) {
-                        expectEnterExitFile.append("${line}\n")
-                        def entLine = entTrace.peek()
-                        if (line.substring(line.indexOf('.')) == entLine.substring(
-                                entLine.indexOf('.'))) {
-                            entTrace.pop()
-                            def xitTime = getTimeFromTraceInfo(TraceType.Xit, line)
-                            def entTime = getTimeFromTraceInfo(TraceType.Ent, entLine)
-                            def elapsedTime = xitTime - entTime
-                            def elapsedTimeString = elapsedTime as String
-                            expectEnterExitFile.append("${'diff ---  ' + elapsedTimeString}\n")
-                        }
-                    }
+            if (it.isFile() && fileName.endsWith('.txt') && !TraceAnalyzer.isOutput(fileName)) {
+                def traceFile = it
+                // 每个 capture 一个 work item，并行数由 --max-workers 决定
+                workerExecutor.submit(TraceAnalyzeWorker) { config ->
+                    config.isolationMode = IsolationMode.NONE
+                    config.displayName = "methodExpectTrace ${fileName}"
+                    config.params(traceFile, packageName as String)
                 }
-                printf "%-56s : %s\n",
-                        ["[MethodExpectTraceTask]   [main]   [expectEnterFile]", expectEnterFile.path]
-                printf "%-56s : %s\n",
-                        ["[MethodExpectTraceTask]   [main]   [expectEnterExitFile]", expectEnterExitFile.path]
+                count++
             }
         }
+        workerExecutor.await()
+        printf "%-56s : %s\n",
+                ["[MethodExpectTraceTask]   [main]   [total]", "${count} files, ${System.currentTimeMillis() - start} ms"]
     }
-
-    long getTimeFromTraceInfo(TraceType traceType, String trace) {
-        def firstPointIndex = trace.indexOf('.')
-        def firstHalfContent = trace.substring(0, firstPointIndex).trim()
-        def time = firstHalfContent.substring(
-                firstHalfContent.indexOf(traceType.value) + traceType.value.length())
-        if (time.isLong()) {
-            return time as Long
-        }
-        return 0
-    }
-
-    enum TraceType {
-        Ent('ent'),
-        Xit('xit')
-
-        private final String value
-
-        private TraceType(String value) {
-            this.value = value
-        }
-
-        String toString() {
-            return this.value
-        }
-    }
-}
\ No newline at end of file
+}
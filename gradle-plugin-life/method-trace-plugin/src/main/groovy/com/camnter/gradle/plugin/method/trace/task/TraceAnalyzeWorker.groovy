@@ -0,0 +1,45 @@
+package com.camnter.gradle.plugin.method.trace.task
+
+import com.camnter.gradle.plugin.method.trace.analyzer.TraceAnalyzer
+
+import javax.inject.Inject
+import java.util.concurrent.TimeUnit
+
+/**
+ * Analyze one capture, run by the Worker API
+ *
+ * @author CaMnter
+ */
+
+class TraceAnalyzeWorker implements Runnable {
+
+    private final File traceFile
+    private final String packageName
+
+    @Inject
+    TraceAnalyzeWorker(File traceFile, String packageName) {
+        this.traceFile = traceFile
+        this.packageName = packageName
+    }
+
+    @Override
+    void run() {
+        def result = new TraceAnalyzer(packageName).analyze(traceFile)
+        synchronized (TraceAnalyzeWorker) {
+            printf "%-56s : %s\n",
+                    ["[MethodExpectTraceTask]   [main]   [fileName]", traceFile.name]
+            printf "%-56s : %s\n",
+                    ["[MethodExpectTraceTask]   [main]   [lines]", "${result.lines} (${result.matchedLines} matched, ${result.methods} methods)"]
+            printf "%-56s : %s\n",
+                    ["[MethodExpectTraceTask]   [main]   [cost]", "${TimeUnit.NANOSECONDS.toMillis(result.costNanos)} ms"]
+            printf "%-56s : %s\n",
+                    ["[MethodExpectTraceTask]   [main]   [expectEnterFile]", result.enterFile.path]
+            printf "%-56s : %s\n",
+                    ["[MethodExpectTraceTask]   [main]   [expectEnterExitFile]", result.enterExitFile.path]
+            printf "%-56s : %s\n",
+                    ["[MethodExpectTraceTask]   [main]   [methodsFile]", result.methodsFile.path]
+            printf "%-56s : %s\n",
+                    ["[MethodExpectTraceTask]   [main]   [flameFile]", result.flameFile.path]
+        }
+    }
+}
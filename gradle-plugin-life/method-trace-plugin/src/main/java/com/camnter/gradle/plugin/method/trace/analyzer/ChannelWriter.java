@@ -0,0 +1,103 @@
+package com.camnter.gradle.plugin.method.trace.analyzer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 带缓冲的 FileChannel 写入
+ * 文件只打开一次，缓冲写满才落盘
+ *
+ * @author CaMnter
+ */
+final class ChannelWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final byte NEW_LINE = '\n';
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+
+
+    ChannelWriter(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+
+    ChannelWriter write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!this.buffer.hasRemaining()) {
+                this.flush();
+            }
+            final int count = Math.min(length, this.buffer.remaining());
+            this.buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+        return this;
+    }
+
+
+    ChannelWriter write(String content) throws IOException {
+        final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return this.write(bytes, 0, bytes.length);
+    }
+
+
+    /**
+     * 不经过 String 写入 long
+     */
+    ChannelWriter write(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            return this.write(String.valueOf(value));
+        }
+        boolean negative = value < 0;
+        if (negative) {
+            value = -value;
+        }
+        int index = this.digits.length;
+        do {
+            this.digits[--index] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (negative) {
+            this.digits[--index] = '-';
+        }
+        return this.write(this.digits, index, this.digits.length - index);
+    }
+
+
+    ChannelWriter newLine() throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            this.flush();
+        }
+        this.buffer.put(NEW_LINE);
+        return this;
+    }
+
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.camnter.gradle.plugin.method.trace.analyzer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 方法名 --> id
+ *
+ * 开放寻址，直接用行缓冲区里的字节区间查找
+ * 只有第一次遇到的方法才会拷贝字节、创建 String
+ *
+ * @author CaMnter
+ */
+final class MethodTable {
+
+    private int[] slots = new int[1024];
+    private int[] hashes = new int[1024];
+    private byte[][] keys = new byte[256][];
+    private String[] names = new String[256];
+    private int size;
+
+
+    int getOrAdd(byte[] bytes, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int mask = this.slots.length - 1;
+        int index = mix(hash) & mask;
+        while (true) {
+            final int slot = this.slots[index];
+            if (slot == 0) {
+                break;
+            }
+            final int id = slot - 1;
+            if (this.hashes[index] == hash && equals(this.keys[id], bytes, offset, length)) {
+                return id;
+            }
+            index = (index + 1) & mask;
+        }
+
+        final int id = this.size++;
+        if (id == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, id * 2);
+            this.names = Arrays.copyOf(this.names, id * 2);
+        }
+        this.keys[id] = Arrays.copyOfRange(bytes, offset, offset + length);
+        this.names[id] = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        this.slots[index] = id + 1;
+        this.hashes[index] = hash;
+        if (this.size * 2 > this.slots.length) {
+            this.rehash();
+        }
+        return id;
+    }
+
+
+    int size() {
+        return this.size;
+    }
+
+
+    String name(int id) {
+        return this.names[id];
+    }
+
+
+    private void rehash() {
+        final int[] oldSlots = this.slots;
+        final int[] oldHashes = this.hashes;
+        this.slots = new int[oldSlots.length * 2];
+        this.hashes = new int[oldSlots.length * 2];
+        final int mask = this.slots.length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] == 0) {
+                continue;
+            }
+            int index = mix(oldHashes[i]) & mask;
+            while (this.slots[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            this.slots[index] = oldSlots[i];
+            this.hashes[index] = oldHashes[i];
+        }
+    }
+
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+
+    private static boolean equals(byte[] key, byte[] bytes, int offset, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,492 @@
+package com.camnter.gradle.plugin.method.trace.analyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式解析 dmtracedump 输出的一个 capture
+ *
+ * 行格式：
+ * threadId action[*] usecs [....]class.method signature[\tfile]
+ * eg: " 1 ent       45 ..com/camnter/Foo.bar ()V	Foo.java"
+ *
+ * 1. 按块读入字节数组，直接在字节区间上解析，不创建每一行的 String
+ * 2. 每个线程一个调用栈，ent 入栈，xit / unr 出栈
+ * 3. 统计每个方法的 调用次数、inclusive、exclusive、max
+ * 4. 调用路径累计 exclusive，输出 flame graph 的 folded stacks
+ *
+ * 输出：
+ * xxx_enter.txt       包名内的 ent 行
+ * xxx_enterExit.txt   包名内的 ent、xit 行，xit 后跟 "diff ---  耗时"
+ * xxx_methods.txt     包名内方法的 inclusive / exclusive 表，按 exclusive 倒序
+ * xxx_flame.txt       folded stacks，可以直接交给 flamegraph.pl
+ *
+ * 不持有共享状态，一个实例只处理一个文件，多个文件可以并行
+ *
+ * @author CaMnter
+ */
+public final class TraceAnalyzer {
+
+    public static final String SUFFIX_ENTER = "_enter.txt";
+    public static final String SUFFIX_ENTER_EXIT = "_enterExit.txt";
+    public static final String SUFFIX_METHODS = "_methods.txt";
+    public static final String SUFFIX_FLAME = "_flame.txt";
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final byte[] DIFF = "diff ---  ".getBytes();
+
+    private static final int ENT = 0;
+    private static final int XIT = 1;
+
+    private final String packageName;
+    private final String packageNameSignature;
+
+    private final MethodTable methodTable = new MethodTable();
+    private final Map<Integer, ThreadStack> threadStacks = new HashMap<>();
+    private final PathNode root = new PathNode(-1);
+
+    private boolean[] matched = new boolean[256];
+    private long[] calls = new long[256];
+    private long[] inclusive = new long[256];
+    private long[] exclusive = new long[256];
+    private long[] max = new long[256];
+    private int[] active = new int[256];
+
+    private ChannelWriter enterWriter;
+    private ChannelWriter enterExitWriter;
+
+    private long lines;
+    private long matchedLines;
+
+
+    /**
+     * 有的 traceview 包含 方法签名
+     * 有的 traceview 包含 package name
+     *
+     * @param packageName packageName
+     */
+    public TraceAnalyzer(String packageName) {
+        this.packageName = packageName;
+        this.packageNameSignature = packageName.replace('.', '/');
+    }
+
+
+    public static boolean isOutput(String fileName) {
+        return fileName.endsWith(SUFFIX_ENTER) || fileName.endsWith(SUFFIX_ENTER_EXIT) ||
+            fileName.endsWith(SUFFIX_METHODS) || fileName.endsWith(SUFFIX_FLAME);
+    }
+
+
+    public Result analyze(File traceFile) throws IOException {
+        final long start = System.nanoTime();
+        final File dir = traceFile.getParentFile();
+        final String name = traceFile.getName().substring(0, traceFile.getName().length() - 4);
+        final Result result = new Result();
+        result.enterFile = new File(dir, name + SUFFIX_ENTER);
+        result.enterExitFile = new File(dir, name + SUFFIX_ENTER_EXIT);
+        result.methodsFile = new File(dir, name + SUFFIX_METHODS);
+        result.flameFile = new File(dir, name + SUFFIX_FLAME);
+
+        try (ChannelWriter enterWriter = new ChannelWriter(result.enterFile);
+             ChannelWriter enterExitWriter = new ChannelWriter(result.enterExitFile);
+             FileChannel channel = FileChannel.open(traceFile.toPath(),
+                 StandardOpenOption.READ)) {
+            this.enterWriter = enterWriter;
+            this.enterExitWriter = enterExitWriter;
+            this.read(channel);
+            this.finishStacks();
+        } finally {
+            this.enterWriter = null;
+            this.enterExitWriter = null;
+        }
+        this.writeMethods(result.methodsFile);
+        this.writeFlame(result.flameFile);
+
+        result.lines = this.lines;
+        result.matchedLines = this.matchedLines;
+        result.methods = this.methodTable.size();
+        result.costNanos = System.nanoTime() - start;
+        return result;
+    }
+
+
+    private void read(FileChannel channel) throws IOException {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (true) {
+            final int read = channel.read(buffer);
+            final int end = buffer.position();
+            int lineStart = 0;
+            for (int i = 0; i < end; i++) {
+                if (bytes[i] == '\n') {
+                    this.line(bytes, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (read < 0) {
+                if (lineStart < end) {
+                    this.line(bytes, lineStart, end);
+                }
+                return;
+            }
+            // 半行移到开头，一整块都没有换行就扩容
+            final int remaining = end - lineStart;
+            if (remaining == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                buffer = ByteBuffer.wrap(bytes);
+            } else {
+                System.arraycopy(bytes, lineStart, bytes, 0, remaining);
+            }
+            buffer.position(remaining);
+        }
+    }
+
+
+    /**
+     * 解析 [start, end) 这一行，格式不对的行（ 头信息、线程表 ）直接跳过
+     */
+    private void line(byte[] bytes, int start, int end) throws IOException {
+        this.lines++;
+        while (end > start && bytes[end - 1] <= ' ') {
+            end--;
+        }
+        int p = skipSpaces(bytes, start, end);
+
+        // threadId
+        int threadId = 0;
+        final int threadStart = p;
+        while (p < end && isDigit(bytes[p])) {
+            threadId = threadId * 10 + (bytes[p++] - '0');
+        }
+        if (p == threadStart) {
+            return;
+        }
+        p = skipSpaces(bytes, p, end);
+
+        // action
+        if (p + 3 > end) {
+            return;
+        }
+        final int action;
+        if (bytes[p] == 'e' && bytes[p + 1] == 'n' && bytes[p + 2] == 't') {
+            action = ENT;
+        } else if ((bytes[p] == 'x' && bytes[p + 1] == 'i' && bytes[p + 2] == 't') ||
+            (bytes[p] == 'u' && bytes[p + 1] == 'n' && bytes[p + 2] == 'r')) {
+            action = XIT;
+        } else {
+            return;
+        }
+        p += 3;
+        if (p < end && bytes[p] == '*') {
+            p++;
+        }
+        p = skipSpaces(bytes, p, end);
+
+        // usecs
+        long time = 0;
+        final int timeStart = p;
+        while (p < end && isDigit(bytes[p])) {
+            time = time * 10 + (bytes[p++] - '0');
+        }
+        if (p == timeStart) {
+            return;
+        }
+        p = skipSpaces(bytes, p, end);
+
+        // indent
+        while (p < end && bytes[p] == '.') {
+            p++;
+        }
+        if (p == end) {
+            return;
+        }
+
+        final int method = this.method(bytes, p, end - p);
+        final ThreadStack stack = this.threadStack(threadId);
+        stack.lastTime = time;
+        if (action == ENT) {
+            this.enter(stack, method, time);
+            if (this.matched[method]) {
+                this.matchedLines++;
+                this.enterWriter.write(bytes, start, end - start).newLine();
+                this.enterExitWriter.write(bytes, start, end - start).newLine();
+            }
+        } else {
+            final long elapsed = this.exit(stack, method, time);
+            if (this.matched[method]) {
+                this.matchedLines++;
+                this.enterExitWriter.write(bytes, start, end - start).newLine();
+                if (elapsed >= 0) {
+                    this.enterExitWriter.write(DIFF, 0, DIFF.length).write(elapsed).newLine();
+                }
+            }
+        }
+    }
+
+
+    private int method(byte[] bytes, int offset, int length) {
+        final int size = this.methodTable.size();
+        final int method = this.methodTable.getOrAdd(bytes, offset, length);
+        if (method < size) {
+            return method;
+        }
+        // 新方法，只在这里做一次包名匹配
+        if (method == this.matched.length) {
+            final int capacity = method * 2;
+            this.matched = Arrays.copyOf(this.matched, capacity);
+            this.calls = Arrays.copyOf(this.calls, capacity);
+            this.inclusive = Arrays.copyOf(this.inclusive, capacity);
+            this.exclusive = Arrays.copyOf(this.exclusive, capacity);
+            this.max = Arrays.copyOf(this.max, capacity);
+            this.active = Arrays.copyOf(this.active, capacity);
+        }
+        final String name = this.methodTable.name(method);
+        this.matched[method] = name.contains(this.packageName) ||
+            name.contains(this.packageNameSignature);
+        return method;
+    }
+
+
+    private ThreadStack threadStack(int threadId) {
+        ThreadStack stack = this.threadStacks.get(threadId);
+        if (stack == null) {
+            stack = new ThreadStack();
+            this.threadStacks.put(threadId, stack);
+        }
+        return stack;
+    }
+
+
+    private void enter(ThreadStack stack, int method, long time) {
+        final PathNode parent = stack.size == 0 ? this.root : stack.paths[stack.size - 1];
+        stack.push(method, time, parent.child(method));
+        this.active[method]++;
+    }
+
+
+    /**
+     * 找到栈内最近的同一方法出栈，中间没有 xit 的方法按当前时间结束
+     *
+     * @return inclusive time, -1 if there is no matching ent
+     */
+    private long exit(ThreadStack stack, int method, long time) {
+        int index = stack.size - 1;
+        while (index >= 0 && stack.methods[index] != method) {
+            index--;
+        }
+        if (index < 0) {
+            return -1;
+        }
+        while (stack.size - 1 > index) {
+            this.pop(stack, time);
+        }
+        return this.pop(stack, time);
+    }
+
+
+    private long pop(ThreadStack stack, long time) {
+        final int index = --stack.size;
+        final int method = stack.methods[index];
+        final long elapsed = Math.max(0, time - stack.enterTimes[index]);
+        final long self = Math.max(0, elapsed - stack.childTimes[index]);
+
+        this.calls[method]++;
+        this.exclusive[method] += self;
+        // 递归调用只统计最外层的 inclusive
+        if (--this.active[method] == 0) {
+            this.inclusive[method] += elapsed;
+        }
+        if (elapsed > this.max[method]) {
+            this.max[method] = elapsed;
+        }
+        stack.paths[index].self += self;
+        stack.paths[index] = null;
+        if (index > 0) {
+            stack.childTimes[index - 1] += elapsed;
+        }
+        return elapsed;
+    }
+
+
+    /**
+     * capture 结束时还在栈内的方法，按该线程最后的时间结束
+     */
+    private void finishStacks() {
+        for (ThreadStack stack : this.threadStacks.values()) {
+            while (stack.size > 0) {
+                this.pop(stack, stack.lastTime);
+            }
+        }
+    }
+
+
+    private void writeMethods(File file) throws IOException {
+        final List<Integer> methods = new ArrayList<>();
+        for (int i = 0; i < this.methodTable.size(); i++) {
+            if (this.matched[i] && this.calls[i] > 0) {
+                methods.add(i);
+            }
+        }
+        Collections.sort(methods, (left, right) ->
+            Long.compare(this.exclusive[right], this.exclusive[left]));
+        try (ChannelWriter writer = new ChannelWriter(file)) {
+            writer.write(String.format("%10s %16s %16s %12s %12s  %s", "calls", "exclusive(us)",
+                "inclusive(us)", "avg(us)", "max(us)", "method")).newLine();
+            for (int method : methods) {
+                writer.write(String.format("%10d %16d %16d %12d %12d  %s", this.calls[method],
+                    this.exclusive[method], this.inclusive[method],
+                    this.inclusive[method] / this.calls[method], this.max[method],
+                    this.methodTable.name(method))).newLine();
+            }
+        }
+    }
+
+
+    /**
+     * folded stacks: "frame;frame;frame self"
+     * 签名里有 ';'，帧名只保留 class.method
+     */
+    private void writeFlame(File file) throws IOException {
+        final String[] frames = new String[this.methodTable.size()];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = frameName(this.methodTable.name(i));
+        }
+        try (ChannelWriter writer = new ChannelWriter(file)) {
+            final StringBuilder builder = new StringBuilder();
+            for (PathNode child : this.root.children()) {
+                this.writeFlame(writer, builder, child, frames);
+            }
+        }
+    }
+
+
+    private void writeFlame(ChannelWriter writer, StringBuilder builder, PathNode node,
+                            String[] frames) throws IOException {
+        final int length = builder.length();
+        if (length > 0) {
+            builder.append(';');
+        }
+        builder.append(frames[node.method]);
+        if (node.self > 0) {
+            writer.write(builder.toString()).write(" ").write(node.self).newLine();
+        }
+        for (PathNode child : node.children()) {
+            this.writeFlame(writer, builder, child, frames);
+        }
+        builder.setLength(length);
+    }
+
+
+    private static String frameName(String method) {
+        int end = method.length();
+        for (int i = 0; i < method.length(); i++) {
+            final char c = method.charAt(i);
+            if (c == ' ' || c == '\t') {
+                end = i;
+                break;
+            }
+        }
+        return method.substring(0, end).replace('/', '.');
+    }
+
+
+    private static int skipSpaces(byte[] bytes, int p, int end) {
+        while (p < end && (bytes[p] == ' ' || bytes[p] == '\t')) {
+            p++;
+        }
+        return p;
+    }
+
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+
+    public static final class Result {
+
+        public File enterFile;
+        public File enterExitFile;
+        public File methodsFile;
+        public File flameFile;
+        public long lines;
+        public long matchedLines;
+        public int methods;
+        public long costNanos;
+
+    }
+
+
+    private static final class ThreadStack {
+
+        int[] methods = new int[64];
+        long[] enterTimes = new long[64];
+        long[] childTimes = new long[64];
+        PathNode[] paths = new PathNode[64];
+        int size;
+        long lastTime;
+
+
+        void push(int method, long time, PathNode path) {
+            if (this.size == this.methods.length) {
+                final int capacity = this.size * 2;
+                this.methods = Arrays.copyOf(this.methods, capacity);
+                this.enterTimes = Arrays.copyOf(this.enterTimes, capacity);
+                this.childTimes = Arrays.copyOf(this.childTimes, capacity);
+                this.paths = Arrays.copyOf(this.paths, capacity);
+            }
+            this.methods[this.size] = method;
+            this.enterTimes[this.size] = time;
+            this.childTimes[this.size] = 0;
+            this.paths[this.size] = path;
+            this.size++;
+        }
+
+    }
+
+
+    /**
+     * 调用路径，同一路径的 exclusive 累计在一个节点上
+     */
+    private static final class PathNode {
+
+        final int method;
+        long self;
+        private Map<Integer, PathNode> children;
+
+
+        PathNode(int method) {
+            this.method = method;
+        }
+
+
+        PathNode child(int method) {
+            if (this.children == null) {
+                this.children = new HashMap<>();
+            }
+            PathNode child = this.children.get(method);
+            if (child == null) {
+                child = new PathNode(method);
+                this.children.put(method, child);
+            }
+            return child;
+        }
+
+
+        Iterable<PathNode> children() {
+            return this.children == null ? Collections.<PathNode>emptyList()
+                                         : this.children.values();
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.camnter.gradle.plugin.r2
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.tasks.CacheableTask
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * R.txt --> R2.java
+ *
+ * 1. 输入输出都声明了，R.txt 没变化时 UP-TO-DATE，并且可以从 build cache 取结果
+ * 2. R.txt 变了，但 R2 用到的符号没变（ layout、styleable 等 ），不重新生成 R2.java
+ *
+ * @author CaMnter
+ */
+
+@CacheableTask
+class GenerateR2Task extends DefaultTask {
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    File rFile
+
+    @Input
+    String packageName
+
+    @Input
+    String className = 'R2'
+
+    @OutputDirectory
+    File outputDir
+
+    @OutputFile
+    File hashFile
+
+    @TaskAction
+    void generate() {
+        def start = System.currentTimeMillis()
+        def generated = R2ClassBuilder.brewJava(rFile, outputDir, packageName, className,
+                hashFile)
+        println "[R2Plugin]   [${name}]   [${generated ? 'generated' : 'symbols unchanged'}]   ${System.currentTimeMillis() - start}ms"
+    }
+}
@@ -11,7 +11,6 @@ import com.android.build.gradle.tasks.ProcessAndroidResources
 import org.gradle.api.DomainObjectSet
 import org.gradle.api.Plugin
 import org.gradle.api.Project
-import org.gradle.api.Task
 
 import java.util.concurrent.atomic.AtomicBoolean
 
@@ -62,10 +61,12 @@ class R2Plugin implements Plugin<Project> {
                 // 获取每个 output 文件夹 File
                 File outputDir = new File(
                         FileUtils.resolve(project.buildDir, "generated/source/r2/${it.dirName}"))
-                // 创建对应的 R2 任务
-                Task task = project.tasks.create("generate${it.name.capitalize()}R2")
-                // 设置 R2 任务的 输出目录 File
-                task.outputs.dir(outputDir)
+                // 创建对应的 R2 任务，设置 R2 任务的 输出目录 File
+                GenerateR2Task task = project.tasks.create("generate${it.name.capitalize()}R2",
+                        GenerateR2Task)
+                task.outputDir = outputDir
+                task.hashFile = new File(
+                        FileUtils.resolve(project.buildDir, "intermediates/r2/${it.dirName}/R2.sha1"))
                 // 注册任务
                 it.registerJavaGeneratingTask(task, outputDir)
 
@@ -84,18 +85,12 @@ class R2Plugin implements Plugin<Project> {
                     if (once.compareAndSet(false, true)) {
                         // 拿到 R 文件夹路径
                         String rPackage = processResources.packageForR
-                        // 替换 R 文件夹路径 的 分隔符
-                        String pathToR = rPackage.replace('.', FileUtils.FILE_SEPARATOR)
-                        // 拿到 R 文件
-                        File rFile = new File(FileUtils.resolve(new File(
-                                FileUtils.resolve(processResources.sourceOutputDir, pathToR)),
-                                "R.java"))
+                        // 拿到 R.txt 文件，比 R.java 小得多，也不需要 JavaParser
+                        File rFile = getTextSymbolFile(processResources)
 
-                        // 注册 R File 到任务内
-                        task.inputs.file(rFile)
-                        task.doLast {
-                            R2ClassBuilder.brewJava(rFile, outputDir, rPackage, "R2")
-                        }
+                        // 注册 R.txt 到任务内
+                        task.rFile = rFile
+                        task.packageName = rPackage
                     }
                 }
             }
@@ -103,4 +98,15 @@ class R2Plugin implements Plugin<Project> {
             println "[R2Plugin]   [configureR2Generation]   ${e.message}"
         }
     }
+
+    /**
+     * AGP 3.0 textSymbolOutputFile
+     * AGP 2.x textSymbolOutputDir/R.txt
+     * */
+    private static File getTextSymbolFile(ProcessAndroidResources processResources) {
+        if (processResources.hasProperty('textSymbolOutputFile')) {
+            return processResources.textSymbolOutputFile
+        }
+        return new File(processResources.textSymbolOutputDir, 'R.txt')
+    }
 }
\ No newline at end of file
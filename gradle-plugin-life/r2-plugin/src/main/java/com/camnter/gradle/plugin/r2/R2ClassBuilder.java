@@ -1,20 +1,21 @@
 package com.camnter.gradle.plugin.r2;
 
-import com.github.javaparser.JavaParser;
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.Node;
-import com.github.javaparser.ast.body.BodyDeclaration;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.FieldDeclaration;
-import com.github.javaparser.ast.body.TypeDeclaration;
-import com.github.javaparser.ast.body.VariableDeclarator;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.TypeSpec;
+import java.io.BufferedReader;
 import java.io.File;
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PUBLIC;
@@ -36,23 +37,47 @@ public final class R2ClassBuilder {
 
 
     /**
-     * JavaPoet 生成 R2
+     * 读取 R.txt 的符号，符号没有变化时不重新生成 R2
      *
-     * @param rFile R.java File
+     * @param rTxtFile R.txt File
      * @param outputDir R2.java 输出文件夹
      * @param packageName 包名
      * @param className R2 name
+     * @param hashFile 上一次生成时的符号 hash
+     * @return true if R2.java is generated
      * @throws Exception exception
      */
-    public static void brewJava(File rFile, File outputDir, String packageName, String className)
-        throws Exception {
-        /*
-         * JavaParser 解析 R.java File
-         * 获取到 TypeDeclaration
-         */
-        CompilationUnit compilationUnit = JavaParser.parse(rFile);
-        TypeDeclaration resourceClass = compilationUnit.getTypes().get(0);
+    public static boolean brewJava(File rTxtFile, File outputDir, String packageName,
+                                   String className, File hashFile) throws Exception {
+        final Map<String, List<String[]>> symbols = readSymbols(rTxtFile);
+        final String hash = hash(symbols, packageName, className);
+        final File r2File = new File(outputDir,
+            packageName.replace('.', File.separatorChar) + File.separator + className + ".java");
+        if (r2File.exists() && hashFile.exists() &&
+            hash.equals(new String(Files.readAllBytes(hashFile.toPath()),
+                StandardCharsets.UTF_8))) {
+            return false;
+        }
+
+        brewJava(symbols, outputDir, packageName, className);
+
+        hashFile.getParentFile().mkdirs();
+        Files.write(hashFile.toPath(), hash.getBytes(StandardCharsets.UTF_8));
+        return true;
+    }
 
+
+    /**
+     * JavaPoet 生成 R2
+     *
+     * @param symbols 资源类型 --> [ name, value ]
+     * @param outputDir R2.java 输出文件夹
+     * @param packageName 包名
+     * @param className R2 name
+     * @throws Exception exception
+     */
+    static void brewJava(Map<String, List<String[]>> symbols, File outputDir, String packageName,
+                         String className) throws Exception {
         /*
          * 定义 R2.java class
          */
@@ -60,15 +85,10 @@ public final class R2ClassBuilder {
             TypeSpec.classBuilder(className).addModifiers(PUBLIC).addModifiers(FINAL);
 
         /*
-         * 遍历 R.java File 的每一个节点（ 内部类或者接口 --> ClassOrInterfaceDeclaration ）
-         * 添加到 R2.java 内
-         * 这里是给 TypeSpec 添加生成 内部类 的 语句
+         * 每一种资源类型生成一个内部类
          */
-        for (Node node : resourceClass.getChildNodes()) {
-            if (node instanceof ClassOrInterfaceDeclaration) {
-                addResourceType(Arrays.asList(SUPPORTED_TYPES), result,
-                    (ClassOrInterfaceDeclaration) node);
-            }
+        for (Map.Entry<String, List<String[]>> entry : symbols.entrySet()) {
+            addResourceType(result, entry.getKey(), entry.getValue());
         }
 
         JavaFile finalR = JavaFile.builder(packageName, result.build())
@@ -80,37 +100,111 @@ public final class R2ClassBuilder {
 
 
     /**
-     * 复制资源 内部 class 到 R2 class 中
+     * 解析 R.txt
      *
-     * 这里是给 R2 的 TypeSpec 添加生成局域
+     * 每一行：
+     * int drawable ic_launcher 0x7f020000
+     * int[] styleable ActionBar { 0x7f010001, 0x7f010002 }
      *
-     * @param supportedTypes 支持的类型（ "array", "attr", "bool", "color", "dimen", "drawable", "id",
-     * "integer", "string" ）
-     * @param result R2 的 TypeSpec
-     * @param node R 的 接口或者类 ClassOrInterfaceDeclaration
+     * 只保留 int 类型，并且资源类型在 SUPPORTED_TYPES 内的符号
+     * 按 SUPPORTED_TYPES 的顺序分组，组内保持 R.txt 的顺序
+     *
+     * @param rTxtFile R.txt File
+     * @return 资源类型 --> [ name, value ]
+     * @throws IOException exception
      */
-    private static void addResourceType(List<String> supportedTypes, TypeSpec.Builder result,
-                                        ClassOrInterfaceDeclaration node) {
+    static Map<String, List<String[]>> readSymbols(File rTxtFile) throws IOException {
+        final Map<String, List<String[]>> symbols = new LinkedHashMap<>();
+        for (String type : SUPPORTED_TYPES) {
+            symbols.put(type, new ArrayList<String[]>());
+        }
+        try (BufferedReader reader = Files.newBufferedReader(rTxtFile.toPath(),
+            StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("int ")) {
+                    continue;
+                }
+                final int typeEnd = line.indexOf(' ', 4);
+                if (typeEnd < 0) {
+                    continue;
+                }
+                final List<String[]> fields = symbols.get(line.substring(4, typeEnd));
+                if (fields == null) {
+                    continue;
+                }
+                final int nameEnd = line.indexOf(' ', typeEnd + 1);
+                if (nameEnd < 0) {
+                    continue;
+                }
+                fields.add(new String[] {
+                    line.substring(typeEnd + 1, nameEnd),
+                    line.substring(nameEnd + 1).trim()
+                });
+            }
+        }
+        final Iterator<List<String[]>> iterator = symbols.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isEmpty()) {
+                iterator.remove();
+            }
+        }
+        return symbols;
+    }
 
-        // 判断是否是资源内部类（ "array", "attr", "bool", "color", "dimen", "drawable", "id", "integer", "string" ）
-        if (!supportedTypes.contains(node.getNameAsString())) {
-            return;
+
+    /**
+     * 符号集合的 sha1，R.txt 里不影响 R2 的变化（ layout、styleable 等 ）不会改变 hash
+     */
+    static String hash(Map<String, List<String[]>> symbols, String packageName,
+                       String className) throws NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        update(digest, packageName);
+        update(digest, className);
+        for (Map.Entry<String, List<String[]>> entry : symbols.entrySet()) {
+            update(digest, entry.getKey());
+            for (String[] field : entry.getValue()) {
+                update(digest, field[0]);
+                update(digest, field[1]);
+            }
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
         }
+        return builder.toString();
+    }
+
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
 
+
+    /**
+     * 复制资源 内部 class 到 R2 class 中
+     *
+     * 这里是给 R2 的 TypeSpec 添加生成局域
+     *
+     * @param result R2 的 TypeSpec
+     * @param type 资源类型（ "array", "attr", "bool", "color", "dimen", "drawable", "id",
+     * "integer", "string" ）
+     * @param fields [ name, value ]
+     */
+    private static void addResourceType(TypeSpec.Builder result, String type,
+                                        List<String[]> fields) {
         // 创建 R2 的内部类 TypeSpec，为了进行资源复制
-        String type = node.getNameAsString();
         TypeSpec.Builder resourceType = TypeSpec.classBuilder(type)
             .addModifiers(PUBLIC, STATIC, FINAL);
 
         /*
-         * 遍历 R 内部类的每个资源 field
+         * 遍历 R.txt 该类型的每个资源
          * 然后给 R2 的内部类 TypeSpec 添加 field 生成语句
          */
-        for (BodyDeclaration field : node.getMembers()) {
-            if (field instanceof FieldDeclaration) {
-                addResourceField(resourceType, ((FieldDeclaration) field).getVariables().get(0),
-                    getSupportAnnotationClass(type));
-            }
+        final ClassName annotation = getSupportAnnotationClass(type);
+        for (String[] field : fields) {
+            addResourceField(resourceType, field[0], field[1], annotation);
         }
 
         // R2 的内部类 TypeSpec 添加到 R2 TypeSpec 内
@@ -121,24 +215,16 @@ public final class R2ClassBuilder {
     /**
      * R2 的内部类 TypeSpec 添加 field 生成语句
      *
-     * JavaParser 解析元素
-     *
-     * // 非 AbstractProcessor 情况下获取元素 name
-     * variable.getNameAsString();
-     * // 非 AbstractProcessor 情况下获取元素 值
-     * variable.getInitializer().map(Node::toString).orElse(null);
-     *
      * @param resourceType R2 的内部类 TypeSpec
-     * @param variable 变量元素
+     * @param fieldName 资源 name
+     * @param fieldValue 资源 id
      * @param annotation 注解
      */
-    private static void addResourceField(TypeSpec.Builder resourceType, VariableDeclarator variable,
-                                         ClassName annotation) {
-        String fieldName = variable.getNameAsString();
-        String fieldValue = variable.getInitializer().map(Node::toString).orElse(null);
+    private static void addResourceField(TypeSpec.Builder resourceType, String fieldName,
+                                         String fieldValue, ClassName annotation) {
         FieldSpec.Builder fieldSpecBuilder = FieldSpec.builder(int.class, fieldName)
             .addModifiers(PUBLIC, STATIC, FINAL)
-            .initializer(fieldValue);
+            .initializer("$L", fieldValue);
 
         if (annotation != null) {
             fieldSpecBuilder.addAnnotation(annotation);
@@ -10,4 +10,6 @@ class ResourcesOptimizeL2Extension {
     def debugResourcesOptimize = false
     // 100 kb
     def maxSize = 100
+    // pngquant, guetzli and cwebp
+    def toolsPath = '/usr/local/bin'
 }
\ No newline at end of file
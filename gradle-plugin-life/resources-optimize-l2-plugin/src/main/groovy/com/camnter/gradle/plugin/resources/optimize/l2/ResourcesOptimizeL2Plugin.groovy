@@ -2,9 +2,7 @@ package com.camnter.gradle.plugin.resources.optimize.l2
 
 import com.android.build.gradle.*
 import com.android.build.gradle.api.BaseVariant
-import com.camnter.gradle.plugin.resources.optimize.l2.utils.CommandUtils
-import com.camnter.gradle.plugin.resources.optimize.l2.utils.CompressUtils
-import com.camnter.gradle.plugin.resources.optimize.l2.utils.ImageUtils
+import com.camnter.gradle.plugin.resources.optimize.l2.task.ResourcesOptimizeL2Task
 import com.camnter.gradle.plugin.resources.optimize.l2.utils.WebpUtils
 import org.gradle.api.DomainObjectSet
 import org.gradle.api.Plugin
@@ -84,95 +82,31 @@ class ResourcesOptimizeL2Plugin implements Plugin<Project> {
                         "process${it.name.capitalize()}Resources")
                 def taskName = "resourcesOptimizeL2${capitalize}"
 
-                project.task(taskName) {
-                    doLast {
-                        def resourcesDirFile = new File(
-                                "${project.projectDir}/build/intermediates/res/${resourcesDir}/")
-                        def bigImagePathList = ([] as LinkedList<ArrayList<String>>)
-
-                        CommandUtils.which('pngquant') { String output ->
-                            println "[ResourcesOptimizeL2Plugin]   [Test]   [output] = ${output}"
-                        } { String error ->
-                            println "[ResourcesOptimizeL2Plugin]   [Test]   [error] = ${error}"
-                        }
-
-                        resourcesDirFile.traverse {
-                            def fileName = it.name
-                            if (fileName.contains('drawable') || fileName.contains('mipmap')) {
-                                if (ImageUtils.checkImageSize(it,
-                                        1024 * project.resourcesSizeExtension.maxSize
-                                        /* default 100kb*/)) {
-                                    def name = it.path.
-                                            replace('.flat' as String, '').
-                                            replace(resourcesDirFile.path as String,
-                                                    '').
-                                            replace(capitalize.toLowerCase() as String,
-                                                    '')
-                                            .replaceAll('/', '')
-                                    bigImagePathList << (["${((float) it.length() / 1024.0f).round(2)}kb", name] as ArrayList<String>)
-                                }
-
-                                // compress
-                                if (resourcesOptimizeL2Extension.debugResourcesOptimize) {
-                                    /**
-                                     * jpg
-                                     * eg: "guetzli ${file.path} ${file.path}"
-                                     *
-                                     * png
-                                     * eg: "pngquant --skip-if-larger --speed 3 --force --output ${file.path} -- ${file.path}"
-                                     * */
-                                    CompressUtils.compressResource(it) { File file ->
-                                        CommandUtils.command(
-                                                "/usr/local/bin/pngquant --skip-if-larger --speed 3 --force --output ${file.path} -- ${file.path}") {
-                                            String output ->
-                                        } { String error ->
-                                            println "[ResourcesOptimizeL2Plugin]   [CommandUtils]   [error] = ${error}"
-                                        }
-                                    } { File file ->
-                                        CommandUtils.command(
-                                                "/usr/local/bin/guetzli ${file.path} ${file.path}") {
-                                            String output ->
-                                        } { String error ->
-                                        }
-                                    }
-                                }
-
-                                if (resourcesOptimizeL2Extension.webpConvert) {
-                                    WebpUtils.securityFormatWebp(project, it) {
-                                        File imageFile, File webpFile ->
-                                            /**
-                                             * "cwebp ${imageFile.getPath()} -o ${webpFile.getPath()} -quiet"
-                                             * */
-                                            CommandUtils.command(
-                                                    "/usr/local/bin/cwebp ${imageFile.getPath()} -o ${webpFile.getPath()} -quiet") {
-                                                String output ->
-                                            } { String error ->
-                                            }
-                                    }
-                                }
-                            }
-                        }
-                        if (bigImagePathList.size() > 0) {
-                            printf "%-21s >> \n", ['[ResourcesOptimizeL2Plugin]']
-                            printf "%-21s >> %s\n", ['[TaskName]', taskName]
-                            printf "%-21s >> %s\n",
-                                    ['[Directory]', resourcesDirFile]
-                            printf "%-21s >> \n", ['[BigImage]']
-                            // sort
-                            bigImagePathList.sort { current, next ->
-                                (current.get(0).
-                                        replace('kb' as String, '') as Float) <=> (next.get(0).
-                                        replace('kb' as String, '') as Float)
-                            }
-                        }
-                        bigImagePathList.each {
-                            printf "%10s : %s\n", it
-                        }
-                    }
+                def resourcesDirFile = new File(
+                        "${project.projectDir}/build/intermediates/res/${resourcesDir}/")
+
+                def optimizeTask = project.tasks.create(taskName, ResourcesOptimizeL2Task) {
+                    it.resourcesDir = resourcesDirFile
+                    it.outputDir = new File(
+                            "${project.buildDir}/intermediates/res/optimized-l2/${capitalize}/")
+                    it.cacheDir = new File(
+                            "${project.buildDir}/intermediates/resources-optimize-l2/${capitalize}/")
+                    it.variantName = capitalize
+                    it.maxSize = resourcesOptimizeL2Extension.maxSize as int
+                    it.compress = resourcesOptimizeL2Extension.debugResourcesOptimize as boolean
+                    it.webpConvert = resourcesOptimizeL2Extension.webpConvert as boolean
+                    it.webpSupported = WebpUtils.isPNGConvertSupported(project)
+                    it.transparentWebpSupported = WebpUtils.isTransparentPNGSupported(project)
+                    it.toolsPath = resourcesOptimizeL2Extension.toolsPath as String
                 }
-                project.tasks.findByName(taskName).dependsOn processResourceTask.taskDependencies.
+                optimizeTask.dependsOn processResourceTask.taskDependencies.
                         getDependencies(processResourceTask)
-                processResourceTask.dependsOn project.tasks.findByName(taskName)
+                processResourceTask.dependsOn optimizeTask
+                // processResources reads the optimized copy, the merged resources stay untouched
+                if (processResourceTask.hasProperty('inputResourcesDir')) {
+                    processResourceTask.inputResourcesDir = project.files(optimizeTask.outputDir).
+                            builtBy(optimizeTask)
+                }
             }
         }
     }
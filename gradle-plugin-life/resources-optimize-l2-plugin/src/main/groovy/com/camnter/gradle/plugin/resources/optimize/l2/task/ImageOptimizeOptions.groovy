@@ -0,0 +1,27 @@
+package com.camnter.gradle.plugin.resources.optimize.l2.task
+
+/**
+ * Serializable options handed to every {@link ImageOptimizeWorker}
+ *
+ * @author CaMnter
+ */
+
+class ImageOptimizeOptions implements Serializable {
+
+    private static final long serialVersionUID = 1L
+
+    boolean compress
+    boolean webpConvert
+    // minSdkVersion >= 14
+    boolean webpSupported
+    // minSdkVersion >= 18
+    boolean transparentWebpSupported
+    String toolsPath
+
+    @Override
+    String toString() {
+        return "compress=${compress}, webpConvert=${webpConvert}, " +
+                "webpSupported=${webpSupported}, " +
+                "transparentWebpSupported=${transparentWebpSupported}, toolsPath=${toolsPath}"
+    }
+}
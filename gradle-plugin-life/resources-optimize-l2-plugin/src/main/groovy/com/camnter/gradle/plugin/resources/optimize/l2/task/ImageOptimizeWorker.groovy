@@ -0,0 +1,166 @@
+package com.camnter.gradle.plugin.resources.optimize.l2.task
+
+import com.camnter.gradle.plugin.resources.optimize.l2.utils.CommandUtils
+import com.camnter.gradle.plugin.resources.optimize.l2.utils.HashUtils
+import com.camnter.gradle.plugin.resources.optimize.l2.utils.ImageUtils
+
+import javax.inject.Inject
+
+/**
+ * Optimize one image, run by the Worker API
+ *
+ * the source image is only read, the result is written to imageFile in the output directory
+ *
+ * 1. the content hash is an optimized one, skip
+ * 2. the content hash was optimized before, restore the result from cache
+ * 3. pngquant / guetzli, then cwebp, then save the result to cache
+ *
+ * cacheDir
+ * ├── cache/<original sha1>.<png|jpg|webp>   optimized result
+ * └── optimized/<result sha1>                marker of optimized content
+ *
+ * @author CaMnter
+ */
+
+class ImageOptimizeWorker implements Runnable {
+
+    static final String CACHE_DIR = 'cache'
+    static final String OPTIMIZED_DIR = 'optimized'
+    static final String WEBP = '.webp'
+
+    private final File sourceFile
+    private final File imageFile
+    private final File cacheDir
+    private final ImageOptimizeOptions options
+    private final String runId
+
+    @Inject
+    ImageOptimizeWorker(File sourceFile, File imageFile, File cacheDir,
+            ImageOptimizeOptions options, String runId) {
+        this.sourceFile = sourceFile
+        this.imageFile = imageFile
+        this.cacheDir = cacheDir
+        this.options = options
+        this.runId = runId
+    }
+
+    @Override
+    void run() {
+        if (!sourceFile.exists()) return
+        // optimize a copy, pngquant / guetzli / cwebp work on imageFile
+        imageFile.parentFile.mkdirs()
+        imageFile.bytes = sourceFile.bytes
+        def stats = OptimizeStats.of(runId)
+        def originalLength = imageFile.length()
+        def hash = HashUtils.sha1(imageFile)
+
+        if (new File(cacheDir, "${OPTIMIZED_DIR}/${hash}").exists()) {
+            stats.skipped.incrementAndGet()
+            return
+        }
+
+        def extension = extensionOf(imageFile)
+        def cachedFile = new File(cacheDir, "${CACHE_DIR}/${hash}${WEBP}")
+        if (!cachedFile.exists()) {
+            cachedFile = new File(cacheDir, "${CACHE_DIR}/${hash}${extension}")
+        }
+        if (cachedFile.exists()) {
+            def target = new File(imageFile.parentFile,
+                    "${baseNameOf(imageFile)}${extensionOf(cachedFile)}")
+            target.bytes = cachedFile.bytes
+            if (target != imageFile) imageFile.delete()
+            stats.restore(originalLength, target.length())
+            return
+        }
+
+        if (options.compress) {
+            compress(stats)
+        }
+        def result = imageFile
+        if (options.webpConvert) {
+            result = convertWebp(stats)
+        }
+
+        // cache the result for the next build
+        def resultCache = new File(cacheDir, "${CACHE_DIR}/${hash}${extensionOf(result)}")
+        resultCache.parentFile.mkdirs()
+        resultCache.bytes = result.bytes
+        def marker = new File(cacheDir, "${OPTIMIZED_DIR}/${HashUtils.sha1(result)}")
+        marker.parentFile.mkdirs()
+        marker.createNewFile()
+    }
+
+    /**
+     * jpg
+     * eg: "guetzli ${file.path} ${file.path}"
+     *
+     * png
+     * eg: "pngquant --skip-if-larger --speed 3 --force --output ${file.path} -- ${file.path}"
+     * */
+    private void compress(OptimizeStats stats) {
+        def before = imageFile.length()
+        def start = System.nanoTime()
+        def tool
+        if (ImageUtils.checkJPG(imageFile)) {
+            tool = 'guetzli'
+            CommandUtils.command(
+                    "${options.toolsPath}/guetzli ${imageFile.path} ${imageFile.path}") {
+                String output ->
+            } { String error ->
+                println "[ImageOptimizeWorker]   [guetzli]   [error] = ${error}"
+            }
+        } else {
+            tool = 'pngquant'
+            CommandUtils.command(
+                    "${options.toolsPath}/pngquant --skip-if-larger --speed 3 --force --output ${imageFile.path} -- ${imageFile.path}") {
+                String output ->
+            } { String error ->
+                println "[ImageOptimizeWorker]   [pngquant]   [error] = ${error}"
+            }
+        }
+        stats.record(tool, before, imageFile.length(), System.nanoTime() - start)
+    }
+
+    /**
+     * "cwebp ${imageFile.getPath()} -o ${webpFile.getPath()} -quiet"
+     *
+     * @return webp file if it is smaller, otherwise the image file
+     * */
+    private File convertWebp(OptimizeStats stats) {
+        if (!options.webpSupported) return imageFile
+        if (!ImageUtils.checkJPG(imageFile) && !options.transparentWebpSupported &&
+                ImageUtils.checkAlphaPNG(imageFile)) {
+            return imageFile
+        }
+        def before = imageFile.length()
+        def start = System.nanoTime()
+        def webpFile = new File(imageFile.parentFile, "${baseNameOf(imageFile)}${WEBP}")
+        CommandUtils.command(
+                "${options.toolsPath}/cwebp ${imageFile.path} -o ${webpFile.path} -quiet") {
+            String output ->
+        } { String error ->
+            println "[ImageOptimizeWorker]   [cwebp]   [error] = ${error}"
+        }
+        def nanos = System.nanoTime() - start
+        if (webpFile.exists() && webpFile.length() > 0 && webpFile.length() < before) {
+            stats.record('cwebp', before, webpFile.length(), nanos)
+            imageFile.delete()
+            return webpFile
+        }
+        stats.record('cwebp', before, before, nanos)
+        if (webpFile.exists()) webpFile.delete()
+        return imageFile
+    }
+
+    static String baseNameOf(File file) {
+        def name = file.name
+        def index = name.lastIndexOf('.')
+        return index > 0 ? name.substring(0, index) : name
+    }
+
+    private static String extensionOf(File file) {
+        def name = file.name
+        def index = name.lastIndexOf('.')
+        return index > 0 ? name.substring(index) : ''
+    }
+}
@@ -0,0 +1,90 @@
+package com.camnter.gradle.plugin.resources.optimize.l2.task
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Bytes saved and time spent per tool of one task run
+ *
+ * workers run in the same class loader (IsolationMode.NONE),
+ * so they report to the stats registered by the task
+ *
+ * @author CaMnter
+ */
+
+class OptimizeStats {
+
+    private static final Map<String, OptimizeStats> RUNS = new ConcurrentHashMap<>()
+
+    // hash matched an optimized image
+    final AtomicInteger skipped = new AtomicInteger()
+    // restored from the content-hash cache
+    final AtomicInteger restored = new AtomicInteger()
+    final AtomicLong restoredSaved = new AtomicLong()
+    final Map<String, ToolStats> tools = new ConcurrentHashMap<>()
+
+    static OptimizeStats start(String runId) {
+        def stats = new OptimizeStats()
+        RUNS.put(runId, stats)
+        return stats
+    }
+
+    static OptimizeStats of(String runId) {
+        def stats = RUNS.get(runId)
+        // the task is gone, count nothing
+        return stats == null ? new OptimizeStats() : stats
+    }
+
+    static void finish(String runId) {
+        RUNS.remove(runId)
+    }
+
+    void record(String tool, long before, long after, long nanos) {
+        def toolStats = tools.get(tool)
+        if (toolStats == null) {
+            tools.putIfAbsent(tool, new ToolStats())
+            toolStats = tools.get(tool)
+        }
+        toolStats.count.incrementAndGet()
+        toolStats.before.addAndGet(before)
+        toolStats.after.addAndGet(after)
+        toolStats.nanos.addAndGet(nanos)
+    }
+
+    void restore(long before, long after) {
+        restored.incrementAndGet()
+        restoredSaved.addAndGet(before - after)
+    }
+
+    long totalSaved() {
+        long saved = restoredSaved.get()
+        tools.values().each { saved += it.before.get() - it.after.get() }
+        return saved
+    }
+
+    void print(String taskName, int submitted, long costMillis) {
+        printf "%-21s >> \n", ['[ResourcesOptimizeL2Plugin]']
+        printf "%-21s >> %s\n", ['[TaskName]', taskName]
+        printf "%-21s >> %s\n", ['[Images]', submitted]
+        printf "%-21s >> %s\n", ['[Skipped]', skipped.get()]
+        printf "%-21s >> %s, %skb saved\n",
+                ['[Restored]', restored.get(), ((float) restoredSaved.get() / 1024.0f).round(2)]
+        tools.each { String tool, ToolStats toolStats ->
+            printf "%-21s >> %s images, %skb saved, %s ms\n",
+                    ["[${tool}]", toolStats.count.get(),
+                     ((float) (toolStats.before.get() - toolStats.after.get()) / 1024.0f).round(2),
+                     TimeUnit.NANOSECONDS.toMillis(toolStats.nanos.get())]
+        }
+        printf "%-21s >> %skb\n", ['[Saved]', ((float) totalSaved() / 1024.0f).round(2)]
+        printf "%-21s >> %s ms\n", ['[Cost]', costMillis]
+    }
+
+    static class ToolStats {
+        final AtomicInteger count = new AtomicInteger()
+        final AtomicLong before = new AtomicLong()
+        final AtomicLong after = new AtomicLong()
+        final AtomicLong nanos = new AtomicLong()
+    }
+}
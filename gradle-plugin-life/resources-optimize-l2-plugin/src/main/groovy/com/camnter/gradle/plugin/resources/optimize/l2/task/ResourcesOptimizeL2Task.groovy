@@ -0,0 +1,194 @@
+package com.camnter.gradle.plugin.resources.optimize.l2.task
+
+import com.camnter.gradle.plugin.resources.optimize.l2.utils.ImageUtils
+import org.gradle.api.DefaultTask
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.Internal
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.TaskAction
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs
+import org.gradle.workers.IsolationMode
+import org.gradle.workers.WorkerExecutor
+
+import javax.inject.Inject
+
+/**
+ * Report big images, then optimize images of drawable and mipmap in parallel
+ *
+ * 1. incremental build, only the out-of-date files are copied or submitted
+ * 2. every image is a work item of the Worker API, parallelism is --max-workers
+ * 3. {@link ImageOptimizeWorker} skips or restores the images by content hash
+ *
+ * resourcesDir is the output of mergeResources, it is never modified
+ * outputDir is a copy of resourcesDir with the optimized images, read by processResources
+ *
+ * @author CaMnter
+ */
+
+class ResourcesOptimizeL2Task extends DefaultTask {
+
+    @InputFiles
+    File resourcesDir
+
+    @OutputDirectory
+    File outputDir
+
+    @OutputDirectory
+    File cacheDir
+
+    @Input
+    String variantName
+
+    @Input
+    int maxSize
+
+    @Input
+    boolean compress
+
+    @Input
+    boolean webpConvert
+
+    @Input
+    boolean webpSupported
+
+    @Input
+    boolean transparentWebpSupported
+
+    @Input
+    String toolsPath
+
+    private final WorkerExecutor workerExecutor
+
+    @Inject
+    ResourcesOptimizeL2Task(WorkerExecutor workerExecutor) {
+        this.workerExecutor = workerExecutor
+    }
+
+    @Internal
+    WorkerExecutor getWorkerExecutor() {
+        return workerExecutor
+    }
+
+    @TaskAction
+    void optimize(IncrementalTaskInputs inputs) {
+        def start = System.currentTimeMillis()
+        if (!inputs.incremental) {
+            project.delete(outputDir)
+            outputDir.mkdirs()
+        }
+        def images = [] as LinkedList<File>
+        // not incremental, every input file is out of date
+        inputs.outOfDate { change ->
+            deleteOutputs(change.file)
+            if (!change.file.isFile()) return
+            if (checkResource(change.file)) {
+                images << change.file
+            } else {
+                copyToOutput(change.file)
+            }
+        }
+        inputs.removed { change ->
+            deleteOutputs(change.file)
+        }
+
+        reportBigImages(images)
+
+        if (!compress && !webpConvert) {
+            images.each { copyToOutput(it) }
+            return
+        }
+        if (images.isEmpty()) {
+            printf "%-21s >> \n", ['[ResourcesOptimizeL2Plugin]']
+            printf "%-21s >> %s\n", ['[TaskName]', name]
+            printf "%-21s >> %s\n", ['[UP-TO-DATE]', resourcesDir]
+            return
+        }
+
+        def options = new ImageOptimizeOptions(
+                compress: compress,
+                webpConvert: webpConvert,
+                webpSupported: webpSupported,
+                transparentWebpSupported: transparentWebpSupported,
+                toolsPath: toolsPath)
+        def runId = "${path}@${System.nanoTime()}" as String
+        def stats = OptimizeStats.start(runId)
+        try {
+            images.each { File image ->
+                def target = outputOf(image)
+                workerExecutor.submit(ImageOptimizeWorker) { config ->
+                    config.isolationMode = IsolationMode.NONE
+                    config.displayName = "${name} ${image.name}"
+                    config.params(image, target, cacheDir, options, runId)
+                }
+            }
+            workerExecutor.await()
+            stats.print(name, images.size(), System.currentTimeMillis() - start)
+        } finally {
+            OptimizeStats.finish(runId)
+        }
+    }
+
+    /**
+     * resourcesDir/drawable/a.png -> outputDir/drawable/a.png
+     * */
+    private File outputOf(File file) {
+        return new File(outputDir, resourcesDir.toPath().relativize(file.toPath()).toString())
+    }
+
+    private void copyToOutput(File file) {
+        def target = outputOf(file)
+        target.parentFile.mkdirs()
+        target.bytes = file.bytes
+    }
+
+    /**
+     * the output of an image may be a .webp, delete every output of the same resource name
+     * */
+    private void deleteOutputs(File file) {
+        def target = outputOf(file)
+        if (!checkResource(file)) {
+            if (target.isFile()) target.delete()
+            return
+        }
+        def baseName = ImageOptimizeWorker.baseNameOf(target)
+        target.parentFile?.listFiles()?.each {
+            if (it.isFile() && ImageOptimizeWorker.baseNameOf(it) == baseName) it.delete()
+        }
+    }
+
+    private static boolean checkResource(File file) {
+        def path = file.path
+        return (path.contains('drawable') || path.contains('mipmap')) &&
+                ImageUtils.checkImage(file)
+    }
+
+    private void reportBigImages(List<File> images) {
+        def bigImagePathList = ([] as LinkedList<ArrayList<String>>)
+        images.each {
+            if (ImageUtils.checkImageSize(it, 1024 * maxSize /* default 100kb*/)) {
+                def name = it.path.
+                        replace('.flat' as String, '').
+                        replace(resourcesDir.path as String, '').
+                        replace(variantName.toLowerCase() as String, '')
+                        .replaceAll('/', '')
+                bigImagePathList << (["${((float) it.length() / 1024.0f).round(2)}kb", name] as ArrayList<String>)
+            }
+        }
+        if (bigImagePathList.size() > 0) {
+            printf "%-21s >> \n", ['[ResourcesOptimizeL2Plugin]']
+            printf "%-21s >> %s\n", ['[TaskName]', name]
+            printf "%-21s >> %s\n", ['[Directory]', resourcesDir]
+            printf "%-21s >> \n", ['[BigImage]']
+            // sort
+            bigImagePathList.sort { current, next ->
+                (current.get(0).
+                        replace('kb' as String, '') as Float) <=> (next.get(0).
+                        replace('kb' as String, '') as Float)
+            }
+        }
+        bigImagePathList.each {
+            printf "%10s : %s\n", it
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.camnter.gradle.plugin.resources.optimize.l2.utils
+
+import java.security.MessageDigest
+
+/**
+ * @author CaMnter
+ */
+
+class HashUtils {
+
+    static String sha1(File file) {
+        def digest = MessageDigest.getInstance('SHA-1')
+        file.withInputStream { InputStream input ->
+            byte[] buffer = new byte[64 * 1024]
+            int length
+            while ((length = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, length)
+            }
+        }
+        return digest.digest().encodeHex().toString()
+    }
+}
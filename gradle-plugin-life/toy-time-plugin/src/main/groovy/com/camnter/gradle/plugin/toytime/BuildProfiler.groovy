@@ -0,0 +1,223 @@
+package com.camnter.gradle.plugin.toytime
+
+import groovy.json.JsonOutput
+import org.gradle.api.Task
+import org.gradle.api.execution.TaskExecutionGraph
+import org.gradle.api.tasks.TaskState
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Records start / end / thread of every task, then analyzes the build
+ *
+ * 1. critical path: from the last finished task, walk back through the dependency
+ *    that finished last, which is the one that actually released the task
+ * 2. parallelism: running tasks over time, average and peak, against max workers
+ * 3. report: profile.json for comparing builds, trace.json for chrome://tracing
+ *
+ * task listeners are called from worker threads in parallel builds,
+ * so the records are kept in concurrent maps
+ *
+ * @author CaMnter
+ */
+
+class BuildProfiler {
+
+    static final String PROFILE_JSON = 'profile.json'
+    static final String TRACE_JSON = 'trace.json'
+
+    private static final int MAX_BUCKETS = 200
+    private static final long MIN_BUCKET_MILLIS = 100
+
+    final Map<String, TaskRecord> records = new ConcurrentHashMap<>()
+    final Map<String, List<String>> dependencies = new ConcurrentHashMap<>()
+
+    /**
+     * 只保留在执行图内的依赖
+     * */
+    void graphPopulated(TaskExecutionGraph graph) {
+        graph.allTasks.each { Task task ->
+            dependencies.put(task.path, task.taskDependencies.getDependencies(task).
+                    findAll { graph.hasTask(it) }.
+                    collect { it.path } as List<String>)
+        }
+    }
+
+    void beforeExecute(Task task) {
+        records.put(task.path, new TaskRecord(
+                path: task.path,
+                thread: Thread.currentThread().name,
+                startNanos: System.nanoTime()))
+    }
+
+    TaskRecord afterExecute(Task task, TaskState taskState) {
+        def record = records.get(task.path)
+        if (null == record) return null
+        record.endNanos = System.nanoTime()
+        if (null != taskState.failure) {
+            record.state = 'failed'
+        } else if (taskState.skipped) {
+            record.state = taskState.skipMessage
+        } else {
+            record.state = 'executed'
+        }
+        return record
+    }
+
+    Map analyze(int maxWorkers) {
+        def finished = records.values().findAll { it.endNanos > 0 }.
+                sort { it.startNanos } as List<TaskRecord>
+        if (finished.isEmpty()) return [:]
+
+        long buildStart = finished.first().startNanos
+        long buildEnd = finished.collect { it.endNanos }.max() as long
+        long wallNanos = Math.max(1L, buildEnd - buildStart)
+
+        def criticalPath = criticalPath(finished)
+        long criticalNanos = criticalPath.sum(0L) { it.durationNanos } as long
+        long busyNanos = finished.sum(0L) { it.durationNanos } as long
+        double averageParallelism = (double) busyNanos / wallNanos
+
+        return [
+                wallMillis         : toMillis(wallNanos),
+                taskCount          : finished.size(),
+                maxWorkers         : maxWorkers,
+                busyMillis         : toMillis(busyNanos),
+                averageParallelism : round(averageParallelism),
+                peakParallelism    : peakParallelism(finished),
+                utilization        : round(averageParallelism / Math.max(1, maxWorkers)),
+                criticalPathMillis : toMillis(criticalNanos),
+                criticalPath       : criticalPath.collect { TaskRecord record ->
+                    [path          : record.path,
+                     startMillis   : toMillis(record.startNanos - buildStart),
+                     durationMillis: record.durationMillis,
+                     state         : record.state]
+                },
+                parallelism        : parallelism(finished, buildStart, wallNanos),
+                tasks              : finished.collect { TaskRecord record ->
+                    [path          : record.path,
+                     thread        : record.thread,
+                     startMillis   : toMillis(record.startNanos - buildStart),
+                     durationMillis: record.durationMillis,
+                     state         : record.state,
+                     dependencies  : dependencies.get(record.path) ?: []]
+                }
+        ]
+    }
+
+    /**
+     * 从最后结束的 task 开始，沿着最后结束的依赖往回走
+     * */
+    List<TaskRecord> criticalPath(List<TaskRecord> finished) {
+        def path = [] as LinkedList<TaskRecord>
+        def current = finished.max { it.endNanos }
+        def visited = [] as Set<String>
+        while (null != current && visited.add(current.path)) {
+            path.addFirst(current)
+            def dependencyRecords = (dependencies.get(current.path) ?: []).
+                    collect { records.get(it) }.
+                    findAll { null != it && it.endNanos > 0 }
+            current = dependencyRecords.isEmpty() ? null :
+                    dependencyRecords.max { it.endNanos }
+        }
+        return path
+    }
+
+    /**
+     * 扫描线：开始 +1，结束 -1
+     * */
+    private static int peakParallelism(List<TaskRecord> finished) {
+        def events = [] as ArrayList<long[]>
+        finished.each {
+            events << ([it.startNanos, 1L] as long[])
+            events << ([it.endNanos, -1L] as long[])
+        }
+        // 同一时刻先结束再开始
+        events.sort { left, right ->
+            left[0] <=> right[0] ?: left[1] <=> right[1]
+        }
+        int running = 0
+        int peak = 0
+        events.each {
+            running += (int) it[1]
+            peak = Math.max(peak, running)
+        }
+        return peak
+    }
+
+    /**
+     * 每个时间段内的平均并行数
+     * */
+    private static List<Map> parallelism(List<TaskRecord> finished, long buildStart,
+            long wallNanos) {
+        long bucketNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(MIN_BUCKET_MILLIS),
+                (long) Math.ceil((double) wallNanos / MAX_BUCKETS))
+        int bucketCount = (int) ((wallNanos + bucketNanos - 1) / bucketNanos)
+        def busy = new long[bucketCount]
+        finished.each {
+            long start = it.startNanos - buildStart
+            long end = it.endNanos - buildStart
+            for (int i = (int) (start / bucketNanos); i < bucketCount && i * bucketNanos < end; i++) {
+                long bucketStart = i * bucketNanos
+                long overlap = Math.min(end, bucketStart + bucketNanos) -
+                        Math.max(start, bucketStart)
+                if (overlap > 0) busy[i] += overlap
+            }
+        }
+        def buckets = []
+        for (int i = 0; i < bucketCount; i++) {
+            buckets << [startMillis: toMillis(i * bucketNanos),
+                        running    : round((double) busy[i] / bucketNanos)]
+        }
+        return buckets
+    }
+
+    /**
+     * Chrome trace event format
+     * "X" complete event per task, "M" thread name, "C" running tasks counter
+     * */
+    static Map chromeTrace(Map report) {
+        def events = []
+        def threads = [:] as LinkedHashMap<String, Integer>
+        def critical = (report.criticalPath as List<Map>).collect { it.path } as Set<String>
+        (report.tasks as List<Map>).each { Map task ->
+            def tid = threads.get(task.thread)
+            if (null == tid) {
+                tid = threads.size() + 1
+                threads.put(task.thread as String, tid)
+                events << [name: 'thread_name', ph: 'M', pid: 1, tid: tid,
+                           args: [name: task.thread]]
+            }
+            events << [name: task.path,
+                       cat : critical.contains(task.path) ? 'task,critical' : 'task',
+                       ph  : 'X',
+                       ts  : (task.startMillis as long) * 1000,
+                       dur : (task.durationMillis as long) * 1000,
+                       pid : 1,
+                       tid : tid,
+                       args: [state       : task.state,
+                              critical    : critical.contains(task.path),
+                              dependencies: task.dependencies]]
+        }
+        (report.parallelism as List<Map>).each { Map bucket ->
+            events << [name: 'running', ph: 'C', pid: 1, ts: (bucket.startMillis as long) * 1000,
+                       args: [running: bucket.running]]
+        }
+        return [traceEvents: events, displayTimeUnit: 'ms']
+    }
+
+    static void write(File reportDir, Map report) {
+        reportDir.mkdirs()
+        new File(reportDir, PROFILE_JSON).write(JsonOutput.prettyPrint(JsonOutput.toJson(report)))
+        new File(reportDir, TRACE_JSON).write(JsonOutput.toJson(chromeTrace(report)))
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos)
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0d
+    }
+}
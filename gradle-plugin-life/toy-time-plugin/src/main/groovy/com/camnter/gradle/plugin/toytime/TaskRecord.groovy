@@ -0,0 +1,27 @@
+package com.camnter.gradle.plugin.toytime
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * One executed task of the build
+ *
+ * @author CaMnter
+ */
+
+class TaskRecord {
+
+    String path
+    String thread
+    long startNanos
+    long endNanos
+    // executed, failed or the skip message: UP-TO-DATE, NO-SOURCE, FROM-CACHE, SKIPPED ...
+    String state
+
+    long getDurationNanos() {
+        return Math.max(0L, endNanos - startNanos)
+    }
+
+    long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos)
+    }
+}
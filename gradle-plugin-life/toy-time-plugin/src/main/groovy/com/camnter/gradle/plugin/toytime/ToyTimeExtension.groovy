@@ -8,5 +8,9 @@ class ToyTimeExtension {
 
     def keyword = ''
     def minElapsedMillis = 50
+    // critical path, parallelism, profile.json and trace.json
+    def profile = true
+    // default: rootProject/build/reports/toy-time
+    def reportDir = ''
 
 }
@@ -4,25 +4,31 @@ import org.gradle.BuildListener
 import org.gradle.BuildResult
 import org.gradle.api.Project
 import org.gradle.api.Task
+import org.gradle.api.execution.TaskExecutionGraph
+import org.gradle.api.execution.TaskExecutionGraphListener
 import org.gradle.api.execution.TaskExecutionListener
 import org.gradle.api.initialization.Settings
 import org.gradle.api.invocation.Gradle
 import org.gradle.api.tasks.TaskState
-import org.gradle.internal.time.Clock
+
+import java.util.concurrent.ConcurrentLinkedQueue
 
 /**
  * @author CaMnter
  */
 
-class ToyTimeListener implements TaskExecutionListener, BuildListener {
+class ToyTimeListener implements TaskExecutionListener, TaskExecutionGraphListener, BuildListener {
 
     Project project
 
-    Clock clock
-    def times = []
+    BuildProfiler profiler = new BuildProfiler()
+    // tasks run in parallel with --parallel or workers
+    def times = new ConcurrentLinkedQueue()
 
     def keyword = ''
     def minElapsedMillis = 0
+    def profile = true
+    def reportDir = ''
 
     ToyTimeListener(Project target) {
         project = target
@@ -37,16 +43,50 @@ class ToyTimeListener implements TaskExecutionListener, BuildListener {
         for (time in times) {
             printf "%7sms  %s\n", time
         }
+
+        if (profile) {
+            printProfile(buildResult.gradle)
+        }
+    }
+
+    private void printProfile(Gradle gradle) {
+        def report = profiler.analyze(gradle.startParameter.maxWorkerCount)
+        if (report.isEmpty()) return
+        def reportDirFile = (null != reportDir && reportDir.length() > 0) ?
+                project.file(reportDir) :
+                new File(project.rootProject.buildDir, 'reports/toy-time')
+        BuildProfiler.write(reportDirFile, report)
+
+        println "\nBuild profile:"
+        printf "%-21s >> %sms\n", ['[wall]', report.wallMillis]
+        printf "%-21s >> %s / %s workers, peak %s, utilization %s\n",
+                ['[parallelism]', report.averageParallelism, report.maxWorkers,
+                 report.peakParallelism, report.utilization]
+        printf "%-21s >> %sms\n", ['[criticalPath]', report.criticalPathMillis]
+        report.criticalPath.each {
+            printf "%7sms  %s  %s\n", [it.durationMillis, it.path, it.state]
+        }
+        printf "%-21s >> %s\n", ['[profile]', new File(reportDirFile, BuildProfiler.PROFILE_JSON)]
+        printf "%-21s >> %s\n", ['[trace]', new File(reportDirFile, BuildProfiler.TRACE_JSON)]
+    }
+
+    @Override
+    void graphPopulated(TaskExecutionGraph graph) {
+        if (profile) {
+            profiler.graphPopulated(graph)
+        }
     }
 
     @Override
     void beforeExecute(Task task) {
-        this.clock = new Clock()
+        profiler.beforeExecute(task)
     }
 
     @Override
     void afterExecute(Task task, TaskState taskState) {
-        def elapsedMillis = this.clock.elapsedMillis
+        def record = profiler.afterExecute(task, taskState)
+        if (null == record) return
+        def elapsedMillis = record.durationMillis
         if (elapsedMillis >= minElapsedMillis) {
             if (null != keyword && keyword.length() > 0) {
                 if (task.path.contains(keyword)) {
@@ -73,5 +113,7 @@ class ToyTimeListener implements TaskExecutionListener, BuildListener {
         def toyTimeExtension = project.extensions.getByName('toyTimeExtension')
         this.keyword = toyTimeExtension.keyword
         this.minElapsedMillis = toyTimeExtension.minElapsedMillis
+        this.profile = toyTimeExtension.profile
+        this.reportDir = toyTimeExtension.reportDir
     }
-}
\ No newline at end of file
+}
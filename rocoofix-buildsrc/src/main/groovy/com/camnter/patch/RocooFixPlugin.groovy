@@ -8,6 +8,8 @@ import com.android.build.gradle.AppPlugin
 import com.android.build.gradle.api.ApplicationVariant
 import com.android.build.gradle.api.BaseVariant
 import com.android.build.gradle.internal.transforms.ProGuardTransform
+import com.camnter.patch.utils.NuwaProcessor
+import com.camnter.patch.utils.NuwaSetUtils
 import com.camnter.patch.utils.RocooUtils
 import com.google.common.collect.Sets
 import org.apache.commons.codec.digest.DigestUtils
@@ -122,12 +124,25 @@ class RocooFixPlugin implements Plugin<Project> {
                         rocooConfig.excludePackage.add("android/support/")
 
                         outputDir.mkdirs()
+                        // NuwaProcessor 和上一次构建的 hash.txt 比较，增量更新补丁
+                        def lastHashFile = new File(outputDir, NuwaProcessor.LAST_HASH_TXT)
                         if (!hashFile.exists()) {
+                            FileUtils.deleteQuietly(lastHashFile)
                             hashFile.createNewFile()
                         } else {
+                            FileUtils.copyFile(hashFile, lastHashFile)
                             hashFile.delete()
                             hashFile.createNewFile()
                         }
+                        // scanref 加入的类同样记下来，不再需要时从补丁中删除
+                        def scanrefFile = new File(outputDir, NuwaProcessor.SCANREF_TXT)
+                        def lastScanrefFile = new File(outputDir, NuwaProcessor.LAST_SCANREF_TXT)
+                        if (!scanrefFile.exists()) {
+                            FileUtils.deleteQuietly(lastScanrefFile)
+                        } else {
+                            FileUtils.copyFile(scanrefFile, lastScanrefFile)
+                            scanrefFile.delete()
+                        }
                     }
 
                     Closure copyMappingClosure = {
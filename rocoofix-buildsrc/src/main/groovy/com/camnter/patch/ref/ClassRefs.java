@@ -0,0 +1,179 @@
+package com.camnter.patch.ref;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * 一个类的直接引用和父类
+ *
+ * 和 ClassReferenceListBuilder # addDependencies 收集的一样：
+ * 常量池里的 Class、Fieldref、Methodref、InterfaceMethodref，加上自己的 field、method 描述符
+ *
+ * 只依赖类自己的字节码，所以可以按字节码的 hash 缓存
+ * 用 ASM 直接读常量池，没有 dx 的全局 intern 表，可以多线程同时解析
+ *
+ * @author CaMnter
+ */
+public class ClassRefs {
+
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+
+    private static final String SEPARATOR = ",";
+    private static final String ENCODING = "UTF-8";
+
+    private final String superName;
+    private final Set<String> references;
+
+
+    private ClassRefs(String superName, Set<String> references) {
+        this.superName = superName;
+        this.references = references;
+    }
+
+
+    /**
+     * @param bytes class bytes
+     * @return ClassRefs
+     */
+    public static ClassRefs parse(byte[] bytes) {
+        final ClassReader reader = new ClassReader(bytes);
+        final Set<String> references = new HashSet<String>();
+        final char[] buffer = new char[reader.getMaxStringLength()];
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            final int index = reader.getItem(i);
+            // the second slot of long and double
+            if (index == 0) continue;
+            switch (reader.b[index - 1]) {
+                case CONSTANT_CLASS:
+                    final String name = reader.readUTF8(index, buffer);
+                    checkDescriptor(name.startsWith("[") ? name : "L" + name + ";", references);
+                    break;
+                case CONSTANT_FIELD_REF:
+                    checkDescriptor(readNameAndTypeDescriptor(reader, index, buffer), references);
+                    break;
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                    checkPrototype(readNameAndTypeDescriptor(reader, index, buffer), references);
+                    break;
+            }
+        }
+
+        final String[] superName = new String[1];
+        reader.accept(new ClassVisitor(Opcodes.ASM4) {
+            @Override
+            public void visit(int version, int access, String name, String signature,
+                              String superClassName, String[] interfaceNames) {
+                superName[0] = superClassName;
+            }
+
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String desc,
+                                           String signature, Object value) {
+                checkDescriptor(desc, references);
+                return null;
+            }
+
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String desc,
+                                             String signature, String[] exceptions) {
+                checkPrototype(desc, references);
+                return null;
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return new ClassRefs(superName[0], references);
+    }
+
+
+    /**
+     * Fieldref、Methodref --> NameAndType --> descriptor
+     */
+    private static String readNameAndTypeDescriptor(ClassReader reader, int index,
+                                                    char[] buffer) {
+        final int nameAndType = reader.getItem(reader.readUnsignedShort(index + 2));
+        return reader.readUTF8(nameAndType + 2, buffer);
+    }
+
+
+    private static void checkPrototype(String methodDescriptor, Set<String> references) {
+        checkDescriptor(Type.getReturnType(methodDescriptor).getDescriptor(), references);
+        for (Type argumentType : Type.getArgumentTypes(methodDescriptor)) {
+            checkDescriptor(argumentType.getDescriptor(), references);
+        }
+    }
+
+
+    private static void checkDescriptor(String typeDescriptor, Set<String> references) {
+        if (typeDescriptor.endsWith(";")) {
+            int lastBrace = typeDescriptor.lastIndexOf('[');
+            if (lastBrace < 0) {
+                references.add(typeDescriptor.substring(1, typeDescriptor.length() - 1));
+            } else {
+                references.add(typeDescriptor.substring(lastBrace + 2,
+                    typeDescriptor.length() - 1));
+            }
+        }
+    }
+
+
+    /**
+     * 两行：superName、references
+     *
+     * @param file cache file
+     * @return ClassRefs
+     */
+    public static ClassRefs readFrom(File file) throws IOException {
+        final List<String> lines = FileUtils.readLines(file, ENCODING);
+        if (lines.size() != 2) {
+            throw new IOException("Broken class refs cache " + file);
+        }
+        return new ClassRefs(
+            lines.get(0).isEmpty() ? null : lines.get(0),
+            new HashSet<String>(split(lines.get(1)))
+        );
+    }
+
+
+    public void writeTo(File file) throws IOException {
+        final List<String> lines = new ArrayList<String>(2);
+        lines.add(this.superName == null ? "" : this.superName);
+        lines.add(StringUtils.join(this.references, SEPARATOR));
+        FileUtils.writeLines(file, ENCODING, lines, "\n");
+    }
+
+
+    private static List<String> split(String line) {
+        return line.isEmpty()
+               ? Collections.<String>emptyList()
+               : Arrays.asList(line.split(SEPARATOR));
+    }
+
+
+    public String getSuperName() {
+        return superName;
+    }
+
+
+    public Set<String> getReferences() {
+        return references;
+    }
+
+}
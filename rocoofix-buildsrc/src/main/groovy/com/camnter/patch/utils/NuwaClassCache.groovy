@@ -0,0 +1,92 @@
+package com.camnter.patch.utils
+
+import com.camnter.patch.ref.ClassRefs
+import org.apache.commons.codec.digest.DigestUtils
+import org.apache.commons.io.FileUtils
+
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * 按原始字节码 hash 缓存的插桩结果和引用关系，跨构建保留
+ *
+ * rocoofix/version??/debug/cache
+ * -   <hash>.class   referHackWhenInit 之后的字节码
+ * -   <hash>.refs    ClassRefs
+ *
+ * 类没变，就不用再 ASM 插桩 和 解析引用
+ * 多线程安全：同一个 hash 的结果一样，先写临时文件再 rename
+ *
+ * @author CaMnter
+ */
+class NuwaClassCache {
+
+    // referHackWhenInit 或 ClassRefs 的逻辑变了，改这个版本号，旧缓存全部失效
+    private static final String VERSION = "1"
+    private static final String CLASS_SUFFIX = ".class"
+    private static final String REFS_SUFFIX = ".refs"
+
+    private final File cacheDir
+
+    final AtomicInteger hits = new AtomicInteger()
+    final AtomicInteger misses = new AtomicInteger()
+
+    NuwaClassCache(File cacheDir) {
+        this.cacheDir = cacheDir
+        cacheDir.mkdirs()
+    }
+
+    static String key(byte[] originalBytes) {
+        return VERSION + DigestUtils.shaHex(originalBytes)
+    }
+
+    /**
+     * @param key key(originalBytes)
+     * @param originalBytes 原始字节码
+     * @return referHackWhenInit 之后的字节码
+     */
+    byte[] instrument(String key, byte[] originalBytes) {
+        def file = new File(cacheDir, key + CLASS_SUFFIX)
+        if (file.exists()) {
+            hits.incrementAndGet()
+            return FileUtils.readFileToByteArray(file)
+        }
+        misses.incrementAndGet()
+        def bytes = NuwaProcessor.referHackWhenInit(new ByteArrayInputStream(originalBytes))
+        write(file) { File temp -> FileUtils.writeByteArrayToFile(temp, bytes) }
+        return bytes
+    }
+
+    /**
+     * @param key key(originalBytes)
+     * @param originalBytes 原始字节码
+     * @return ClassRefs
+     */
+    ClassRefs refs(String key, byte[] originalBytes) {
+        def file = new File(cacheDir, key + REFS_SUFFIX)
+        if (file.exists()) {
+            try {
+                def refs = ClassRefs.readFrom(file)
+                hits.incrementAndGet()
+                return refs
+            } catch (IOException ignored) {
+                // broken, parse again
+            }
+        }
+        misses.incrementAndGet()
+        def refs = ClassRefs.parse(originalBytes)
+        write(file) { File temp -> refs.writeTo(temp) }
+        return refs
+    }
+
+    private void write(File file, Closure writer) {
+        def temp = File.createTempFile(file.name, ".tmp", cacheDir)
+        try {
+            writer.call(temp)
+            if (!temp.renameTo(file) && !file.exists()) {
+                FileUtils.copyFile(temp, file)
+            }
+        } finally {
+            FileUtils.deleteQuietly(temp)
+        }
+    }
+}
@@ -4,14 +4,20 @@
 package com.camnter.patch.utils
 
 import com.camnter.patch.RocooFixPlugin
-import com.camnter.patch.ref.ClassReferenceListBuilder
-import com.camnter.patch.ref.PatchRefScan
-import com.camnter.patch.ref.Path
+import com.camnter.patch.ref.ClassRefs
 import org.apache.commons.codec.digest.DigestUtils
 import org.apache.commons.io.FileUtils
 import org.apache.commons.io.IOUtils
 import org.objectweb.asm.*
 
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.jar.JarEntry
 import java.util.jar.JarFile
 import java.util.jar.JarOutputStream
@@ -25,99 +31,302 @@ import java.util.zip.ZipEntry
 class NuwaProcessor {
 
 
+    // 上一次构建的 hash.txt，prepareClosure 在清空 hash.txt 之前复制过来
+    public static final String LAST_HASH_TXT = "hash.last.txt"
+    // scanref 加入补丁的类（ 父类、引用了补丁的类 ），每行一个 entry name
+    public static final String SCANREF_TXT = "scanref.txt"
+    // 上一次构建的 scanref.txt，prepareClosure 复制过来
+    public static final String LAST_SCANREF_TXT = "scanref.last.txt"
+    public static final String CACHE_DIR = "cache"
+
+    private static final String CLASS_EXTENSION = ".class"
+
+    private static final int THREAD_COUNT = Runtime.getRuntime().availableProcessors()
+    // 同时在内存里的 entry 数，写回 jar 之后就释放字节码
+    private static final int MAX_IN_FLIGHT = THREAD_COUNT * 4
+
+    // 所有 jar 共用，守护线程，不会阻止 Gradle daemon 退出
+    private static ExecutorService executor
+
+    /**
+     * 1.并行：读取 jar entry，插桩（ NuwaClassCache ），scanref 时解析引用（ ClassRefs ）
+     * -  最多 MAX_IN_FLIGHT 个 entry 在处理中，按原来的顺序边处理边写回 jar
+     * -  写回之后只保留 scanref 需要的 name、key、ClassRefs，不保留字节码
+     * 2.hash.txt 一次写入
+     * 3.和 map（ preVersionPath 的 hash.txt ）比较得到补丁类
+     * -  和上一次构建的 hash.txt 比较：补丁类没变的不重写，不再是补丁的删除
+     * 4.scanref：用缓存的 ClassRefs 在内存里找父类 和 引用了补丁的类，不再逐个 dx 解析
+     * -  加入的类记到 scanref.txt；上一次 scanref 加入、这次不再需要的删除
+     */
     public
     static processJar(File hashFile, File jarFile, File patchDir, Map map, HashSet<String> includePackage, HashSet<String> excludeClass) {
         if (jarFile) {
+            def startTime = System.nanoTime()
+            def scanref = RocooFixPlugin.rocooConfig.scanref
+            def outputDir = hashFile.getParentFile()
+            def cache = new NuwaClassCache(new File(outputDir, CACHE_DIR))
+            def lastMap = RocooUtils.parseMap(new File(outputDir, LAST_HASH_TXT))
 
             def optJar = new File(jarFile.getParent(), jarFile.name + ".opt")
             def file = new JarFile(jarFile);
-            def  path = new Path(jarFile.getAbsolutePath());
-            ClassReferenceListBuilder mainListBuilder = new ClassReferenceListBuilder(path);
-            def patchClasss= new HashSet<String>();
-            Enumeration enumeration = file.entries();
-            JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(optJar));
-
-            while (enumeration.hasMoreElements()) {
-                JarEntry jarEntry = (JarEntry) enumeration.nextElement();
-                String entryName = jarEntry.getName();
-                ZipEntry zipEntry = new ZipEntry(entryName);
-
-                InputStream inputStream = file.getInputStream(jarEntry);
-                jarOutputStream.putNextEntry(zipEntry);
 
-                if (shouldProcessClassInJar(entryName, includePackage, excludeClass)) {
-                    def bytes = referHackWhenInit(inputStream);
-                    jarOutputStream.write(bytes);
-                    def hash = DigestUtils.shaHex(bytes)
-                    hashFile.append(RocooUtils.format(entryName, hash))
-
-                    if (RocooUtils.notSame(map, entryName, hash)) {
+            // step 1 并行处理每个 entry，按顺序写回 jar，计算补丁
+            List<ProcessedEntry> classes = new ArrayList<>()
+            def patchClasss = new HashSet<String>();
+            def hashBuilder = new StringBuilder()
+            int entryCount = 0, written = 0, unchanged = 0, stale = 0
+            Deque<Future<ProcessedEntry>> inFlight = new ArrayDeque<>()
+            Enumeration<JarEntry> jarEntries = file.entries()
+            JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(optJar));
+            try {
+                while (jarEntries.hasMoreElements() || !inFlight.isEmpty()) {
+                    while (inFlight.size() < MAX_IN_FLIGHT && jarEntries.hasMoreElements()) {
+                        final JarEntry jarEntry = jarEntries.nextElement()
+                        inFlight.add(getExecutor().submit({
+                            return processEntry(file, jarEntry, cache, scanref, includePackage, excludeClass)
+                        } as Callable<ProcessedEntry>))
+                    }
+                    ProcessedEntry entry = getQuietly(inFlight.pollFirst())
+                    entryCount++
+                    jarOutputStream.putNextEntry(new ZipEntry(entry.name));
+                    jarOutputStream.write(entry.bytes);
+                    jarOutputStream.closeEntry();
 
+                    if (entry.instrumented) {
+                        def entryName = entry.name
+                        def hash = entry.hash
+                        hashBuilder.append(RocooUtils.format(entryName, hash))
                         def entryFile = new File("${patchDir}${File.separator}${entryName}")
-                        entryFile.getParentFile().mkdirs()
-                        if (!entryFile.exists()) {
-                            entryFile.createNewFile()
-                        }
-                        FileUtils.writeByteArrayToFile(entryFile, bytes)
-                        if (RocooFixPlugin.rocooConfig.scanref) {
+                        if (RocooUtils.notSame(map, entryName, hash)) {
+                            if (hash.equals(lastMap.get(entryName)) && entryFile.exists()) {
+                                // 上一次构建已经写过
+                                unchanged++
+                            } else {
+                                entryFile.getParentFile().mkdirs()
+                                FileUtils.writeByteArrayToFile(entryFile, entry.bytes)
+                                written++
+                            }
                             //收集补丁类
                             patchClasss.add(entryName)
-                            System.out.println("============patchClasss add======"+entryName)
-                            mainListBuilder.addSupperClass(entryName)
+                            if (scanref) {
+                                System.out.println("============patchClasss add======" + entryName)
+                            }
+                        } else if (lastMap.containsKey(entryName) &&
+                                RocooUtils.notSame(map, entryName, lastMap.get(entryName)) &&
+                                FileUtils.deleteQuietly(entryFile)) {
+                            // 上一次是补丁，这次和基准版本一样了
+                            stale++
                         }
                     }
-                }
-                else {
-                    jarOutputStream.write(IOUtils.toByteArray(inputStream));
-                }
-                jarOutputStream.closeEntry();
-            }
-            //
-            if (RocooFixPlugin.rocooConfig.scanref) {
-                //step 1 查找补丁类的相关依赖(主要为了找到继承)
-                for (String className : mainListBuilder.getClassNames()) {
-                    def entryFile = new File("${patchDir}/${className}.class")
-                    if(entryFile.exists()){
-                        //补丁中存在,跳过
-                        continue;
+
+                    // 字节码已经写回，释放
+                    entry.bytes = null
+                    if (entry.refs != null) {
+                        classes.add(entry)
                     }
-                    //遍历收集到的依赖,写入patchDir
-                    ZipEntry zipEntry=file.getJarEntry(className+".class")
-                    if(zipEntry==null)continue;
-                    System.out.println("===========find  super class==="+className)
-                    InputStream inputStreamX = file.getInputStream(zipEntry);
-                    def bytes = referHackWhenInit(inputStreamX);
-                    FileUtils.writeByteArrayToFile(entryFile, bytes)
                 }
-                mainListBuilder.clearAllForReuse();
-
-                //step 2 遍历整个jar包 查找调用了补丁的类(主要找调用了补丁的类)
-                System.out.println("============patchClasss======"+patchClasss.size())
-                Enumeration enumerationForScanref = file.entries();
-                while (enumerationForScanref.hasMoreElements()) {
-                    JarEntry jarEntry = (JarEntry) enumerationForScanref.nextElement();
-                    String entryName = jarEntry.getName();
-                    mainListBuilder.addRootsV2(entryName)
-                    def allrefs = mainListBuilder.getClassNames();
-                    PatchRefScan.addClassIfRefPatchClass(jarEntry,entryName,allrefs,patchClasss,file,patchDir);
-                    mainListBuilder.clearAllForReuse();
+            } finally {
+                for (Future<ProcessedEntry> future : inFlight) {
+                    future.cancel(true)
                 }
-                //
+                jarOutputStream.close();
+            }
+            hashFile.append(hashBuilder.toString())
+            def processTime = System.nanoTime()
+
+            int scanrefAdded = 0
+            def scanrefClasses = new HashSet<String>()
+            if (scanref) {
+                scanrefAdded = scanRef(file, classes, patchClasss, scanrefClasses, patchDir, cache)
+            }
+            def scanrefBuilder = new StringBuilder()
+            for (String scanrefClass : scanrefClasses) {
+                scanrefBuilder.append(scanrefClass).append('\n')
             }
-            jarOutputStream.close();
+            new File(outputDir, SCANREF_TXT).append(scanrefBuilder.toString())
+            // 关掉 scanref 之后，上一次加入的也要删掉
+            int scanrefStale = removeStaleScanRef(file, new File(outputDir, LAST_SCANREF_TXT),
+                    patchClasss, scanrefClasses, patchDir)
             file.close();
+            def scanrefTime = System.nanoTime()
 
             if (jarFile.exists()) {
                 jarFile.delete()
             }
 //            optJar.renameTo(jarFile)
-            org.apache.commons.io.FileUtils.copyFile(optJar,jarFile);
+            org.apache.commons.io.FileUtils.copyFile(optJar, jarFile);
             org.apache.commons.io.FileUtils.deleteQuietly(optJar)
+
+            System.out.println(String.format(
+                    "============NuwaProcessor [%s] entries = %d, cache hit = %d, miss = %d, " +
+                            "patch written = %d, unchanged = %d, stale = %d, " +
+                            "scanref added = %d, scanref stale = %d, " +
+                            "process = %d ms, scanref = %d ms, total = %d ms",
+                    jarFile.name, entryCount, cache.hits.get(), cache.misses.get(),
+                    written, unchanged, stale, scanrefAdded, scanrefStale,
+                    TimeUnit.NANOSECONDS.toMillis(processTime - startTime),
+                    TimeUnit.NANOSECONDS.toMillis(scanrefTime - processTime),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)))
+        }
+
+    }
+
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            def count = new AtomicInteger()
+            executor = Executors.newFixedThreadPool(THREAD_COUNT, { Runnable runnable ->
+                def thread = new Thread(runnable, "rocoofix-nuwa-" + count.incrementAndGet())
+                thread.setDaemon(true)
+                return thread
+            } as ThreadFactory)
+        }
+        return executor
+    }
+
+
+    private static ProcessedEntry getQuietly(Future<ProcessedEntry> future) {
+        try {
+            return future.get()
+        } catch (ExecutionException e) {
+            throw e.getCause()
         }
+    }
+
 
+    private static ProcessedEntry processEntry(JarFile file, JarEntry jarEntry, NuwaClassCache cache, boolean scanref, HashSet<String> includePackage, HashSet<String> excludeClass) {
+        def entry = new ProcessedEntry()
+        entry.name = jarEntry.getName()
+        def originalBytes = readEntry(file, jarEntry)
+        entry.bytes = originalBytes
+        if (!entry.name.endsWith(CLASS_EXTENSION)) {
+            return entry
+        }
+        entry.key = NuwaClassCache.key(originalBytes)
+        if (shouldProcessClassInJar(entry.name, includePackage, excludeClass)) {
+            entry.bytes = cache.instrument(entry.key, originalBytes)
+            entry.hash = DigestUtils.shaHex(entry.bytes)
+            entry.instrumented = true
+        }
+        if (scanref) {
+            entry.refs = cache.refs(entry.key, originalBytes)
+        }
+        return entry
     }
 
 
+    private static byte[] readEntry(JarFile file, JarEntry jarEntry) {
+        InputStream inputStream = file.getInputStream(jarEntry)
+        try {
+            return IOUtils.toByteArray(inputStream)
+        } finally {
+            inputStream.close()
+        }
+    }
+
+
+    /**
+     * step 1 补丁类的父类（ 主要为了找到继承 ）
+     * step 2 直接引用了补丁类的类
+     *
+     * @param scanrefClasses 收集 scanref 需要的类（ 不包括补丁类本身 ），包括上一次已经写过的
+     * @return 写入补丁的类的数量
+     */
+    private static int scanRef(JarFile file, List<ProcessedEntry> entries, Set<String> patchClasss, Set<String> scanrefClasses, File patchDir, NuwaClassCache cache) {
+        Map<String, ProcessedEntry> classes = new HashMap<>()
+        for (ProcessedEntry entry : entries) {
+            classes.put(entry.name.substring(0, entry.name.length() - CLASS_EXTENSION.length()), entry)
+        }
+        int added = 0
+
+        //step 1 查找补丁类的相关依赖(主要为了找到继承)
+        for (String patchClass : patchClasss) {
+            def superName = classes.get(patchClass.substring(0, patchClass.length() - CLASS_EXTENSION.length()))?.refs?.superName
+            def superEntry = superName == null ? null : classes.get(superName)
+            if (superEntry != null && !patchClasss.contains(superEntry.name)) {
+                scanrefClasses.add(superEntry.name)
+                if (addToPatch(file, superEntry, patchDir, cache)) {
+                    System.out.println("===========find  super class===" + superName)
+                    added++
+                }
+            }
+        }
+
+        //step 2 遍历整个jar包 查找调用了补丁的类(主要找调用了补丁的类)
+        System.out.println("============patchClasss======" + patchClasss.size())
+        for (Map.Entry<String, ProcessedEntry> classEntry : classes.entrySet()) {
+            def entry = classEntry.getValue()
+            if (patchClasss.contains(entry.name)) {
+                // 补丁类本身已经写过
+                continue
+            }
+            boolean refPatch = false
+            for (String reference : entry.refs.references) {
+                if (patchClasss.contains(reference + CLASS_EXTENSION)) {
+                    refPatch = true
+                    break
+                }
+            }
+            if (refPatch) {
+                scanrefClasses.add(entry.name)
+                if (addToPatch(file, entry, patchDir, cache)) {
+                    System.out.println("============addClasstoPatch======" + entry.name)
+                    added++
+                }
+            }
+        }
+        return added
+    }
+
+
+    private static boolean addToPatch(JarFile file, ProcessedEntry entry, File patchDir, NuwaClassCache cache) {
+        def entryFile = new File(patchDir, entry.name)
+        if (entryFile.exists()) {
+            //补丁中存在,跳过
+            return false
+        }
+        // 已经插桩过的，缓存命中；没有的，这次插桩后也会放进缓存
+        def bytes = cache.instrument(entry.key, readEntry(file, file.getJarEntry(entry.name)))
+        FileUtils.writeByteArrayToFile(entryFile, bytes)
+        return true
+    }
+
+
+    /**
+     * 上一次 scanref 加入了补丁、这次不再需要的类，从补丁中删除
+     * 只处理这个 jar 里的类，其他 jar 的由它们自己处理
+     *
+     * @return 删除的数量
+     */
+    private static int removeStaleScanRef(JarFile file, File lastScanrefFile, Set<String> patchClasss, Set<String> scanrefClasses, File patchDir) {
+        if (!lastScanrefFile.exists()) {
+            return 0
+        }
+        int removed = 0
+        for (String entryName : FileUtils.readLines(lastScanrefFile, "UTF-8")) {
+            if (entryName.isEmpty() || patchClasss.contains(entryName) ||
+                    scanrefClasses.contains(entryName) || file.getJarEntry(entryName) == null) {
+                continue
+            }
+            if (FileUtils.deleteQuietly(new File(patchDir, entryName))) {
+                removed++
+            }
+        }
+        return removed
+    }
+
+
+    private static class ProcessedEntry {
+        String name
+        String key
+        // 写回 jar 的字节码，写回之后置空
+        byte[] bytes
+        // 插桩后字节码的 hash
+        String hash
+        boolean instrumented
+        ClassRefs refs
+    }
+
 
     //refer hack class when object init
     public static byte[] referHackWhenInit(InputStream inputStream) {
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alpha1.android.arch.persistence.db;
+
+import android.support.annotation.NonNull;
+
+/**
+ * An optional interface of {@link SupportSQLiteOpenHelper} implementations that can keep a pool
+ * of read-only connections next to the primary connection.
+ * <p>
+ * Read connections only see committed data, so they should only be used for queries that run
+ * outside of a transaction. The pool is meant to be used with write-ahead logging, which lets
+ * readers run concurrently with the writer.
+ */
+@SuppressWarnings("unused")
+public interface SupportSQLiteConnectionPool {
+    /**
+     * Sets the number of read connections. A size of {@code 0} disables the pool and
+     * {@link #acquireReadConnection()} returns the primary connection.
+     * <p>
+     * Must be called before the database is opened.
+     *
+     * @param size The maximum number of read connections.
+     */
+    void setReadConnectionPoolSize(int size);
+
+    /**
+     * Returns the number of read connections, {@code 0} if the pool is disabled.
+     *
+     * @return The maximum number of read connections.
+     */
+    int getReadConnectionPoolSize();
+
+    /**
+     * Takes a read connection from the pool, waiting for one to be released if all of them are in
+     * use. The connection must be given back with {@link #releaseReadConnection}.
+     *
+     * @return A read-only database connection.
+     */
+    @NonNull
+    SupportSQLiteDatabase acquireReadConnection();
+
+    /**
+     * Gives back a connection taken from {@link #acquireReadConnection()}.
+     *
+     * @param connection The connection to release.
+     */
+    void releaseReadConnection(@NonNull SupportSQLiteDatabase connection);
+
+    /**
+     * Returns the number of times a read connection was acquired.
+     *
+     * @return The number of acquired read connections.
+     */
+    long getAcquireCount();
+
+    /**
+     * Returns the number of times {@link #acquireReadConnection()} had to wait because all read
+     * connections were in use.
+     *
+     * @return The number of acquires that waited.
+     */
+    long getWaitCount();
+
+    /**
+     * Returns the total time spent waiting for a read connection, in nanoseconds.
+     *
+     * @return The total wait time.
+     */
+    long getTotalWaitNanos();
+
+    /**
+     * Returns the longest time a single acquire waited for a read connection, in nanoseconds.
+     *
+     * @return The longest wait time.
+     */
+    long getMaxWaitNanos();
+}
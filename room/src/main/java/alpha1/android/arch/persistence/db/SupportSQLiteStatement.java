@@ -77,4 +77,9 @@ public interface SupportSQLiteStatement extends SupportSQLiteProgram {
      * @throws android.database.sqlite.SQLiteDoneException if the query returns zero rows
      */
     ParcelFileDescriptor simpleQueryForBlobFileDescriptor();
+
+    /**
+     * Releases the native statement. The statement cannot be used afterwards.
+     */
+    void close();
 }
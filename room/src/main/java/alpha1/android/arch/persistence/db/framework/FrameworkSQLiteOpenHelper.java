@@ -16,6 +16,7 @@
 
 package alpha1.android.arch.persistence.db.framework;
 
+import alpha1.android.arch.persistence.db.SupportSQLiteConnectionPool;
 import alpha1.android.arch.persistence.db.SupportSQLiteDatabase;
 import alpha1.android.arch.persistence.db.SupportSQLiteOpenHelper;
 import android.content.Context;
@@ -23,10 +24,17 @@ import android.database.DatabaseErrorHandler;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.os.Build;
+import android.support.annotation.NonNull;
 import android.support.annotation.RequiresApi;
 
-class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
+class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper, SupportSQLiteConnectionPool {
     private final OpenHelper mDelegate;
+    private final String mName;
+    private final SQLiteDatabase.CursorFactory mFactory;
+    private final DatabaseErrorHandler mErrorHandler;
+    private int mReadConnectionPoolSize;
+    // created when the first read connection is acquired, dropped on close.
+    private FrameworkSQLiteReadConnectionPool mReadConnectionPool;
 
 
     FrameworkSQLiteOpenHelper(Context context, String name,
@@ -34,6 +42,9 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
                               DatabaseErrorHandler errorHandler,
                               SupportSQLiteOpenHelper.Callback callback) {
         mDelegate = createDelegate(context, name, factory, version, errorHandler, callback);
+        mName = name;
+        mFactory = factory;
+        mErrorHandler = errorHandler;
     }
 
 
@@ -101,10 +112,107 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
 
     @Override
     public void close() {
+        synchronized (this) {
+            if (mReadConnectionPool != null) {
+                mReadConnectionPool.close();
+                mReadConnectionPool = null;
+            }
+        }
         mDelegate.close();
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Enables write-ahead logging so the read connections do not block on the writer. This also
+     * lets the primary database run a read-only statement on a secondary connection, so TEMP
+     * tables have to be read inside a transaction. The pool stays disabled for in-memory
+     * databases and before {@link Build.VERSION_CODES#JELLY_BEAN}, where write-ahead logging
+     * cannot be enabled on the open helper.
+     */
+    @Override
+    public synchronized void setReadConnectionPoolSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Read connection pool size cannot be negative");
+        }
+        if (mName == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            size = 0;
+        }
+        if (size > 0) {
+            mDelegate.setWriteAheadLoggingEnabled(true);
+        }
+        mReadConnectionPoolSize = size;
+    }
+
+
+    @Override
+    public synchronized int getReadConnectionPoolSize() {
+        return mReadConnectionPoolSize;
+    }
+
+
+    @NonNull
+    @Override
+    public SupportSQLiteDatabase acquireReadConnection() {
+        // opens (and creates or migrates) the primary connection first.
+        final SupportSQLiteDatabase primary = mDelegate.getWritableSupportDatabase();
+        final FrameworkSQLiteReadConnectionPool pool;
+        synchronized (this) {
+            if (mReadConnectionPoolSize == 0) {
+                return primary;
+            }
+            if (mReadConnectionPool == null) {
+                mReadConnectionPool = new FrameworkSQLiteReadConnectionPool(primary.getPath(),
+                    mFactory, mErrorHandler, mReadConnectionPoolSize);
+            }
+            pool = mReadConnectionPool;
+        }
+        return pool.acquire();
+    }
+
+
+    @Override
+    public void releaseReadConnection(@NonNull SupportSQLiteDatabase connection) {
+        if (!(connection instanceof FrameworkSQLiteDatabase)
+            || connection == mDelegate.mWrappedDb) {
+            return;
+        }
+        final FrameworkSQLiteReadConnectionPool pool;
+        synchronized (this) {
+            pool = mReadConnectionPool;
+        }
+        if (pool == null || !pool.release((FrameworkSQLiteDatabase) connection)) {
+            // acquired from a pool that was closed since then.
+            FrameworkSQLiteReadConnectionPool.closeQuietly((FrameworkSQLiteDatabase) connection);
+        }
+    }
+
+
+    @Override
+    public synchronized long getAcquireCount() {
+        return mReadConnectionPool == null ? 0 : mReadConnectionPool.getAcquireCount();
+    }
+
+
+    @Override
+    public synchronized long getWaitCount() {
+        return mReadConnectionPool == null ? 0 : mReadConnectionPool.getWaitCount();
+    }
+
+
+    @Override
+    public synchronized long getTotalWaitNanos() {
+        return mReadConnectionPool == null ? 0 : mReadConnectionPool.getTotalWaitNanos();
+    }
+
+
+    @Override
+    public synchronized long getMaxWaitNanos() {
+        return mReadConnectionPool == null ? 0 : mReadConnectionPool.getMaxWaitNanos();
+    }
+
+
     abstract static class OpenHelper extends SQLiteOpenHelper {
 
         FrameworkSQLiteDatabase mWrappedDb;
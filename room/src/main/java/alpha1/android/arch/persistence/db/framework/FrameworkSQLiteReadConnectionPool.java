@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alpha1.android.arch.persistence.db.framework;
+
+import android.database.DatabaseErrorHandler;
+import android.database.sqlite.SQLiteDatabase;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed size pool of read-only {@link SQLiteDatabase} connections opened on the same file as
+ * the primary connection.
+ * <p>
+ * Connections are opened lazily, the first time all opened ones are in use.
+ */
+class FrameworkSQLiteReadConnectionPool {
+    private final String mPath;
+    private final SQLiteDatabase.CursorFactory mFactory;
+    private final DatabaseErrorHandler mErrorHandler;
+    private final int mSize;
+    // guarded by this
+    private final ArrayDeque<FrameworkSQLiteDatabase> mIdleConnections = new ArrayDeque<>();
+    private final List<FrameworkSQLiteDatabase> mAllConnections = new ArrayList<>();
+    private boolean mClosed;
+    private long mAcquireCount;
+    private long mWaitCount;
+    private long mTotalWaitNanos;
+    private long mMaxWaitNanos;
+
+
+    FrameworkSQLiteReadConnectionPool(String path, SQLiteDatabase.CursorFactory factory,
+                                      DatabaseErrorHandler errorHandler, int size) {
+        mPath = path;
+        mFactory = factory;
+        mErrorHandler = errorHandler;
+        mSize = size;
+    }
+
+
+    synchronized FrameworkSQLiteDatabase acquire() {
+        if (mClosed) {
+            throw new IllegalStateException("Cannot acquire a read connection, the pool is"
+                + " closed.");
+        }
+        mAcquireCount++;
+        FrameworkSQLiteDatabase connection = mIdleConnections.pollFirst();
+        if (connection != null) {
+            return connection;
+        }
+        if (mAllConnections.size() < mSize) {
+            connection = new FrameworkSQLiteDatabase(SQLiteDatabase.openDatabase(mPath, mFactory,
+                SQLiteDatabase.OPEN_READONLY, mErrorHandler));
+            mAllConnections.add(connection);
+            return connection;
+        }
+        final long start = System.nanoTime();
+        boolean interrupted = false;
+        while (mIdleConnections.isEmpty() && !mClosed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        final long waited = System.nanoTime() - start;
+        mWaitCount++;
+        mTotalWaitNanos += waited;
+        mMaxWaitNanos = Math.max(mMaxWaitNanos, waited);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (mClosed) {
+            throw new IllegalStateException("The read connection pool was closed while waiting"
+                + " for a connection.");
+        }
+        return mIdleConnections.pollFirst();
+    }
+
+
+    /**
+     * Gives the connection back to the pool.
+     *
+     * @return false if the connection was not opened by this pool.
+     */
+    synchronized boolean release(FrameworkSQLiteDatabase connection) {
+        if (!mAllConnections.contains(connection)) {
+            return false;
+        }
+        if (mClosed) {
+            closeQuietly(connection);
+            return true;
+        }
+        mIdleConnections.addFirst(connection);
+        notify();
+        return true;
+    }
+
+
+    /**
+     * Closes the idle connections, connections in use are closed when they are released.
+     */
+    synchronized void close() {
+        mClosed = true;
+        for (FrameworkSQLiteDatabase connection : mIdleConnections) {
+            closeQuietly(connection);
+        }
+        mIdleConnections.clear();
+        notifyAll();
+    }
+
+
+    synchronized long getAcquireCount() {
+        return mAcquireCount;
+    }
+
+
+    synchronized long getWaitCount() {
+        return mWaitCount;
+    }
+
+
+    synchronized long getTotalWaitNanos() {
+        return mTotalWaitNanos;
+    }
+
+
+    synchronized long getMaxWaitNanos() {
+        return mMaxWaitNanos;
+    }
+
+
+    static void closeQuietly(FrameworkSQLiteDatabase connection) {
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -108,4 +108,10 @@ public class FrameworkSQLiteStatement implements SupportSQLiteStatement {
     public ParcelFileDescriptor simpleQueryForBlobFileDescriptor() {
         return mDelegate.simpleQueryForBlobFileDescriptor();
     }
+
+
+    @Override
+    public void close() {
+        mDelegate.close();
+    }
 }
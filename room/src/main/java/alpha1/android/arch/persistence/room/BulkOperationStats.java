@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alpha1.android.arch.persistence.room;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing of a bulk insert, update or delete run by an entity adapter.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" })
+public class BulkOperationStats {
+    /**
+     * The number of entities handled.
+     */
+    public final int rows;
+    /**
+     * The number of statements executed to handle them.
+     */
+    public final int statements;
+    /**
+     * The wall time of the whole operation, including the transaction, in nanoseconds.
+     */
+    public final long elapsedNanos;
+
+
+    BulkOperationStats(int rows, int statements, long elapsedNanos) {
+        this.rows = rows;
+        this.statements = statements;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+
+    /**
+     * @return The throughput of the operation in rows per second.
+     */
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+
+    @Override
+    public String toString() {
+        return "BulkOperationStats{rows=" + rows + ", statements=" + statements
+            + ", elapsedMillis=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+            + ", rowsPerSecond=" + (long) getRowsPerSecond() + "}";
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alpha1.android.arch.persistence.room;
+
+import alpha1.android.arch.persistence.room.util.StringUtil;
+import android.os.Build;
+import android.support.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * Rewrites the single row statements of the entity adapters into statements that handle several
+ * rows at once.
+ */
+final class BulkStatements {
+    /**
+     * Default SQLITE_MAX_VARIABLE_NUMBER: the most bind arguments a single statement may have.
+     */
+    static final int MAX_BIND_ARGS = 999;
+
+    /**
+     * Default SQLITE_MAX_COMPOUND_SELECT. Before SQLite 3.8.8 a multi-row VALUES clause is a
+     * compound select, so it is limited to this many rows.
+     */
+    static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    /**
+     * Multi-row VALUES clauses need SQLite 3.7.11, which ships with Jelly Bean.
+     */
+    static final boolean SUPPORTS_MULTI_ROW_VALUES =
+        Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+
+    private static final String VALUES = " VALUES ";
+    private static final String WHERE = " WHERE ";
+
+
+    private BulkStatements() {
+    }
+
+
+    /**
+     * @return The number of bind arguments in the given SQL.
+     */
+    static int countBindArgs(String sql) {
+        int count = 0;
+        final int length = sql.length();
+        for (int i = 0; i < length; i++) {
+            if (sql.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * @return How many rows of {@code argsPerRow} arguments fit in a single statement.
+     */
+    static int rowsPerStatement(int argsPerRow) {
+        if (argsPerRow <= 0) {
+            return 1;
+        }
+        return Math.max(1, Math.min(MAX_BIND_ARGS / argsPerRow, MAX_ROWS_PER_STATEMENT));
+    }
+
+
+    /**
+     * Turns {@code INSERT ... VALUES (?,?)} into {@code INSERT ... VALUES (?,?),(?,?),...}.
+     *
+     * @return The multi-row insert, or null if the VALUES clause cannot be found.
+     */
+    @Nullable
+    static String repeatValues(String insertSql, int rows) {
+        final int valuesIndex = insertSql.toUpperCase(Locale.US).lastIndexOf(VALUES);
+        if (valuesIndex < 0) {
+            return null;
+        }
+        final int groupStart = valuesIndex + VALUES.length();
+        final String group = trimTrailingSemicolon(insertSql.substring(groupStart));
+        final StringBuilder builder = StringUtil.newStringBuilder();
+        builder.append(insertSql, 0, groupStart);
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                builder.append(',');
+            }
+            builder.append(group);
+        }
+        return builder.toString();
+    }
+
+
+    /**
+     * Turns {@code DELETE FROM t WHERE c = ?} into
+     * {@code DELETE FROM t WHERE (c = ?) OR (c = ?) OR ...}.
+     *
+     * @return The multi-row delete, or null if the statement is not a DELETE with a WHERE clause.
+     */
+    @Nullable
+    static String repeatDeleteCondition(String deleteSql, int rows) {
+        final String upperSql = deleteSql.toUpperCase(Locale.US);
+        if (!upperSql.trim().startsWith("DELETE")) {
+            return null;
+        }
+        final int whereIndex = upperSql.lastIndexOf(WHERE);
+        if (whereIndex < 0) {
+            return null;
+        }
+        final int conditionStart = whereIndex + WHERE.length();
+        final String condition = trimTrailingSemicolon(deleteSql.substring(conditionStart));
+        final StringBuilder builder = StringUtil.newStringBuilder();
+        builder.append(deleteSql, 0, conditionStart);
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                builder.append(" OR ");
+            }
+            builder.append('(').append(condition).append(')');
+        }
+        return builder.toString();
+    }
+
+
+    private static String trimTrailingSemicolon(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+}
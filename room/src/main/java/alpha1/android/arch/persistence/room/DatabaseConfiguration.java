@@ -17,10 +17,12 @@
 package alpha1.android.arch.persistence.room;
 
 import alpha1.android.arch.persistence.db.SupportSQLiteOpenHelper;
+import alpha1.android.arch.persistence.room.migration.MigrationListener;
 import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RestrictTo;
+import java.util.concurrent.Executor;
 
 /**
  * Configuration class for a {@link RoomDatabase}.
@@ -54,6 +56,47 @@ public class DatabaseConfiguration {
      */
     public final boolean allowMainThreadQueries;
 
+    /**
+     * The number of compiled statements each thread keeps for re-use.
+     */
+    public final int statementCacheSize;
+
+    /**
+     * The number of read-only connections used for queries, 0 if queries use the primary
+     * connection.
+     */
+    public final int readConnectionPoolSize;
+
+    /**
+     * The maximum size of the query result cache in bytes, 0 if results are not cached.
+     */
+    public final long queryResultCacheBytes;
+
+    /**
+     * The executor used to run queries in the background.
+     */
+    @NonNull
+    public final Executor queryExecutor;
+
+    /**
+     * The serial executor used to run transactions in the background.
+     */
+    @NonNull
+    public final Executor transactionExecutor;
+
+    /**
+     * The executor used by the {@link InvalidationTracker} to refresh observers and sync
+     * triggers.
+     */
+    @NonNull
+    public final Executor invalidationExecutor;
+
+    /**
+     * The listener notified of migration timings, if any.
+     */
+    @Nullable
+    public final MigrationListener migrationListener;
+
 
     /**
      * Creates a database configuration with the given values.
@@ -63,17 +106,38 @@ public class DatabaseConfiguration {
      * @param sqliteOpenHelperFactory The open helper factory to use.
      * @param migrationContainer The migration container for migrations.
      * @param allowMainThreadQueries Whether to allow main thread reads/writes or not.
+     * @param statementCacheSize The number of compiled statements cached per thread.
+     * @param readConnectionPoolSize The number of read-only connections used for queries.
+     * @param queryResultCacheBytes The maximum size of the query result cache in bytes.
+     * @param queryExecutor The executor used to run queries.
+     * @param transactionExecutor The serial executor used to run transactions.
+     * @param invalidationExecutor The executor used by the invalidation tracker.
+     * @param migrationListener The listener notified of migration timings.
      * @hide
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     public DatabaseConfiguration(@NonNull Context context, @Nullable String name,
                                  @NonNull SupportSQLiteOpenHelper.Factory sqliteOpenHelperFactory,
                                  @NonNull RoomDatabase.MigrationContainer migrationContainer,
-                                 boolean allowMainThreadQueries) {
+                                 boolean allowMainThreadQueries,
+                                 int statementCacheSize,
+                                 int readConnectionPoolSize,
+                                 long queryResultCacheBytes,
+                                 @NonNull Executor queryExecutor,
+                                 @NonNull Executor transactionExecutor,
+                                 @NonNull Executor invalidationExecutor,
+                                 @Nullable MigrationListener migrationListener) {
         this.sqliteOpenHelperFactory = sqliteOpenHelperFactory;
         this.context = context;
         this.name = name;
         this.migrationContainer = migrationContainer;
         this.allowMainThreadQueries = allowMainThreadQueries;
+        this.statementCacheSize = statementCacheSize;
+        this.readConnectionPoolSize = readConnectionPoolSize;
+        this.queryResultCacheBytes = queryResultCacheBytes;
+        this.queryExecutor = queryExecutor;
+        this.transactionExecutor = transactionExecutor;
+        this.invalidationExecutor = invalidationExecutor;
+        this.migrationListener = migrationListener;
     }
 }
@@ -18,7 +18,9 @@ package alpha1.android.arch.persistence.room;
 
 import alpha1.android.arch.persistence.db.SupportSQLiteStatement;
 import android.support.annotation.RestrictTo;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 
 /**
  * Implementations of this class knows how to delete or update a particular entity.
@@ -31,6 +33,12 @@ import java.util.Collection;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 @SuppressWarnings({ "WeakerAccess", "unused" })
 public abstract class EntityDeletionOrUpdateAdapter<T> extends SharedSQLiteStatement {
+    // multi-row delete for a full chunk of rows, created lazily.
+    private final SharedSQLiteStatement mBulkStatement;
+    // bind arguments per row, -1 until the query is first read.
+    private volatile int mArgsPerRow = -1;
+    private volatile BulkOperationStats mLastBulkStats;
+
     /**
      * Creates a DeletionOrUpdateAdapter that can delete or update the entity type T on the given
      * database.
@@ -39,6 +47,14 @@ public abstract class EntityDeletionOrUpdateAdapter<T> extends SharedSQLiteState
      */
     public EntityDeletionOrUpdateAdapter(RoomDatabase database) {
         super(database);
+        mBulkStatement = new SharedSQLiteStatement(database) {
+            @Override
+            protected String createQuery() {
+                return BulkStatements.repeatDeleteCondition(
+                    EntityDeletionOrUpdateAdapter.this.createQuery(),
+                    BulkStatements.rowsPerStatement(getArgsPerRow()));
+            }
+        };
     }
 
 
@@ -116,4 +132,120 @@ public abstract class EntityDeletionOrUpdateAdapter<T> extends SharedSQLiteState
             release(stmt);
         }
     }
+
+
+    /**
+     * Deletes or updates the given entities in a single transaction and returns the affected row
+     * count.
+     * <p>
+     * Deletes are batched into {@code DELETE ... WHERE (...) OR (...)} statements holding as many
+     * rows as SQLite's bind argument limit allows. Updates cannot be merged this way, so they
+     * re-use one prepared statement inside the transaction. The timing of the operation is
+     * available from {@link #getLastBulkStats()} afterwards.
+     *
+     * @param entities Entities to delete or update
+     * @return The number of affected rows
+     */
+    public final int handleBulk(Collection<T> entities) {
+        return handleBulk(entities.iterator(), entities.size());
+    }
+
+
+    /**
+     * Deletes or updates the given entities in a single transaction and returns the affected row
+     * count.
+     *
+     * @param entities Entities to delete or update
+     * @return The number of affected rows
+     * @see #handleBulk(Collection)
+     */
+    public final int handleBulk(T[] entities) {
+        return handleBulk(Arrays.asList(entities).iterator(), entities.length);
+    }
+
+
+    /**
+     * Returns the statistics of the last {@code handleBulk} call on this adapter.
+     *
+     * @return The statistics or null if no bulk operation ran yet.
+     */
+    public BulkOperationStats getLastBulkStats() {
+        return mLastBulkStats;
+    }
+
+
+    private int handleBulk(Iterator<T> entities, int count) {
+        final long start = System.nanoTime();
+        final RoomDatabase database = getDatabase();
+        final int argsPerRow = getArgsPerRow();
+        final int rowsPerStatement = BulkStatements.rowsPerStatement(argsPerRow);
+        final boolean multiRow = rowsPerStatement > 1
+            && BulkStatements.repeatDeleteCondition(createQuery(), 1) != null;
+        int statements = 0;
+        int total = 0;
+        database.beginTransaction();
+        try {
+            int remaining = count;
+            if (multiRow && remaining >= rowsPerStatement) {
+                final SupportSQLiteStatement stmt = mBulkStatement.acquire();
+                try {
+                    while (remaining >= rowsPerStatement) {
+                        bindRows(stmt, entities, rowsPerStatement, argsPerRow);
+                        total += stmt.executeUpdateDelete();
+                        remaining -= rowsPerStatement;
+                        statements++;
+                    }
+                } finally {
+                    mBulkStatement.release(stmt);
+                }
+            }
+            if (multiRow && remaining > 1) {
+                final StatementCache cache = database.getStatementCache();
+                final String sql = BulkStatements.repeatDeleteCondition(createQuery(), remaining);
+                final SupportSQLiteStatement stmt = cache.acquire(sql);
+                try {
+                    bindRows(stmt, entities, remaining, argsPerRow);
+                    total += stmt.executeUpdateDelete();
+                } finally {
+                    cache.release(sql, stmt);
+                }
+                statements++;
+            } else if (remaining > 0) {
+                final SupportSQLiteStatement stmt = acquire();
+                try {
+                    while (entities.hasNext()) {
+                        bind(stmt, entities.next());
+                        total += stmt.executeUpdateDelete();
+                        statements++;
+                    }
+                } finally {
+                    release(stmt);
+                }
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+        mLastBulkStats = new BulkOperationStats(count, statements, System.nanoTime() - start);
+        return total;
+    }
+
+
+    private void bindRows(SupportSQLiteStatement stmt, Iterator<T> entities, int rows,
+                          int argsPerRow) {
+        final OffsetBindingStatement rowStatement = new OffsetBindingStatement(stmt,
+            argsPerRow);
+        for (int row = 0; row < rows; row++) {
+            rowStatement.setOffset(row * argsPerRow);
+            bind(rowStatement, entities.next());
+        }
+    }
+
+
+    private int getArgsPerRow() {
+        if (mArgsPerRow < 0) {
+            mArgsPerRow = BulkStatements.countBindArgs(createQuery());
+        }
+        return mArgsPerRow;
+    }
 }
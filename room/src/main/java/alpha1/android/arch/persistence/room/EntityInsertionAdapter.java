@@ -19,7 +19,9 @@ package alpha1.android.arch.persistence.room;
 import alpha1.android.arch.persistence.db.SupportSQLiteStatement;
 import android.support.annotation.RestrictTo;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -33,6 +35,13 @@ import java.util.List;
 @SuppressWarnings({ "WeakerAccess", "unused" })
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    // multi-row statement for a full chunk of rows, created lazily.
+    private final SharedSQLiteStatement mBulkStatement;
+    // bind arguments per row, -1 until the insert query is first read.
+    private volatile int mArgsPerRow = -1;
+    private volatile BulkOperationStats mLastBulkStats;
+
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -40,6 +49,13 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     public EntityInsertionAdapter(RoomDatabase database) {
         super(database);
+        mBulkStatement = new SharedSQLiteStatement(database) {
+            @Override
+            protected String createQuery() {
+                return BulkStatements.repeatValues(EntityInsertionAdapter.this.createQuery(),
+                    BulkStatements.rowsPerStatement(getArgsPerRow()));
+            }
+        };
     }
 
 
@@ -212,4 +228,118 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+
+    /**
+     * Inserts the given entities with multi-row {@code INSERT ... VALUES (...),(...)} statements
+     * in a single transaction.
+     * <p>
+     * Each statement holds as many rows as SQLite's bind argument limit allows. Row ids are not
+     * returned; use {@link #insertAndReturnIdsArray(Collection)} if you need them. The timing of
+     * the operation is available from {@link #getLastBulkStats()} afterwards.
+     *
+     * @param entities Entities to insert
+     */
+    public final void insertBulk(Collection<T> entities) {
+        insertBulk(entities.iterator(), entities.size());
+    }
+
+
+    /**
+     * Inserts the given entities with multi-row {@code INSERT ... VALUES (...),(...)} statements
+     * in a single transaction.
+     *
+     * @param entities Entities to insert
+     * @see #insertBulk(Collection)
+     */
+    public final void insertBulk(T[] entities) {
+        insertBulk(Arrays.asList(entities).iterator(), entities.length);
+    }
+
+
+    /**
+     * Returns the statistics of the last {@code insertBulk} call on this adapter.
+     *
+     * @return The statistics or null if no bulk insert ran yet.
+     */
+    public BulkOperationStats getLastBulkStats() {
+        return mLastBulkStats;
+    }
+
+
+    private void insertBulk(Iterator<T> entities, int count) {
+        final long start = System.nanoTime();
+        final RoomDatabase database = getDatabase();
+        final int argsPerRow = getArgsPerRow();
+        final int rowsPerStatement = BulkStatements.rowsPerStatement(argsPerRow);
+        final boolean multiRow = BulkStatements.SUPPORTS_MULTI_ROW_VALUES
+            && rowsPerStatement > 1
+            && BulkStatements.repeatValues(createQuery(), 1) != null;
+        int statements = 0;
+        database.beginTransaction();
+        try {
+            if (!multiRow) {
+                final SupportSQLiteStatement stmt = acquire();
+                try {
+                    while (entities.hasNext()) {
+                        bind(stmt, entities.next());
+                        stmt.executeInsert();
+                        statements++;
+                    }
+                } finally {
+                    release(stmt);
+                }
+            } else {
+                int remaining = count;
+                if (remaining >= rowsPerStatement) {
+                    final SupportSQLiteStatement stmt = mBulkStatement.acquire();
+                    try {
+                        while (remaining >= rowsPerStatement) {
+                            bindRows(stmt, entities, rowsPerStatement, argsPerRow);
+                            stmt.executeInsert();
+                            remaining -= rowsPerStatement;
+                            statements++;
+                        }
+                    } finally {
+                        mBulkStatement.release(stmt);
+                    }
+                }
+                if (remaining > 0) {
+                    final StatementCache cache = database.getStatementCache();
+                    final String sql = BulkStatements.repeatValues(createQuery(), remaining);
+                    final SupportSQLiteStatement stmt = cache.acquire(sql);
+                    try {
+                        bindRows(stmt, entities, remaining, argsPerRow);
+                        stmt.executeInsert();
+                    } finally {
+                        cache.release(sql, stmt);
+                    }
+                    statements++;
+                }
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+        mLastBulkStats = new BulkOperationStats(count, statements, System.nanoTime() - start);
+    }
+
+
+    private void bindRows(SupportSQLiteStatement stmt, Iterator<T> entities, int rows,
+                          int argsPerRow) {
+        final OffsetBindingStatement rowStatement = new OffsetBindingStatement(stmt,
+            argsPerRow);
+        for (int row = 0; row < rows; row++) {
+            rowStatement.setOffset(row * argsPerRow);
+            bind(rowStatement, entities.next());
+        }
+    }
+
+
+    private int getArgsPerRow() {
+        if (mArgsPerRow < 0) {
+            mArgsPerRow = BulkStatements.countBindArgs(createQuery());
+        }
+        return mArgsPerRow;
+    }
 }
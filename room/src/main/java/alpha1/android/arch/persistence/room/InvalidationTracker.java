@@ -16,7 +16,6 @@
 
 package alpha1.android.arch.persistence.room;
 
-import alpha1.android.arch.core.executor.AppToolkitTaskExecutor;
 import alpha1.android.arch.core.internal.SafeIterableMap;
 import alpha1.android.arch.persistence.db.SupportSQLiteDatabase;
 import alpha1.android.arch.persistence.db.SupportSQLiteStatement;
@@ -29,10 +28,19 @@ import android.support.annotation.VisibleForTesting;
 import android.support.v4.util.ArrayMap;
 import android.util.Log;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * InvalidationTracker keeps a list of tables modified by queries and notifies its callbacks about
@@ -53,6 +61,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 // UPDATE or INSERT action within the body of the trigger. However if an ON CONFLICT clause is
 // specified as part of the statement causing the trigger to fire, then conflict handling policy of
 // the outer statement is used instead.
+// Refreshes are coalesced: while one is pending (optionally delayed by a debounce window) further
+// refresh requests are dropped, and only one refresh runs at a time. Observers are indexed by
+// table id so a refresh only visits the observers of the tables that actually changed.
 public class InvalidationTracker {
 
     private static final String[] TRIGGERS = new String[] { "UPDATE", "DELETE", "INSERT" };
@@ -80,6 +91,9 @@ public class InvalidationTracker {
     // should be accessed with synchronization only.
     @VisibleForTesting
     final SafeIterableMap<Observer, ObserverWrapper> mObserverMap = new SafeIterableMap<>();
+    // observers per table id, guarded by mObserverMap.
+    @VisibleForTesting
+    final List<List<ObserverWrapper>> mObserversByTableId;
     private final RoomDatabase mDatabase;
     @NonNull
     @VisibleForTesting
@@ -88,8 +102,15 @@ public class InvalidationTracker {
     @VisibleForTesting
     long[] mTableVersions;
     AtomicBoolean mPendingRefresh = new AtomicBoolean(false);
+    // number of mRefreshRunnable runs requested while one is in flight, so refreshes never
+    // overlap and a request arriving during a refresh is not lost.
+    private final AtomicInteger mRefreshWorkInProgress = new AtomicInteger(0);
+    private volatile long mRefreshDebounceMillis = 0;
     private String[] mTableNames;
     private String[] mQueryArgs = new String[1];
+    // tables seen in the current refresh, only touched by the in-flight refresh.
+    private final boolean[] mChangedTables;
+    private int mRefreshGeneration = 0;
     // max id in the last syc
     private long mMaxVersion = -1;
     private volatile boolean mInitialized = false;
@@ -98,19 +119,130 @@ public class InvalidationTracker {
     Runnable mRefreshRunnable = new Runnable() {
         @Override
         public void run() {
-            if (!ensureInitialization()) {
-                return;
-            }
-            if (mDatabase.inTransaction()
-                || !mPendingRefresh.compareAndSet(true, false)) {
-                // no pending refresh
-                return;
+            drainRefresh(false);
+        }
+    };
+    // hands a debounced refresh over to the invalidation executor.
+    private final Runnable mDispatchRefresh = new Runnable() {
+        @Override
+        public void run() {
+            mDatabase.getInvalidationExecutor().execute(mRefreshRunnable);
+        }
+    };
+    private ObservedTableTracker mObservedTableTracker;
+    private Runnable mSyncTriggers = new Runnable() {
+        @Override
+        public void run() {
+            syncTriggersInternal();
+        }
+    };
+
+
+    /**
+     * @return true if the triggers of all the observed tables are installed.
+     */
+    private boolean syncTriggersInternal() {
+        if (mDatabase.inTransaction()) {
+            // we won't run this inside another transaction.
+            return false;
+        }
+        if (!ensureInitialization()) {
+            return false;
+        }
+        try {
+            // This method runs in a while loop because while changes are synced to db, another
+            // runnable may be skipped. If we cause it to skip, we need to do its work.
+            while (true) {
+                // there is a potential race condition where another mSyncTriggers runnable
+                // can start running right after we get the tables list to sync.
+                final int[] tablesToSync = mObservedTableTracker.getTablesToSync();
+                if (tablesToSync == null) {
+                    // null also while another thread is syncing.
+                    return mObservedTableTracker.isSynced();
+                }
+                final int limit = tablesToSync.length;
+                final SupportSQLiteDatabase writableDatabase = mDatabase.getOpenHelper()
+                    .getWritableDatabase();
+                try {
+                    writableDatabase.beginTransaction();
+                    for (int tableId = 0; tableId < limit; tableId++) {
+                        switch (tablesToSync[tableId]) {
+                            case ObservedTableTracker.ADD:
+                                startTrackingTable(writableDatabase, tableId);
+                                break;
+                            case ObservedTableTracker.REMOVE:
+                                stopTrackingTable(writableDatabase, tableId);
+                                break;
+                        }
+                    }
+                    writableDatabase.setTransactionSuccessful();
+                } finally {
+                    writableDatabase.endTransaction();
+                }
+                mObservedTableTracker.onSyncCompleted();
             }
-            boolean hasUpdatedTable = false;
+        } catch (IllegalStateException | SQLiteException exception) {
+            // may happen if db is closed. just log.
+            Log.e(Room.LOG_TAG, "Cannot run invalidation tracker. Is the db closed?",
+                exception);
+            return false;
+        }
+    }
+
+
+    /**
+     * Runs a refresh on the calling thread unless one is already running, then also runs the
+     * refreshes requested meanwhile.
+     *
+     * @param force Whether to refresh even if no refresh is pending.
+     * @return true if this thread ran the refresh.
+     */
+    private boolean drainRefresh(boolean force) {
+        if (mRefreshWorkInProgress.getAndIncrement() != 0) {
+            // a refresh is running, it will run once more on our behalf.
+            return false;
+        }
+        int missed = 1;
+        boolean refreshed = false;
+        do {
+            refreshed |= refresh(force);
+            force = false;
+            missed = mRefreshWorkInProgress.addAndGet(-missed);
+        } while (missed != 0);
+        return refreshed;
+    }
+
+
+    /**
+     * @return true if the versions were read from the database.
+     */
+    private boolean refresh(boolean force) {
+        if (!ensureInitialization()) {
+            return false;
+        }
+        if (mDatabase.inTransaction()) {
+            return false;
+        }
+        if (force) {
+            // covers any pending refresh as well.
+            mPendingRefresh.set(false);
+        } else if (!mPendingRefresh.compareAndSet(true, false)) {
+            // no pending refresh
+            return false;
+        }
+        boolean hasUpdatedTable = false;
+        boolean refreshed = false;
+        try {
+            final SupportSQLiteDatabase writableDatabase = mDatabase.getOpenHelper()
+                .getWritableDatabase();
+            // the log table is a TEMP table of the primary connection. With write-ahead logging
+            // the framework may run a plain SELECT on one of its secondary connections, a
+            // transaction keeps the read on the primary connection.
+            writableDatabase.beginTransactionNonExclusive();
             try {
                 mCleanupStatement.executeUpdateDelete();
                 mQueryArgs[0] = Long.toString(mMaxVersion);
-                Cursor cursor = mDatabase.query(SELECT_UPDATED_TABLES_SQL, mQueryArgs);
+                Cursor cursor = writableDatabase.rawQuery(SELECT_UPDATED_TABLES_SQL, mQueryArgs);
                 //noinspection TryFinallyCanBeTryWithResources
                 try {
                     while (cursor.moveToNext()) {
@@ -118,6 +250,7 @@ public class InvalidationTracker {
                         final int tableId = cursor.getInt(1);
 
                         mTableVersions[tableId] = version;
+                        mChangedTables[tableId] = true;
                         hasUpdatedTable = true;
                         // result is ordered so we can safely do this assignment
                         mMaxVersion = version;
@@ -125,69 +258,24 @@ public class InvalidationTracker {
                 } finally {
                     cursor.close();
                 }
-            } catch (IllegalStateException | SQLiteException exception) {
-                // may happen if db is closed. just log.
-                Log.e(Room.LOG_TAG, "Cannot run invalidation tracker. Is the db closed?",
-                    exception);
-            }
-            if (hasUpdatedTable) {
-                synchronized (mObserverMap) {
-                    for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                        entry.getValue().checkForInvalidation(mTableVersions);
-                    }
-                }
+                writableDatabase.setTransactionSuccessful();
+            } finally {
+                writableDatabase.endTransaction();
             }
+            refreshed = true;
+        } catch (IllegalStateException | SQLiteException exception) {
+            // may happen if db is closed. just log.
+            Log.e(Room.LOG_TAG, "Cannot run invalidation tracker. Is the db closed?",
+                exception);
         }
-    };
-    private ObservedTableTracker mObservedTableTracker;
-    private Runnable mSyncTriggers = new Runnable() {
-        @Override
-        public void run() {
-            if (mDatabase.inTransaction()) {
-                // we won't run this inside another transaction.
-                return;
-            }
-            if (!ensureInitialization()) {
-                return;
-            }
-            try {
-                // This method runs in a while loop because while changes are synced to db, another
-                // runnable may be skipped. If we cause it to skip, we need to do its work.
-                while (true) {
-                    // there is a potential race condition where another mSyncTriggers runnable
-                    // can start running right after we get the tables list to sync.
-                    final int[] tablesToSync = mObservedTableTracker.getTablesToSync();
-                    if (tablesToSync == null) {
-                        return;
-                    }
-                    final int limit = tablesToSync.length;
-                    final SupportSQLiteDatabase writableDatabase = mDatabase.getOpenHelper()
-                        .getWritableDatabase();
-                    try {
-                        writableDatabase.beginTransaction();
-                        for (int tableId = 0; tableId < limit; tableId++) {
-                            switch (tablesToSync[tableId]) {
-                                case ObservedTableTracker.ADD:
-                                    startTrackingTable(writableDatabase, tableId);
-                                    break;
-                                case ObservedTableTracker.REMOVE:
-                                    stopTrackingTable(writableDatabase, tableId);
-                                    break;
-                            }
-                        }
-                        writableDatabase.setTransactionSuccessful();
-                    } finally {
-                        writableDatabase.endTransaction();
-                    }
-                    mObservedTableTracker.onSyncCompleted();
-                }
-            } catch (IllegalStateException | SQLiteException exception) {
-                // may happen if db is closed. just log.
-                Log.e(Room.LOG_TAG, "Cannot run invalidation tracker. Is the db closed?",
-                    exception);
+        if (hasUpdatedTable) {
+            synchronized (mObserverMap) {
+                notifyChangedTablesLocked();
             }
         }
-    };
+        return refreshed;
+    }
+
 
 
     /**
@@ -210,6 +298,37 @@ public class InvalidationTracker {
         }
         mTableVersions = new long[tableNames.length];
         Arrays.fill(mTableVersions, 0);
+        mChangedTables = new boolean[size];
+        mObserversByTableId = new ArrayList<>(size);
+        for (int id = 0; id < size; id++) {
+            mObserversByTableId.add(new ArrayList<ObserverWrapper>(1));
+        }
+    }
+
+
+    /**
+     * Visits each observer of the tables marked in {@link #mChangedTables} once and clears the
+     * marks. Must be called while holding the {@link #mObserverMap} lock.
+     */
+    private void notifyChangedTablesLocked() {
+        final int generation = ++mRefreshGeneration;
+        final int size = mChangedTables.length;
+        for (int tableId = 0; tableId < size; tableId++) {
+            if (!mChangedTables[tableId]) {
+                continue;
+            }
+            mChangedTables[tableId] = false;
+            final List<ObserverWrapper> observers = mObserversByTableId.get(tableId);
+            // an observer may remove itself while being notified, so iterate over a copy.
+            final ObserverWrapper[] snapshot =
+                observers.toArray(new ObserverWrapper[observers.size()]);
+            for (ObserverWrapper wrapper : snapshot) {
+                if (wrapper.mLastCheckedGeneration != generation) {
+                    wrapper.mLastCheckedGeneration = generation;
+                    wrapper.checkForInvalidation(mTableVersions);
+                }
+            }
+        }
     }
 
 
@@ -311,13 +430,18 @@ public class InvalidationTracker {
             tableIds[i] = tableId;
             versions[i] = mMaxVersion;
         }
-        ObserverWrapper wrapper = new ObserverWrapper(observer, tableIds, versions);
+        ObserverWrapper wrapper = new ObserverWrapper(observer, tableIds, tableNames, versions);
         ObserverWrapper currentObserver;
         synchronized (mObserverMap) {
             currentObserver = mObserverMap.putIfAbsent(observer, wrapper);
+            if (currentObserver == null) {
+                for (int tableId : tableIds) {
+                    mObserversByTableId.get(tableId).add(wrapper);
+                }
+            }
         }
         if (currentObserver == null && mObservedTableTracker.onAdded(tableIds)) {
-            AppToolkitTaskExecutor.getInstance().executeOnDiskIO(mSyncTriggers);
+            mDatabase.getInvalidationExecutor().execute(mSyncTriggers);
         }
     }
 
@@ -348,9 +472,14 @@ public class InvalidationTracker {
         ObserverWrapper wrapper;
         synchronized (mObserverMap) {
             wrapper = mObserverMap.remove(observer);
+            if (wrapper != null) {
+                for (int tableId : wrapper.mTableIds) {
+                    mObserversByTableId.get(tableId).remove(wrapper);
+                }
+            }
         }
         if (wrapper != null && mObservedTableTracker.onRemoved(wrapper.mTableIds)) {
-            AppToolkitTaskExecutor.getInstance().executeOnDiskIO(mSyncTriggers);
+            mDatabase.getInvalidationExecutor().execute(mSyncTriggers);
         }
     }
 
@@ -382,8 +511,55 @@ public class InvalidationTracker {
     public void refreshVersionsAsync() {
         // TODO we should consider doing this sync instead of async.
         if (mPendingRefresh.compareAndSet(false, true)) {
-            AppToolkitTaskExecutor.getInstance().executeOnDiskIO(mRefreshRunnable);
+            final long debounceMillis = mRefreshDebounceMillis;
+            if (debounceMillis > 0) {
+                RefreshScheduler.get().schedule(mDispatchRefresh, debounceMillis,
+                    TimeUnit.MILLISECONDS);
+            } else {
+                mDatabase.getInvalidationExecutor().execute(mRefreshRunnable);
+            }
+        }
+    }
+
+
+    /**
+     * Refreshes the list of updated tables on the calling thread and notifies the observers of
+     * the changed tables before returning.
+     * <p>
+     * Does nothing if a refresh is already running on another thread or the calling thread is in
+     * a transaction.
+     *
+     * @return true if the table versions were read from the database.
+     */
+    boolean refreshVersionsSync() {
+        return drainRefresh(true);
+    }
+
+
+    /**
+     * Returns the names of all the tables known to this tracker, in lower case.
+     */
+    String[] getTableNames() {
+        return mTableNames.clone();
+    }
+
+
+    /**
+     * Sets a window during which refresh requests are coalesced into a single refresh.
+     * <p>
+     * The first {@link #refreshVersionsAsync()} call after a refresh schedules the next one
+     * {@code debounceMillis} later; transactions that end within that window do not schedule
+     * additional refreshes. Observers are then notified once, with all the tables changed in the
+     * window. Defaults to 0, which refreshes as soon as possible.
+     *
+     * @param debounceMillis The debounce window in milliseconds, 0 to disable.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void setRefreshDebounceMillis(long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("Debounce window cannot be negative");
         }
+        mRefreshDebounceMillis = debounceMillis;
     }
 
 
@@ -394,9 +570,12 @@ public class InvalidationTracker {
      * runs. Otherwise, we may miss some changes.
      * <p>
      * This api should eventually be public.
+     *
+     * @return true if the triggers of all the observed tables are installed, false if the sync
+     * was skipped (e.g. in a transaction or while another thread syncs) or failed.
      */
-    void syncTriggers() {
-        mSyncTriggers.run();
+    boolean syncTriggers() {
+        return syncTriggersInternal();
     }
 
 
@@ -410,18 +589,27 @@ public class InvalidationTracker {
     static class ObserverWrapper {
         final int[] mTableIds;
         final Observer mObserver;
+        private final String[] mTableNames;
         private final long[] mVersions;
+        // the payload for observers of a single table never changes, so it is created once.
+        @Nullable
+        private final Set<String> mSingleTableSet;
+        // refresh generation this wrapper was last checked in, guarded by mObserverMap.
+        int mLastCheckedGeneration;
 
 
-        ObserverWrapper(Observer observer, int[] tableIds, long[] versions) {
+        ObserverWrapper(Observer observer, int[] tableIds, String[] tableNames, long[] versions) {
             mObserver = observer;
             mTableIds = tableIds;
+            mTableNames = tableNames;
             mVersions = versions;
+            mSingleTableSet = tableIds.length == 1
+                ? Collections.singleton(tableNames[0]) : null;
         }
 
 
         void checkForInvalidation(long[] versions) {
-            boolean invalid = false;
+            Set<String> invalidatedTables = null;
             final int size = mTableIds.length;
             for (int index = 0; index < size; index++) {
                 final int tableId = mTableIds[index];
@@ -429,11 +617,18 @@ public class InvalidationTracker {
                 final long currentVersion = mVersions[index];
                 if (currentVersion < newVersion) {
                     mVersions[index] = newVersion;
-                    invalid = true;
+                    if (mSingleTableSet != null) {
+                        invalidatedTables = mSingleTableSet;
+                    } else {
+                        if (invalidatedTables == null) {
+                            invalidatedTables = new HashSet<>(size);
+                        }
+                        invalidatedTables.add(mTableNames[index]);
+                    }
                 }
             }
-            if (invalid) {
-                mObserver.onInvalidated();
+            if (invalidatedTables != null) {
+                mObserver.onInvalidated(invalidatedTables);
             }
         }
     }
@@ -474,6 +669,20 @@ public class InvalidationTracker {
          * Called when one of the observed tables is invalidated in the database.
          */
         public abstract void onInvalidated();
+
+
+        /**
+         * Called when some of the observed tables are invalidated in the database.
+         * <p>
+         * All the observed tables changed since the previous notification are reported at once.
+         * The default implementation calls {@link #onInvalidated()}.
+         *
+         * @param tables The names of the invalidated tables, as given to the constructor. The set
+         * must not be modified.
+         */
+        public void onInvalidated(@NonNull Set<String> tables) {
+            onInvalidated();
+        }
     }
 
 
@@ -553,6 +762,16 @@ public class InvalidationTracker {
         }
 
 
+        /**
+         * @return true if no trigger change is waiting or being applied.
+         */
+        boolean isSynced() {
+            synchronized (this) {
+                return !mNeedsSync && !mPendingSync;
+            }
+        }
+
+
         /**
          * If this returns non-null, you must call onSyncCompleted.
          *
@@ -620,5 +839,46 @@ public class InvalidationTracker {
                 observer.onInvalidated();
             }
         }
+
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            final Observer observer = mDelegateRef.get();
+            if (observer == null) {
+                mTracker.removeObserver(this);
+            } else {
+                observer.onInvalidated(tables);
+            }
+        }
+    }
+
+
+    /**
+     * Holds the thread that delays debounced refreshes before handing them to the invalidation
+     * executor. Created on first use, shared by all trackers.
+     */
+    private static class RefreshScheduler {
+        private static volatile ScheduledExecutorService sInstance;
+
+
+        static ScheduledExecutorService get() {
+            if (sInstance == null) {
+                synchronized (RefreshScheduler.class) {
+                    if (sInstance == null) {
+                        sInstance = Executors.newSingleThreadScheduledExecutor(
+                            new ThreadFactory() {
+                                @Override
+                                public Thread newThread(@NonNull Runnable runnable) {
+                                    Thread thread = new Thread(runnable,
+                                        "room_invalidation_debounce");
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            });
+                    }
+                }
+            }
+            return sInstance;
+        }
     }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alpha1.android.arch.persistence.room;
+
+import alpha1.android.arch.persistence.db.SupportSQLiteStatement;
+import android.os.ParcelFileDescriptor;
+
+/**
+ * A statement wrapper that shifts every bind index by an offset, so the single row
+ * {@code bind(statement, entity)} methods of the generated adapters can bind each row of a
+ * multi-row statement.
+ * <p>
+ * {@link #clearBindings()} only clears the arguments of the current row. Executing or querying
+ * through this wrapper runs the whole delegate statement, with every row bound so far.
+ */
+final class OffsetBindingStatement implements SupportSQLiteStatement {
+    private final SupportSQLiteStatement mDelegate;
+    private final int mArgsPerRow;
+    private int mOffset;
+
+
+    OffsetBindingStatement(SupportSQLiteStatement delegate, int argsPerRow) {
+        mDelegate = delegate;
+        mArgsPerRow = argsPerRow;
+    }
+
+
+    void setOffset(int offset) {
+        mOffset = offset;
+    }
+
+
+    @Override
+    public void bindNull(int index) {
+        mDelegate.bindNull(index + mOffset);
+    }
+
+
+    @Override
+    public void bindLong(int index, long value) {
+        mDelegate.bindLong(index + mOffset, value);
+    }
+
+
+    @Override
+    public void bindDouble(int index, double value) {
+        mDelegate.bindDouble(index + mOffset, value);
+    }
+
+
+    @Override
+    public void bindString(int index, String value) {
+        mDelegate.bindString(index + mOffset, value);
+    }
+
+
+    @Override
+    public void bindBlob(int index, byte[] value) {
+        mDelegate.bindBlob(index + mOffset, value);
+    }
+
+
+    /**
+     * Clears the arguments of the current row only, the same way sqlite3_clear_bindings does:
+     * they are set back to NULL. The other rows keep their bindings.
+     */
+    @Override
+    public void clearBindings() {
+        for (int index = 1; index <= mArgsPerRow; index++) {
+            mDelegate.bindNull(index + mOffset);
+        }
+    }
+
+
+    @Override
+    public void execute() {
+        mDelegate.execute();
+    }
+
+
+    @Override
+    public int executeUpdateDelete() {
+        return mDelegate.executeUpdateDelete();
+    }
+
+
+    @Override
+    public long executeInsert() {
+        return mDelegate.executeInsert();
+    }
+
+
+    @Override
+    public long simpleQueryForLong() {
+        return mDelegate.simpleQueryForLong();
+    }
+
+
+    @Override
+    public String simpleQueryForString() {
+        return mDelegate.simpleQueryForString();
+    }
+
+
+    @Override
+    public ParcelFileDescriptor simpleQueryForBlobFileDescriptor() {
+        return mDelegate.simpleQueryForBlobFileDescriptor();
+    }
+
+
+    /**
+     * No-op, the delegate belongs to the adapter that created this wrapper.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,560 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alpha1.android.arch.persistence.room;
+
+import alpha1.android.arch.persistence.db.SupportSQLiteProgram;
+import alpha1.android.arch.persistence.db.SupportSQLiteQuery;
+import android.database.AbstractCursor;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A byte bounded cache of query results, keyed by the SQL of the query and its bind arguments.
+ * <p>
+ * Each result is materialized into memory once and handed out as a new {@link Cursor} over the
+ * same rows on every hit. Entries are dropped when the {@link InvalidationTracker} reports a
+ * change in one of the tables a query reads, so the cache observes every table of the database.
+ * Before serving a hit after a transaction ended, the tracker is refreshed on the calling thread
+ * so a result is never served after a change to its tables was committed.
+ * <p>
+ * Only read-only queries that run outside of a transaction and read at least one table known to
+ * the tracker are cached. Writes that do not go through {@link RoomDatabase#endTransaction()}
+ * (e.g. another process) are only seen once the tracker is refreshed.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" })
+public class QueryResultCache {
+    // rough size of an object header plus a reference to it.
+    private static final int OBJECT_OVERHEAD_BYTES = 16;
+    // number of SQL strings whose table list is remembered.
+    private static final int TABLE_LOOKUP_CACHE_SIZE = 64;
+    private static final int[] NO_TABLES = new int[0];
+
+    private final RoomDatabase mDatabase;
+    private final InvalidationTracker mTracker;
+    private final long mMaxBytes;
+    // guarded by this
+    private final LinkedHashMap<Key, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, int[]> mTablesBySql =
+        new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+                return size() > TABLE_LOOKUP_CACHE_SIZE;
+            }
+        };
+    private long mSizeBytes;
+    // bumped on every invalidation, results loaded across an invalidation are not stored.
+    private long mInvalidationCount;
+    // value of RoomDatabase#getCommitCount() the tracker was last refreshed for.
+    private long mValidatedCommitCount = -1;
+    // set once the triggers of the cache's observer are known to be installed.
+    private volatile boolean mTriggersSynced;
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+
+    QueryResultCache(RoomDatabase database, long maxBytes) {
+        mDatabase = database;
+        mTracker = database.getInvalidationTracker();
+        mMaxBytes = maxBytes;
+        mTracker.addObserver(new InvalidationTracker.Observer(mTracker.getTableNames()) {
+            @Override
+            public void onInvalidated() {
+            }
+
+
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate(tables);
+            }
+        });
+    }
+
+
+    /**
+     * Returns the result of the query from the cache, running it on the database on a miss.
+     */
+    Cursor query(SupportSQLiteQuery query) {
+        final String sql = query.getSql();
+        final int[] tableIds = getTables(sql);
+        if (tableIds.length == 0 || !RoomDatabase.isReadOnly(sql)) {
+            return mDatabase.queryDatabase(query);
+        }
+        final long commitCount = mDatabase.getCommitCount();
+        if (!validate(commitCount)) {
+            return mDatabase.queryDatabase(query);
+        }
+        final Key key = new Key(sql, query);
+        final long invalidationCount;
+        synchronized (this) {
+            final Entry entry = mEntries.get(key);
+            if (entry != null) {
+                mHitCount++;
+                return new ResultCursor(entry.mColumnNames, entry.mRows);
+            }
+            mMissCount++;
+            invalidationCount = mInvalidationCount;
+        }
+        final Cursor cursor = mDatabase.queryDatabase(query);
+        final Entry entry;
+        try {
+            entry = materialize(cursor, tableIds);
+        } finally {
+            cursor.close();
+        }
+        synchronized (this) {
+            // skip results that may have been read before a change to their tables.
+            if (invalidationCount == mInvalidationCount
+                && commitCount == mDatabase.getCommitCount()
+                && entry.mSizeBytes <= mMaxBytes) {
+                final Entry previous = mEntries.put(key, entry);
+                if (previous != null) {
+                    mSizeBytes -= previous.mSizeBytes;
+                }
+                mSizeBytes += entry.mSizeBytes;
+                trimToSizeLocked();
+            }
+        }
+        return new ResultCursor(entry.mColumnNames, entry.mRows);
+    }
+
+
+    /**
+     * Makes sure the tracker saw all the transactions ended before {@code commitCount}.
+     */
+    private boolean validate(long commitCount) {
+        synchronized (this) {
+            if (mValidatedCommitCount == commitCount) {
+                return true;
+            }
+        }
+        if (!mTriggersSynced) {
+            // triggers for the observer are installed asynchronously, install them now so no
+            // change is missed. Until they are, the tracker cannot vouch for any result.
+            if (!mTracker.syncTriggers()) {
+                return false;
+            }
+            mTriggersSynced = true;
+        }
+        if (!mTracker.refreshVersionsSync()) {
+            return false;
+        }
+        synchronized (this) {
+            mValidatedCommitCount = Math.max(mValidatedCommitCount, commitCount);
+            return mValidatedCommitCount == commitCount;
+        }
+    }
+
+
+    private synchronized void invalidate(Set<String> tables) {
+        mInvalidationCount++;
+        final boolean[] invalidated = new boolean[mTracker.mTableIdLookup.size()];
+        for (String table : tables) {
+            final Integer tableId = mTracker.mTableIdLookup.get(table.toLowerCase(Locale.US));
+            if (tableId != null) {
+                invalidated[tableId] = true;
+            }
+        }
+        final Iterator<Entry> iterator = mEntries.values().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            for (int tableId : entry.mTableIds) {
+                if (invalidated[tableId]) {
+                    mSizeBytes -= entry.mSizeBytes;
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+
+    private void trimToSizeLocked() {
+        final Iterator<Entry> iterator = mEntries.values().iterator();
+        while (mSizeBytes > mMaxBytes && iterator.hasNext()) {
+            mSizeBytes -= iterator.next().mSizeBytes;
+            iterator.remove();
+            mEvictionCount++;
+        }
+    }
+
+
+    /**
+     * Returns the ids of the known tables whose names appear in the SQL.
+     * <p>
+     * This is a superset of the tables the query reads since a column may share its name with a
+     * table, which only causes extra invalidations.
+     */
+    private synchronized int[] getTables(String sql) {
+        int[] tableIds = mTablesBySql.get(sql);
+        if (tableIds != null) {
+            return tableIds;
+        }
+        final boolean[] found = new boolean[mTracker.mTableIdLookup.size()];
+        int count = 0;
+        final int length = sql.length();
+        int index = 0;
+        while (index < length) {
+            if (!isIdentifierPart(sql.charAt(index))) {
+                index++;
+                continue;
+            }
+            final int start = index;
+            while (index < length && isIdentifierPart(sql.charAt(index))) {
+                index++;
+            }
+            final Integer tableId = mTracker.mTableIdLookup.get(
+                sql.substring(start, index).toLowerCase(Locale.US));
+            if (tableId != null && !found[tableId]) {
+                found[tableId] = true;
+                count++;
+            }
+        }
+        tableIds = count == 0 ? NO_TABLES : new int[count];
+        for (int id = 0, position = 0; id < found.length; id++) {
+            if (found[id]) {
+                tableIds[position++] = id;
+            }
+        }
+        mTablesBySql.put(sql, tableIds);
+        return tableIds;
+    }
+
+
+    private static boolean isIdentifierPart(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+
+    private static Entry materialize(Cursor cursor, int[] tableIds) {
+        final String[] columnNames = cursor.getColumnNames();
+        final int columnCount = columnNames.length;
+        final Object[][] rows = new Object[cursor.getCount()][];
+        long sizeBytes = OBJECT_OVERHEAD_BYTES * (1 + rows.length);
+        int position = 0;
+        while (cursor.moveToNext()) {
+            final Object[] row = new Object[columnCount];
+            for (int column = 0; column < columnCount; column++) {
+                final Object value;
+                switch (cursor.getType(column)) {
+                    case Cursor.FIELD_TYPE_INTEGER:
+                        value = cursor.getLong(column);
+                        sizeBytes += 8;
+                        break;
+                    case Cursor.FIELD_TYPE_FLOAT:
+                        value = cursor.getDouble(column);
+                        sizeBytes += 8;
+                        break;
+                    case Cursor.FIELD_TYPE_STRING:
+                        final String string = cursor.getString(column);
+                        value = string;
+                        sizeBytes += 2 * string.length();
+                        break;
+                    case Cursor.FIELD_TYPE_BLOB:
+                        final byte[] blob = cursor.getBlob(column);
+                        value = blob;
+                        sizeBytes += blob.length;
+                        break;
+                    default:
+                        value = null;
+                        break;
+                }
+                sizeBytes += OBJECT_OVERHEAD_BYTES;
+                row[column] = value;
+            }
+            rows[position++] = row;
+        }
+        return new Entry(columnNames, rows, tableIds, sizeBytes);
+    }
+
+
+    /**
+     * Drops all the cached results.
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+        mSizeBytes = 0;
+        mInvalidationCount++;
+        mValidatedCommitCount = -1;
+    }
+
+
+    public synchronized long getSizeBytes() {
+        return mSizeBytes;
+    }
+
+
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+
+    public synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+
+    /**
+     * SQL and bind arguments of a query.
+     */
+    private static class Key implements SupportSQLiteProgram {
+        private final String mSql;
+        private Object[] mArgs = new Object[0];
+        private final int mHashCode;
+
+
+        Key(String sql, SupportSQLiteQuery query) {
+            mSql = sql;
+            query.bindTo(this);
+            mHashCode = 31 * sql.hashCode() + Arrays.deepHashCode(mArgs);
+        }
+
+
+        private void bind(int index, Object value) {
+            if (index > mArgs.length) {
+                mArgs = Arrays.copyOf(mArgs, index);
+            }
+            mArgs[index - 1] = value;
+        }
+
+
+        @Override
+        public void bindNull(int index) {
+            bind(index, null);
+        }
+
+
+        @Override
+        public void bindLong(int index, long value) {
+            bind(index, value);
+        }
+
+
+        @Override
+        public void bindDouble(int index, double value) {
+            bind(index, value);
+        }
+
+
+        @Override
+        public void bindString(int index, String value) {
+            bind(index, value);
+        }
+
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            bind(index, value.clone());
+        }
+
+
+        @Override
+        public void clearBindings() {
+            mArgs = new Object[0];
+        }
+
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return mHashCode == key.mHashCode && mSql.equals(key.mSql)
+                && Arrays.deepEquals(mArgs, key.mArgs);
+        }
+
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+
+
+    /**
+     * A materialized result, never modified once created.
+     */
+    private static class Entry {
+        final String[] mColumnNames;
+        final Object[][] mRows;
+        final int[] mTableIds;
+        final long mSizeBytes;
+
+
+        Entry(String[] columnNames, Object[][] rows, int[] tableIds, long sizeBytes) {
+            mColumnNames = columnNames;
+            mRows = rows;
+            mTableIds = tableIds;
+            mSizeBytes = sizeBytes;
+        }
+    }
+
+
+    /**
+     * A read-only cursor over the rows of an {@link Entry}.
+     */
+    private static class ResultCursor extends AbstractCursor {
+        private final String[] mColumnNames;
+        private final Object[][] mRows;
+
+
+        ResultCursor(String[] columnNames, Object[][] rows) {
+            mColumnNames = columnNames;
+            mRows = rows;
+        }
+
+
+        @Override
+        public int getCount() {
+            return mRows.length;
+        }
+
+
+        @Override
+        public String[] getColumnNames() {
+            return mColumnNames;
+        }
+
+
+        @Nullable
+        private Object get(int column) {
+            return mRows[getPosition()][column];
+        }
+
+
+        @Override
+        public int getType(int column) {
+            final Object value = get(column);
+            if (value == null) {
+                return FIELD_TYPE_NULL;
+            } else if (value instanceof Long) {
+                return FIELD_TYPE_INTEGER;
+            } else if (value instanceof Double) {
+                return FIELD_TYPE_FLOAT;
+            } else if (value instanceof byte[]) {
+                return FIELD_TYPE_BLOB;
+            }
+            return FIELD_TYPE_STRING;
+        }
+
+
+        @Override
+        public String getString(int column) {
+            final Object value = get(column);
+            if (value == null || value instanceof String) {
+                return (String) value;
+            } else if (value instanceof byte[]) {
+                throw new SQLiteException("unable to convert BLOB to string");
+            }
+            return value.toString();
+        }
+
+
+        @Override
+        public short getShort(int column) {
+            return (short) getLong(column);
+        }
+
+
+        @Override
+        public int getInt(int column) {
+            return (int) getLong(column);
+        }
+
+
+        @Override
+        public long getLong(int column) {
+            final Object value = get(column);
+            if (value == null) {
+                return 0;
+            } else if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                // same as sqlite, text that is not a number reads as 0.
+                return 0;
+            }
+        }
+
+
+        @Override
+        public float getFloat(int column) {
+            return (float) getDouble(column);
+        }
+
+
+        @Override
+        public double getDouble(int column) {
+            final Object value = get(column);
+            if (value == null) {
+                return 0;
+            } else if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+
+        @Override
+        public byte[] getBlob(int column) {
+            final Object value = get(column);
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof byte[]) {
+                // the array is shared by every reader of the cached result.
+                return ((byte[]) value).clone();
+            }
+            throw new SQLiteException(
+                "unable to convert " + value.getClass().getSimpleName() + " to blob");
+        }
+
+
+        @Override
+        public boolean isNull(int column) {
+            return get(column) == null;
+        }
+    }
+}
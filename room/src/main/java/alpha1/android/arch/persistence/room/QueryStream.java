@@ -0,0 +1,397 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alpha1.android.arch.persistence.room;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Iterates the rows of a query in fixed size windows instead of loading them all at once.
+ * <p>
+ * Windows are read with keyset paging: the query is wrapped to only return rows whose key column
+ * is greater than the key of the last row read, ordered by the key column, so every window is an
+ * index range scan no matter how far the iteration is. The key column must hold unique integers,
+ * e.g. the {@code INTEGER PRIMARY KEY} of the table.
+ * <p>
+ * While a window is consumed, the next one is read on the query executor of the database. A
+ * window is dropped as soon as its last row is returned. If one of the observed tables changes,
+ * the rows left in the current window and the prefetched window are read again, starting after
+ * the last row returned.
+ * <p>
+ * A stream must be {@link #close() closed} once done, it is not thread safe and should not be
+ * iterated on the main thread.
+ *
+ * @param <T> The type of the rows.
+ * @see RoomDatabase#queryStream(String, String, RowMapper)
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" })
+public class QueryStream<T> implements Iterator<T>, Closeable {
+    /**
+     * Default number of rows read at once.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 500;
+
+    private final RoomDatabase mDatabase;
+    // reads the first window, the key column can hold any value so it is not filtered.
+    private final String mFirstWindowSql;
+    private final String mWindowSql;
+    private final Object[] mBindArgs;
+    private final String mKeyColumn;
+    private final int mWindowSize;
+    private final boolean mPrefetch;
+    private final RowMapper<T> mMapper;
+    @Nullable
+    private final InvalidationTracker.Observer mObserver;
+    // bumped by the observer, windows read before a change are read again.
+    private volatile int mGeneration;
+    private Window<T> mCurrent;
+    private int mIndex;
+    private FutureTask<Window<T>> mNext;
+    private long mLastKey;
+    private boolean mHasLastKey;
+    private boolean mClosed;
+
+
+    QueryStream(Builder<T> builder) {
+        mDatabase = builder.mDatabase;
+        mKeyColumn = builder.mKeyColumn;
+        final String orderBy = " ORDER BY `" + mKeyColumn + "` LIMIT " + builder.mWindowSize;
+        mFirstWindowSql = "SELECT * FROM (" + builder.mSql + ")" + orderBy;
+        mWindowSql = "SELECT * FROM (" + builder.mSql + ") WHERE `" + mKeyColumn + "` > ?"
+            + orderBy;
+        mBindArgs = builder.mBindArgs;
+        mWindowSize = builder.mWindowSize;
+        mPrefetch = builder.mPrefetch;
+        mMapper = builder.mMapper;
+        if (builder.mTables != null && builder.mTables.length > 0) {
+            mObserver = new InvalidationTracker.Observer(builder.mTables) {
+                @Override
+                public void onInvalidated() {
+                    mGeneration++;
+                }
+
+
+                @Override
+                public void onInvalidated(@NonNull Set<String> tables) {
+                    onInvalidated();
+                }
+            };
+            mDatabase.getInvalidationTracker().addObserver(mObserver);
+        } else {
+            mObserver = null;
+        }
+    }
+
+
+    @Override
+    public boolean hasNext() {
+        if (mClosed) {
+            return false;
+        }
+        if (mCurrent != null && mCurrent.mGeneration != mGeneration) {
+            // a table changed, read the rest of this window again.
+            mCurrent = null;
+        }
+        if (mCurrent != null && mIndex < mCurrent.size()) {
+            return true;
+        }
+        if (mCurrent != null && mCurrent.size() < mWindowSize) {
+            // the last window was not full, there are no more rows.
+            return false;
+        }
+        mCurrent = nextWindow();
+        mIndex = 0;
+        if (mCurrent.size() == mWindowSize && mPrefetch) {
+            prefetch(mCurrent.lastKey());
+        }
+        return mCurrent.size() > 0;
+    }
+
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final T row = mCurrent.mRows.get(mIndex);
+        mLastKey = mCurrent.mKeys[mIndex];
+        mHasLastKey = true;
+        // let the row be collected once consumed.
+        mCurrent.mRows.set(mIndex, null);
+        mIndex++;
+        return row;
+    }
+
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+
+    /**
+     * Stops observing the tables and drops the windows in memory.
+     */
+    @Override
+    public void close() {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        mCurrent = null;
+        if (mNext != null) {
+            mNext.cancel(false);
+            mNext = null;
+        }
+        if (mObserver != null) {
+            mDatabase.getInvalidationTracker().removeObserver(mObserver);
+        }
+    }
+
+
+    private Window<T> nextWindow() {
+        final FutureTask<Window<T>> next = mNext;
+        mNext = null;
+        if (next != null) {
+            final Window<T> window = getQuietly(next);
+            // only use it if it starts where we are and nothing changed since it was read.
+            if (window != null && window.mGeneration == mGeneration
+                && mHasLastKey && window.mAfterKey == mLastKey) {
+                return window;
+            }
+        }
+        return mHasLastKey ? readWindow(mLastKey) : readFirstWindow();
+    }
+
+
+    private void prefetch(final long afterKey) {
+        mNext = new FutureTask<>(new Callable<Window<T>>() {
+            @Override
+            public Window<T> call() throws Exception {
+                return readWindow(afterKey);
+            }
+        });
+        mDatabase.getQueryExecutor().execute(mNext);
+    }
+
+
+    @Nullable
+    private Window<T> getQuietly(FutureTask<Window<T>> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            // read it again on this thread, which rethrows the error if it persists.
+            return null;
+        }
+    }
+
+
+    private Window<T> readFirstWindow() {
+        return readWindow(mFirstWindowSql, false, 0);
+    }
+
+
+    private Window<T> readWindow(long afterKey) {
+        return readWindow(mWindowSql, true, afterKey);
+    }
+
+
+    private Window<T> readWindow(String sql, boolean hasAfterKey, long afterKey) {
+        // read the generation first so a change made while reading is not missed.
+        final int generation = mGeneration;
+        final RoomSQLiteQuery query = RoomSQLiteQuery.acquire(sql,
+            mBindArgs.length + (hasAfterKey ? 1 : 0));
+        try {
+            for (int i = 0; i < mBindArgs.length; i++) {
+                bind(query, i + 1, mBindArgs[i]);
+            }
+            if (hasAfterKey) {
+                query.bindLong(mBindArgs.length + 1, afterKey);
+            }
+            final Cursor cursor = mDatabase.query(query);
+            try {
+                final int keyIndex = cursor.getColumnIndexOrThrow(mKeyColumn);
+                final List<T> rows = new ArrayList<>(cursor.getCount());
+                final long[] keys = new long[cursor.getCount()];
+                while (cursor.moveToNext()) {
+                    keys[rows.size()] = cursor.getLong(keyIndex);
+                    rows.add(mMapper.map(cursor));
+                }
+                return new Window<>(rows, keys, afterKey, generation);
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            query.release();
+        }
+    }
+
+
+    private static void bind(RoomSQLiteQuery query, int index, Object arg) {
+        if (arg == null) {
+            query.bindNull(index);
+        } else if (arg instanceof byte[]) {
+            query.bindBlob(index, (byte[]) arg);
+        } else if (arg instanceof Float || arg instanceof Double) {
+            query.bindDouble(index, ((Number) arg).doubleValue());
+        } else if (arg instanceof Number) {
+            query.bindLong(index, ((Number) arg).longValue());
+        } else if (arg instanceof Boolean) {
+            query.bindLong(index, (Boolean) arg ? 1 : 0);
+        } else {
+            query.bindString(index, arg.toString());
+        }
+    }
+
+
+    /**
+     * Converts the current row of a cursor into an object.
+     *
+     * @param <T> The type of the object.
+     */
+    public interface RowMapper<T> {
+        /**
+         * Creates an object from the current row of the cursor. Must not move the cursor.
+         *
+         * @param cursor The cursor positioned on the row.
+         * @return The object of the row.
+         */
+        T map(Cursor cursor);
+    }
+
+
+    /**
+     * Rows read at once.
+     */
+    private static class Window<T> {
+        final List<T> mRows;
+        final long[] mKeys;
+        // key the window starts after.
+        final long mAfterKey;
+        final int mGeneration;
+
+
+        Window(List<T> rows, long[] keys, long afterKey, int generation) {
+            mRows = rows;
+            mKeys = keys;
+            mAfterKey = afterKey;
+            mGeneration = generation;
+        }
+
+
+        int size() {
+            return mRows.size();
+        }
+
+
+        long lastKey() {
+            return mKeys[mKeys.length - 1];
+        }
+    }
+
+
+    /**
+     * Builder for {@link QueryStream}.
+     *
+     * @param <T> The type of the rows.
+     */
+    public static class Builder<T> {
+        private final RoomDatabase mDatabase;
+        private final String mSql;
+        private final String mKeyColumn;
+        private final RowMapper<T> mMapper;
+        private Object[] mBindArgs = new Object[0];
+        private int mWindowSize = DEFAULT_WINDOW_SIZE;
+        private boolean mPrefetch = true;
+        private String[] mTables;
+
+
+        Builder(RoomDatabase database, String sql, String keyColumn, RowMapper<T> mapper) {
+            mDatabase = database;
+            mSql = sql;
+            mKeyColumn = keyColumn;
+            mMapper = mapper;
+        }
+
+
+        /**
+         * @param bindArgs The arguments of the query.
+         * @return this
+         */
+        public Builder<T> bindArgs(Object... bindArgs) {
+            mBindArgs = bindArgs.clone();
+            return this;
+        }
+
+
+        /**
+         * @param windowSize The number of rows read at once, defaults to
+         * {@link #DEFAULT_WINDOW_SIZE}.
+         * @return this
+         */
+        public Builder<T> windowSize(int windowSize) {
+            if (windowSize < 1) {
+                throw new IllegalArgumentException("Window size must be positive");
+            }
+            mWindowSize = windowSize;
+            return this;
+        }
+
+
+        /**
+         * @param prefetch Whether to read the next window in the background while the current
+         * one is consumed, defaults to true.
+         * @return this
+         */
+        public Builder<T> prefetch(boolean prefetch) {
+            mPrefetch = prefetch;
+            return this;
+        }
+
+
+        /**
+         * @param tables The tables whose changes cause the windows in memory to be read again.
+         * By default, no table is observed.
+         * @return this
+         */
+        public Builder<T> observe(String... tables) {
+            mTables = tables.clone();
+            return this;
+        }
+
+
+        /**
+         * @return A new stream, which must be closed once done.
+         */
+        public QueryStream<T> build() {
+            return new QueryStream<>(this);
+        }
+    }
+}
@@ -17,13 +17,19 @@
 package alpha1.android.arch.persistence.room;
 
 import alpha1.android.arch.core.executor.AppToolkitTaskExecutor;
+import alpha1.android.arch.persistence.db.SupportSQLiteConnectionPool;
 import alpha1.android.arch.persistence.db.SupportSQLiteDatabase;
 import alpha1.android.arch.persistence.db.SupportSQLiteOpenHelper;
 import alpha1.android.arch.persistence.db.SupportSQLiteQuery;
 import alpha1.android.arch.persistence.db.SupportSQLiteStatement;
 import alpha1.android.arch.persistence.db.framework.FrameworkSQLiteOpenHelperFactory;
+import alpha1.android.arch.persistence.room.migration.MigrationListener;
 import android.content.Context;
+import android.database.AbstractWindowedCursor;
 import android.database.Cursor;
+import android.database.CursorWindow;
+import android.database.CursorWrapper;
+import android.database.DatabaseUtils;
 import android.support.annotation.CallSuper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -33,6 +39,9 @@ import android.util.Log;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Base class for all Room databases. All classes that are annotated with {link Database} must
@@ -46,10 +55,26 @@ import java.util.List;
 @SuppressWarnings({ "unused", "WeakerAccess" })
 public abstract class RoomDatabase {
     private static final String DB_IMPL_SUFFIX = "_Impl";
+    // the process wide disk IO executor, used unless the builder is given another one.
+    private static final Executor DISK_IO_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            AppToolkitTaskExecutor.getInstance().executeOnDiskIO(command);
+        }
+    };
     private final InvalidationTracker mInvalidationTracker;
     // set by the generated open helper.
     protected volatile SupportSQLiteDatabase mDatabase;
     private SupportSQLiteOpenHelper mOpenHelper;
+    private StatementCache mStatementCache;
+    // null unless a read connection pool is configured and supported by the open helper.
+    private SupportSQLiteConnectionPool mReadConnectionPool;
+    private Executor mQueryExecutor;
+    private Executor mTransactionExecutor;
+    private Executor mInvalidationExecutor;
+    private QueryResultCache mQueryResultCache;
+    // number of endTransaction calls, lets the result cache know when to look for changes.
+    private final AtomicLong mCommitCount = new AtomicLong();
     private boolean mAllowMainThreadQueries;
 
 
@@ -73,7 +98,26 @@ public abstract class RoomDatabase {
     @CallSuper
     public void init(DatabaseConfiguration configuration) {
         mOpenHelper = createOpenHelper(configuration);
+        mStatementCache = new StatementCache(this, configuration.statementCacheSize);
+        if (configuration.readConnectionPoolSize > 0) {
+            if (mOpenHelper instanceof SupportSQLiteConnectionPool) {
+                final SupportSQLiteConnectionPool pool = (SupportSQLiteConnectionPool) mOpenHelper;
+                pool.setReadConnectionPoolSize(configuration.readConnectionPoolSize);
+                if (pool.getReadConnectionPoolSize() > 0) {
+                    mReadConnectionPool = pool;
+                }
+            } else {
+                Log.w(Room.LOG_TAG, "Open helper does not support read connections, queries"
+                    + " will use the primary connection.");
+            }
+        }
         mAllowMainThreadQueries = configuration.allowMainThreadQueries;
+        mQueryExecutor = configuration.queryExecutor;
+        mTransactionExecutor = configuration.transactionExecutor;
+        mInvalidationExecutor = configuration.invalidationExecutor;
+        if (configuration.queryResultCacheBytes > 0) {
+            mQueryResultCache = new QueryResultCache(this, configuration.queryResultCacheBytes);
+        }
     }
 
 
@@ -87,6 +131,82 @@ public abstract class RoomDatabase {
     }
 
 
+    /**
+     * Returns the per-thread cache of compiled statements used by the generated DAOs.
+     *
+     * @return The statement cache of this database.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public StatementCache getStatementCache() {
+        return mStatementCache;
+    }
+
+
+    /**
+     * Returns the pool of read connections used for queries, which also reports how long queries
+     * waited for a connection.
+     *
+     * @return The read connection pool or null if queries use the primary connection.
+     * @see Builder#setReadConnectionPoolSize(int)
+     */
+    @Nullable
+    public SupportSQLiteConnectionPool getReadConnectionPool() {
+        return mReadConnectionPool;
+    }
+
+
+    /**
+     * Returns the executor this database runs background queries on.
+     *
+     * @return The query executor.
+     * @see Builder#setQueryExecutor(Executor)
+     */
+    public Executor getQueryExecutor() {
+        return mQueryExecutor;
+    }
+
+
+    /**
+     * Returns the executor this database runs background transactions on. It runs one task at a
+     * time, in submission order.
+     *
+     * @return The transaction executor.
+     * @see Builder#setTransactionExecutor(Executor)
+     */
+    public Executor getTransactionExecutor() {
+        return mTransactionExecutor;
+    }
+
+
+    /**
+     * Returns the executor the {@link InvalidationTracker} of this database runs on.
+     *
+     * @return The invalidation executor.
+     * @see Builder#setInvalidationExecutor(Executor)
+     */
+    public Executor getInvalidationExecutor() {
+        return mInvalidationExecutor;
+    }
+
+
+    /**
+     * Returns the cache of query results.
+     *
+     * @return The query result cache or null if results are not cached.
+     * @see Builder#setQueryResultCacheSize(long)
+     */
+    @Nullable
+    public QueryResultCache getQueryResultCache() {
+        return mQueryResultCache;
+    }
+
+
+    long getCommitCount() {
+        return mCommitCount.get();
+    }
+
+
     /**
      * Creates the open helper to access the database. Generated class already implements this
      * method.
@@ -123,6 +243,10 @@ public abstract class RoomDatabase {
      */
     public void close() {
         if (isOpen()) {
+            mStatementCache.clear();
+            if (mQueryResultCache != null) {
+                mQueryResultCache.clear();
+            }
             mOpenHelper.close();
         }
     }
@@ -170,7 +294,79 @@ public abstract class RoomDatabase {
      */
     public Cursor query(SupportSQLiteQuery query) {
         assertNotMainThread();
-        return mOpenHelper.getWritableDatabase().rawQuery(query);
+        final QueryResultCache cache = mQueryResultCache;
+        if (cache != null && !inTransaction()) {
+            return cache.query(query);
+        }
+        return queryDatabase(query);
+    }
+
+
+    /**
+     * Runs the query on the database, bypassing the result cache.
+     */
+    Cursor queryDatabase(SupportSQLiteQuery query) {
+        final SupportSQLiteConnectionPool pool = mReadConnectionPool;
+        // a transaction has to read its own writes, so it stays on the primary connection.
+        if (pool == null || !isReadOnly(query.getSql()) || inTransaction()) {
+            return mOpenHelper.getWritableDatabase().rawQuery(query);
+        }
+        final SupportSQLiteDatabase connection = pool.acquireReadConnection();
+        boolean release = true;
+        try {
+            final Cursor cursor = connection.rawQuery(query);
+            try {
+                // cursors run the query lazily, fill the first window while we own the
+                // connection.
+                final int count = cursor.getCount();
+                if (!fitsInWindow(cursor, count)) {
+                    // the next windows are filled through the same connection, keep it until the
+                    // cursor is closed.
+                    release = false;
+                    return new ReadConnectionCursor(cursor, pool, connection);
+                }
+            } catch (RuntimeException e) {
+                cursor.close();
+                throw e;
+            }
+            return cursor;
+        } finally {
+            if (release) {
+                pool.releaseReadConnection(connection);
+            }
+        }
+    }
+
+
+    private static boolean fitsInWindow(Cursor cursor, int count) {
+        if (!(cursor instanceof AbstractWindowedCursor)) {
+            // no way to tell, play safe.
+            return false;
+        }
+        final CursorWindow window = ((AbstractWindowedCursor) cursor).getWindow();
+        return window != null && window.getStartPosition() == 0 && window.getNumRows() >= count;
+    }
+
+
+    static boolean isReadOnly(String sql) {
+        return DatabaseUtils.getSqlStatementType(sql) == DatabaseUtils.STATEMENT_SELECT;
+    }
+
+
+    /**
+     * Creates a builder for a stream that reads the rows of the query in fixed size windows,
+     * instead of loading them all at once.
+     *
+     * @param sql The query to stream.
+     * @param keyColumn A column of the query holding unique integers, used to page the results.
+     * @param mapper Creates an object out of each row.
+     * @param <T> The type of the rows.
+     * @return A builder for the stream.
+     * @see QueryStream
+     */
+    public <T> QueryStream.Builder<T> queryStream(@NonNull String sql, @NonNull String keyColumn,
+                                                  @NonNull QueryStream.RowMapper<T> mapper) {
+        return new QueryStream.Builder<>(this, sql, keyColumn, mapper);
     }
 
 
@@ -201,6 +397,7 @@ public abstract class RoomDatabase {
      */
     public void endTransaction() {
         mOpenHelper.getWritableDatabase().endTransaction();
+        mCommitCount.incrementAndGet();
         mInvalidationTracker.refreshVersionsAsync();
     }
 
@@ -263,6 +460,13 @@ public abstract class RoomDatabase {
         private SupportSQLiteOpenHelper.Factory mFactory;
         private boolean mInMemory;
         private boolean mAllowMainThreadQueries;
+        private int mStatementCacheSize = StatementCache.DEFAULT_MAX_SIZE;
+        private int mReadConnectionPoolSize;
+        private long mQueryResultCacheBytes;
+        private MigrationListener mMigrationListener;
+        private Executor mQueryExecutor;
+        private Executor mTransactionExecutor;
+        private Executor mInvalidationExecutor;
         /**
          * Migrations, mapped by from-to pairs.
          */
@@ -315,6 +519,19 @@ public abstract class RoomDatabase {
         }
 
 
+        /**
+         * Sets a listener that receives the time each migration step, the schema validation and
+         * the whole migration take when the database is upgraded or downgraded.
+         *
+         * @param listener The listener notified of migration timings.
+         * @return this
+         */
+        public Builder<T> setMigrationListener(@Nullable MigrationListener listener) {
+            mMigrationListener = listener;
+            return this;
+        }
+
+
         /**
          * Disables the main thread query check for Room.
          * <p>
@@ -333,6 +550,114 @@ public abstract class RoomDatabase {
         }
 
 
+        /**
+         * Sets how many compiled statements each thread keeps for re-use.
+         * <p>
+         * Statements of the generated DAOs that are in use by another thread are taken from this
+         * cache instead of being compiled again. Defaults to
+         * {@link StatementCache#DEFAULT_MAX_SIZE}.
+         *
+         * @param size The number of statements cached per thread.
+         * @return this
+         */
+        public Builder<T> setStatementCacheSize(int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("Statement cache size must be positive");
+            }
+            mStatementCacheSize = size;
+            return this;
+        }
+
+
+        /**
+         * Enables write-ahead logging and runs read-only queries on a pool of read connections,
+         * so they do not wait for writes or transactions on the primary connection.
+         * <p>
+         * Queries made inside a transaction still use the primary connection. The pool is not
+         * used for in-memory databases or if the open helper does not implement
+         * {@link SupportSQLiteConnectionPool}. By default, all queries use the primary
+         * connection.
+         *
+         * @param size The number of read connections, 0 to disable the pool.
+         * @return this
+         * @see RoomDatabase#getReadConnectionPool()
+         */
+        public Builder<T> setReadConnectionPoolSize(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Read connection pool size cannot be"
+                    + " negative");
+            }
+            mReadConnectionPoolSize = size;
+            return this;
+        }
+
+
+        /**
+         * Caches the results of read-only queries made through
+         * {@link RoomDatabase#query(SupportSQLiteQuery)}, so running the same query with the same
+         * arguments again does not touch the database until one of its tables changes.
+         * <p>
+         * Results are kept in memory, least recently used ones are dropped once the cache grows
+         * over {@code maxBytes}. The cache observes every table of the database through the
+         * {@link InvalidationTracker}. By default, results are not cached.
+         *
+         * @param maxBytes The maximum size of the cached results in bytes, 0 to disable caching.
+         * @return this
+         * @see RoomDatabase#getQueryResultCache()
+         */
+        public Builder<T> setQueryResultCacheSize(long maxBytes) {
+            if (maxBytes < 0) {
+                throw new IllegalArgumentException("Query result cache size cannot be negative");
+            }
+            mQueryResultCacheBytes = maxBytes;
+            return this;
+        }
+
+
+        /**
+         * Sets the executor used to run queries of this database in the background.
+         * <p>
+         * By default, all databases share the disk IO executor of the process. Giving each
+         * database its own executor keeps heavy work in one database from delaying reads in
+         * another.
+         *
+         * @param executor The executor for background queries.
+         * @return this
+         */
+        public Builder<T> setQueryExecutor(@NonNull Executor executor) {
+            mQueryExecutor = executor;
+            return this;
+        }
+
+
+        /**
+         * Sets the executor used to run transactions of this database in the background.
+         * <p>
+         * Transactions are always run one at a time, so the given executor is wrapped into a
+         * serial one if needed. Defaults to a serial executor on top of the query executor.
+         *
+         * @param executor The executor for background transactions.
+         * @return this
+         */
+        public Builder<T> setTransactionExecutor(@NonNull Executor executor) {
+            mTransactionExecutor = executor;
+            return this;
+        }
+
+
+        /**
+         * Sets the executor the {@link InvalidationTracker} uses to sync its triggers and to
+         * refresh the observers. Defaults to the query executor.
+         *
+         * @param executor The executor for invalidation tracking.
+         * @return this
+         */
+        public Builder<T> setInvalidationExecutor(@NonNull Executor executor) {
+            mInvalidationExecutor = executor;
+            return this;
+        }
+
+
         /**
          * Creates the databases and initializes it.
          * <p>
@@ -354,9 +679,22 @@ public abstract class RoomDatabase {
             if (mFactory == null) {
                 mFactory = new FrameworkSQLiteOpenHelperFactory();
             }
+            final Executor queryExecutor =
+                mQueryExecutor == null ? DISK_IO_EXECUTOR : mQueryExecutor;
+            final Executor transactionExecutor;
+            if (mTransactionExecutor instanceof SerialExecutor) {
+                transactionExecutor = mTransactionExecutor;
+            } else {
+                transactionExecutor = new SerialExecutor(
+                    mTransactionExecutor == null ? queryExecutor : mTransactionExecutor);
+            }
+            final Executor invalidationExecutor =
+                mInvalidationExecutor == null ? queryExecutor : mInvalidationExecutor;
             DatabaseConfiguration configuration =
                 new DatabaseConfiguration(mContext, mName, mFactory, mMigrationContainer,
-                    mAllowMainThreadQueries);
+                    mAllowMainThreadQueries, mStatementCacheSize, mReadConnectionPoolSize,
+                    mQueryResultCacheBytes, queryExecutor, transactionExecutor,
+                    invalidationExecutor, mMigrationListener);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
             db.init(configuration);
             return db;
@@ -464,4 +802,34 @@ public abstract class RoomDatabase {
             return result;
         }
     }
+
+
+    /**
+     * A cursor larger than one window, holding its read connection until it is closed.
+     */
+    private static class ReadConnectionCursor extends CursorWrapper {
+        private final SupportSQLiteConnectionPool mPool;
+        private final SupportSQLiteDatabase mConnection;
+        private final AtomicBoolean mReleased = new AtomicBoolean(false);
+
+
+        ReadConnectionCursor(Cursor cursor, SupportSQLiteConnectionPool pool,
+                             SupportSQLiteDatabase connection) {
+            super(cursor);
+            mPool = pool;
+            mConnection = connection;
+        }
+
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } finally {
+                if (mReleased.compareAndSet(false, true)) {
+                    mPool.releaseReadConnection(mConnection);
+                }
+            }
+        }
+    }
 }
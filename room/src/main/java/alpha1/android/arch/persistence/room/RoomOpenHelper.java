@@ -19,12 +19,18 @@ package alpha1.android.arch.persistence.room;
 import alpha1.android.arch.persistence.db.SupportSQLiteDatabase;
 import alpha1.android.arch.persistence.db.SupportSQLiteOpenHelper;
 import alpha1.android.arch.persistence.room.migration.Migration;
+import alpha1.android.arch.persistence.room.migration.MigrationListener;
 import alpha1.android.arch.persistence.room.util.StringUtil;
 import android.database.Cursor;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RestrictTo;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * An open helper that holds a reference to the configuration until the database is opened.
@@ -34,6 +40,8 @@ import java.util.List;
 @SuppressWarnings("unused")
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class RoomOpenHelper extends SupportSQLiteOpenHelper.Callback {
+    private static final String READ_TABLE_SCHEMA_QUERY =
+        "SELECT name, sql FROM sqlite_master WHERE type = 'table'";
     @NonNull
     private final Delegate mDelegate;
     @NonNull
@@ -70,11 +78,7 @@ public class RoomOpenHelper extends SupportSQLiteOpenHelper.Callback {
             List<Migration> migrations = mConfiguration.migrationContainer.findMigrationPath(
                 oldVersion, newVersion);
             if (migrations != null) {
-                for (Migration migration : migrations) {
-                    migration.migrate(db);
-                }
-                mDelegate.validateMigration(db);
-                updateIdentity(db);
+                migrate(db, migrations, oldVersion, newVersion);
                 migrated = true;
             }
         }
@@ -85,6 +89,88 @@ public class RoomOpenHelper extends SupportSQLiteOpenHelper.Callback {
     }
 
 
+    /**
+     * Runs the migration path in a single transaction, then validates the tables whose schema
+     * changed.
+     */
+    private void migrate(SupportSQLiteDatabase db, List<Migration> migrations, int oldVersion,
+                         int newVersion) {
+        //noinspection ConstantConditions
+        final MigrationListener listener = mConfiguration.migrationListener;
+        final long start = System.nanoTime();
+        // the framework open helper already runs upgrades in a transaction, others may not.
+        final boolean ownTransaction = !db.inTransaction();
+        if (ownTransaction) {
+            db.beginTransaction();
+        }
+        try {
+            // tables are usually rebuilt in steps that break foreign keys in between, only check
+            // them when the transaction commits.
+            db.execSQL("PRAGMA defer_foreign_keys = ON");
+            final Map<String, String> schemaBefore = readTableSchema(db);
+            for (Migration migration : migrations) {
+                final long stepStart = System.nanoTime();
+                migration.migrate(db);
+                if (listener != null) {
+                    listener.onStepCompleted(migration, System.nanoTime() - stepStart);
+                }
+            }
+            final Set<String> changedTables = findChangedTables(schemaBefore,
+                readTableSchema(db));
+            final long validationStart = System.nanoTime();
+            mDelegate.validateMigration(db, changedTables);
+            if (listener != null) {
+                listener.onValidationCompleted(changedTables,
+                    System.nanoTime() - validationStart);
+            }
+            updateIdentity(db);
+            if (ownTransaction) {
+                db.setTransactionSuccessful();
+            }
+        } finally {
+            if (ownTransaction) {
+                db.endTransaction();
+            }
+        }
+        if (listener != null) {
+            listener.onMigrationCompleted(oldVersion, newVersion, System.nanoTime() - start);
+        }
+    }
+
+
+    private static Map<String, String> readTableSchema(SupportSQLiteDatabase db) {
+        final Map<String, String> schema = new HashMap<>();
+        final Cursor cursor = db.rawQuery(READ_TABLE_SCHEMA_QUERY,
+            StringUtil.EMPTY_STRING_ARRAY);
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            while (cursor.moveToNext()) {
+                schema.put(cursor.getString(0), cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+        }
+        return schema;
+    }
+
+
+    /**
+     * Returns the tables that were created or whose {@code CREATE TABLE} statement changed. Both
+     * {@code ALTER TABLE} and rebuilds update the statement kept in {@code sqlite_master}.
+     */
+    private static Set<String> findChangedTables(Map<String, String> before,
+                                                 Map<String, String> after) {
+        final Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, String> entry : after.entrySet()) {
+            final String previous = before.get(entry.getKey());
+            if (previous == null || !previous.equals(entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+
+
     @Override
     public void onDowngrade(SupportSQLiteDatabase db, int oldVersion, int newVersion) {
         onUpgrade(db, oldVersion, newVersion);
@@ -149,6 +235,21 @@ public class RoomOpenHelper extends SupportSQLiteOpenHelper.Callback {
          * @param db The SQLite database.
          */
         protected abstract void validateMigration(SupportSQLiteDatabase db);
+
+
+        /**
+         * Called after a migration run to validate the tables the migrations created or whose
+         * schema they changed. Tables that kept their schema do not need to be read again.
+         * <p>
+         * Defaults to validating all the tables with
+         * {@link #validateMigration(SupportSQLiteDatabase)}.
+         *
+         * @param db The SQLite database.
+         * @param changedTables The names of the tables created or changed by the migrations.
+         */
+        protected void validateMigration(SupportSQLiteDatabase db, Set<String> changedTables) {
+            validateMigration(db);
+        }
     }
 
 }
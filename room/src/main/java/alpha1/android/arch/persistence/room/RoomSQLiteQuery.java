@@ -51,6 +51,12 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
     static final TreeMap<Integer, RoomSQLiteQuery> sQueryPool = new TreeMap<>();
+    @SuppressWarnings("WeakerAccess")
+    @VisibleForTesting
+    // Queries with at most this many arguments are first kept in a single slot per thread so the
+    // common acquire / release cycle of small queries does not contend on sQueryPool.
+    static final int THREAD_SLOT_CAPACITY = 32;
+    private static final ThreadLocal<RoomSQLiteQuery> sThreadSlot = new ThreadLocal<>();
     private static final int NULL = 1;
     private static final int LONG = 2;
     private static final int DOUBLE = 3;
@@ -104,6 +110,12 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public static RoomSQLiteQuery acquire(String query, int argumentCount) {
+        final RoomSQLiteQuery cached = sThreadSlot.get();
+        if (cached != null && cached.mCapacity >= argumentCount) {
+            sThreadSlot.set(null);
+            cached.init(query, argumentCount);
+            return cached;
+        }
         synchronized (sQueryPool) {
             final Map.Entry<Integer, RoomSQLiteQuery> entry =
                 sQueryPool.ceilingEntry(argumentCount);
@@ -147,6 +159,10 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public void release() {
+        if (mCapacity <= THREAD_SLOT_CAPACITY && sThreadSlot.get() == null) {
+            sThreadSlot.set(this);
+            return;
+        }
         synchronized (sQueryPool) {
             sQueryPool.put(mCapacity, this);
             prunePoolLocked();
@@ -37,6 +37,7 @@ public abstract class SharedSQLiteStatement {
 
     private final RoomDatabase mDatabase;
     private volatile SupportSQLiteStatement mStmt;
+    private volatile String mQuery;
 
 
     /**
@@ -63,12 +64,25 @@ public abstract class SharedSQLiteStatement {
     }
 
 
+    RoomDatabase getDatabase() {
+        return mDatabase;
+    }
+
+
     private SupportSQLiteStatement createNewStatement() {
         String query = createQuery();
         return mDatabase.compileStatement(query);
     }
 
 
+    private String getQuery() {
+        if (mQuery == null) {
+            mQuery = createQuery();
+        }
+        return mQuery;
+    }
+
+
     private SupportSQLiteStatement getStmt(boolean canUseCached) {
         final SupportSQLiteStatement stmt;
         if (canUseCached) {
@@ -77,8 +91,8 @@ public abstract class SharedSQLiteStatement {
             }
             stmt = mStmt;
         } else {
-            // it is in use, create a one off statement
-            stmt = createNewStatement();
+            // it is in use, take one from the statement cache of this thread
+            stmt = mDatabase.getStatementCache().acquire(getQuery());
         }
         return stmt;
     }
@@ -101,6 +115,8 @@ public abstract class SharedSQLiteStatement {
     public void release(SupportSQLiteStatement statement) {
         if (statement == mStmt) {
             mLock.set(false);
+        } else {
+            mDatabase.getStatementCache().release(getQuery(), statement);
         }
     }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package alpha1.android.arch.persistence.room;
+
+import alpha1.android.arch.persistence.db.SupportSQLiteStatement;
+import android.support.annotation.RestrictTo;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded LRU cache of compiled statements, keyed by SQL.
+ * <p>
+ * Every thread owns its own cache, so a statement is never shared between threads and acquiring
+ * one needs no lock. A statement is checked out by {@link #acquire(String)} and put back by
+ * {@link #release(String, SupportSQLiteStatement)}; acquiring the same SQL again before releasing
+ * it (e.g. re-entry) compiles a new statement.
+ * <p>
+ * The cache only avoids re-compiling the Java side statement. On WAL connections the framework
+ * additionally keeps the native prepared statements per connection, so concurrent readers each
+ * re-use their own.
+ *
+ * @hide
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" })
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class StatementCache {
+    /**
+     * Default number of statements kept per thread, same as the framework's SQL cache size.
+     */
+    public static final int DEFAULT_MAX_SIZE = 25;
+
+    private final RoomDatabase mDatabase;
+    private final int mMaxSize;
+    // every thread cache, so clear() can close their statements. Weak since a dead thread
+    // drops its cache, ThreadStatements uses identity equality.
+    private final Set<ThreadStatements> mAllThreadStatements =
+        Collections.newSetFromMap(new WeakHashMap<ThreadStatements, Boolean>());
+    // the values do not reference this cache, so a thread outliving the database does not keep
+    // it reachable once clear() closed its statements.
+    private final ThreadLocal<ThreadStatements> mThreadStatements = new ThreadLocal<>();
+    // bumped by clear(), thread caches of an older generation are dropped on next access.
+    private volatile int mGeneration = 0;
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mEvictionCount = new AtomicLong();
+
+
+    /**
+     * Creates a statement cache for the given database.
+     *
+     * @param database The database that compiles the statements.
+     * @param maxSize The number of statements kept per thread.
+     */
+    public StatementCache(RoomDatabase database, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Statement cache size must be positive");
+        }
+        mDatabase = database;
+        mMaxSize = maxSize;
+    }
+
+
+    /**
+     * Returns a compiled statement for the given SQL, from the cache of the current thread if
+     * possible. Must call {@link #release(String, SupportSQLiteStatement)} once done.
+     *
+     * @param sql The SQL to compile.
+     * @return A statement that is owned by the caller until released.
+     */
+    public SupportSQLiteStatement acquire(String sql) {
+        final ThreadStatements statements = currentStatements();
+        final SupportSQLiteStatement statement;
+        synchronized (statements) {
+            statement = statements.mStatements.remove(sql);
+        }
+        if (statement != null) {
+            mHitCount.incrementAndGet();
+            return statement;
+        }
+        mMissCount.incrementAndGet();
+        return mDatabase.compileStatement(sql);
+    }
+
+
+    /**
+     * Puts the statement back in the cache of the current thread.
+     *
+     * @param sql The SQL the statement was acquired with.
+     * @param statement The statement returned from {@link #acquire(String)}.
+     */
+    public void release(String sql, SupportSQLiteStatement statement) {
+        statement.clearBindings();
+        final ThreadStatements statements = currentStatements();
+        final SupportSQLiteStatement previous;
+        SupportSQLiteStatement eldest = null;
+        synchronized (statements) {
+            previous = statements.mStatements.put(sql, statement);
+            if (statements.mStatements.size() > mMaxSize) {
+                final Iterator<SupportSQLiteStatement> iterator =
+                    statements.mStatements.values().iterator();
+                eldest = iterator.next();
+                iterator.remove();
+            }
+        }
+        // the same SQL was acquired twice, keep the one released last
+        if (previous != null && previous != statement) {
+            previous.close();
+        }
+        if (eldest != null) {
+            mEvictionCount.incrementAndGet();
+            eldest.close();
+        }
+    }
+
+
+    /**
+     * Closes and drops all cached statements of every thread. Called when the database is closed
+     * since the statements are not usable anymore.
+     * <p>
+     * Statements that are checked out are not affected, they are dropped on the next access of
+     * their thread.
+     */
+    public void clear() {
+        mGeneration++;
+        final List<ThreadStatements> allStatements;
+        synchronized (mAllThreadStatements) {
+            allStatements = new ArrayList<>(mAllThreadStatements);
+        }
+        for (ThreadStatements statements : allStatements) {
+            statements.closeAll();
+        }
+    }
+
+
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+
+    public long getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+
+    private ThreadStatements currentStatements() {
+        ThreadStatements statements = mThreadStatements.get();
+        final int generation = mGeneration;
+        if (statements == null) {
+            statements = new ThreadStatements(generation);
+            synchronized (mAllThreadStatements) {
+                mAllThreadStatements.add(statements);
+            }
+            mThreadStatements.set(statements);
+        } else if (statements.mGeneration != generation) {
+            statements.closeAll();
+            statements.mGeneration = generation;
+        }
+        return statements;
+    }
+
+
+    /**
+     * Access ordered statements of a single thread. Guarded by itself, only clear() touches it
+     * from another thread.
+     */
+    private static final class ThreadStatements {
+        final LinkedHashMap<String, SupportSQLiteStatement> mStatements;
+        int mGeneration;
+
+
+        ThreadStatements(int generation) {
+            mStatements = new LinkedHashMap<>(16, 0.75f, true);
+            mGeneration = generation;
+        }
+
+
+        void closeAll() {
+            final List<SupportSQLiteStatement> statements;
+            synchronized (this) {
+                statements = new ArrayList<>(mStatements.values());
+                mStatements.clear();
+            }
+            for (SupportSQLiteStatement statement : statements) {
+                statement.close();
+            }
+        }
+    }
+}
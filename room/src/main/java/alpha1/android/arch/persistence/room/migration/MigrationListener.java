@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alpha1.android.arch.persistence.room.migration;
+
+import java.util.Set;
+
+/**
+ * Receives the timings of a database upgrade or downgrade.
+ * <p>
+ * All methods are called on the thread that opens the database, inside the migration transaction,
+ * so they should return quickly.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public abstract class MigrationListener {
+    /**
+     * Called after a single migration ran.
+     *
+     * @param migration The migration that ran.
+     * @param elapsedNanos The time the migration took, in nanoseconds.
+     */
+    public void onStepCompleted(Migration migration, long elapsedNanos) {
+
+    }
+
+
+    /**
+     * Called after the schema of the tables changed by the migrations was validated.
+     *
+     * @param changedTables The names of the tables whose schema the migrations created or
+     * changed.
+     * @param elapsedNanos The time the validation took, in nanoseconds.
+     */
+    public void onValidationCompleted(Set<String> changedTables, long elapsedNanos) {
+
+    }
+
+
+    /**
+     * Called after the whole migration path ran and was validated.
+     *
+     * @param startVersion The version of the database before the migration.
+     * @param endVersion The version of the database after the migration.
+     * @param elapsedNanos The time the whole migration took, in nanoseconds.
+     */
+    public void onMigrationCompleted(int startVersion, int endVersion, long elapsedNanos) {
+
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alpha1.android.arch.persistence.room.migration;
+
+import alpha1.android.arch.persistence.db.SupportSQLiteDatabase;
+import alpha1.android.arch.persistence.db.SupportSQLiteStatement;
+import alpha1.android.arch.persistence.room.util.StringUtil;
+import android.database.Cursor;
+
+/**
+ * Helpers for copy heavy migrations.
+ * <p>
+ * A table whose schema cannot be changed with {@code ALTER TABLE} is usually rebuilt by creating
+ * the new table under a temporary name, copying the rows, dropping the old table and renaming the
+ * new one:
+ * <pre>
+ * database.execSQL("CREATE TABLE `User_new` (...)");
+ * MigrationUtil.copyRows(database, "User", "User_new", "`id`, `name`", 10000);
+ * database.execSQL("DROP TABLE `User`");
+ * database.execSQL("ALTER TABLE `User_new` RENAME TO `User`");
+ * </pre>
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class MigrationUtil {
+    /**
+     * Default number of rows copied by a single statement.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+
+    private MigrationUtil() {
+    }
+
+
+    /**
+     * Copies the given columns of all rows from one table to another, in chunks of
+     * {@code chunkSize} rowids.
+     * <p>
+     * Copying in chunks keeps the memory used by a single statement bounded and lets a long copy
+     * be timed or interrupted between chunks. The source table must have a rowid, i.e. it must
+     * not be a {@code WITHOUT ROWID} table.
+     *
+     * @param database The database being migrated.
+     * @param fromTable The table to copy from.
+     * @param toTable The table to copy into.
+     * @param columns The comma separated list of columns to copy, which exist in both tables.
+     * @param chunkSize The number of rowids copied by a single statement.
+     * @return The number of copied rows.
+     */
+    public static long copyRows(SupportSQLiteDatabase database, String fromTable, String toTable,
+                                String columns, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        final long minRowId;
+        final long maxRowId;
+        final Cursor cursor = database.rawQuery(
+            "SELECT MIN(rowid), MAX(rowid) FROM `" + fromTable + "`", StringUtil.EMPTY_STRING_ARRAY);
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            if (!cursor.moveToFirst() || cursor.isNull(0)) {
+                // empty table
+                return 0;
+            }
+            minRowId = cursor.getLong(0);
+            maxRowId = cursor.getLong(1);
+        } finally {
+            cursor.close();
+        }
+        final SupportSQLiteStatement statement = database.compileStatement(
+            "INSERT INTO `" + toTable + "` (" + columns + ") SELECT " + columns
+                + " FROM `" + fromTable + "` WHERE rowid >= ? AND rowid <= ?");
+        long copied = 0;
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            for (long start = minRowId; start <= maxRowId; start += chunkSize) {
+                // written this way to not overflow near Long.MAX_VALUE.
+                final long end = maxRowId - start < chunkSize ? maxRowId : start + chunkSize - 1;
+                statement.bindLong(1, start);
+                statement.bindLong(2, end);
+                copied += statement.executeUpdateDelete();
+                if (end == maxRowId) {
+                    // the next start may overflow.
+                    break;
+                }
+            }
+        } finally {
+            statement.close();
+        }
+        return copied;
+    }
+}
@@ -9,5 +9,6 @@ public final class Const {
     public static final String SMART_ROUTER_PACKAGE = "com.camnter.smartrouter.manager";
     public static final String SMART_ROUTER_SUFFIX = "_SmartRouter";
     public static final String MANAGER_CLASS_SUFFIX = "RouterManagerClass";
+    public static final String REGISTRY_CLASS_NAME = "SmartRouterRegistry";
 
 }
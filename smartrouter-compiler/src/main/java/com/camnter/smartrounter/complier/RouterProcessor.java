@@ -64,14 +64,13 @@ import static com.camnter.smartrounter.complier.core.BaseProcessor.KEY_MODULE_NA
 public class RouterProcessor extends BaseProcessor {
 
     private Map<String, RouterClass> routerClassHashMap = new HashMap<>();
-
-
-    private String getPackageName(final TypeElement type) {
-        return this.elements
-            .getPackageOf(type)
-            .getQualifiedName()
-            .toString();
-    }
+    /**
+     * 所有轮次的 @RouterPath 共用，检查 :param 冲突
+     *
+     * key   = :param 之前的 host
+     * value = { :param, 声明它的 host }
+     */
+    private final Map<String, String[]> paramSegmentMap = new HashMap<>();
 
 
     /**
@@ -149,6 +148,7 @@ public class RouterProcessor extends BaseProcessor {
         for (Element element : roundEnv.getElementsAnnotatedWith(RouterPath.class)) {
             RouterClass routerClass = this.getAnnotatedClass(element);
             RouterPathAnnotation routerPathAnnotation = new RouterPathAnnotation(element);
+            routerPathAnnotation.checkParamConflict(this.paramSegmentMap);
             routerClass.addRouterHostAnnotation(routerPathAnnotation);
         }
     }
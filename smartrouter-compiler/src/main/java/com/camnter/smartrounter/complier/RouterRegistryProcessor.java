@@ -0,0 +1,180 @@
+package com.camnter.smartrounter.complier;
+
+import com.camnter.smartrounter.complier.core.BaseProcessor;
+import com.camnter.smartrouter.annotation.RouterField;
+import com.camnter.smartrouter.annotation.RouterPath;
+import com.camnter.smartrouter.utils.Const;
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+
+import static com.camnter.smartrounter.complier.RouterRegistryProcessor.KEY_GENERATE_REGISTRY;
+import static com.camnter.smartrounter.complier.core.BaseAnnotatedClass.createNonNullParameter;
+
+/**
+ * 生成 com.camnter.smartrouter.manager.SmartRouterRegistry
+ *
+ * 只在 app 模块开启（ generateRouterRegistry = true ）
+ *
+ * 在第一个没有 @RouterPath、@RouterField 的轮次（ 不会再生成新的 ???RouterManagerClass ）
+ * 不等到最后一轮，否则 javac 会警告最后一轮生成的文件不会被注解处理
+ * 1.遍历 com.camnter.smartrouter.manager 包下的所有类
+ * -  包括 依赖模块（ classpath ）中已经编译好的，和本模块之前几轮生成的
+ * 2.找到所有实现了 RouterIndex 的 ???RouterManagerClass
+ * 3.生成 SmartRouterRegistry，直接 new 这些类，然后调用 loadInto
+ *
+ * public final class SmartRouterRegistry implements RouterIndex {
+ * -   @Override
+ * -   public void loadInto(@NonNull final Map<Class<?>, Router> routers) {
+ * -       new AppRouterManagerClass().loadInto(routers);
+ * -       ...
+ * -   }
+ * }
+ *
+ * 运行时 SmartRouters.running(...) 直接加载 SmartRouterRegistry，不再扫描 dex
+ *
+ * app build.gradle
+ *
+ * javaCompileOptions {
+ *     annotationProcessorOptions {
+ *         arguments = [ moduleName : project.getName(), generateRouterRegistry : 'true' ]
+ *     }
+ * }
+ *
+ * @author CaMnter
+ */
+
+@SuppressWarnings("DanglingJavadoc")
+@AutoService(Processor.class)
+@SupportedOptions(KEY_GENERATE_REGISTRY)
+public class RouterRegistryProcessor extends BaseProcessor {
+
+    public static final String KEY_GENERATE_REGISTRY = "generateRouterRegistry";
+
+    private boolean generated;
+
+
+    /**
+     * 每一轮都需要被调用，哪怕 app 模块没有 @RouterPath
+     *
+     * @return Set
+     */
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton("*");
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // 不消费任何注解，让其他 processor 继续处理
+        if (this.generated ||
+            !Boolean.parseBoolean(this.processingEnv.getOptions().get(KEY_GENERATE_REGISTRY))) {
+            return false;
+        }
+        // 这一轮还会生成 ???RouterManagerClass，等下一轮；兜底：最后一轮一定生成
+        if (generatesManagers(annotations) && !roundEnv.processingOver()) {
+            return false;
+        }
+        this.generated = true;
+        try {
+            this.registryJavaFile().writeTo(this.filer);
+        } catch (IOException e) {
+            this.e("[RouterRegistryProcessor]   [process]   [IOException] = %1$s",
+                e.getMessage());
+        }
+        return false;
+    }
+
+
+    /**
+     * 这一轮有没有会生成 ???RouterManagerClass 的注解
+     *
+     * @param annotations annotations of this round
+     * @return true if RouterProcessor generates files
+     */
+    private static boolean generatesManagers(Set<? extends TypeElement> annotations) {
+        for (TypeElement annotation : annotations) {
+            final String name = annotation.getQualifiedName().toString();
+            if (RouterPath.class.getCanonicalName().equals(name) ||
+                RouterField.class.getCanonicalName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private JavaFile registryJavaFile() {
+        final Set<String> managerClassNames = new TreeSet<>();
+        final TypeElement routerIndexElement = this.elements.getTypeElement(
+            RouterType.ROUTER_INDEX.toString());
+        final PackageElement managerPackage = this.elements.getPackageElement(
+            Const.SMART_ROUTER_PACKAGE);
+        if (routerIndexElement != null && managerPackage != null) {
+            for (Element element : managerPackage.getEnclosedElements()) {
+                if (element.getKind() != ElementKind.CLASS ||
+                    !this.types.isAssignable(element.asType(), routerIndexElement.asType())) {
+                    continue;
+                }
+                final String simpleName = element.getSimpleName().toString();
+                if (!Const.REGISTRY_CLASS_NAME.equals(simpleName)) {
+                    managerClassNames.add(simpleName);
+                }
+            }
+        }
+
+        // public void loadInto(@NonNull final Map<Class<?>, Router> routers)
+        final TypeName routersTypeName = ParameterizedTypeName.get(
+            ClassName.get(Map.class),
+            ParameterizedTypeName.get(ClassName.get(Class.class),
+                WildcardTypeName.subtypeOf(Object.class)),
+            RouterType.ROUTER
+        );
+        final MethodSpec.Builder loadIntoMethodBuilder = MethodSpec
+            .methodBuilder("loadInto")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.VOID)
+            .addParameter(createNonNullParameter(routersTypeName, "routers", Modifier.FINAL));
+        for (String managerClassName : managerClassNames) {
+            loadIntoMethodBuilder.addStatement("new $T().loadInto(routers)",
+                ClassName.get(Const.SMART_ROUTER_PACKAGE, managerClassName));
+        }
+
+        this.i("[RouterRegistryProcessor]   [registryJavaFile]   [managerClassNames] = %1$s",
+            managerClassNames);
+
+        final TypeSpec registryClass = TypeSpec
+            .classBuilder(Const.REGISTRY_CLASS_NAME)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addSuperinterface(RouterType.ROUTER_INDEX)
+            .addJavadoc("Generated code from SmartRouter. Do not modify !\n\n")
+            .addJavadoc("@author CaMnter\n")
+            .addMethod(loadIntoMethodBuilder.build())
+            .build();
+        return JavaFile.builder(Const.SMART_ROUTER_PACKAGE, registryClass).build();
+    }
+
+}
@@ -10,6 +10,7 @@ public interface RouterType {
 
     // SmartRouter
     ClassName ROUTER = ClassName.get("com.camnter.smartrouter.core", "Router");
+    ClassName ROUTER_INDEX = ClassName.get("com.camnter.smartrouter.core", "RouterIndex");
     ClassName SMART_ROUTERS = ClassName.get("com.camnter.smartrouter", "SmartRouters");
     ClassName BASE_ACTIVITY_ROUTER = ClassName.get("com.camnter.smartrouter", "BaseActivityRouter");
 
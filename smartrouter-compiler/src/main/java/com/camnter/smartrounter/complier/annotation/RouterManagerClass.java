@@ -1,13 +1,16 @@
 package com.camnter.smartrounter.complier.annotation;
 
+import com.camnter.smartrounter.complier.RouterType;
 import com.camnter.smartrounter.complier.core.BaseAnnotatedInterface;
 import com.camnter.smartrouter.utils.Const;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +47,7 @@ public class RouterManagerClass implements BaseAnnotatedInterface {
         TypeSpec routerManagerClass = TypeSpec
             .classBuilder(className)
             .addModifiers(Modifier.PUBLIC)
+            .addSuperinterface(RouterType.ROUTER_INDEX)
             .addJavadoc("Generated code from SmartRouter. Do not modify !\n\n")
             .addJavadoc("@author CaMnter\n")
             /*
@@ -57,6 +61,8 @@ public class RouterManagerClass implements BaseAnnotatedInterface {
             .addMethods(this.getSmartRouterMethod())
             // public static void loadingClass()
             .addMethods(this.loadingClassMethod())
+            // public void loadInto(@NonNull final Map<Class<?>, Router> routers)
+            .addMethod(this.loadIntoMethod())
             .build();
 
         return JavaFile.builder(PACKAGE_NAME, routerManagerClass).build();
@@ -134,4 +140,37 @@ public class RouterManagerClass implements BaseAnnotatedInterface {
         return loadingClassMethods;
     }
 
+
+    /**
+     * public void loadInto(@NonNull final Map<Class<?>, Router> routers) {
+     * -   routers.put(Activity.class, new Activity_SmartRouter(""));
+     * -   ...
+     * }
+     *
+     * @return MethodSpec
+     */
+    private MethodSpec loadIntoMethod() {
+        final TypeName routersTypeName = ParameterizedTypeName.get(
+            ClassName.get(Map.class),
+            ParameterizedTypeName.get(ClassName.get(Class.class),
+                WildcardTypeName.subtypeOf(Object.class)),
+            RouterType.ROUTER
+        );
+        final MethodSpec.Builder loadIntoMethodBuilder = MethodSpec
+            .methodBuilder("loadInto")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.VOID)
+            .addParameter(createNonNullParameter(routersTypeName, "routers", Modifier.FINAL));
+        for (RouterClass routerClass : this.routerClassHashMap.values()) {
+            final ClassName targetTypeName = ClassName.get(routerClass.getPackageName(),
+                routerClass.getSimpleName());
+            final ClassName routerTypeName = ClassName.get(routerClass.getPackageName(),
+                routerClass.getSimpleName() + Const.SMART_ROUTER_SUFFIX);
+            loadIntoMethodBuilder.addStatement("routers.put($T.class, new $T($S))",
+                targetTypeName, routerTypeName, "");
+        }
+        return loadIntoMethodBuilder.build();
+    }
+
 }
@@ -1,6 +1,7 @@
 package com.camnter.smartrounter.complier.annotation;
 
 import com.camnter.smartrouter.annotation.RouterPath;
+import java.util.Map;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Name;
@@ -36,6 +37,72 @@ public class RouterPathAnnotation {
                     element.getSimpleName())
             );
         }
+        for (String host : this.host) {
+            this.checkPattern(host);
+        }
+    }
+
+
+    /**
+     * host pattern, such as "user/:id" or "web/*"
+     * the :param segment must have a name, and the * segment must be the last one
+     *
+     * @param host host
+     */
+    private void checkPattern(String host) {
+        final String[] segments = host.split("/");
+        for (int i = 0; i < segments.length; i++) {
+            final String segment = segments[i];
+            if ((":".equals(segment)) ||
+                ("*".equals(segment) && i != segments.length - 1)) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "value() [%1$s] in [%2$s] for class [%3$s] is not a valid pattern",
+                        host,
+                        RouterPath.class.getSimpleName(),
+                        this.element.getSimpleName())
+                );
+            }
+        }
+    }
+
+
+    /**
+     * RouteTrie 中，同一个父节点下只有一个 :param 节点
+     * 所以同一层的 :param，name 必须和其他 @RouterPath 的一致，如 user/:id 和 user/:uid/detail 冲突
+     *
+     * @param paramSegmentMap :param 之前的 host（ :param 统一记为 : ） --> { :param, 声明它的 host }
+     */
+    public void checkParamConflict(Map<String, String[]> paramSegmentMap) {
+        for (String host : this.host) {
+            final StringBuilder parent = new StringBuilder();
+            // 和 RouteTrie 一样跳过空段
+            for (String segment : host.split("/")) {
+                if (segment.isEmpty()) continue;
+                if (segment.startsWith(":")) {
+                    final String key = parent.toString();
+                    final String[] declared = paramSegmentMap.get(key);
+                    if (declared == null) {
+                        paramSegmentMap.put(key, new String[] { segment, host });
+                    } else if (!declared[0].equals(segment)) {
+                        throw new IllegalArgumentException(
+                            String.format(
+                                "value() [%1$s] in [%2$s] for class [%3$s] conflicts with [%4$s], " +
+                                    "the param segment [%5$s] and [%6$s] must have the same name",
+                                host,
+                                RouterPath.class.getSimpleName(),
+                                this.element.getSimpleName(),
+                                declared[1],
+                                segment,
+                                declared[0])
+                        );
+                    }
+                    parent.append("/:");
+                } else {
+                    parent.append('/').append(segment);
+                }
+            }
+        }
     }
 
 
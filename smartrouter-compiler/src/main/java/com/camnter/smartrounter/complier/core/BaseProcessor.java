@@ -2,40 +2,28 @@ package com.camnter.smartrounter.complier.core;
 
 import java.util.Map;
 import java.util.Set;
-import javax.annotation.processing.AbstractProcessor;
-import javax.annotation.processing.Filer;
-import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
-import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
-import javax.lang.model.util.Elements;
-import javax.tools.Diagnostic;
 
 /**
+ * 在 annotation-processor-common 的 BaseProcessor 基础上，多了 moduleName
+ *
  * @author CaMnter
  */
 
-public abstract class BaseProcessor extends AbstractProcessor {
+public abstract class BaseProcessor
+    extends com.camnter.annotation.processor.common.BaseProcessor {
 
     public static final String KEY_MODULE_NAME = "moduleName";
 
-    protected ProcessingEnvironment processingEnvironment;
-
-    protected Filer filer;
-    protected Elements elements;
-    protected Messager messager;
     protected String moduleName;
 
 
     @Override
     public synchronized void init(ProcessingEnvironment processingEnvironment) {
         super.init(processingEnvironment);
-        this.processingEnvironment = processingEnvironment;
-        this.filer = processingEnvironment.getFiler();
-        this.elements = processingEnvironment.getElementUtils();
-        this.messager = processingEnvironment.getMessager();
 
         final Map<String, String> optionsMap = this.processingEnv.getOptions();
         final Set<String> keySet = optionsMap.keySet();
@@ -54,27 +42,6 @@ public abstract class BaseProcessor extends AbstractProcessor {
     }
 
 
-    @Override
-    public SourceVersion getSupportedSourceVersion() {
-        return SourceVersion.latestSupported();
-    }
-
-
-    public void e(String messageFormat, Object... args) {
-        this.messager.printMessage(Diagnostic.Kind.ERROR, String.format(messageFormat, args));
-    }
-
-
-    public void i(String messageFormat, Object... args) {
-        this.messager.printMessage(Diagnostic.Kind.NOTE, String.format(messageFormat, args));
-    }
-
-
-    public void w(String messageFormat, Object... args) {
-        this.messager.printMessage(Diagnostic.Kind.WARNING, String.format(messageFormat, args));
-    }
-
-
     protected String getAnnotatedClassFullName(Element element) {
         final ElementKind elementKind = element.getKind();
         switch (elementKind) {
@@ -103,12 +70,4 @@ public abstract class BaseProcessor extends AbstractProcessor {
         }
     }
 
-
-    private String getPackageName(Element element) {
-        return this.elements
-            .getPackageOf(element)
-            .getQualifiedName()
-            .toString();
-    }
-
 }
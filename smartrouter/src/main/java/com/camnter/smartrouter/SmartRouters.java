@@ -9,26 +9,44 @@ import android.net.Uri;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
+import android.util.Log;
 import com.camnter.smartrouter.core.Filter;
+import com.camnter.smartrouter.core.RouteTrie;
 import com.camnter.smartrouter.core.Router;
+import com.camnter.smartrouter.core.RouterIndex;
 import com.camnter.smartrouter.utils.ClassUtils;
 import com.camnter.smartrouter.utils.Const;
 import java.lang.reflect.Constructor;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * ROUTER_MAP、REGISTER_MAP 以 Activity class 为 key，_SmartRouter 无状态，数量等于 @RouterPath 类的数量
+ *
+ * setFieldValue(...) 查找 _SmartRouter：
+ * 1.ROUTER_MAP，addIndex(...) 的索引 和 之前找到的 _SmartRouter 都在这里
+ * 2.REGISTER_MAP，_SmartRouter 加载时自己注册的，或者手动 register(...) 的
+ * 3.都没有，再 Class.forName 反射实例化
+ *
  * @author CaMnter
  */
 
 public final class SmartRouters {
 
-    private static final Map<String, Router> ROUTER_MAP = new HashMap<>();
-    private static final Map<Class<? extends Activity>, Router> REGISTER_MAP = new HashMap<>();
+    private static final Map<Class<?>, Router> ROUTER_MAP = new ConcurrentHashMap<>();
+    private static final Map<Class<? extends Activity>, Router> REGISTER_MAP
+        = new ConcurrentHashMap<>();
     private static final Map<String, Class<? extends Activity>> ACTIVITY_CLASS_MAP
-        = new HashMap<>();
+        = new ConcurrentHashMap<>();
+    // host with :param or * segments, such as "user/:id"
+    private static final RouteTrie<Class<? extends Activity>> ROUTE_TRIE = new RouteTrie<>();
+    private static final String SCHEME_SEPARATOR = "://";
+    private static final String TAG = SmartRouters.class.getSimpleName();
     private static boolean LOADING_HISTORY_MARK = false;
+    private static boolean LOADED_BY_REGISTRY = false;
+    private static long RUNNING_COST_MILLIS;
     private static String SCHEME = "routers";
     private static String HOST = "";
     private static Filter FILTER;
@@ -76,58 +94,153 @@ public final class SmartRouters {
     }
 
 
+    /**
+     * 1.有 SmartRouterRegistry（ app 模块开启了 generateRouterRegistry ），一次 Class.forName 注册全部
+     * 2.没有的话，扫描 dex，Class.forName 每个 ???RouterManagerClass
+     */
     public static void running(@NonNull final Application application, @Nullable final String scheme) {
         APPLICATION = application;
         SCHEME = scheme;
         if (!LOADING_HISTORY_MARK) {
+            final long startTime = System.nanoTime();
             try {
-                final List<String> classFileNames = ClassUtils.getFileNameByPackageName(
-                    application,
-                    Const.SMART_ROUTER_PACKAGE
-                );
-                for (String className : classFileNames) {
-                    if (className.endsWith(Const.MANAGER_CLASS_SUFFIX)) {
-                        Class.forName(className);
-                    }
+                LOADED_BY_REGISTRY = loadRegistry();
+                if (!LOADED_BY_REGISTRY) {
+                    loadByScanning(application);
                 }
                 LOADING_HISTORY_MARK = true;
             } catch (Exception e) {
                 e.printStackTrace();
             }
+            RUNNING_COST_MILLIS = (System.nanoTime() - startTime) / 1000000;
+            Log.i(TAG, "[SmartRouters]   [running]   [cost] = " + RUNNING_COST_MILLIS +
+                " ms, load by [" + (LOADED_BY_REGISTRY ? "registry" : "scanning") + "]");
         }
     }
 
 
+    /**
+     * 加载编译时生成的 SmartRouterRegistry
+     * new ???RouterManagerClass 会注册它的 _SmartRouter，loadInto 放入 ROUTER_MAP
+     *
+     * @return true if the registry exists
+     */
+    private static boolean loadRegistry() throws Exception {
+        final Class<?> registryClass;
+        try {
+            registryClass = Class.forName(
+                Const.SMART_ROUTER_PACKAGE + "." + Const.REGISTRY_CLASS_NAME);
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+        addIndex((RouterIndex) registryClass.newInstance());
+        return true;
+    }
+
+
+    /**
+     * 扫描 dex，Class.forName com.camnter.smartrouter.manager 包下的 ???RouterManagerClass
+     */
+    private static void loadByScanning(@NonNull final Application application) throws Exception {
+        final List<String> classFileNames = ClassUtils.getFileNameByPackageName(
+            application,
+            Const.SMART_ROUTER_PACKAGE
+        );
+        for (String className : classFileNames) {
+            if (className.endsWith(Const.MANAGER_CLASS_SUFFIX)) {
+                Class.forName(className);
+            }
+        }
+    }
+
+
+    /**
+     * 上一次 running 的耗时（ 毫秒 ）
+     *
+     * @return running cost
+     */
+    public static long getRunningCostMillis() {
+        return RUNNING_COST_MILLIS;
+    }
+
+
+    /**
+     * 上一次 running 是否通过 SmartRouterRegistry 加载，而不是扫描 dex
+     *
+     * @return true if loaded by registry
+     */
+    public static boolean isLoadedByRegistry() {
+        return LOADED_BY_REGISTRY;
+    }
+
+
+    /**
+     * 注册 RouterProcessor 生成的索引
+     *
+     * @param index ???RouterManagerClass
+     */
+    public static void addIndex(@NonNull final RouterIndex index) {
+        index.loadInto(ROUTER_MAP);
+    }
+
+
     @SuppressWarnings("unchecked")
     public static void setFieldValue(@NonNull final Activity activity) {
-        final String targetFullName = activity.getClass().getName();
-        Router router = ROUTER_MAP.get(targetFullName);
+        final Class<?> activityClass = activity.getClass();
         try {
+            final Router router = getRouter(activityClass);
+            if (router != null) {
+                router.setFieldValue(activity);
+            }
+        } catch (Exception e) {
+            new Throwable("[SmartRouters]   [setFieldValue]   " + activityClass.getName(), e)
+                .printStackTrace();
+        }
+    }
+
+
+    @Nullable
+    private static Router getRouter(@NonNull final Class<?> activityClass) {
+        Router router = ROUTER_MAP.get(activityClass);
+        if (router != null) {
+            return router;
+        }
+        // finding by register map
+        router = REGISTER_MAP.get(activityClass);
+        if (router == null) {
             // finding by _SmartRouter
-            if (router == null) {
-                Class<?> routerClass = Class.forName(targetFullName + Const.SMART_ROUTER_SUFFIX);
-                Constructor constructor = routerClass.getDeclaredConstructor(String.class);
+            try {
+                final Class<?> routerClass = Class.forName(
+                    activityClass.getName() + Const.SMART_ROUTER_SUFFIX, true,
+                    activityClass.getClassLoader());
+                final Constructor constructor = routerClass.getDeclaredConstructor(String.class);
                 constructor.setAccessible(true);
                 router = (Router) constructor.newInstance("");
-                ROUTER_MAP.put(targetFullName, router);
-            }
-            router.setFieldValue(activity);
-        } catch (Exception e) {
-            // finding by register map
-            router = REGISTER_MAP.get(activity.getClass());
-            if (router != null) {
-                router.setFieldValue(activity);
-                return;
+            } catch (Exception e) {
+                new Throwable("[SmartRouters]   [getRouter]   " + activityClass.getName(), e)
+                    .printStackTrace();
+                return null;
             }
-            new Throwable("[SmartRouters]   [running]   " + targetFullName, e).printStackTrace();
         }
+        ROUTER_MAP.put(activityClass, router);
+        return router;
     }
 
 
     @SuppressWarnings("unchecked")
     public static void register(@NonNull final Router register) {
         REGISTER_MAP.put(register.getTargetActivityClass(), register);
-        register.register(ACTIVITY_CLASS_MAP);
+        final Map<String, Class<? extends Activity>> routerMapping = new HashMap<>();
+        register.register(routerMapping);
+        ACTIVITY_CLASS_MAP.putAll(routerMapping);
+        for (Map.Entry<String, Class<? extends Activity>> entry : routerMapping.entrySet()) {
+            final String url = entry.getKey();
+            final int index = url.indexOf(SCHEME_SEPARATOR);
+            final String host = index < 0 ? url : url.substring(index + SCHEME_SEPARATOR.length());
+            if (RouteTrie.isPattern(host)) {
+                ROUTE_TRIE.insert(host, entry.getValue());
+            }
+        }
     }
 
 
@@ -155,6 +268,41 @@ public final class SmartRouters {
     }
 
 
+    /**
+     * exact mapping first, then the route trie, the :param values are appended to the uri
+     * as query parameters, so _SmartRouter # setFieldValue can read them
+     */
+    @Nullable
+    private static Intent createIntent(@NonNull final Context context,
+                                       @NonNull final String url) {
+        Uri uri = Uri.parse(url);
+        Class<? extends Activity> clazz = getActivityClass(url, uri);
+        if (clazz == null) {
+            final int index = url.indexOf(SCHEME_SEPARATOR);
+            if (index < 0 || ROUTE_TRIE.isEmpty() || !SCHEME.equals(uri.getScheme())) {
+                return null;
+            }
+            final int queryIndex = url.indexOf('?');
+            final String path = queryIndex > 0 ? url.substring(0, queryIndex) : url;
+            final Map<String, String> params = new HashMap<>();
+            clazz = ROUTE_TRIE.match(path, index + SCHEME_SEPARATOR.length(), params);
+            if (clazz == null) {
+                return null;
+            }
+            if (!params.isEmpty()) {
+                final Uri.Builder builder = uri.buildUpon();
+                for (Map.Entry<String, String> entry : params.entrySet()) {
+                    builder.appendQueryParameter(entry.getKey(), entry.getValue());
+                }
+                uri = builder.build();
+            }
+        }
+        final Intent intent = new Intent(context, clazz);
+        intent.setData(uri);
+        return intent;
+    }
+
+
     public static boolean start(@NonNull final Context context,
                                 @NonNull final String url) {
         if (TextUtils.isEmpty(url)) {
@@ -170,15 +318,12 @@ public final class SmartRouters {
             return false;
         }
 
-        final Uri uri = Uri.parse(url);
-        Class clazz = getActivityClass(url, uri);
-        if (clazz == null) {
+        final Intent intent = createIntent(context, url);
+        if (intent == null) {
             new Throwable(url + " can't start").printStackTrace();
             return false;
         }
 
-        Intent intent = new Intent(context, clazz);
-        intent.setData(uri);
         if (!(context instanceof Activity)) {
             intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
         }
@@ -200,15 +345,12 @@ public final class SmartRouters {
             }
         }
 
-        final Uri uri = Uri.parse(url);
-        Class clazz = getActivityClass(url, uri);
-        if (clazz == null) {
+        final Intent intent = createIntent(activity, url);
+        if (intent == null) {
             new Throwable(url + "can't startForResult").printStackTrace();
             return false;
         }
 
-        Intent intent = new Intent(activity, clazz);
-        intent.setData(uri);
         activity.startActivityForResult(intent, requestCode);
         return true;
     }
@@ -227,15 +369,12 @@ public final class SmartRouters {
             }
         }
 
-        final Uri uri = Uri.parse(url);
-        Class clazz = getActivityClass(url, uri);
-        if (clazz == null) {
+        final Intent intent = createIntent(fragment.getActivity(), url);
+        if (intent == null) {
             new Throwable(url + "can't startForResult").printStackTrace();
             return false;
         }
 
-        Intent intent = new Intent(fragment.getActivity(), clazz);
-        intent.setData(uri);
         fragment.startActivityForResult(intent, requestCode);
         return true;
     }
@@ -254,15 +393,12 @@ public final class SmartRouters {
             }
         }
 
-        final Uri uri = Uri.parse(url);
-        Class clazz = getActivityClass(url, uri);
-        if (clazz == null) {
+        final Intent intent = createIntent(fragment.getActivity(), url);
+        if (intent == null) {
             new Throwable(url + "can't startForResult").printStackTrace();
             return false;
         }
 
-        Intent intent = new Intent(fragment.getActivity(), clazz);
-        intent.setData(uri);
         fragment.startActivityForResult(intent, requestCode);
         return true;
     }
@@ -0,0 +1,177 @@
+package com.camnter.smartrouter.core;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Segment trie of router paths, such as "user/:id" or "web/*"
+ *
+ * literal segment > :param segment > * segment, match costs O(segments)
+ * and only allocates the values of :param segments when params is not null
+ *
+ * @author CaMnter
+ */
+
+public final class RouteTrie<V> {
+
+    private static final char SEPARATOR = '/';
+    private static final char PARAM = ':';
+    private static final String WILDCARD = "*";
+
+    private final Node<V> root = new Node<>("");
+    private volatile int size;
+
+
+    public static boolean isPattern(@Nullable final String path) {
+        return path != null && (path.startsWith(":") || path.startsWith("*") ||
+            path.contains("/:") || path.contains("/*"));
+    }
+
+
+    public synchronized void insert(@NonNull final String pattern, @NonNull final V value) {
+        Node<V> node = this.root;
+        int start = nextSegment(pattern, 0);
+        while (start < pattern.length()) {
+            final int end = segmentEnd(pattern, start);
+            node = node.child(pattern.substring(start, end));
+            if (WILDCARD.equals(node.segment)) {
+                break;
+            }
+            start = nextSegment(pattern, end);
+        }
+        if (node.value == null) {
+            this.size++;
+        }
+        node.value = value;
+    }
+
+
+    @Nullable
+    public V match(@NonNull final String path, @Nullable final Map<String, String> params) {
+        return this.match(path, 0, params);
+    }
+
+
+    /**
+     * match path.substring(offset) without creating it
+     */
+    @Nullable
+    public V match(@NonNull final String path,
+                   final int offset,
+                   @Nullable final Map<String, String> params) {
+        if (this.size == 0) {
+            return null;
+        }
+        return this.match(this.root, path, nextSegment(path, offset), params);
+    }
+
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+
+    private V match(@NonNull final Node<V> node,
+                    @NonNull final String path,
+                    final int start,
+                    @Nullable final Map<String, String> params) {
+        if (start >= path.length()) {
+            return node.value;
+        }
+        final int end = segmentEnd(path, start);
+        final int length = end - start;
+        final int next = nextSegment(path, end);
+
+        for (Node<V> literal : node.literals) {
+            if (literal.segment.length() == length &&
+                path.regionMatches(start, literal.segment, 0, length)) {
+                final V value = this.match(literal, path, next, params);
+                if (value != null) {
+                    return value;
+                }
+                break;
+            }
+        }
+
+        final Node<V> param = node.param;
+        if (param != null) {
+            final V value = this.match(param, path, next, params);
+            if (value != null) {
+                if (params != null) {
+                    params.put(param.segment.substring(1), path.substring(start, end));
+                }
+                return value;
+            }
+        }
+
+        final Node<V> wildcard = node.wildcard;
+        return wildcard == null ? null : wildcard.value;
+    }
+
+
+    private static int nextSegment(@NonNull final String path, int index) {
+        while (index < path.length() && path.charAt(index) == SEPARATOR) {
+            index++;
+        }
+        return index;
+    }
+
+
+    private static int segmentEnd(@NonNull final String path, final int start) {
+        final int end = path.indexOf(SEPARATOR, start);
+        return end < 0 ? path.length() : end;
+    }
+
+
+    private static final class Node<V> {
+
+        @NonNull
+        final String segment;
+        @SuppressWarnings("unchecked")
+        volatile Node<V>[] literals = new Node[0];
+        volatile Node<V> param;
+        volatile Node<V> wildcard;
+        volatile V value;
+
+
+        Node(@NonNull final String segment) {
+            this.segment = segment;
+        }
+
+
+        @SuppressWarnings("unchecked")
+        Node<V> child(@NonNull final String segment) {
+            if (WILDCARD.equals(segment)) {
+                if (this.wildcard == null) {
+                    this.wildcard = new Node<>(segment);
+                }
+                return this.wildcard;
+            }
+            if (segment.length() > 1 && segment.charAt(0) == PARAM) {
+                if (this.param == null) {
+                    this.param = new Node<>(segment);
+                } else if (!this.param.segment.equals(segment)) {
+                    throw new IllegalArgumentException(
+                        "[RouteTrie]   [child]   conflict " + segment + " and " +
+                            this.param.segment);
+                }
+                return this.param;
+            }
+            for (Node<V> literal : this.literals) {
+                if (literal.segment.equals(segment)) {
+                    return literal;
+                }
+            }
+            final Node<V>[] old = this.literals;
+            final Node<V>[] copy = new Node[old.length + 1];
+            System.arraycopy(old, 0, copy, 0, old.length);
+            final Node<V> child = new Node<>(segment);
+            copy[old.length] = child;
+            this.literals = copy;
+            return child;
+        }
+
+    }
+
+}
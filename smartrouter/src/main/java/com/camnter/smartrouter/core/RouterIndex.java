@@ -0,0 +1,24 @@
+package com.camnter.smartrouter.core;
+
+import android.support.annotation.NonNull;
+import java.util.Map;
+
+/**
+ * 一个 module 的 _SmartRouter 索引，由 RouterProcessor 生成的 ???RouterManagerClass 实现
+ *
+ * SmartRouters.addIndex(new ???RouterManagerClass()) 之后，setFieldValue(...) 直接拿到 _SmartRouter，
+ * 不需要 Class.forName 和 反射构造方法
+ *
+ * @author CaMnter
+ */
+
+public interface RouterIndex {
+
+    /**
+     * 放入每个 Activity class 对应的 _SmartRouter
+     *
+     * @param routers Activity class --> _SmartRouter
+     */
+    void loadInto(@NonNull final Map<Class<?>, Router> routers);
+
+}
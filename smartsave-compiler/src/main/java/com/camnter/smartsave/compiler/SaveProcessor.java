@@ -1,5 +1,6 @@
 package com.camnter.smartsave.compiler;
 
+import com.camnter.annotation.processor.common.BaseProcessor;
 import com.camnter.smartsave.annotation.Save;
 import com.camnter.smartsave.annotation.SaveColor;
 import com.camnter.smartsave.annotation.SaveDimension;
@@ -8,17 +9,18 @@ import com.camnter.smartsave.compiler.annotation.AnnotatedClass;
 import com.camnter.smartsave.compiler.annotation.SaveColorField;
 import com.camnter.smartsave.compiler.annotation.SaveDimensionField;
 import com.camnter.smartsave.compiler.annotation.SaveField;
+import com.camnter.smartsave.compiler.annotation.SaveIndexClass;
 import com.camnter.smartsave.compiler.annotation.SaveOnClickMethod;
-import com.camnter.smartsave.compiler.core.BaseProcessor;
-import com.camnter.smartsave.compiler.scanner.ScannerManager;
 import com.google.auto.service.AutoService;
 import java.io.IOException;
-import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
@@ -32,14 +34,28 @@ import javax.lang.model.element.TypeElement;
 @AutoService(Processor.class)
 public class SaveProcessor extends BaseProcessor {
 
+    private static final String OPTION_INDEX = "smartsave.index";
+
     private Map<String, AnnotatedClass> annotatedClassHashMap = new HashMap<>();
+    private String indexName;
+    private boolean indexWritten;
+
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnvironment) {
+        super.init(processingEnvironment);
+        this.indexName = processingEnvironment.getOptions().get(OPTION_INDEX);
+    }
 
 
-    private String getPackageName(final TypeElement type) {
-        return this.elements
-            .getPackageOf(type)
-            .getQualifiedName()
-            .toString();
+    /**
+     * smartsave.index 索引类全名
+     *
+     * @return Set
+     */
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(OPTION_INDEX);
     }
 
 
@@ -61,18 +77,6 @@ public class SaveProcessor extends BaseProcessor {
     }
 
 
-    private Set<Class<? extends Annotation>> getSupportedAnnotations() {
-        return new LinkedHashSet<Class<? extends Annotation>>() {
-            {
-                this.add(Save.class);
-                this.add(SaveColor.class);
-                this.add(SaveOnClick.class);
-                this.add(SaveDimension.class);
-            }
-        };
-    }
-
-
     @Override
     public SourceVersion getSupportedSourceVersion() {
         return SourceVersion.latestSupported();
@@ -86,9 +90,6 @@ public class SaveProcessor extends BaseProcessor {
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         this.annotatedClassHashMap.clear();
         try {
-            ScannerManager scannerManager = ScannerManager.get(this.processingEnvironment);
-            scannerManager.scanForRClasses(roundEnv, this.getSupportedAnnotations());
-
             this.processSave(roundEnv);
             this.processSaveColor(roundEnv);
             this.processSaveOnClick(roundEnv);
@@ -109,10 +110,43 @@ public class SaveProcessor extends BaseProcessor {
                 return true;
             }
         }
+        if (this.indexName != null && !this.annotatedClassHashMap.isEmpty()) {
+            this.writeIndex();
+        }
         return true;
     }
 
 
+    /**
+     * 生成索引类，SmartSave.save(...) 直接 new 出 _Save，不需要反射
+     *
+     * 1.索引类在别的包内，只有 public 的 target 才能放进索引，其余的依然走反射
+     * 2.索引只能写一次，之后轮次的 target 走反射
+     */
+    private void writeIndex() {
+        if (this.indexWritten) {
+            this.i("[SaveProcessor]   [writeIndex]   not indexed = %1$s",
+                this.annotatedClassHashMap.keySet());
+            return;
+        }
+        this.indexWritten = true;
+
+        final List<AnnotatedClass> annotatedClasses = new ArrayList<>();
+        for (AnnotatedClass annotatedClass : this.annotatedClassHashMap.values()) {
+            if (annotatedClass.isPublic()) {
+                annotatedClasses.add(annotatedClass);
+            }
+        }
+        try {
+            this.i("[SaveProcessor]   [writeIndex]   [indexName] = %1$s", this.indexName);
+            new SaveIndexClass(this.indexName, annotatedClasses).getJavaFile()
+                .writeTo(this.filer);
+        } catch (IOException e) {
+            this.e("[SaveProcessor]   [writeIndex]   [IOException] = %1$s", e.getMessage());
+        }
+    }
+
+
     private void processSave(RoundEnvironment roundEnv) throws IllegalArgumentException {
         for (Element element : roundEnv.getElementsAnnotatedWith(Save.class)) {
             AnnotatedClass annotatedClass = this.getAnnotatedClass(element);
@@ -155,7 +189,7 @@ public class SaveProcessor extends BaseProcessor {
         String fullClassName = classElement.getQualifiedName().toString();
         AnnotatedClass annotatedClass = this.annotatedClassHashMap.get(fullClassName);
         if (annotatedClass == null) {
-            annotatedClass = new AnnotatedClass(classElement, this.elements);
+            annotatedClass = new AnnotatedClass(classElement, this.elements, this.getRSymbols());
             annotatedClassHashMap.put(fullClassName, annotatedClass);
         }
         return annotatedClass;
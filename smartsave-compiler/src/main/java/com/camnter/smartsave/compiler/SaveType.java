@@ -14,6 +14,12 @@ public interface SaveType {
     ClassName SAVE = ClassName.get("com.camnter.smartsave.save",
         "Save");
 
+    ClassName SAVE_INDEX = ClassName.get("com.camnter.smartsave.save",
+        "SaveIndex");
+
+    ClassName SAVE_INDEX_FACTORY = ClassName.get("com.camnter.smartsave.save",
+        "SaveIndex", "Factory");
+
     ClassName ANDROID_ON_CLICK_LISTENER = ClassName.get("android.view", "View", "OnClickListener");
 
     ClassName ANDROID_VIEW = ClassName.get("android.view", "View");
@@ -1,8 +1,11 @@
 package com.camnter.smartsave.compiler.annotation;
 
+import com.camnter.annotation.processor.common.symbol.RSymbol;
+import com.camnter.annotation.processor.common.symbol.RSymbols;
 import com.camnter.smartsave.compiler.SaveHelper;
 import com.camnter.smartsave.compiler.SaveType;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
@@ -11,6 +14,7 @@ import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
 import java.util.ArrayList;
 import java.util.List;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
@@ -23,6 +27,7 @@ import javax.lang.model.util.Elements;
 public class AnnotatedClass {
 
     private final Elements elements;
+    private final RSymbols rSymbols;
     private final TypeElement annotatedElement;
     private final List<SaveField> saveFields;
     private final List<SaveColorField> saveColorFields;
@@ -34,8 +39,10 @@ public class AnnotatedClass {
 
 
     public AnnotatedClass(TypeElement annotatedElement,
-                          Elements elements) {
+                          Elements elements,
+                          RSymbols rSymbols) {
         this.elements = elements;
+        this.rSymbols = rSymbols;
         this.annotatedElement = annotatedElement;
         this.annotatedElementType = this.annotatedElement.asType();
         this.annotatedElementSimpleName = this.annotatedElement.getSimpleName().toString();
@@ -74,8 +81,7 @@ public class AnnotatedClass {
         MethodSpec.Builder unSaveMethodBuilder = this.unSaveMethodBuilder();
 
         // _Save
-        TypeSpec saveClass = TypeSpec.classBuilder(
-            this.annotatedElementSimpleName + "_Save")
+        TypeSpec saveClass = TypeSpec.classBuilder(this.getSaveClassName().simpleName())
             .addModifiers(Modifier.PUBLIC)
             .addTypeVariable(
                 TypeVariableName.get("T", TypeName.get(this.annotatedElementType)))
@@ -85,10 +91,7 @@ public class AnnotatedClass {
             .addMethod(unSaveMethodBuilder.build())
             .build();
 
-        final String packageName = this.elements
-            .getPackageOf(this.annotatedElement).getQualifiedName().toString();
-
-        return JavaFile.builder(packageName, saveClass).build();
+        return JavaFile.builder(this.getSaveClassName().packageName(), saveClass).build();
 
     }
 
@@ -114,7 +117,7 @@ public class AnnotatedClass {
                     "target.$N = ($T) (adapter.findViewById(target, $L))",
                     saveField.getFieldName(),
                     ClassName.get(fieldType),
-                    saveField.getResId()
+                    this.getResCode(saveField)
                 );
             } else if ((SaveType.STRING.toString()).equals(
                 (fieldTypeString = fieldType.toString()))) {
@@ -122,14 +125,14 @@ public class AnnotatedClass {
                 saveMethodBuilder.addStatement(
                     "target.$N = adapter.getString(target, $L)",
                     saveField.getFieldName(),
-                    saveField.getResId()
+                    this.getResCode(saveField)
                 );
             } else if ((SaveType.ANDROID_DRAWABLE.toString()).equals(fieldTypeString)) {
                 // getDrawable
                 saveMethodBuilder.addStatement(
                     "target.$N = adapter.getDrawable(target, $L)",
                     saveField.getFieldName(),
-                    saveField.getResId()
+                    this.getResCode(saveField)
                 );
             }
         }
@@ -139,7 +142,7 @@ public class AnnotatedClass {
             saveMethodBuilder.addStatement(
                 "target.$N = adapter.getColor(target, $L)",
                 saveColorField.getFieldName(),
-                saveColorField.getResId()
+                this.getResCode(saveColorField)
             );
         }
 
@@ -152,14 +155,14 @@ public class AnnotatedClass {
                 saveMethodBuilder.addStatement(
                     "target.$N = adapter.getDimension(target, $L)",
                     saveDimensionField.getFieldName(),
-                    saveDimensionField.getResId()
+                    this.getResCode(saveDimensionField)
                 );
             } else if (typeName.equals(TypeName.INT)) {
                 // getDimensionPixelSize
                 saveMethodBuilder.addStatement(
                     "target.$N = adapter.getDimensionPixelSize(target, $L)",
                     saveDimensionField.getFieldName(),
-                    saveDimensionField.getResId()
+                    this.getResCode(saveDimensionField)
                 );
             }
         }
@@ -170,7 +173,7 @@ public class AnnotatedClass {
             for (final int id : saveOnClickMethod.getIds()) {
                 saveMethodBuilder.addStatement(
                     "adapter.findViewById(target, $L).setOnClickListener($L)",
-                    id,
+                    this.getResCode(saveOnClickMethod.getElement(), id),
                     TypeSpec.anonymousClassBuilder("")
                         .addSuperinterface(SaveType.ANDROID_ON_CLICK_LISTENER)
                         .addMethod(
@@ -243,7 +246,7 @@ public class AnnotatedClass {
             for (final int id : saveOnClickMethod.getIds()) {
                 unSaveMethodBuilder.addStatement(
                     "adapter.findViewById(target, $L).setOnClickListener(null)",
-                    id
+                    this.getResCode(saveOnClickMethod.getElement(), id)
                 );
             }
         }
@@ -252,8 +255,63 @@ public class AnnotatedClass {
     }
 
 
+    private CodeBlock getResCode(ResourceAnnotationField<?> field) {
+        return this.getResCode(field.getVariableElement(), field.getResId());
+    }
+
+
+    /**
+     * 注解里写的是 R.id.xxx 的话，生成代码也引用 R.id.xxx，否则是字面量
+     * android.R 写全名，不 import
+     *
+     * @param element 被注解元素
+     * @param resId 资源 id
+     * @return CodeBlock
+     */
+    private CodeBlock getResCode(Element element, int resId) {
+        final RSymbol symbol = this.rSymbols.resolve(element, resId);
+        if (symbol == null) {
+            return CodeBlock.of("$L", resId);
+        }
+        final ClassName rClassName = ClassName.get(symbol.getPackageName(), "R",
+            symbol.getType());
+        return symbol.isFramework()
+               ? CodeBlock.of("$L.$N", rClassName, symbol.getName())
+               : CodeBlock.of("$T.$N", rClassName, symbol.getName());
+    }
+
+
     public String getFullClassName() {
         return this.annotatedElement.getQualifiedName().toString();
     }
 
+
+    ClassName getTargetClassName() {
+        return ClassName.get(this.annotatedElement);
+    }
+
+
+    ClassName getSaveClassName() {
+        final String packageName = this.elements
+            .getPackageOf(this.annotatedElement).getQualifiedName().toString();
+        return ClassName.get(packageName, this.annotatedElementSimpleName + "_Save");
+    }
+
+
+    /**
+     * 索引类在别的包内，只有 public 的 target（ 包括外部类 ）才能放进索引
+     *
+     * @return 是否
+     */
+    public boolean isPublic() {
+        for (Element element = this.annotatedElement;
+             element.getKind().isClass() || element.getKind().isInterface();
+             element = element.getEnclosingElement()) {
+            if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
@@ -0,0 +1,118 @@
+package com.camnter.smartsave.compiler.annotation;
+
+import com.camnter.smartsave.compiler.SaveType;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.Modifier;
+
+/**
+ * smartsave.index 选项生成的索引类
+ *
+ * public final class AppSaveIndex implements SaveIndex {
+ * -   @Override
+ * -   public void loadInto(Map<Class<?>, SaveIndex.Factory> factories) {
+ * -       factories.put(MainActivity.class, new Factory(0));
+ * -   }
+ * -
+ * -   private static final class Factory implements SaveIndex.Factory {
+ * -       ...
+ * -       @Override
+ * -       public Save create() {
+ * -           switch (id) {
+ * -               case 0:
+ * -               return new MainActivity_Save();
+ * -               ...
+ * -           }
+ * -       }
+ * -   }
+ * }
+ *
+ * 一个 Factory 类 + switch，用到哪个 _Save 才加载哪个
+ *
+ * @author CaMnter
+ */
+
+public class SaveIndexClass {
+
+    private static final String FACTORY = "Factory";
+
+    private final ClassName indexClassName;
+    private final List<AnnotatedClass> annotatedClasses;
+
+
+    public SaveIndexClass(String indexName, List<AnnotatedClass> annotatedClasses) {
+        this.indexClassName = ClassName.bestGuess(indexName);
+        this.annotatedClasses = annotatedClasses;
+    }
+
+
+    public JavaFile getJavaFile() {
+        final ClassName factoryClassName = this.indexClassName.nestedClass(FACTORY);
+
+        // void loadInto(Map<Class<?>, SaveIndex.Factory> factories)
+        final TypeName factories = ParameterizedTypeName.get(
+            ClassName.get(Map.class),
+            ParameterizedTypeName.get(ClassName.get(Class.class),
+                WildcardTypeName.subtypeOf(Object.class)),
+            SaveType.SAVE_INDEX_FACTORY
+        );
+        final MethodSpec.Builder loadIntoMethodBuilder = MethodSpec
+            .methodBuilder("loadInto")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(factories, "factories");
+
+        // switch (id)
+        final CodeBlock.Builder createCodeBuilder = CodeBlock.builder()
+            .beginControlFlow("switch (id)");
+        for (int i = 0; i < this.annotatedClasses.size(); i++) {
+            final AnnotatedClass annotatedClass = this.annotatedClasses.get(i);
+            loadIntoMethodBuilder.addStatement("factories.put($T.class, new $T($L))",
+                annotatedClass.getTargetClassName(), factoryClassName, i);
+            createCodeBuilder.add("case $L:\n", i)
+                .indent()
+                .addStatement("return new $T()", annotatedClass.getSaveClassName())
+                .unindent();
+        }
+        createCodeBuilder.add("default:\n")
+            .indent()
+            .addStatement("throw new $T($S + id)", IllegalStateException.class, "Unknown save ")
+            .unindent()
+            .endControlFlow();
+
+        final TypeSpec factoryClass = TypeSpec.classBuilder(FACTORY)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .addSuperinterface(SaveType.SAVE_INDEX_FACTORY)
+            .addField(FieldSpec.builder(int.class, "id", Modifier.PRIVATE, Modifier.FINAL).build())
+            .addMethod(MethodSpec.constructorBuilder()
+                .addParameter(int.class, "id")
+                .addStatement("this.id = id")
+                .build())
+            .addMethod(MethodSpec.methodBuilder("create")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(SaveType.SAVE)
+                .addCode(createCodeBuilder.build())
+                .build())
+            .build();
+
+        final TypeSpec indexClass = TypeSpec.classBuilder(this.indexClassName.simpleName())
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addSuperinterface(SaveType.SAVE_INDEX)
+            .addMethod(loadIntoMethodBuilder.build())
+            .addType(factoryClass)
+            .build();
+
+        return JavaFile.builder(this.indexClassName.packageName(), indexClass).build();
+    }
+
+}
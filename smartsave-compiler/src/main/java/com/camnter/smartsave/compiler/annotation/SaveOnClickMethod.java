@@ -17,6 +17,7 @@ import javax.lang.model.element.VariableElement;
 public class SaveOnClickMethod {
 
     private int[] ids;
+    private Element element;
     private Name methodName;
     private boolean firstParameterViewExist = false;
 
@@ -28,6 +29,7 @@ public class SaveOnClickMethod {
                     SaveOnClick.class.getSimpleName()));
         }
 
+        this.element = element;
         final ExecutableElement methodElement = (ExecutableElement) element;
         this.methodName = methodElement.getSimpleName();
         this.ids = methodElement.getAnnotation(SaveOnClick.class).value();
@@ -70,6 +72,11 @@ public class SaveOnClickMethod {
     }
 
 
+    Element getElement() {
+        return this.element;
+    }
+
+
     boolean isFirstParameterViewExist() {
         return this.firstParameterViewExist;
     }
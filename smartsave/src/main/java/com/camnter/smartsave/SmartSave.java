@@ -6,10 +6,15 @@ import com.camnter.smartsave.adapter.ActivityAdapter;
 import com.camnter.smartsave.adapter.Adapter;
 import com.camnter.smartsave.adapter.ViewAdapter;
 import com.camnter.smartsave.save.Save;
-import java.util.HashMap;
+import com.camnter.smartsave.save.SaveIndex;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * 1.SAVE_MAP 以 target class 为 key，_Save 无状态，数量等于被注解的类的数量
+ * 2.优先从 SaveIndex 的 Factory 中 new 出 _Save
+ * 3.索引中没有（ 没设置 smartsave.index 的 module ），再 Class.forName 反射实例化
+ *
  * @author CaMnter
  */
 
@@ -18,7 +23,18 @@ public final class SmartSave {
     private static final ActivityAdapter ACTIVITY_ADAPTER = new ActivityAdapter();
     private static final ViewAdapter VIEW_ADAPTER = new ViewAdapter();
 
-    private static final Map<String, Save> SAVE_MAP = new HashMap<>();
+    private static final Map<Class<?>, Save> SAVE_MAP = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, SaveIndex.Factory> FACTORY_MAP = new ConcurrentHashMap<>();
+
+
+    /**
+     * 注册 SaveProcessor 生成的索引
+     *
+     * @param index smartsave.index 选项生成的类
+     */
+    public static void addIndex(final SaveIndex index) {
+        index.loadInto(FACTORY_MAP);
+    }
 
 
     public static void save(final Activity activity) {
@@ -43,35 +59,40 @@ public final class SmartSave {
 
     @SuppressWarnings("unchecked")
     private static void save(final Object target, final Adapter adapter) {
-        final String targetFullName = target.getClass().getName();
+        final Class<?> targetClass = target.getClass();
         try {
-            Save save = SAVE_MAP.get(targetFullName);
-            if (save == null) {
-                Class<?> saveClass = Class.forName(targetFullName + "_Save");
-                save = (Save) saveClass.newInstance();
-                SAVE_MAP.put(targetFullName, save);
-            }
-            save.save(target, adapter);
+            getSave(targetClass).save(target, adapter);
         } catch (Exception e) {
-            throw new RuntimeException("[SmartSave]   [save]   " + targetFullName, e);
+            throw new RuntimeException("[SmartSave]   [save]   " + targetClass.getName(), e);
         }
     }
 
 
     @SuppressWarnings("unchecked")
     private static void unSave(final Object target, final Adapter adapter) {
-        final String targetFullName = target.getClass().getName();
+        final Class<?> targetClass = target.getClass();
         try {
-            Save save = SAVE_MAP.get(targetFullName);
-            if (save == null) {
-                Class<?> saveClass = Class.forName(targetFullName + "_Save");
+            getSave(targetClass).unSave(target, adapter);
+        } catch (Exception e) {
+            throw new RuntimeException("[SmartSave]   [unSave]   " + targetClass.getName(), e);
+        }
+    }
+
+
+    private static Save getSave(final Class<?> targetClass) throws Exception {
+        Save save = SAVE_MAP.get(targetClass);
+        if (save == null) {
+            final SaveIndex.Factory factory = FACTORY_MAP.get(targetClass);
+            if (factory != null) {
+                save = factory.create();
+            } else {
+                Class<?> saveClass = Class.forName(targetClass.getName() + "_Save", true,
+                    targetClass.getClassLoader());
                 save = (Save) saveClass.newInstance();
-                SAVE_MAP.put(targetFullName, save);
             }
-            save.unSave(target, adapter);
-        } catch (Exception e) {
-            throw new RuntimeException("[SmartSave]   [unSave]   " + targetFullName, e);
+            SAVE_MAP.put(targetClass, save);
         }
+        return save;
     }
 
 }
@@ -0,0 +1,35 @@
+package com.camnter.smartsave.save;
+
+import java.util.Map;
+
+/**
+ * 一个 module 的 _Save 索引，设置了 smartsave.index 选项时由 SaveProcessor 生成
+ *
+ * SmartSave.addIndex(new AppSaveIndex()) 之后，save(...) 直接 new 出 _Save，不需要 Class.forName
+ *
+ * javaCompileOptions {
+ *     annotationProcessorOptions {
+ *         arguments = [ 'smartsave.index': 'com.camnter.newlife.AppSaveIndex' ]
+ *     }
+ * }
+ *
+ * @author CaMnter
+ */
+
+public interface SaveIndex {
+
+    /**
+     * 放入每个 target class 对应的 _Save 工厂
+     *
+     * @param factories target class --> Factory
+     */
+    void loadInto(Map<Class<?>, Factory> factories);
+
+
+    interface Factory {
+
+        Save create();
+
+    }
+
+}